@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableKey;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ParallelStatsDisabledTest.class)
+public class BulkMetaDataValidationIT extends ParallelStatsDisabledIT {
+
+    private static Properties bulkValidationProps() {
+        Properties props = new Properties();
+        props.setProperty(QueryServices.METADATA_BULK_VALIDATION_ENABLED_ATTRIB, "true");
+        props.setProperty(QueryServices.METADATA_BULK_VALIDATION_WINDOW_MS_ATTRIB, "60000");
+        return props;
+    }
+
+    private static void createTable(Connection conn, String tableName) throws Exception {
+        conn.createStatement().execute("CREATE TABLE " + tableName
+                + " (K INTEGER PRIMARY KEY, V INTEGER)");
+    }
+
+    private static Set<String> validate(Connection conn, PTable... tables) throws Exception {
+        List<PTable> changedTables = conn.unwrap(PhoenixConnection.class).getQueryServices()
+                .validateTableTimestamps(Arrays.asList(tables), HConstants.LATEST_TIMESTAMP);
+        Set<String> changedTableNames = new HashSet<>();
+        for (PTable table : changedTables) {
+            changedTableNames.add(table.getName().getString());
+        }
+        return changedTableNames;
+    }
+
+    @Test
+    public void testUnchangedTableIsCurrent() throws Exception {
+        String tableName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            createTable(conn, tableName);
+            assertTrue(validate(conn, PhoenixRuntime.getTable(conn, tableName)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testAlteredTableIsChanged() throws Exception {
+        String tableName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            createTable(conn, tableName);
+            PTable table = PhoenixRuntime.getTable(conn, tableName);
+            try (Connection otherConn = DriverManager.getConnection(getUrl())) {
+                otherConn.createStatement().execute("ALTER TABLE " + tableName
+                        + " ADD V2 INTEGER");
+            }
+            assertEquals(new HashSet<>(Arrays.asList(tableName)), validate(conn, table));
+        }
+    }
+
+    @Test
+    public void testOnlyChangedTablesOfABatchAreReported() throws Exception {
+        String unchangedName = generateUniqueName();
+        String alteredName = generateUniqueName();
+        String droppedName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            createTable(conn, unchangedName);
+            createTable(conn, alteredName);
+            createTable(conn, droppedName);
+            PTable unchanged = PhoenixRuntime.getTable(conn, unchangedName);
+            PTable altered = PhoenixRuntime.getTable(conn, alteredName);
+            PTable dropped = PhoenixRuntime.getTable(conn, droppedName);
+            try (Connection otherConn = DriverManager.getConnection(getUrl())) {
+                otherConn.createStatement().execute("ALTER TABLE " + alteredName
+                        + " ADD V2 INTEGER");
+                otherConn.createStatement().execute("DROP TABLE " + droppedName);
+            }
+            assertEquals(new HashSet<>(Arrays.asList(alteredName, droppedName)),
+                    validate(conn, unchanged, altered, dropped));
+        }
+    }
+
+    @Test
+    public void testTableNotValidatedInBulkIsNotServedStale() throws Exception {
+        String tableName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl(), bulkValidationProps())) {
+            // the table is cached by its creation, which is no bulk validation
+            createTable(conn, tableName);
+            PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+            assertFalse(pconn.isBulkValidated(pconn.getTableRef(new PTableKey(null, tableName))));
+            try (Connection otherConn = DriverManager.getConnection(getUrl())) {
+                otherConn.createStatement().execute("ALTER TABLE " + tableName
+                        + " ADD V2 INTEGER");
+            }
+            // the table updates its cache always, so the query sees the new column
+            ResultSet rs = conn.createStatement().executeQuery("SELECT V2 FROM " + tableName);
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testViewOfChangedBaseTableIsNotServedStale() throws Exception {
+        String tableName = generateUniqueName();
+        String viewName = generateUniqueName();
+        String indexName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl(), bulkValidationProps())) {
+            createTable(conn, tableName);
+            conn.createStatement().execute("CREATE VIEW " + viewName + " AS SELECT * FROM "
+                    + tableName);
+            try (Connection otherConn = DriverManager.getConnection(getUrl())) {
+                otherConn.createStatement().execute("ALTER TABLE " + tableName
+                        + " ADD V2 INTEGER");
+                otherConn.createStatement().execute("CREATE INDEX " + indexName + " ON "
+                        + tableName + " (V)");
+            }
+            // the view did not change itself, but it inherits the new column and index
+            ResultSet rs = conn.createStatement().executeQuery("SELECT V2 FROM " + viewName);
+            assertFalse(rs.next());
+            PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+            assertFalse(pconn.isBulkValidated(pconn.getTableRef(new PTableKey(null, viewName))));
+            conn.createStatement().execute("UPSERT INTO " + viewName
+                    + " (K, V, V2) VALUES (1, 2, 3)");
+            conn.commit();
+        }
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM "
+                    + indexName);
+            assertTrue(rs.next());
+            assertEquals(1, rs.getLong(1));
+        }
+    }
+
+    @Test
+    public void testViewOfRefreshedBaseTableIsNotServedStale() throws Exception {
+        String tableName = generateUniqueName();
+        String viewName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl(), bulkValidationProps())) {
+            createTable(conn, tableName);
+            conn.createStatement().execute("CREATE VIEW " + viewName + " AS SELECT * FROM "
+                    + tableName);
+            try (Connection otherConn = DriverManager.getConnection(getUrl())) {
+                otherConn.createStatement().execute("ALTER TABLE " + tableName
+                        + " ADD V2 INTEGER");
+            }
+            // the base table is current again in the cache, but the view is still combined
+            // with its previous version
+            conn.createStatement().executeQuery("SELECT V2 FROM " + tableName).next();
+            ResultSet rs = conn.createStatement().executeQuery("SELECT V2 FROM " + viewName);
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testUnchangedTableIsNotCheckedAgainInTheWindow() throws Exception {
+        String tableName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl(), bulkValidationProps())) {
+            createTable(conn, tableName);
+            conn.createStatement().executeQuery("SELECT * FROM " + tableName).next();
+            PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+            assertTrue(pconn.isBulkValidated(pconn.getTableRef(new PTableKey(null, tableName))));
+        }
+    }
+}
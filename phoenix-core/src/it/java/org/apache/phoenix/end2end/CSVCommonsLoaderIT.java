@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Properties;
 
+import org.apache.phoenix.thirdparty.com.google.common.base.Strings;
 import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -45,6 +46,7 @@ import org.apache.phoenix.schema.types.PInteger;
 import org.apache.phoenix.schema.types.PArrayDataType;
 import org.apache.phoenix.util.CSVCommonsLoader;
 import org.apache.phoenix.util.DateUtil;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
 import org.apache.phoenix.util.PhoenixRuntime;
 import org.junit.Rule;
 import org.junit.Test;
@@ -105,6 +107,11 @@ public class CSVCommonsLoaderIT extends ParallelStatsDisabledIT {
             + "\n"
             + CSV_VALUES_BAD_ENCAPSULATED_CONTROL_CHARS;
 
+    // enough rows of padded values for the file to be split in about ten chunks
+    private static final int PARALLEL_ROW_COUNT = 100000;
+    private static final int PARALLEL_BAD_RECORD_INTERVAL = 10000;
+    private static final String PARALLEL_PADDING = Strings.repeat("x", 100);
+
     @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
 
     @Test
@@ -803,4 +810,122 @@ public class CSVCommonsLoaderIT extends ParallelStatsDisabledIT {
         assertFalse(rs.next());
 
     }
-}
\ No newline at end of file
+
+    private static String createParallelTable(Connection conn) throws SQLException {
+        String tableName = generateUniqueName();
+        conn.createStatement().execute("CREATE TABLE " + tableName
+                + " (ID INTEGER NOT NULL PRIMARY KEY, VAL INTEGER, PAD VARCHAR)");
+        return tableName;
+    }
+
+    /**
+     * Writes {@link #PARALLEL_ROW_COUNT} rows, every {@link #PARALLEL_BAD_RECORD_INTERVAL}th of
+     * them with a value that is not an integer if badRecords is set.
+     */
+    private File writeParallelCsvFile(boolean badRecords) throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < PARALLEL_ROW_COUNT; i++) {
+            csv.append(i).append(',');
+            if (badRecords && i % PARALLEL_BAD_RECORD_INTERVAL == 0) {
+                csv.append("BAD");
+            } else {
+                csv.append(i);
+            }
+            csv.append(',').append(PARALLEL_PADDING).append('\n');
+        }
+        File csvFile = tempFolder.newFile(generateUniqueName() + ".csv");
+        FileUtils.writeStringToFile(csvFile, csv.toString());
+        return csvFile;
+    }
+
+    private static long getRowCount(Connection conn, String tableName) throws SQLException {
+        ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM " + tableName);
+        assertTrue(rs.next());
+        return rs.getLong(1);
+    }
+
+    private static int getLoaderThreadCount() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("phoenix-csv-loader-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void waitForLoaderThreadsToStop() throws InterruptedException {
+        long timeout = EnvironmentEdgeManager.currentTimeMillis() + 60000;
+        while (getLoaderThreadCount() > 0
+                && EnvironmentEdgeManager.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, getLoaderThreadCount());
+    }
+
+    @Test
+    public void testCSVUpsertWithMultipleThreads() throws Exception {
+        try (PhoenixConnection conn = DriverManager.getConnection(getUrl())
+                .unwrap(PhoenixConnection.class)) {
+            String tableName = createParallelTable(conn);
+            File csvFile = writeParallelCsvFile(false);
+
+            CSVCommonsLoader csvUtil = new CSVCommonsLoader(conn, tableName, null, true,
+                    ',', '"', null, CSVCommonsLoader.DEFAULT_ARRAY_ELEMENT_SEPARATOR, 4);
+            csvUtil.upsert(csvFile.getAbsolutePath());
+            waitForLoaderThreadsToStop();
+
+            assertEquals(PARALLEL_ROW_COUNT, csvUtil.getTotalUpsertCount());
+            assertEquals(0, csvUtil.getBadRecordCount());
+            assertEquals(PARALLEL_ROW_COUNT, getRowCount(conn, tableName));
+            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM "
+                    + tableName + " WHERE ID = VAL AND PAD = '" + PARALLEL_PADDING + "'");
+            assertTrue(rs.next());
+            assertEquals(PARALLEL_ROW_COUNT, rs.getLong(1));
+        }
+    }
+
+    @Test
+    public void testCSVUpsertWithMultipleThreadsCountsBadRecords() throws Exception {
+        try (PhoenixConnection conn = DriverManager.getConnection(getUrl())
+                .unwrap(PhoenixConnection.class)) {
+            String tableName = createParallelTable(conn);
+            File csvFile = writeParallelCsvFile(true);
+
+            // the bad records are spread over the chunks loaded by the different threads
+            CSVCommonsLoader csvUtil = new CSVCommonsLoader(conn, tableName, null, false,
+                    ',', '"', null, CSVCommonsLoader.DEFAULT_ARRAY_ELEMENT_SEPARATOR, 4);
+            csvUtil.upsert(csvFile.getAbsolutePath());
+            waitForLoaderThreadsToStop();
+
+            long badRecordCount = PARALLEL_ROW_COUNT / PARALLEL_BAD_RECORD_INTERVAL;
+            assertEquals(badRecordCount, csvUtil.getBadRecordCount());
+            assertEquals(PARALLEL_ROW_COUNT - badRecordCount, csvUtil.getTotalUpsertCount());
+            assertEquals(PARALLEL_ROW_COUNT - badRecordCount, getRowCount(conn, tableName));
+        }
+    }
+
+    @Test
+    public void testCSVUpsertWithMultipleThreads_StrictModeStopsAllThreads() throws Exception {
+        try (PhoenixConnection conn = DriverManager.getConnection(getUrl())
+                .unwrap(PhoenixConnection.class)) {
+            String tableName = createParallelTable(conn);
+            // the first record of the first chunk is bad
+            File csvFile = writeParallelCsvFile(true);
+
+            CSVCommonsLoader csvUtil = new CSVCommonsLoader(conn, tableName, null, true,
+                    ',', '"', null, CSVCommonsLoader.DEFAULT_ARRAY_ELEMENT_SEPARATOR, 2);
+            try {
+                csvUtil.upsert(csvFile.getAbsolutePath());
+                fail("Running an upsert with data that can't be upserted in strict mode "
+                        + "should throw an exception");
+            } catch (IllegalDataException e) {
+                // Expected
+            }
+            // the loaders left waiting for chunks are interrupted rather than leaked
+            waitForLoaderThreadsToStop();
+            // and the rest of the input is not handed out once a loader failed
+            assertTrue(getRowCount(conn, tableName) < PARALLEL_ROW_COUNT);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.phoenix.mapreduce.index.IndexTool;
+import org.apache.phoenix.mapreduce.index.PhoenixIndexImportHFileMapper;
+import org.apache.phoenix.query.BaseTest;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.PIndexState;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.QueryUtil;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.apache.phoenix.util.SchemaUtil;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
+
+/**
+ * Tests building a global index with the IndexTool by writing and bulk loading HFiles
+ */
+@Category(NeedsOwnMiniClusterTest.class)
+public class IndexToolHFileIT extends BaseTest {
+
+    private static final int ROW_COUNT = 10;
+
+    @BeforeClass
+    public static synchronized void setup() throws Exception {
+        Map<String, String> serverProps = Maps.newHashMapWithExpectedSize(2);
+        serverProps.put(QueryServices.MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS_ATTRIB,
+                Long.toString(5));
+        serverProps.put(QueryServices.EXTRA_JDBC_ARGUMENTS_ATTRIB,
+                QueryServicesOptions.DEFAULT_EXTRA_JDBC_ARGUMENTS);
+        setUpTestDriver(new ReadOnlyProps(serverProps.entrySet().iterator()));
+    }
+
+    @After
+    public void cleanUp() {
+        PhoenixIndexImportHFileMapper.setDropIndexRowForTesting(false);
+    }
+
+    private static String createTableAndAsyncIndex(String schemaName, String dataTableName,
+            String indexTableName) throws Exception {
+        String dataTableFullName = SchemaUtil.getTableName(schemaName, dataTableName);
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            conn.createStatement().execute("CREATE TABLE " + dataTableFullName
+                    + " (ID INTEGER NOT NULL PRIMARY KEY, VAL1 INTEGER, VAL2 VARCHAR)");
+            PreparedStatement stmt = conn.prepareStatement("UPSERT INTO " + dataTableFullName
+                    + " VALUES (?, ?, ?)");
+            for (int i = 0; i < ROW_COUNT; i++) {
+                stmt.setInt(1, i);
+                stmt.setInt(2, i * 10);
+                stmt.setString(3, "v" + i);
+                stmt.execute();
+            }
+            conn.commit();
+            conn.createStatement().execute("CREATE INDEX " + indexTableName + " ON "
+                    + dataTableFullName + " (VAL1) INCLUDE (VAL2) ASYNC SPLIT ON (50)");
+        }
+        return dataTableFullName;
+    }
+
+    private static IndexTool runIndexTool(String schemaName, String dataTableName,
+            String indexTableName, int expectedStatus) throws Exception {
+        IndexTool indexTool = new IndexTool();
+        indexTool.setConf(new Configuration(getUtility().getConfiguration()));
+        int status = indexTool.run(new String[] {
+                "--schema=" + schemaName,
+                "--data-table=" + dataTableName,
+                "--index-table=" + indexTableName,
+                "-v", IndexTool.IndexVerifyType.AFTER.getValue(),
+                "-runfg",
+                "-hf" });
+        assertEquals(expectedStatus, status);
+        return indexTool;
+    }
+
+    private static PIndexState getIndexState(String indexTableFullName) throws Exception {
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            return PhoenixRuntime.getTableNoCache(conn, indexTableFullName).getIndexState();
+        }
+    }
+
+    private static void assertTempOutputDeleted(IndexTool indexTool) throws Exception {
+        Path outputPath = FileOutputFormat.getOutputPath(indexTool.getJob());
+        Path basePath = outputPath.getParent();
+        assertFalse(basePath.toString(),
+                basePath.getFileSystem(indexTool.getJob().getConfiguration()).exists(basePath));
+    }
+
+    @Test
+    public void testBuildIndexWithHFiles() throws Exception {
+        String schemaName = generateUniqueName();
+        String dataTableName = generateUniqueName();
+        String indexTableName = generateUniqueName();
+        String indexTableFullName = SchemaUtil.getTableName(schemaName, indexTableName);
+        String dataTableFullName =
+                createTableAndAsyncIndex(schemaName, dataTableName, indexTableName);
+        assertEquals(PIndexState.BUILDING, getIndexState(indexTableFullName));
+
+        IndexTool indexTool = runIndexTool(schemaName, dataTableName, indexTableName, 0);
+        assertEquals(PIndexState.ACTIVE, getIndexState(indexTableFullName));
+        assertTempOutputDeleted(indexTool);
+
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT \"0:VAL2\" FROM "
+                    + indexTableFullName + " ORDER BY \"0:VAL1\"");
+            for (int i = 0; i < ROW_COUNT; i++) {
+                assertTrue(rs.next());
+                assertEquals("v" + i, rs.getString(1));
+            }
+            assertFalse(rs.next());
+
+            String query = "SELECT VAL2 FROM " + dataTableFullName + " WHERE VAL1 = 70";
+            rs = conn.createStatement().executeQuery("EXPLAIN " + query);
+            assertTrue(QueryUtil.getExplainPlan(rs).contains(indexTableFullName));
+            rs = conn.createStatement().executeQuery(query);
+            assertTrue(rs.next());
+            assertEquals("v7", rs.getString(1));
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testFailedVerificationLeavesIndexBuilding() throws Exception {
+        String schemaName = generateUniqueName();
+        String dataTableName = generateUniqueName();
+        String indexTableName = generateUniqueName();
+        String indexTableFullName = SchemaUtil.getTableName(schemaName, indexTableName);
+        String dataTableFullName =
+                createTableAndAsyncIndex(schemaName, dataTableName, indexTableName);
+
+        PhoenixIndexImportHFileMapper.setDropIndexRowForTesting(true);
+        IndexTool indexTool = runIndexTool(schemaName, dataTableName, indexTableName, -1);
+        assertEquals(PIndexState.BUILDING, getIndexState(indexTableFullName));
+        assertTempOutputDeleted(indexTool);
+
+        // the index missing a row is not used by the queries
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            String query = "SELECT COUNT(VAL2) FROM " + dataTableFullName + " WHERE VAL1 >= 0";
+            ResultSet rs = conn.createStatement().executeQuery("EXPLAIN " + query);
+            assertFalse(QueryUtil.getExplainPlan(rs).contains(indexTableFullName));
+            rs = conn.createStatement().executeQuery(query);
+            assertTrue(rs.next());
+            assertEquals(ROW_COUNT, rs.getLong(1));
+        }
+    }
+}
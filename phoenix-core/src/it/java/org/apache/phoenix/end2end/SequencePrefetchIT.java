@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.phoenix.query.BaseTest;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
+
+/**
+ * Tests the prefetch of the next block of sequence values, which is configured for the client.
+ */
+@Category(NeedsOwnMiniClusterTest.class)
+public class SequencePrefetchIT extends BaseTest {
+
+    private static final String SCHEMA_NAME = "S";
+
+    @BeforeClass
+    public static synchronized void doSetup() throws Exception {
+        Map<String, String> props = Maps.newHashMapWithExpectedSize(2);
+        props.put(QueryServices.SEQUENCE_PREFETCH_THRESHOLD_ATTRIB, "0.5");
+        props.put(QueryServices.RETURN_SEQUENCE_VALUES_ATTRIB, "true");
+        setUpTestDriver(new ReadOnlyProps(props.entrySet().iterator()));
+    }
+
+    private static String createSequence(Connection conn) throws Exception {
+        String sequenceName = generateUniqueSequenceName();
+        conn.createStatement().execute("CREATE SEQUENCE " + SCHEMA_NAME + "." + sequenceName
+                + " CACHE 10");
+        return sequenceName;
+    }
+
+    private static long nextValue(Connection conn, String sequenceName) throws Exception {
+        ResultSet rs = conn.createStatement().executeQuery("SELECT NEXT VALUE FOR "
+                + SCHEMA_NAME + "." + sequenceName);
+        assertTrue(rs.next());
+        return rs.getLong(1);
+    }
+
+    private static long getServerValue(String sequenceName) throws Exception {
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            PreparedStatement stmt = conn.prepareStatement("SELECT CURRENT_VALUE FROM "
+                    + "\"SYSTEM\".\"SEQUENCE\" WHERE SEQUENCE_SCHEMA=? AND SEQUENCE_NAME=?");
+            stmt.setString(1, SCHEMA_NAME);
+            stmt.setString(2, sequenceName);
+            ResultSet rs = stmt.executeQuery();
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Waits for the prefetch to allocate the block of values ending before the given value
+     */
+    private static void waitForServerValue(String sequenceName, long value) throws Exception {
+        long endAt = EnvironmentEdgeManager.currentTimeMillis() + 30000;
+        while (getServerValue(sequenceName) != value) {
+            assertTrue("Timed out waiting for the prefetch of " + sequenceName,
+                    EnvironmentEdgeManager.currentTimeMillis() < endAt);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testValuesAreContiguousAcrossBlocks() throws Exception {
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            String sequenceName = createSequence(conn);
+            for (long value = 1; value <= 5; value++) {
+                assertEquals(value, nextValue(conn, sequenceName));
+            }
+            // half of the first block is handed out, so the second one is fetched
+            waitForServerValue(sequenceName, 21);
+            for (long value = 6; value <= 35; value++) {
+                assertEquals(value, nextValue(conn, sequenceName));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentNextValueFor() throws Exception {
+        final int threads = 4;
+        final int valuesPerThread = 50;
+        // keeps the values cached by the client until all the threads are done
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            final String sequenceName = createSequence(conn);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<List<Long>>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(() -> {
+                        List<Long> values = new ArrayList<>();
+                        try (Connection threadConn = DriverManager.getConnection(getUrl())) {
+                            for (int j = 0; j < valuesPerThread; j++) {
+                                values.add(nextValue(threadConn, sequenceName));
+                            }
+                        }
+                        return values;
+                    }));
+                }
+                List<Long> allValues = new ArrayList<>();
+                for (Future<List<Long>> future : futures) {
+                    List<Long> values = future.get(60, TimeUnit.SECONDS);
+                    // each thread sees increasing values
+                    for (int j = 1; j < values.size(); j++) {
+                        assertTrue(values.toString(), values.get(j) > values.get(j - 1));
+                    }
+                    allValues.addAll(values);
+                }
+                // and no value is handed out twice or skipped
+                Collections.sort(allValues);
+                for (int j = 0; j < allValues.size(); j++) {
+                    assertEquals(Long.valueOf(j + 1), allValues.get(j));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testUnusedValuesReturnedOnClose() throws Exception {
+        String sequenceName;
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            sequenceName = createSequence(conn);
+            for (long value = 1; value <= 5; value++) {
+                assertEquals(value, nextValue(conn, sequenceName));
+            }
+            waitForServerValue(sequenceName, 21);
+        }
+        // closing the last connection returns the rest of the first block and the second block
+        assertEquals(6, getServerValue(sequenceName));
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            assertEquals(6, nextValue(conn, sequenceName));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ParallelStatsDisabledTest.class)
+public class SnapshotConnectionIT extends ParallelStatsDisabledIT {
+
+    @Test
+    public void testQueriesReadTheSnapshot() throws Exception {
+        String tableName = generateUniqueName();
+        String otherTableName = generateUniqueName();
+        String snapshotName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            conn.createStatement().execute("CREATE TABLE " + tableName
+                    + " (K VARCHAR PRIMARY KEY, V INTEGER)");
+            conn.createStatement().execute("CREATE TABLE " + otherTableName
+                    + " (K VARCHAR PRIMARY KEY, V INTEGER)");
+            conn.createStatement().execute("UPSERT INTO " + tableName + " VALUES ('a', 1)");
+            conn.createStatement().execute("UPSERT INTO " + tableName + " VALUES ('b', 2)");
+            conn.commit();
+            try (Admin admin = conn.unwrap(PhoenixConnection.class).getQueryServices()
+                    .getAdmin()) {
+                admin.flush(TableName.valueOf(tableName));
+                admin.snapshot(snapshotName, TableName.valueOf(tableName));
+            }
+            // not in the snapshot
+            conn.createStatement().execute("UPSERT INTO " + tableName + " VALUES ('c', 3)");
+            conn.commit();
+        }
+
+        Properties props = new Properties();
+        props.setProperty(PhoenixRuntime.SNAPSHOT_NAME_ATTRIB, snapshotName);
+        try (Connection conn = DriverManager.getConnection(getUrl(), props)) {
+            ResultSet rs = conn.createStatement().executeQuery(
+                    "SELECT K, V FROM " + tableName + " WHERE V > 0");
+            assertTrue(rs.next());
+            assertEquals("a", rs.getString(1));
+            assertEquals(1, rs.getInt(2));
+            assertTrue(rs.next());
+            assertEquals("b", rs.getString(1));
+            assertEquals(2, rs.getInt(2));
+            assertFalse(rs.next());
+
+            // the metadata still comes from the live system tables
+            rs = conn.getMetaData().getTables(null, null, tableName, null);
+            assertTrue(rs.next());
+
+            try {
+                conn.createStatement().executeQuery("SELECT * FROM " + otherTableName).next();
+                fail();
+            } catch (SQLException e) {
+                assertEquals(SQLExceptionCode.SNAPSHOT_QUERY_NOT_SUPPORTED.getErrorCode(),
+                        e.getErrorCode());
+            }
+
+            // derived connections share the restored snapshot
+            PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+            try (PhoenixConnection derived = new PhoenixConnection(pconn,
+                    System.currentTimeMillis())) {
+                assertSame(pconn.getTableResultIteratorFactory(),
+                        derived.getTableResultIteratorFactory());
+                derived.createStatement().executeQuery("SELECT COUNT(*) FROM "
+                        + tableName + " WHERE K > 'a'").next();
+                fail();
+            } catch (SQLException e) {
+                // aggregates are not run over snapshots
+                assertEquals(SQLExceptionCode.SNAPSHOT_QUERY_NOT_SUPPORTED.getErrorCode(),
+                        e.getErrorCode());
+            }
+            rs = conn.createStatement().executeQuery("SELECT K FROM " + tableName);
+            assertTrue(rs.next());
+        } finally {
+            try (Connection conn = DriverManager.getConnection(getUrl());
+                    Admin admin = conn.unwrap(PhoenixConnection.class).getQueryServices()
+                            .getAdmin()) {
+                admin.deleteSnapshot(snapshotName);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Properties;
+
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ParallelStatsDisabledTest.class)
+public class WriteBehindIT extends ParallelStatsDisabledIT {
+
+    private static Properties writeBehindProps() {
+        Properties props = new Properties();
+        props.setProperty(QueryServices.WRITE_BEHIND_ENABLED_ATTRIB, "true");
+        props.setProperty(PhoenixRuntime.UPSERT_BATCH_SIZE_ATTRIB, "10");
+        return props;
+    }
+
+    private static int countRows(String tableName) throws Exception {
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM " + tableName);
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    private static void upsert(Connection conn, String tableName, int rows) throws Exception {
+        PreparedStatement stmt = conn.prepareStatement("UPSERT INTO " + tableName
+                + " VALUES (?, ?)");
+        for (int i = 0; i < rows; i++) {
+            stmt.setInt(1, i);
+            stmt.setInt(2, i);
+            stmt.execute();
+        }
+    }
+
+    @Test
+    public void testCommitWritesEverything() throws Exception {
+        String tableName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl(), writeBehindProps())) {
+            conn.setAutoCommit(false);
+            conn.createStatement().execute("CREATE TABLE " + tableName
+                    + " (K INTEGER PRIMARY KEY, V INTEGER)");
+            upsert(conn, tableName, 25);
+            conn.commit();
+        }
+        assertEquals(25, countRows(tableName));
+    }
+
+    @Test
+    public void testCloseWaitsForHandedOffBatches() throws Exception {
+        String tableName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl(), writeBehindProps())) {
+            conn.setAutoCommit(false);
+            conn.createStatement().execute("CREATE TABLE " + tableName
+                    + " (K INTEGER PRIMARY KEY, V INTEGER)");
+            upsert(conn, tableName, 25);
+        }
+        // the two full batches were handed off and are written by the time close returns,
+        // while the last five rows were still buffered and are rolled back
+        assertEquals(20, countRows(tableName));
+    }
+}
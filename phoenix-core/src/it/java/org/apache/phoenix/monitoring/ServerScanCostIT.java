@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.phoenix.end2end.ParallelStatsDisabledIT;
+import org.apache.phoenix.end2end.ParallelStatsDisabledTest;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the cost of the scans returned by the region servers as a trailing row
+ */
+@Category(ParallelStatsDisabledTest.class)
+public class ServerScanCostIT extends ParallelStatsDisabledIT {
+
+    private static final int ROW_COUNT = 10;
+
+    private static String createTable() throws Exception {
+        String tableName = generateUniqueName();
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            conn.createStatement().execute("CREATE TABLE " + tableName
+                    + " (K INTEGER PRIMARY KEY, V INTEGER)");
+            for (int i = 0; i < ROW_COUNT; i++) {
+                conn.createStatement().execute("UPSERT INTO " + tableName + " VALUES (" + i
+                        + ", " + i + ")");
+            }
+            conn.commit();
+        }
+        return tableName;
+    }
+
+    private static Connection getRequestMetricsConnection() throws Exception {
+        Properties props = new Properties();
+        props.setProperty(QueryServices.COLLECT_REQUEST_LEVEL_METRICS, "true");
+        return DriverManager.getConnection(getUrl(), props);
+    }
+
+    private static Map<MetricType, Long> getMetrics(ResultSet rs, String tableName)
+            throws Exception {
+        Map<String, Map<MetricType, Long>> readMetrics =
+                PhoenixRuntime.getRequestReadMetricInfo(rs);
+        assertTrue(readMetrics.toString(), readMetrics.containsKey(tableName));
+        return readMetrics.get(tableName);
+    }
+
+    @Test
+    public void testScanCostOfFilteredScan() throws Exception {
+        String tableName = createTable();
+        try (Connection conn = getRequestMetricsConnection()) {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT K FROM " + tableName
+                    + " WHERE V > 3");
+            int rowCount = 0;
+            while (rs.next()) {
+                // the row holding the cost of the scan is not returned
+                assertEquals(rowCount + 4, rs.getInt(1));
+                rowCount++;
+            }
+            assertEquals(ROW_COUNT - 4, rowCount);
+            Map<MetricType, Long> metrics = getMetrics(rs, tableName);
+            assertEquals(ROW_COUNT, (long) metrics.get(MetricType.SERVER_ROWS_EXAMINED));
+            assertEquals(4, (long) metrics.get(MetricType.SERVER_ROWS_FILTERED));
+            assertTrue(metrics.get(MetricType.SERVER_CPU_TIME) >= 0);
+            assertEquals(0, (long) metrics.get(MetricType.SERVER_SPILL_BYTES));
+        }
+    }
+
+    @Test
+    public void testScanCostOfAggregateScan() throws Exception {
+        String tableName = createTable();
+        try (Connection conn = getRequestMetricsConnection()) {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM "
+                    + tableName);
+            assertTrue(rs.next());
+            assertEquals(ROW_COUNT, rs.getLong(1));
+            assertFalse(rs.next());
+            // the rows consumed by the aggregation on the server are examined too
+            Map<MetricType, Long> metrics = getMetrics(rs, tableName);
+            assertEquals(ROW_COUNT, (long) metrics.get(MetricType.SERVER_ROWS_EXAMINED));
+            assertEquals(0, (long) metrics.get(MetricType.SERVER_ROWS_FILTERED));
+        }
+    }
+
+    @Test
+    public void testNoScanCostWithoutRequestMetrics() throws Exception {
+        String tableName = createTable();
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT K FROM " + tableName);
+            int rowCount = 0;
+            while (rs.next()) {
+                rowCount++;
+            }
+            assertEquals(ROW_COUNT, rowCount);
+        }
+    }
+}
@@ -449,7 +449,13 @@ oneStatement returns [BindableStatement ret]
 finally{ contextStack.pop(); }
     
 explain_node returns [BindableStatement ret]
-    :   EXPLAIN q=oneStatement {$ret=factory.explain(q);}
+    :   EXPLAIN (a=NAME
+        {
+            // ANALYZE is not made a keyword, so that it stays usable as a name
+            if (!"analyze".equalsIgnoreCase(a.getText())) {
+                throwRecognitionException(a);
+            }
+        })? q=oneStatement {$ret=factory.explain(q, a != null);}
     ;
 
 // Parse a create table statement.
@@ -491,10 +497,18 @@ revoke_permission_node returns [ChangePermsStatement ret]
         }
     ;
 
-// Parse a show statement. SHOW TABLES, SHOW SCHEMAS ...
+// Parse a show statement. SHOW TABLES, SHOW SCHEMAS, SHOW STATEMENT STATISTICS ...
 show_node returns [ShowStatement ret]
     :   SHOW TABLES (IN schema=identifier)? (LIKE pattern=string_literal)? { $ret = factory.showTablesStatement(schema, pattern); }
     |   SHOW SCHEMAS (LIKE pattern=string_literal)? { $ret = factory.showSchemasStatement(pattern); }
+    |   SHOW n=NAME STATISTICS
+        {
+            // STATEMENT is not made a keyword, so that it stays usable as a name
+            if (!"statement".equalsIgnoreCase(n.getText())) {
+                throwRecognitionException(n);
+            }
+            $ret = factory.showStatementStatistics();
+        }
     ;
 
 // Parse a describe statement. SHOW CREATE TABLE tablename/viewname/indexname ...
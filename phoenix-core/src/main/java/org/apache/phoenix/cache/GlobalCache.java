@@ -62,6 +62,8 @@ public class GlobalCache extends TenantCacheImpl {
     private final ConcurrentMap<ImmutableBytesWritable,TenantCache> perTenantCacheMap = new ConcurrentHashMap<ImmutableBytesWritable,TenantCache>();
     // Cache for lastest PTable for a given Phoenix table
     private volatile Cache<ImmutableBytesPtr,PMetaDataEntity> metaDataCache;
+    // Cache for combined views and serialized PTables sent to clients
+    private volatile ResolvedMetaDataCache resolvedMetaDataCache;
     
     public long clearTenantCache() {
         long unfreedBytes = getMemoryManager().getMaxMemory() - getMemoryManager().getAvailableMemory();
@@ -117,6 +119,25 @@ public class GlobalCache extends TenantCacheImpl {
         return result;
     }
 
+    public ResolvedMetaDataCache getResolvedMetaDataCache() {
+        ResolvedMetaDataCache result = resolvedMetaDataCache;
+        if (result == null) {
+            synchronized(this) {
+                result = resolvedMetaDataCache;
+                if (result == null) {
+                    long maxTTL = config.getLong(
+                            QueryServices.MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS_ATTRIB,
+                            QueryServicesOptions.DEFAULT_MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS);
+                    long maxSize = config.getLong(
+                            QueryServices.MAX_SERVER_RESOLVED_METADATA_CACHE_SIZE_ATTRIB,
+                            QueryServicesOptions.DEFAULT_MAX_SERVER_RESOLVED_METADATA_CACHE_SIZE);
+                    resolvedMetaDataCache = result = new ResolvedMetaDataCache(maxSize, maxTTL);
+                }
+            }
+        }
+        return result;
+    }
+
     public static GlobalCache getInstance(RegionCoprocessorEnvironment env) {
         GlobalCache result = INSTANCE;
         if (result == null) {
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.cache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.coprocessor.generated.PTableProtos;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.schema.PMetaDataEntity;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableImpl;
+import org.apache.phoenix.schema.PTableKey;
+import org.apache.phoenix.util.SizedUtil;
+
+import org.apache.phoenix.thirdparty.com.google.common.cache.Cache;
+import org.apache.phoenix.thirdparty.com.google.common.cache.CacheBuilder;
+import org.apache.phoenix.thirdparty.com.google.common.cache.Weigher;
+
+/**
+ * Region server wide cache of the metadata the MetaDataEndpointImpl sends to clients, so that it
+ * is not rebuilt for every getTable call. It holds:
+ * <ul>
+ * <li>views combined with the columns and indexes they inherit from their ancestors, for the
+ * clients that expect the server to combine them. An entry stays valid as long as the view and
+ * each of its ancestors have the timestamp they had when the entry was built, so DDL on any of
+ * them invalidates it.</li>
+ * <li>the serialized form of tables, keyed by the identity of the {@link PTable}. The server side
+ * metadata cache replaces the PTable of a table when the table changes, so an entry goes away
+ * once the PTable it was serialized from is no longer referenced.</li>
+ * </ul>
+ * Each of the two is bounded by half of the configured size in bytes, as the size of the
+ * metadata of a table varies with its number of columns and indexes.
+ */
+public class ResolvedMetaDataCache {
+
+    private static class ResolvedView {
+        private final long viewTimeStamp;
+        // cache key and timestamp of each ancestor, from the parent to the base table
+        private final List<Pair<ImmutableBytesPtr, Long>> ancestors;
+        private final PTable table;
+
+        private ResolvedView(long viewTimeStamp, List<Pair<ImmutableBytesPtr, Long>> ancestors,
+                PTable table) {
+            this.viewTimeStamp = viewTimeStamp;
+            this.ancestors = ancestors;
+            this.table = table;
+        }
+
+        private int getEstimatedSize() {
+            int size = SizedUtil.OBJECT_SIZE + SizedUtil.LONG_SIZE + table.getEstimatedSize();
+            for (Pair<ImmutableBytesPtr, Long> ancestor : ancestors) {
+                size += SizedUtil.OBJECT_SIZE + SizedUtil.IMMUTABLE_BYTES_PTR_SIZE
+                        + ancestor.getFirst().getLength() + SizedUtil.LONG_OBJECT_SIZE;
+            }
+            return size;
+        }
+    }
+
+    private final Cache<PTableKey, ResolvedView> resolvedViews;
+    private final Cache<PTable, PTableProtos.PTable> serializedTables;
+
+    /**
+     * @param maxSizeBytes maximum size in bytes of the cached metadata, 0 disables the cache
+     */
+    public ResolvedMetaDataCache(long maxSizeBytes, long timeToLiveMs) {
+        this.resolvedViews = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeBytes / 2)
+                .expireAfterAccess(timeToLiveMs, TimeUnit.MILLISECONDS)
+                .weigher(new Weigher<PTableKey, ResolvedView>() {
+                    @Override
+                    public int weigh(PTableKey key, ResolvedView resolvedView) {
+                        return SizedUtil.OBJECT_SIZE + key.getName().length() * SizedUtil.CHAR_SIZE
+                                + resolvedView.getEstimatedSize();
+                    }
+                })
+                .build();
+        // weak keys are compared by identity
+        this.serializedTables = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeBytes / 2)
+                .weakKeys()
+                .weigher(new Weigher<PTable, PTableProtos.PTable>() {
+                    @Override
+                    public int weigh(PTable table, PTableProtos.PTable proto) {
+                        return SizedUtil.OBJECT_SIZE + proto.getSerializedSize();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @param metaDataCache server side cache of the latest PTable of each table
+     * @return the view combined with its ancestors, or null if it is not cached or if the view or
+     *         one of its ancestors changed since it was combined
+     */
+    public PTable getResolvedView(PTable view,
+            Cache<ImmutableBytesPtr, PMetaDataEntity> metaDataCache) {
+        ResolvedView resolvedView = resolvedViews.getIfPresent(view.getKey());
+        if (resolvedView == null || resolvedView.viewTimeStamp != view.getTimeStamp()) {
+            return null;
+        }
+        for (Pair<ImmutableBytesPtr, Long> ancestor : resolvedView.ancestors) {
+            PMetaDataEntity ancestorTable = metaDataCache.getIfPresent(ancestor.getFirst());
+            if (!(ancestorTable instanceof PTable)
+                    || ((PTable) ancestorTable).getTimeStamp() != ancestor.getSecond()) {
+                resolvedViews.invalidate(view.getKey());
+                return null;
+            }
+        }
+        return resolvedView.table;
+    }
+
+    /**
+     * Caches a view combined with its ancestors.
+     * @param ancestors cache key and timestamp of each ancestor the view was combined with, as
+     *            found before combining it
+     */
+    public void putResolvedView(PTable view, List<Pair<ImmutableBytesPtr, Long>> ancestors,
+            PTable resolvedView) {
+        resolvedViews.put(view.getKey(),
+                new ResolvedView(view.getTimeStamp(), ancestors, resolvedView));
+    }
+
+    /**
+     * @return the serialized form of the table, serializing it only the first time
+     */
+    public PTableProtos.PTable toProto(PTable table) {
+        PTableProtos.PTable proto = serializedTables.getIfPresent(table);
+        if (proto == null) {
+            proto = PTableImpl.toProto(table);
+            serializedTables.put(table, proto);
+        }
+        return proto;
+    }
+
+    public void invalidateAll() {
+        resolvedViews.invalidateAll();
+        serializedTables.invalidateAll();
+    }
+}
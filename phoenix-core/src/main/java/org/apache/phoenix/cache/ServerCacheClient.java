@@ -310,6 +310,11 @@ public class ServerCacheClient {
                         public TaskExecutionMetricsHolder getTaskExecutionMetric() {
                             return NO_OP_INSTANCE;
                         }
+
+                        @Override
+                        public String getWorkloadClass() {
+                            return connection.getWorkloadClass();
+                        }
                     }));
                 } else {
                     if (LOGGER.isDebugEnabled()) {
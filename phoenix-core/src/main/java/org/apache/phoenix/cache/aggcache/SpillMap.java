@@ -38,6 +38,7 @@ import org.apache.phoenix.thirdparty.com.google.common.hash.BloomFilter;
 import org.apache.phoenix.thirdparty.com.google.common.hash.Funnels;
 
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.monitoring.ServerScanCost;
 
 /**
  * Class implements an active spilled partition serialized tuples are first written into an in-memory data structure
@@ -384,6 +385,7 @@ public class SpillMap extends AbstractMap<ImmutableBytesPtr, byte[]> implements
                             // element
                             file.write(value, 0, value.length);
                         }
+                        ServerScanCost.recordSpill(written);
                     } catch (IOException ioe) {
                         // Error during key access on spilled resource
                         // TODO rework error handling
@@ -63,6 +63,33 @@ public interface ColumnProjector {
      * @throws SQLException
      */
     Object getValue(Tuple tuple, PDataType type, ImmutableBytesWritable ptr) throws SQLException;
+
+    /**
+     * Get the serialized value of the column, in the type and sort order of its expression
+     * @param tuple the row containing the column
+     * @param ptr set to the serialized value, left empty if it is null
+     * @return false if the column value is null
+     * @throws SQLException
+     */
+    boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException;
+
+    /*
+     * The primitive getters get the value of the column coerced as getValue would to the
+     * matching type, without allocating for fixed width numbers. They return 0 when the value
+     * is null, in which case ptr is left empty.
+     */
+
+    long getLong(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException;
+
+    int getInt(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException;
+
+    short getShort(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException;
+
+    byte getByte(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException;
+
+    float getFloat(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException;
+
+    double getDouble(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException;
     
     boolean isCaseSensitive();
 }
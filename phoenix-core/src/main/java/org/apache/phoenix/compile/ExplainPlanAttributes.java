@@ -73,6 +73,7 @@ public class ExplainPlanAttributes {
     // be null
     private final ExplainPlanAttributes rhsJoinQueryExplainPlan;
     private final Set<PColumn> serverMergeColumns;
+    private final String serverEssentialColumnFamilies;
 
     private static final ExplainPlanAttributes EXPLAIN_PLAN_INSTANCE =
         new ExplainPlanAttributes();
@@ -112,6 +113,7 @@ public class ExplainPlanAttributes {
         this.clientSortAlgo = null;
         this.rhsJoinQueryExplainPlan = null;
         this.serverMergeColumns = null;
+        this.serverEssentialColumnFamilies = null;
     }
 
     public ExplainPlanAttributes(String abstractExplainPlan,
@@ -132,7 +134,8 @@ public class ExplainPlanAttributes {
             Integer clientSequenceCount, String clientCursorName,
             String clientSortAlgo,
             ExplainPlanAttributes rhsJoinQueryExplainPlan,
-            Set<PColumn> serverMergeColumns) {
+            Set<PColumn> serverMergeColumns,
+            String serverEssentialColumnFamilies) {
         this.abstractExplainPlan = abstractExplainPlan;
         this.splitsChunk = splitsChunk;
         this.estimatedRows = estimatedRows;
@@ -167,6 +170,7 @@ public class ExplainPlanAttributes {
         this.clientSortAlgo = clientSortAlgo;
         this.rhsJoinQueryExplainPlan = rhsJoinQueryExplainPlan;
         this.serverMergeColumns = serverMergeColumns;
+        this.serverEssentialColumnFamilies = serverEssentialColumnFamilies;
     }
 
     public String getAbstractExplainPlan() {
@@ -305,6 +309,10 @@ public class ExplainPlanAttributes {
         return serverMergeColumns;
     }
 
+    public String getServerEssentialColumnFamilies() {
+        return serverEssentialColumnFamilies;
+    }
+
     public static ExplainPlanAttributes getDefaultExplainPlan() {
         return EXPLAIN_PLAN_INSTANCE;
     }
@@ -344,6 +352,7 @@ public class ExplainPlanAttributes {
         private String clientSortAlgo;
         private ExplainPlanAttributes rhsJoinQueryExplainPlan;
         private Set<PColumn> serverMergeColumns;
+        private String serverEssentialColumnFamilies;
 
         public ExplainPlanAttributesBuilder() {
             // default
@@ -396,6 +405,8 @@ public class ExplainPlanAttributes {
             this.rhsJoinQueryExplainPlan =
                 explainPlanAttributes.getRhsJoinQueryExplainPlan();
             this.serverMergeColumns = explainPlanAttributes.getServerMergeColumns();
+            this.serverEssentialColumnFamilies =
+                explainPlanAttributes.getServerEssentialColumnFamilies();
         }
 
         public ExplainPlanAttributesBuilder setAbstractExplainPlan(
@@ -599,6 +610,12 @@ public class ExplainPlanAttributes {
             return this;
         }
 
+        public ExplainPlanAttributesBuilder setServerEssentialColumnFamilies(
+                String serverEssentialColumnFamilies) {
+            this.serverEssentialColumnFamilies = serverEssentialColumnFamilies;
+            return this;
+        }
+
         public ExplainPlanAttributes build() {
             return new ExplainPlanAttributes(abstractExplainPlan, splitsChunk,
                 estimatedRows, estimatedSizeInBytes, iteratorTypeAndScanSize,
@@ -611,7 +628,8 @@ public class ExplainPlanAttributes {
                 clientFilterBy, clientAggregate, clientSortedBy,
                 clientAfterAggregate, clientDistinctFilter, clientOffset,
                 clientRowLimit, clientSequenceCount, clientCursorName,
-                clientSortAlgo, rhsJoinQueryExplainPlan, serverMergeColumns);
+                clientSortAlgo, rhsJoinQueryExplainPlan, serverMergeColumns,
+                serverEssentialColumnFamilies);
         }
     }
 }
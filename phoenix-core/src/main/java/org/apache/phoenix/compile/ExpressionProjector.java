@@ -24,6 +24,7 @@ import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ByteUtil;
 
 
 
@@ -66,20 +67,122 @@ public class ExpressionProjector implements ColumnProjector {
     public final Object getValue(Tuple tuple, PDataType type, ImmutableBytesWritable ptr) throws SQLException {
         try {
             Expression expression = getExpression();
-            if (!expression.evaluate(tuple, ptr)) {
+            if (!evaluate(expression, tuple, ptr)) {
                 return null;
             }
-            if (ptr.getLength() == 0) {
-                return null;
-            }        
             return type.toObject(ptr, expression.getDataType(), expression.getSortOrder(), expression.getMaxLength(), expression.getScale());
         } catch (RuntimeException e) {
-            // FIXME: Expression.evaluate does not throw SQLException
-            // so this will unwrap throws from that.
-            if (e.getCause() instanceof SQLException) {
-                throw (SQLException) e.getCause();
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public final boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+        try {
+            return evaluate(getExpression(), tuple, ptr);
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static boolean evaluate(Expression expression, Tuple tuple, ImmutableBytesWritable ptr) {
+        if (!expression.evaluate(tuple, ptr) || ptr.getLength() == 0) {
+            ptr.set(ByteUtil.EMPTY_BYTE_ARRAY);
+            return false;
+        }
+        return true;
+    }
+
+    private static RuntimeException unwrap(RuntimeException e) throws SQLException {
+        // FIXME: Expression.evaluate does not throw SQLException
+        // so this will unwrap throws from that.
+        if (e.getCause() instanceof SQLException) {
+            throw (SQLException) e.getCause();
+        }
+        return e;
+    }
+
+    @Override
+    public final long getLong(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+        try {
+            Expression expression = getExpression();
+            if (!evaluate(expression, tuple, ptr)) {
+                return 0;
+            }
+            return expression.getDataType().decodeLong(ptr.get(), ptr.getOffset(), ptr.getLength(),
+                    expression.getSortOrder());
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public final int getInt(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+        try {
+            Expression expression = getExpression();
+            if (!evaluate(expression, tuple, ptr)) {
+                return 0;
+            }
+            return expression.getDataType().decodeInt(ptr.get(), ptr.getOffset(), ptr.getLength(),
+                    expression.getSortOrder());
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public final short getShort(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+        try {
+            Expression expression = getExpression();
+            if (!evaluate(expression, tuple, ptr)) {
+                return 0;
+            }
+            return expression.getDataType().decodeShort(ptr.get(), ptr.getOffset(), ptr.getLength(),
+                    expression.getSortOrder());
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public final byte getByte(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+        try {
+            Expression expression = getExpression();
+            if (!evaluate(expression, tuple, ptr)) {
+                return 0;
+            }
+            return expression.getDataType().decodeByte(ptr.get(), ptr.getOffset(), ptr.getLength(),
+                    expression.getSortOrder());
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public final float getFloat(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+        try {
+            Expression expression = getExpression();
+            if (!evaluate(expression, tuple, ptr)) {
+                return 0;
             }
-            throw e;
+            return expression.getDataType().decodeFloat(ptr.get(), ptr.getOffset(), ptr.getLength(),
+                    expression.getSortOrder());
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public final double getDouble(Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+        try {
+            Expression expression = getExpression();
+            if (!evaluate(expression, tuple, ptr)) {
+                return 0;
+            }
+            return expression.getDataType().decodeDouble(ptr.get(), ptr.getOffset(), ptr.getLength(),
+                    expression.getSortOrder());
+        } catch (RuntimeException e) {
+            throw unwrap(e);
         }
     }
 
@@ -228,6 +228,11 @@ public class FromCompiler {
     	TableNode fromNode = statement.getFrom();
     	if (fromNode == null)
             return new ColumnResolverWithUDF(connection, 1, true, statement.getUdfParseNodes());
+        if (!alwaysHitServer) {
+            TableNameCollector collector = new TableNameCollector(connection.getSchema());
+            fromNode.accept(collector);
+            new MetaDataClient(connection).validateTableTimestamps(collector.tableNames);
+        }
         if (fromNode instanceof NamedTableNode)
             return new SingleTableColumnResolver(connection, (NamedTableNode) fromNode, true, 1, statement.getUdfParseNodes(), alwaysHitServer, mutatingTableName);
 
@@ -341,6 +346,48 @@ public class FromCompiler {
         return new ProjectedTableColumnResolver(projectedTable, connection, udfParseNodes);
     }
 
+    /**
+     * Collects the names of the tables in a FROM clause, including the ones of derived tables.
+     */
+    private static class TableNameCollector implements TableNodeVisitor<Void> {
+        private final String connectionSchemaName;
+        private final List<TableName> tableNames = new ArrayList<>();
+
+        private TableNameCollector(String connectionSchemaName) {
+            this.connectionSchemaName = connectionSchemaName;
+        }
+
+        @Override
+        public Void visit(BindTableNode boundTableNode) throws SQLException {
+            return null;
+        }
+
+        @Override
+        public Void visit(JoinTableNode joinNode) throws SQLException {
+            joinNode.getLHS().accept(this);
+            joinNode.getRHS().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visit(NamedTableNode namedTableNode) throws SQLException {
+            TableName name = namedTableNode.getName();
+            String schemaName = name.getSchemaName() == null ? connectionSchemaName
+                    : name.getSchemaName();
+            tableNames.add(TableName.create(schemaName, name.getTableName()));
+            return null;
+        }
+
+        @Override
+        public Void visit(DerivedTableNode subselectNode) throws SQLException {
+            TableNode fromNode = subselectNode.getSelect().getFrom();
+            if (fromNode != null) {
+                fromNode.accept(this);
+            }
+            return null;
+        }
+    }
+
     private static class SchemaResolver extends BaseColumnResolver {
         private final List<PSchema> schemas;
 
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.compile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.phoenix.expression.AndExpression;
+import org.apache.phoenix.expression.ComparisonExpression;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.InListExpression;
+import org.apache.phoenix.expression.IsNullExpression;
+import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.expression.LikeExpression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.expression.NotExpression;
+import org.apache.phoenix.expression.OrExpression;
+import org.apache.phoenix.expression.ProjectedColumnExpression;
+import org.apache.phoenix.expression.RowKeyColumnExpression;
+import org.apache.phoenix.expression.function.ArrayAnyComparisonExpression;
+import org.apache.phoenix.expression.function.RegexpReplaceFunction;
+import org.apache.phoenix.expression.function.RegexpSplitFunction;
+import org.apache.phoenix.expression.function.RegexpSubstrFunction;
+import org.apache.phoenix.expression.function.ScalarFunction;
+
+/**
+ * Reorders the children of AND and OR expressions so that the ones that are cheap to evaluate
+ * and likely to short circuit the evaluation are evaluated first. Predicates that only reference
+ * row key columns always come first, as they never need to look at a cell. Within each group,
+ * children are ordered using the classic rank of cost over short circuit probability, where the
+ * cost and selectivity are rough static estimates based on the type of the expression.
+ *
+ * Since AND and OR are commutative and expressions have no side effects, the reordering does not
+ * change the result of the evaluation, only the amount of work done to get it.
+ */
+public class PredicateReorderer {
+
+    private static final double DEFAULT_SELECTIVITY = 0.5;
+
+    private PredicateReorderer() {
+    }
+
+    /**
+     * @param expression the compiled boolean expression
+     * @return the same expression if nothing had to be reordered and otherwise a new expression
+     * with the children of its AND and OR expressions reordered
+     */
+    public static Expression reorder(Expression expression) {
+        boolean isAnd = expression instanceof AndExpression;
+        if (!isAnd && !(expression instanceof OrExpression)) {
+            return expression;
+        }
+        List<Expression> children = expression.getChildren();
+        List<Expression> reordered = new ArrayList<>(children.size());
+        for (Expression child : children) {
+            reordered.add(reorder(child));
+        }
+        Collections.sort(reordered, isAnd ? AND_COMPARATOR : OR_COMPARATOR);
+        boolean isChanged = false;
+        for (int i = 0; i < children.size() && !isChanged; i++) {
+            isChanged = reordered.get(i) != children.get(i);
+        }
+        if (!isChanged) {
+            return expression;
+        }
+        return isAnd ? new AndExpression(reordered) : new OrExpression(reordered);
+    }
+
+    private static final Comparator<Expression> AND_COMPARATOR = new RankComparator(true);
+    private static final Comparator<Expression> OR_COMPARATOR = new RankComparator(false);
+
+    private static class RankComparator implements Comparator<Expression> {
+        private final boolean isAnd;
+
+        private RankComparator(boolean isAnd) {
+            this.isAnd = isAnd;
+        }
+
+        @Override
+        public int compare(Expression e1, Expression e2) {
+            boolean rowKeyOnly1 = isRowKeyOnly(e1);
+            boolean rowKeyOnly2 = isRowKeyOnly(e2);
+            if (rowKeyOnly1 != rowKeyOnly2) {
+                return rowKeyOnly1 ? -1 : 1;
+            }
+            return Double.compare(getRank(e1), getRank(e2));
+        }
+
+        private double getRank(Expression expression) {
+            // An AND child short circuits when it is false, an OR child when it is true
+            double selectivity = getSelectivity(expression);
+            double shortCircuitProbability = isAnd ? 1 - selectivity : selectivity;
+            return getCost(expression) / Math.max(shortCircuitProbability, 0.01);
+        }
+    }
+
+    private static boolean isRowKeyOnly(Expression expression) {
+        if (expression instanceof KeyValueColumnExpression
+                || expression instanceof ProjectedColumnExpression) {
+            return false;
+        }
+        for (Expression child : expression.getChildren()) {
+            if (!isRowKeyOnly(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the relative CPU cost of evaluating an expression once.
+     */
+    static double getCost(Expression expression) {
+        double cost = getNodeCost(expression);
+        for (Expression child : expression.getChildren()) {
+            cost += getCost(child);
+        }
+        return cost;
+    }
+
+    private static double getNodeCost(Expression expression) {
+        if (expression instanceof LiteralExpression) {
+            return 0;
+        } else if (expression instanceof RowKeyColumnExpression) {
+            return 1;
+        } else if (expression instanceof KeyValueColumnExpression
+                || expression instanceof ProjectedColumnExpression) {
+            // Requires looking up the cell in the row
+            return 2;
+        } else if (expression instanceof RegexpSubstrFunction
+                || expression instanceof RegexpReplaceFunction
+                || expression instanceof RegexpSplitFunction) {
+            return 25;
+        } else if (expression instanceof LikeExpression) {
+            return 20;
+        } else if (expression instanceof ArrayAnyComparisonExpression) {
+            return 15;
+        } else if (expression instanceof InListExpression) {
+            return 3;
+        } else if (expression instanceof ScalarFunction) {
+            return 4;
+        }
+        return 1;
+    }
+
+    /**
+     * Estimates the fraction of rows for which a boolean expression evaluates to true.
+     */
+    static double getSelectivity(Expression expression) {
+        if (expression instanceof ComparisonExpression) {
+            switch (((ComparisonExpression) expression).getFilterOp()) {
+            case EQUAL:
+                return 0.05;
+            case NOT_EQUAL:
+                return 0.95;
+            default:
+                return 0.33;
+            }
+        } else if (expression instanceof InListExpression) {
+            int nKeys = ((InListExpression) expression).getKeyExpressions().size();
+            return Math.min(DEFAULT_SELECTIVITY, 0.05 * nKeys);
+        } else if (expression instanceof IsNullExpression) {
+            return ((IsNullExpression) expression).isNegate() ? 0.9 : 0.1;
+        } else if (expression instanceof LikeExpression) {
+            return 0.25;
+        } else if (expression instanceof NotExpression) {
+            return 1 - getSelectivity(expression.getChildren().get(0));
+        } else if (expression instanceof AndExpression) {
+            double selectivity = 1;
+            for (Expression child : expression.getChildren()) {
+                selectivity *= getSelectivity(child);
+            }
+            return selectivity;
+        } else if (expression instanceof OrExpression) {
+            double notSelected = 1;
+            for (Expression child : expression.getChildren()) {
+                notSelected *= 1 - getSelectivity(child);
+            }
+            return 1 - notSelected;
+        }
+        return DEFAULT_SELECTIVITY;
+    }
+}
@@ -21,6 +21,7 @@ import java.sql.SQLException;
 import java.text.Format;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,6 +30,8 @@ import java.util.TimeZone;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.iterate.ProfilingResultIterator;
+import org.apache.phoenix.iterate.ResultIterator;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.jdbc.PhoenixStatement;
 import org.apache.phoenix.log.QueryLogger;
@@ -85,6 +88,8 @@ public class StatementContext {
     private Map<SelectStatement, Object> subqueryResults;
     private final ReadMetricQueue readMetricsQueue;
     private final OverAllQueryMetrics overAllQueryMetrics;
+    // iterators of the plans of the context, profiled for EXPLAIN ANALYZE, null otherwise
+    private final Map<QueryPlan, ProfilingResultIterator> profilingIterators;
     private QueryLogger queryLogger;
     private boolean isClientSideUpsertSelect;
     private boolean isUncoveredIndex;
@@ -113,7 +118,7 @@ public class StatementContext {
     }
 
     public StatementContext(PhoenixStatement statement, ColumnResolver resolver, BindManager binds, Scan scan, SequenceManager seqManager) {
-        this(statement, resolver, binds, scan, seqManager, statement.getConnection().isRequestLevelMetricsEnabled());
+        this(statement, resolver, binds, scan, seqManager, statement.isRequestLevelMetricsEnabled());
     }
 
     public StatementContext(PhoenixStatement statement, ColumnResolver resolver, BindManager binds, Scan scan, SequenceManager seqManager, boolean isRequestMetricsEnabled) {
@@ -145,6 +150,9 @@ public class StatementContext {
         this.readMetricsQueue = new ReadMetricQueue(isRequestMetricsEnabled,connection.getLogLevel());
         this.overAllQueryMetrics = new OverAllQueryMetrics(isRequestMetricsEnabled,connection.getLogLevel());
         this.retryingPersistentCache = Maps.<Long, Boolean> newHashMap();
+        this.profilingIterators = statement.isProfilingIterators()
+                ? Collections.synchronizedMap(new IdentityHashMap<QueryPlan, ProfilingResultIterator>())
+                : null;
     }
 
     /**
@@ -319,6 +327,27 @@ public class StatementContext {
         return overAllQueryMetrics;
     }
 
+    /**
+     * Wraps the iterator of a plan of this context in a {@link ProfilingResultIterator} when the
+     * statement is profiled by EXPLAIN ANALYZE.
+     * @return the iterator to return from the plan
+     */
+    public ResultIterator profileIterator(QueryPlan plan, ResultIterator iterator) {
+        if (profilingIterators == null) {
+            return iterator;
+        }
+        ProfilingResultIterator profilingIterator = new ProfilingResultIterator(iterator);
+        profilingIterators.put(plan, profilingIterator);
+        return profilingIterator;
+    }
+
+    /**
+     * @return the profiled iterator the plan returned last, null if none
+     */
+    public ProfilingResultIterator getProfilingIterator(QueryPlan plan) {
+        return profilingIterators == null ? null : profilingIterators.get(plan);
+    }
+
     public void setQueryLogger(QueryLogger queryLogger) {
        this.queryLogger=queryLogger;
     }
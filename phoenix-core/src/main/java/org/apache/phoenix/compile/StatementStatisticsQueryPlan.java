@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.compile;
+
+import java.sql.ParameterMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.phoenix.compile.GroupByCompiler.GroupBy;
+import org.apache.phoenix.compile.OrderByCompiler.OrderBy;
+import org.apache.phoenix.coprocessor.MetaDataProtocol;
+import org.apache.phoenix.execute.visitor.QueryPlanVisitor;
+import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.expression.RowKeyColumnExpression;
+import org.apache.phoenix.iterate.DefaultParallelScanGrouper;
+import org.apache.phoenix.iterate.MaterializedResultIterator;
+import org.apache.phoenix.iterate.ParallelScanGrouper;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.jdbc.PhoenixParameterMetaData;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.jdbc.PhoenixStatement.Operation;
+import org.apache.phoenix.monitoring.StatementDigestRegistry;
+import org.apache.phoenix.monitoring.StatementDigestStatistics;
+import org.apache.phoenix.optimize.Cost;
+import org.apache.phoenix.parse.FilterableStatement;
+import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.schema.PColumn;
+import org.apache.phoenix.schema.PColumnImpl;
+import org.apache.phoenix.schema.PName;
+import org.apache.phoenix.schema.PNameFactory;
+import org.apache.phoenix.schema.RowKeyValueAccessor;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.TableRef;
+import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PLong;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+import org.apache.phoenix.util.SizedUtil;
+
+/**
+ * Query plan of SHOW STATEMENT STATISTICS, returning a row per statement digest of the
+ * {@link StatementDigestRegistry} of this JVM, by descending total time.
+ */
+public class StatementStatisticsQueryPlan implements QueryPlan {
+
+    private static final String TABLE_NAME = "STATEMENT_STATISTICS";
+    private static final byte[] FAMILY = QueryConstants.SINGLE_COLUMN_FAMILY;
+    private static final String[] LONG_COLUMN_NAMES = { "EXECUTION_COUNT", "ERROR_COUNT",
+            "TOTAL_TIME_MS", "P50_TIME_MS", "P99_TIME_MS", "P999_TIME_MS", "MAX_TIME_MS",
+            "ROWS_SCANNED", "BYTES_READ", "PARALLEL_SCANS", "LAST_EXECUTION_TIME" };
+    private static final byte[] STATEMENT_COLUMN = PVarchar.INSTANCE.toBytes("STATEMENT");
+    private static final byte[][] LONG_COLUMNS = new byte[LONG_COLUMN_NAMES.length][];
+
+    private static final RowProjector STATISTICS_PROJECTOR;
+
+    static {
+        List<ColumnProjector> projectedColumns = new ArrayList<>();
+        PName digestName = PNameFactory.newName("DIGEST");
+        PColumn digestColumn = new PColumnImpl(digestName, null, PVarchar.INSTANCE, null, null,
+                false, 0, SortOrder.getDefault(), 0, null, false, null, false, false,
+                digestName.getBytes(), 0, false);
+        projectedColumns.add(new ExpressionProjector("DIGEST", TABLE_NAME,
+                new RowKeyColumnExpression(digestColumn,
+                        new RowKeyValueAccessor(Collections.singletonList(digestColumn), 0)),
+                false));
+        projectedColumns.add(new ExpressionProjector("STATEMENT", TABLE_NAME,
+                new KeyValueColumnExpression(newColumn(STATEMENT_COLUMN, PVarchar.INSTANCE, 1)),
+                false));
+        for (int i = 0; i < LONG_COLUMN_NAMES.length; i++) {
+            LONG_COLUMNS[i] = PVarchar.INSTANCE.toBytes(LONG_COLUMN_NAMES[i]);
+            projectedColumns.add(new ExpressionProjector(LONG_COLUMN_NAMES[i], TABLE_NAME,
+                    new KeyValueColumnExpression(newColumn(LONG_COLUMNS[i], PLong.INSTANCE,
+                            i + 2)), false));
+        }
+        STATISTICS_PROJECTOR = new RowProjector(projectedColumns,
+                SizedUtil.KEY_VALUE_SIZE * projectedColumns.size(), false);
+    }
+
+    private static PColumn newColumn(byte[] name, PDataType type, int position) {
+        return new PColumnImpl(PNameFactory.newName(name), PNameFactory.newName(FAMILY), type,
+                null, null, true, position, SortOrder.getDefault(), 0, null, false, null, false,
+                false, name, 0, false);
+    }
+
+    private final PhoenixStatement stmt;
+    private final StatementContext context;
+
+    public StatementStatisticsQueryPlan(PhoenixStatement stmt) {
+        this.stmt = stmt;
+        this.context = new StatementContext(stmt);
+    }
+
+    @Override
+    public StatementContext getContext() {
+        return this.context;
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() {
+        return PhoenixParameterMetaData.EMPTY_PARAMETER_META_DATA;
+    }
+
+    @Override
+    public ExplainPlan getExplainPlan() throws SQLException {
+        return ExplainPlan.EMPTY_PLAN;
+    }
+
+    @Override
+    public ResultIterator iterator() throws SQLException {
+        return iterator(DefaultParallelScanGrouper.getInstance());
+    }
+
+    @Override
+    public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan)
+            throws SQLException {
+        return iterator(scanGrouper);
+    }
+
+    @Override
+    public ResultIterator iterator(ParallelScanGrouper scanGrouper) throws SQLException {
+        List<StatementDigestStatistics> statistics =
+                StatementDigestRegistry.getInstance(
+                        context.getConnection().getQueryServices().getProps()).getStatistics();
+        List<Tuple> tuples = new ArrayList<>(statistics.size());
+        for (StatementDigestStatistics stats : statistics) {
+            byte[] row = PVarchar.INSTANCE.toBytes(stats.getDigest());
+            long[] values = { stats.getExecutionCount(), stats.getErrorCount(),
+                    stats.getTotalTimeMs(), stats.getMedianTimeMs(), stats.getP99TimeMs(),
+                    stats.getP999TimeMs(), stats.getMaxTimeMs(), stats.getRowsScanned(),
+                    stats.getBytesRead(), stats.getParallelScans(), stats.getLastExecutionTime() };
+            List<Cell> cells = new ArrayList<>(values.length + 1);
+            cells.add(PhoenixKeyValueUtil.newKeyValue(row, FAMILY, STATEMENT_COLUMN,
+                    MetaDataProtocol.MIN_TABLE_TIMESTAMP,
+                    PVarchar.INSTANCE.toBytes(stats.getStatement())));
+            for (int i = 0; i < values.length; i++) {
+                cells.add(PhoenixKeyValueUtil.newKeyValue(row, FAMILY, LONG_COLUMNS[i],
+                        MetaDataProtocol.MIN_TABLE_TIMESTAMP, PLong.INSTANCE.toBytes(values[i])));
+            }
+            Collections.sort(cells, CellComparator.getInstance());
+            tuples.add(new MultiKeyValueTuple(cells));
+        }
+        return new MaterializedResultIterator(tuples);
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return STATISTICS_PROJECTOR.getEstimatedRowByteSize();
+    }
+
+    @Override
+    public Cost getCost() {
+        return Cost.ZERO;
+    }
+
+    @Override
+    public TableRef getTableRef() {
+        return null;
+    }
+
+    @Override
+    public RowProjector getProjector() {
+        return STATISTICS_PROJECTOR;
+    }
+
+    @Override
+    public Integer getLimit() {
+        return null;
+    }
+
+    @Override
+    public Integer getOffset() {
+        return null;
+    }
+
+    @Override
+    public OrderBy getOrderBy() {
+        return OrderBy.EMPTY_ORDER_BY;
+    }
+
+    @Override
+    public GroupBy getGroupBy() {
+        return GroupBy.EMPTY_GROUP_BY;
+    }
+
+    @Override
+    public List<KeyRange> getSplits() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<List<Scan>> getScans() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public FilterableStatement getStatement() {
+        return null;
+    }
+
+    @Override
+    public boolean isDegenerate() {
+        return false;
+    }
+
+    @Override
+    public boolean isRowKeyOrdered() {
+        return false;
+    }
+
+    @Override
+    public boolean useRoundRobinIterator() {
+        return false;
+    }
+
+    @Override
+    public <T> T accept(QueryPlanVisitor<T> visitor) {
+        return visitor.defaultReturn(this);
+    }
+
+    @Override
+    public Set<TableRef> getSourceRefs() {
+        return Collections.<TableRef>emptySet();
+    }
+
+    @Override
+    public Operation getOperation() {
+        return stmt.getUpdateOperation();
+    }
+
+    @Override
+    public Long getEstimatedRowsToScan() {
+        return 0L;
+    }
+
+    @Override
+    public Long getEstimatedBytesToScan() {
+        return 0L;
+    }
+
+    @Override
+    public Long getEstimateInfoTimestamp() throws SQLException {
+        return 0L;
+    }
+
+    @Override
+    public List<OrderBy> getOutputOrderBys() {
+        return Collections.<OrderBy> emptyList();
+    }
+
+    @Override
+    public boolean isApplicable() {
+        return true;
+    }
+}
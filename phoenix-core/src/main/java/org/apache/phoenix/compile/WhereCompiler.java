@@ -59,6 +59,8 @@ import org.apache.phoenix.parse.SelectStatement;
 import org.apache.phoenix.parse.StatelessTraverseAllParseNodeVisitor;
 import org.apache.phoenix.parse.SubqueryParseNode;
 import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.AmbiguousColumnException;
 import org.apache.phoenix.schema.ColumnNotFoundException;
 import org.apache.phoenix.schema.ColumnRef;
@@ -170,6 +172,11 @@ public class WhereCompiler {
             }
             expression = WhereOptimizer.pushKeyExpressionsToScan(context, hints, expression, extractedNodes, minOffset);
         }
+        if (expression != null && context.getConnection().getQueryServices().getProps().getBoolean(
+                QueryServices.PREDICATE_REORDERING_ENABLED_ATTRIB,
+                QueryServicesOptions.DEFAULT_PREDICATE_REORDERING_ENABLED)) {
+            expression = PredicateReorderer.reorder(expression);
+        }
         setScanFilter(context, statement, expression, whereCompiler.disambiguateWithFamily);
 
         return expression;
@@ -358,6 +365,9 @@ public class WhereCompiler {
                 break;
             }
             scan.setFilter(filter);
+            if (!allCFs && isOnDemandColumnFamilyLoadingEnabled(context)) {
+                setEssentialColumnFamilies(scan, table, whereClause);
+            }
         }
 
         ScanRanges scanRanges = context.getScanRanges();
@@ -366,6 +376,38 @@ public class WhereCompiler {
         }
     }
     
+    private static boolean isOnDemandColumnFamilyLoadingEnabled(StatementContext context) {
+        return context.getConnection().getQueryServices().getProps().getBoolean(
+                QueryServices.ON_DEMAND_COLUMN_FAMILY_LOADING_ENABLED_ATTRIB,
+                QueryServicesOptions.DEFAULT_ON_DEMAND_COLUMN_FAMILY_LOADING_ENABLED);
+    }
+
+    /**
+     * When the where clause only references columns from some of the column families of the
+     * table, records those (plus the family of the empty key value) as the essential families of
+     * the scan so that the region server reads them first and loads the other families only for
+     * the rows that pass the filter.
+     */
+    private static void setEssentialColumnFamilies(Scan scan, PTable table, Expression whereClause) {
+        if ((table.getType() != PTableType.TABLE && table.getType() != PTableType.VIEW)
+                || table.getViewType() == ViewType.MAPPED
+                || table.getColumnFamilies().size() < 2) {
+            return;
+        }
+        final Set<byte[]> essentialFamilies = Sets.newTreeSet(Bytes.BYTES_COMPARATOR);
+        essentialFamilies.add(SchemaUtil.getEmptyColumnFamily(table));
+        whereClause.accept(new KeyValueExpressionVisitor() {
+            @Override
+            public Void visit(KeyValueColumnExpression expression) {
+                essentialFamilies.add(expression.getColumnFamily());
+                return null;
+            }
+        });
+        if (essentialFamilies.size() < table.getColumnFamilies().size()) {
+            ScanUtil.setEssentialColumnFamilies(scan, essentialFamilies);
+        }
+    }
+
     private static class SubqueryParseNodeVisitor extends StatelessTraverseAllParseNodeVisitor {
         private final StatementContext context;
         private final Set<SubqueryParseNode> subqueryNodes;
@@ -19,6 +19,7 @@ package org.apache.phoenix.coprocessor;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.NavigableSet;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
@@ -54,11 +55,13 @@ import org.apache.phoenix.hbase.index.covered.update.ColumnReference;
 import org.apache.phoenix.index.IndexMaintainer;
 import org.apache.phoenix.iterate.NonAggregateRegionScannerFactory;
 import org.apache.phoenix.iterate.RegionScannerFactory;
+import org.apache.phoenix.monitoring.ServerScanCost;
 import org.apache.phoenix.schema.StaleRegionBoundaryCacheException;
 import org.apache.phoenix.schema.types.PUnsignedTinyint;
 import org.apache.phoenix.util.ScanUtil;
 import org.apache.phoenix.util.ServerUtil;
 
+import static org.apache.phoenix.util.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.apache.phoenix.util.ScanUtil.getPageSizeMsForFilter;
 
 abstract public class BaseScannerRegionObserver implements RegionObserver {
@@ -87,6 +90,8 @@ abstract public class BaseScannerRegionObserver implements RegionObserver {
     public static final String INDEX_REBUILD_PAGE_ROWS = "_IndexRebuildPageRows";
     public static final String INDEX_PAGE_ROWS = "_IndexPageRows";
     public static final String SERVER_PAGE_SIZE_MS = "_ServerPageSizeMs";
+    // Column families needed to evaluate the filter. Others are loaded on demand for matching rows
+    public static final String ESSENTIAL_COLUMN_FAMILIES = "_EssentialColumnFamilies";
     // Index verification type done by the index tool
     public static final String INDEX_REBUILD_VERIFY_TYPE = "_IndexRebuildVerifyType";
     public static final String INDEX_RETRY_VERIFY = "_IndexRetryVerify";
@@ -148,6 +153,9 @@ abstract public class BaseScannerRegionObserver implements RegionObserver {
     public static final String EMPTY_COLUMN_QUALIFIER_NAME = "_EmptyCQName";
     public static final String INDEX_ROW_KEY = "_IndexRowKey";
     public static final String READ_REPAIR_TRANSFORMING_TABLE = "_ReadRepairTransformingTable";
+    // Set by the client to get the cost of the scan in the Phoenix code of the region server
+    // as the last row of the scan results
+    public static final String SCAN_COST = "_ScanCost";
     
     public final static byte[] REPLAY_TABLE_AND_INDEX_WRITES = PUnsignedTinyint.INSTANCE.toBytes(1);
     public final static byte[] REPLAY_ONLY_INDEX_WRITES = PUnsignedTinyint.INSTANCE.toBytes(2);
@@ -264,22 +272,87 @@ abstract public class BaseScannerRegionObserver implements RegionObserver {
             ScanUtil.setupReverseScan(scan);
             if (scan.getFilter() != null && !(scan.getFilter() instanceof PagedFilter)) {
                 byte[] pageSizeMsBytes = scan.getAttribute(BaseScannerRegionObserver.SERVER_PAGE_SIZE_MS);
-                if (pageSizeMsBytes != null) {
-                    scan.setFilter(new PagedFilter(scan.getFilter(), getPageSizeMsForFilter(scan)));
+                NavigableSet<byte[]> essentialFamilies = scan.doLoadColumnFamiliesOnDemand()
+                        ? ScanUtil.getEssentialColumnFamilies(scan) : null;
+                if (pageSizeMsBytes != null || essentialFamilies != null) {
+                    // Without paging, the page never times out and the PagedFilter is only used
+                    // to narrow down the essential column families of the wrapped filters.
+                    PagedFilter pagedFilter = new PagedFilter(scan.getFilter(),
+                            pageSizeMsBytes != null ? getPageSizeMsForFilter(scan) : Long.MAX_VALUE);
+                    pagedFilter.setEssentialFamilies(essentialFamilies);
+                    scan.setFilter(pagedFilter);
                 }
             }
         }
     }
 
+    /**
+     * Counts the rows read from the region for the {@link ServerScanCost} of a scan. It wraps
+     * the region scanner beneath the Phoenix scanners, so the rows consumed by an aggregation
+     * are counted too, whether or not the scan is paged.
+     */
+    private static class RowCountingRegionScanner extends DelegateRegionScanner {
+
+        RowCountingRegionScanner(RegionScanner scanner) {
+            super(scanner);
+        }
+
+        private static void recordRowExamined(List<Cell> result, int previousSize) {
+            if (result.size() > previousSize && !ScanUtil.isDummy(result)) {
+                ServerScanCost.recordRowExamined();
+            }
+        }
+
+        @Override
+        public boolean next(List<Cell> result) throws IOException {
+            int previousSize = result.size();
+            boolean hasMore = delegate.next(result);
+            recordRowExamined(result, previousSize);
+            return hasMore;
+        }
+
+        @Override
+        public boolean next(List<Cell> result, ScannerContext scannerContext)
+                throws IOException {
+            int previousSize = result.size();
+            boolean hasMore = delegate.next(result, scannerContext);
+            recordRowExamined(result, previousSize);
+            return hasMore;
+        }
+
+        @Override
+        public boolean nextRaw(List<Cell> result) throws IOException {
+            int previousSize = result.size();
+            boolean hasMore = delegate.nextRaw(result);
+            recordRowExamined(result, previousSize);
+            return hasMore;
+        }
+
+        @Override
+        public boolean nextRaw(List<Cell> result, ScannerContext scannerContext)
+                throws IOException {
+            int previousSize = result.size();
+            boolean hasMore = delegate.nextRaw(result, scannerContext);
+            recordRowExamined(result, previousSize);
+            return hasMore;
+        }
+    }
+
     private class RegionScannerHolder extends DelegateRegionScanner {
             private final Scan scan;
             private final ObserverContext<RegionCoprocessorEnvironment> c;
             private boolean wasOverriden;
+            // null unless the client asked for the cost of the scan
+            private final ServerScanCost scanCost;
+            // set when the region is exhausted by a call returning a row, in which case the cost
+            // is returned by the next call
+            private boolean scanCostPending;
             
             public RegionScannerHolder(ObserverContext<RegionCoprocessorEnvironment> c, Scan scan, final RegionScanner scanner) {
                 super(scanner);
                 this.c = c;
                 this.scan = scan;
+                this.scanCost = scan.getAttribute(SCAN_COST) == null ? null : new ServerScanCost();
             }
     
             private void overrideDelegate() throws IOException {
@@ -296,7 +369,8 @@ abstract public class BaseScannerRegionObserver implements RegionObserver {
                 final Span savedSpan = Trace.currentSpan();
                 final Span child = Trace.startSpan(SCANNER_OPENED_TRACE_INFO, savedSpan).getSpan();
                 try {
-                    RegionScanner scanner = doPostScannerOpen(c, scan, delegate);
+                    RegionScanner scanner = doPostScannerOpen(c, scan,
+                            scanCost == null ? delegate : new RowCountingRegionScanner(delegate));
                     scanner = new DelegateRegionScanner(scanner) {
                         // This isn't very obvious but close() could be called in a thread
                         // that is different from the thread that created the scanner.
@@ -327,10 +401,40 @@ abstract public class BaseScannerRegionObserver implements RegionObserver {
                 }
             }
             
+            private boolean next(List<Cell> result, boolean raw) throws IOException {
+                if (scanCost == null) {
+                    overrideDelegate();
+                    return raw ? super.nextRaw(result) : super.next(result);
+                }
+                if (scanCostPending) {
+                    scanCostPending = false;
+                    scanCost.addCell(EMPTY_BYTE_ARRAY, result);
+                    return false;
+                }
+                boolean hasMore;
+                ServerScanCost previous = scanCost.enter();
+                try {
+                    overrideDelegate();
+                    hasMore = raw ? super.nextRaw(result) : super.next(result);
+                } finally {
+                    scanCost.exit(previous);
+                }
+                if (!hasMore) {
+                    // The cells of a result must belong to the same row, so the cost is returned
+                    // on its own once the last row has been
+                    if (result.isEmpty()) {
+                        scanCost.addCell(EMPTY_BYTE_ARRAY, result);
+                    } else {
+                        scanCostPending = true;
+                        hasMore = true;
+                    }
+                }
+                return hasMore;
+            }
+
             @Override
             public boolean next(List<Cell> result, ScannerContext scannerContext) throws IOException {
-                overrideDelegate();
-                boolean res = super.next(result);
+                boolean res = next(result, false);
                 ScannerContextUtil.incrementSizeProgress(scannerContext, result);
                 ScannerContextUtil.updateTimeProgress(scannerContext);
                 return res;
@@ -338,14 +442,12 @@ abstract public class BaseScannerRegionObserver implements RegionObserver {
 
             @Override
             public boolean next(List<Cell> result) throws IOException {
-                overrideDelegate();
-                return super.next(result);
+                return next(result, false);
             }
 
             @Override
             public boolean nextRaw(List<Cell> result, ScannerContext scannerContext) throws IOException {
-                overrideDelegate();
-                boolean res = super.nextRaw(result);
+                boolean res = next(result, true);
                 ScannerContextUtil.incrementSizeProgress(scannerContext, result);
                 ScannerContextUtil.updateTimeProgress(scannerContext);
                 return res;
@@ -353,8 +455,7 @@ abstract public class BaseScannerRegionObserver implements RegionObserver {
             
             @Override
             public boolean nextRaw(List<Cell> result) throws IOException {
-                overrideDelegate();
-                return super.nextRaw(result);
+                return next(result, true);
             }
         }
         
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import static org.apache.phoenix.query.QueryConstants.UNVERIFIED_BYTES;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.CoprocessorException;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessor;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.regionserver.Region;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.coprocessor.GlobalIndexRegionScanner.SimpleValueGetter;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.BucketDigest;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.IndexDigestRequest;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.IndexDigestResponse;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.IndexDigestService;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.RowDigest;
+import org.apache.phoenix.hbase.index.util.GenericKeyValueBuilder;
+import org.apache.phoenix.index.IndexMaintainer;
+import org.apache.phoenix.protobuf.ProtobufUtil;
+import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.util.ByteUtil;
+import org.apache.phoenix.util.ServerUtil;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.RpcCallback;
+import com.google.protobuf.RpcController;
+import com.google.protobuf.Service;
+
+import org.apache.phoenix.thirdparty.com.google.common.hash.HashFunction;
+import org.apache.phoenix.thirdparty.com.google.common.hash.Hashing;
+
+/**
+ * Endpoint computing digests of index rows over buckets of the index key space, so that an
+ * index can be compared with its data table without shipping the rows to the client. On a data
+ * table region the digests are computed over the index rows built from the rows of the region,
+ * and on an index table region over the verified rows of the region.
+ * <p>
+ * The digest of a bucket is the sum of the hashes of its rows, and the hash of a row is the sum
+ * of the hashes of its row key and of each of its cells, leaving out the empty column and the
+ * timestamps. Sums don't depend on the order in which rows are added, so the digests of a bucket
+ * computed by different data table regions can be added up by the client.
+ */
+public class IndexDigestEndpoint extends IndexDigestService implements RegionCoprocessor {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private RegionCoprocessorEnvironment env;
+
+    @Override
+    public Iterable<Service> getServices() {
+        return Collections.singleton(this);
+    }
+
+    @Override
+    public void getIndexDigests(RpcController controller, IndexDigestRequest request,
+            RpcCallback<IndexDigestResponse> done) {
+        IndexDigestResponse.Builder responseBuilder = IndexDigestResponse.newBuilder();
+        Region region = env.getRegion();
+        try {
+            IndexMaintainer indexMaintainer = IndexMaintainer.deserialize(
+                    request.getIndexMaintainer().toByteArray(), true).get(0);
+            List<byte[]> bucketStartKeys = new ArrayList<>(request.getBucketStartKeysCount());
+            for (ByteString startKey : request.getBucketStartKeysList()) {
+                bucketStartKeys.add(startKey.toByteArray());
+            }
+            Digests digests = new Digests(bucketStartKeys, request.getRowBucketsList());
+            region.startRegionOperation();
+            try {
+                if (request.getExpected()) {
+                    digestExpectedIndexRows(region, indexMaintainer, request.getMaxTimestamp(),
+                            digests);
+                } else {
+                    digestIndexRows(region, indexMaintainer, request.getMaxTimestamp(),
+                            digests);
+                }
+            } finally {
+                region.closeRegionOperation();
+            }
+            digests.addTo(responseBuilder);
+        } catch (Throwable e) {
+            ProtobufUtil.setControllerException(controller, ServerUtil.createIOException(
+                    "Error when computing index digests of "
+                            + region.getRegionInfo().getRegionNameAsString(), e));
+        }
+        done.run(responseBuilder.build());
+    }
+
+    private static void digestExpectedIndexRows(Region region, IndexMaintainer indexMaintainer,
+            long maxTimestamp, Digests digests) throws IOException {
+        Scan scan = new Scan();
+        // the local indexes of the data table are stored in their own column families of its
+        // regions, and their rows have no cell in the families of the data table
+        for (ColumnFamilyDescriptor family : region.getTableDescriptor().getColumnFamilies()) {
+            if (!Bytes.startsWith(family.getName(),
+                    QueryConstants.LOCAL_INDEX_COLUMN_FAMILY_PREFIX_BYTES)) {
+                scan.addFamily(family.getName());
+            }
+        }
+        scan.setTimeRange(0, maxTimestamp);
+        try (RegionScanner scanner = region.getScanner(scan)) {
+            List<Cell> row = new ArrayList<>();
+            boolean hasMore;
+            do {
+                hasMore = scanner.next(row);
+                if (!row.isEmpty()) {
+                    Put dataPut = new Put(CellUtil.cloneRow(row.get(0)));
+                    for (Cell cell : row) {
+                        dataPut.add(cell);
+                    }
+                    digests.addExpectedRow(indexMaintainer, dataPut);
+                    row.clear();
+                }
+            } while (hasMore);
+        }
+    }
+
+    private static void digestIndexRows(Region region, IndexMaintainer indexMaintainer,
+            long maxTimestamp, Digests digests) throws IOException {
+        byte[] regionStartKey = region.getRegionInfo().getStartKey();
+        byte[] regionEndKey = region.getRegionInfo().getEndKey();
+        List<Scan> scans = new ArrayList<>();
+        if (digests.rowBuckets.isEmpty()) {
+            scans.add(new Scan());
+        } else {
+            // only the rows of the requested buckets are needed
+            for (int bucket : digests.rowBuckets) {
+                byte[] startKey = bucket == 0
+                        ? ByteUtil.EMPTY_BYTE_ARRAY : digests.bucketStartKeys.get(bucket - 1);
+                byte[] endKey = bucket == digests.bucketStartKeys.size()
+                        ? ByteUtil.EMPTY_BYTE_ARRAY : digests.bucketStartKeys.get(bucket);
+                if (Bytes.compareTo(startKey, regionStartKey) < 0) {
+                    startKey = regionStartKey;
+                }
+                if (endKey.length == 0 || (regionEndKey.length != 0
+                        && Bytes.compareTo(endKey, regionEndKey) > 0)) {
+                    endKey = regionEndKey;
+                }
+                if (endKey.length == 0 || Bytes.compareTo(startKey, endKey) < 0) {
+                    scans.add(new Scan().withStartRow(startKey).withStopRow(endKey));
+                }
+            }
+        }
+        byte[] emptyFamily = indexMaintainer.getEmptyKeyValueFamily().copyBytesIfNecessary();
+        byte[] emptyQualifier = indexMaintainer.getEmptyKeyValueQualifier();
+        for (Scan scan : scans) {
+            scan.setTimeRange(0, maxTimestamp);
+            try (RegionScanner scanner = region.getScanner(scan)) {
+                List<Cell> row = new ArrayList<>();
+                boolean hasMore;
+                do {
+                    hasMore = scanner.next(row);
+                    if (!row.isEmpty()) {
+                        digests.addIndexRow(row, emptyFamily, emptyQualifier);
+                        row.clear();
+                    }
+                } while (hasMore);
+            }
+        }
+    }
+
+    /**
+     * @param bucketStartKeys start keys of the buckets, without the empty start key of the first
+     *            bucket
+     * @return the bucket the key belongs to
+     */
+    public static int getBucket(List<byte[]> bucketStartKeys, byte[] key) {
+        int index = Collections.binarySearch(bucketStartKeys, key, Bytes.BYTES_COMPARATOR);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * @return the hash of a row key, which is part of the hash of the row so that rows without
+     *         any cell besides the empty column are accounted for
+     */
+    public static long hashRowKey(byte[] rowKey) {
+        return HASH_FUNCTION.newHasher()
+                .putInt(rowKey.length).putBytes(rowKey)
+                .hash().asLong();
+    }
+
+    public static long hashCell(byte[] rowKey, Cell cell) {
+        return HASH_FUNCTION.newHasher()
+                .putInt(rowKey.length).putBytes(rowKey)
+                .putInt(cell.getFamilyLength())
+                .putBytes(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength())
+                .putInt(cell.getQualifierLength())
+                .putBytes(cell.getQualifierArray(), cell.getQualifierOffset(),
+                        cell.getQualifierLength())
+                .putInt(cell.getValueLength())
+                .putBytes(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength())
+                .hash().asLong();
+    }
+
+    /**
+     * @return the hash of an index row, or null if the row is unverified
+     */
+    public static Long hashIndexRow(byte[] rowKey, Iterable<Cell> cells, byte[] emptyFamily,
+            byte[] emptyQualifier) {
+        long hash = hashRowKey(rowKey);
+        for (Cell cell : cells) {
+            if (CellUtil.matchingColumn(cell, emptyFamily, emptyQualifier)) {
+                if (CellUtil.matchingValue(cell, UNVERIFIED_BYTES)) {
+                    return null;
+                }
+            } else if (cell.getValueLength() > 0) {
+                // a covered column without value is the same as no covered column
+                hash += hashCell(rowKey, cell);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Digests of the buckets, and of the rows of the buckets that are compared row by row.
+     * Unverified index rows are left out of the digests, and are reported as such with the rows
+     * of their bucket.
+     */
+    private static class Digests {
+        private final List<byte[]> bucketStartKeys;
+        private final Set<Integer> rowBuckets;
+        private final long[] rowCounts;
+        private final long[] bucketDigests;
+        private final List<RowDigest> rows = new ArrayList<>();
+
+        private Digests(List<byte[]> bucketStartKeys, List<Integer> rowBuckets) {
+            this.bucketStartKeys = bucketStartKeys;
+            this.rowBuckets = new HashSet<>(rowBuckets);
+            this.rowCounts = new long[bucketStartKeys.size() + 1];
+            this.bucketDigests = new long[bucketStartKeys.size() + 1];
+        }
+
+        private void addExpectedRow(IndexMaintainer indexMaintainer, Put dataPut)
+                throws IOException {
+            long ts = GlobalIndexRegionScanner.getMaxTimestamp(dataPut);
+            SimpleValueGetter valueGetter = new SimpleValueGetter(dataPut);
+            ImmutableBytesWritable dataRowKeyPtr = new ImmutableBytesWritable(dataPut.getRow());
+            Put indexPut = indexMaintainer.buildUpdateMutation(GenericKeyValueBuilder.INSTANCE,
+                    valueGetter, dataRowKeyPtr, ts, null, null, true);
+            List<Cell> cells;
+            byte[] indexRowKey;
+            if (indexPut == null) {
+                // no covered column, the index row only has the empty column
+                indexRowKey = indexMaintainer.buildRowKey(valueGetter, dataRowKeyPtr, null, null,
+                        ts);
+                cells = Collections.emptyList();
+            } else {
+                indexRowKey = indexPut.getRow();
+                cells = new ArrayList<>();
+                for (List<Cell> familyCells : indexPut.getFamilyCellMap().values()) {
+                    cells.addAll(familyCells);
+                }
+            }
+            add(indexRowKey, hashIndexRow(indexRowKey, cells,
+                    indexMaintainer.getEmptyKeyValueFamily().copyBytesIfNecessary(),
+                    indexMaintainer.getEmptyKeyValueQualifier()));
+        }
+
+        private void addIndexRow(List<Cell> row, byte[] emptyFamily, byte[] emptyQualifier) {
+            byte[] rowKey = CellUtil.cloneRow(row.get(0));
+            Long hash = hashIndexRow(rowKey, row, emptyFamily, emptyQualifier);
+            if (hash != null) {
+                add(rowKey, hash);
+            } else {
+                int bucket = getBucket(bucketStartKeys, rowKey);
+                if (rowBuckets.contains(bucket)) {
+                    rows.add(RowDigest.newBuilder()
+                            .setBucket(bucket)
+                            .setRowKey(ByteString.copyFrom(rowKey))
+                            .setDigest(0)
+                            .setUnverified(true)
+                            .build());
+                }
+            }
+        }
+
+        private void add(byte[] indexRowKey, long hash) {
+            int bucket = getBucket(bucketStartKeys, indexRowKey);
+            if (rowBuckets.contains(bucket)) {
+                rows.add(RowDigest.newBuilder()
+                        .setBucket(bucket)
+                        .setRowKey(ByteString.copyFrom(indexRowKey))
+                        .setDigest(hash)
+                        .build());
+            } else if (rowBuckets.isEmpty()) {
+                rowCounts[bucket]++;
+                bucketDigests[bucket] += hash;
+            }
+        }
+
+        private void addTo(IndexDigestResponse.Builder responseBuilder) {
+            for (int bucket = 0; bucket < rowCounts.length; bucket++) {
+                if (rowCounts[bucket] > 0) {
+                    responseBuilder.addBuckets(BucketDigest.newBuilder()
+                            .setBucket(bucket)
+                            .setRowCount(rowCounts[bucket])
+                            .setDigest(bucketDigests[bucket])
+                            .build());
+                }
+            }
+            responseBuilder.addAllRows(rows);
+        }
+    }
+
+    @Override
+    public void start(CoprocessorEnvironment env) throws IOException {
+        if (env instanceof RegionCoprocessorEnvironment) {
+            this.env = (RegionCoprocessorEnvironment) env;
+        } else {
+            throw new CoprocessorException("Must be loaded on a table region!");
+        }
+    }
+
+    @Override
+    public void stop(CoprocessorEnvironment env) throws IOException {
+        // nothing to do
+    }
+}
@@ -153,6 +153,7 @@ import org.apache.hadoop.hbase.util.Pair;
 import org.apache.hadoop.hbase.util.VersionInfo;
 import org.apache.phoenix.cache.GlobalCache;
 import org.apache.phoenix.cache.GlobalCache.FunctionBytesPtr;
+import org.apache.phoenix.cache.ResolvedMetaDataCache;
 import org.apache.phoenix.compile.QueryPlan;
 import org.apache.phoenix.compile.ScanRanges;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos;
@@ -174,7 +175,10 @@ import org.apache.phoenix.coprocessor.generated.MetaDataProtos.GetTableRequest;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.GetVersionRequest;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.GetVersionResponse;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.MetaDataResponse;
+import org.apache.phoenix.coprocessor.generated.MetaDataProtos.TableTimestamp;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.UpdateIndexStateRequest;
+import org.apache.phoenix.coprocessor.generated.MetaDataProtos.ValidateTableTimestampsRequest;
+import org.apache.phoenix.coprocessor.generated.MetaDataProtos.ValidateTableTimestampsResponse;
 import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.expression.Expression;
@@ -673,10 +677,7 @@ TABLE_FAMILY_BYTES, TABLE_SEQ_NUM_BYTES);
             if (request.getClientVersion() < MIN_SPLITTABLE_SYSTEM_CATALOG
                     && table.getType() == PTableType.VIEW
                     && table.getViewType() != ViewType.MAPPED) {
-                try (PhoenixConnection connection = QueryUtil.getConnectionOnServer(env.getConfiguration()).unwrap(PhoenixConnection.class)) {
-                    PTable pTable = PhoenixRuntime.getTableNoCache(connection, table.getParentName().getString());
-                    table = ViewUtil.addDerivedColumnsAndIndexesFromParent(connection, table, pTable);
-                }
+                table = getResolvedView(table);
             }
             builder.setReturnCode(MetaDataProtos.MutationCode.TABLE_ALREADY_EXISTS);
             builder.setMutationTime(currentTime);
@@ -704,7 +705,8 @@ TABLE_FAMILY_BYTES, TABLE_SEQ_NUM_BYTES);
             // the PTable of views and indexes on views might get updated because a column is added to one of
             // their parents (this won't change the timestamp)
             if (table.getType() != PTableType.TABLE || table.getTimeStamp() != tableTimeStamp) {
-                builder.setTable(PTableImpl.toProto(table));
+                builder.setTable(
+                        GlobalCache.getInstance(env).getResolvedMetaDataCache().toProto(table));
             }
             done.run(builder.build());
         } catch (Throwable t) {
@@ -714,6 +716,141 @@ TABLE_FAMILY_BYTES, TABLE_SEQ_NUM_BYTES);
         }
     }
 
+    /**
+     * Checks in one call whether the tables a client has cached are still current. Only the
+     * tables whose metadata rows are in this region are checked, the others are reported as not
+     * in region so that the client can check them against their own region. A table is reported
+     * as changed if it was dropped, if its timestamp differs from the cached one or if it cannot
+     * be validated without building the full {@link #getTable} response, in which case the
+     * client falls back to calling {@link #getTable} for it.
+     */
+    @Override
+    public void validateTableTimestamps(RpcController controller,
+            ValidateTableTimestampsRequest request,
+            RpcCallback<ValidateTableTimestampsResponse> done) {
+        ValidateTableTimestampsResponse.Builder builder =
+                ValidateTableTimestampsResponse.newBuilder();
+        Region region = env.getRegion();
+        long clientTimeStamp = request.getClientTimestamp();
+        int clientVersion = request.getClientVersion();
+        try {
+            for (int i = 0; i < request.getTablesCount(); i++) {
+                TableTimestamp tableTimestamp = request.getTables(i);
+                byte[] tenantId = tableTimestamp.getTenantId().toByteArray();
+                byte[] schemaName = tableTimestamp.getSchemaName().toByteArray();
+                byte[] tableName = tableTimestamp.getTableName().toByteArray();
+                byte[] key = SchemaUtil.getTableKey(tenantId, schemaName, tableName);
+                if (!region.getRegionInfo().containsRow(key)) {
+                    builder.addNotInRegionTableIndexes(i);
+                } else if (!isTableUnchanged(tenantId, schemaName, tableName,
+                        tableTimestamp.getTableTimestamp(), clientTimeStamp, clientVersion)) {
+                    builder.addChangedTableIndexes(i);
+                }
+            }
+            done.run(builder.build());
+        } catch (Throwable t) {
+            LOGGER.error("validateTableTimestamps failed", t);
+            ProtobufUtil.setControllerException(controller,
+                    ServerUtil.createIOException("Error when validating table timestamps", t));
+        }
+    }
+
+    private boolean isTableUnchanged(byte[] tenantId, byte[] schemaName, byte[] tableName,
+            long tableTimeStamp, long clientTimeStamp, int clientVersion) {
+        try {
+            PTable table = doGetTable(tenantId, schemaName, tableName, clientTimeStamp, null,
+                    clientVersion);
+            if (table == null || table.getTimeStamp() != tableTimeStamp) {
+                return false;
+            }
+            // Let getTable freeze the mutation time of tables with disabled indexes
+            if (blockWriteRebuildIndex) {
+                if (table.getIndexDisableTimestamp() > 0) {
+                    return false;
+                }
+                for (PTable index : table.getIndexes()) {
+                    if (index.getIndexDisableTimestamp() > 0) {
+                        return false;
+                    }
+                }
+            }
+            // Report tables the user may not read as changed, so that getTable raises the error
+            getCoprocessorHost().preGetTable(Bytes.toString(tenantId),
+                    SchemaUtil.getTableName(schemaName, tableName),
+                    TableName.valueOf(table.getPhysicalName().getBytes()));
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Could not validate the timestamp of "
+                    + SchemaUtil.getTableName(schemaName, tableName), e);
+            return false;
+        }
+    }
+
+    /**
+     * Combines a view with the columns and indexes it inherits from its ancestors, reusing the
+     * view combined by a previous call as long as neither the view nor its ancestors changed.
+     */
+    private PTable getResolvedView(PTable view) throws SQLException {
+        GlobalCache globalCache = GlobalCache.getInstance(env);
+        ResolvedMetaDataCache resolvedCache = globalCache.getResolvedMetaDataCache();
+        PTable resolvedView = resolvedCache.getResolvedView(view, globalCache.getMetaDataCache());
+        if (resolvedView != null) {
+            return resolvedView;
+        }
+        // Look up the ancestors before combining the view, so that a change made to one of them
+        // in the meantime invalidates the cached view
+        List<Pair<ImmutableBytesPtr, Long>> ancestors = getCachedAncestors(view);
+        try (PhoenixConnection connection = QueryUtil.getConnectionOnServer(
+                env.getConfiguration()).unwrap(PhoenixConnection.class)) {
+            PTable pTable = PhoenixRuntime.getTableNoCache(connection,
+                    view.getParentName().getString());
+            resolvedView = ViewUtil.addDerivedColumnsAndIndexesFromParent(connection, view, pTable);
+        }
+        if (ancestors != null) {
+            resolvedCache.putResolvedView(view, ancestors, resolvedView);
+        }
+        return resolvedView;
+    }
+
+    /**
+     * @return the cache key and timestamp of each ancestor of the view, from its parent to the
+     *         base table, or null if one of them is not in the metadata cache of this server
+     */
+    private List<Pair<ImmutableBytesPtr, Long>> getCachedAncestors(PTable view) {
+        Cache<ImmutableBytesPtr, PMetaDataEntity> metaDataCache =
+                GlobalCache.getInstance(env).getMetaDataCache();
+        List<Pair<ImmutableBytesPtr, Long>> ancestors = new ArrayList<>();
+        PTable table = view;
+        while (table.getParentTableName() != null
+                && table.getParentTableName().getString().length() > 0) {
+            byte[] parentSchemaName = table.getParentSchemaName() == null
+                    ? ByteUtil.EMPTY_BYTE_ARRAY : table.getParentSchemaName().getBytes();
+            byte[] parentTableName = table.getParentTableName().getBytes();
+            PTable parent = null;
+            ImmutableBytesPtr parentKey = null;
+            // as ViewUtil does, look for a parent owned by the tenant of the view first
+            for (byte[] tenantId : new byte[][] { table.getTenantId() == null ? null
+                    : table.getTenantId().getBytes(), ByteUtil.EMPTY_BYTE_ARRAY }) {
+                if (tenantId == null) {
+                    continue;
+                }
+                parentKey = new ImmutableBytesPtr(
+                        SchemaUtil.getTableKey(tenantId, parentSchemaName, parentTableName));
+                PMetaDataEntity entity = metaDataCache.getIfPresent(parentKey);
+                if (entity instanceof PTable && !isTableDeleted((PTable) entity)) {
+                    parent = (PTable) entity;
+                    break;
+                }
+            }
+            if (parent == null) {
+                return null;
+            }
+            ancestors.add(new Pair<>(parentKey, parent.getTimeStamp()));
+            table = parent;
+        }
+        return ancestors;
+    }
+
     private PhoenixMetaDataCoprocessorHost getCoprocessorHost() {
         return phoenixAccessCoprocessorHost;
     }
@@ -3790,6 +3927,7 @@ TABLE_FAMILY_BYTES, TABLE_SEQ_NUM_BYTES);
         Cache<ImmutableBytesPtr, PMetaDataEntity> metaDataCache =
                 GlobalCache.getInstance(this.env).getMetaDataCache();
         metaDataCache.invalidateAll();
+        cache.getResolvedMetaDataCache().invalidateAll();
         long unfreedBytes = cache.clearTenantCache();
         ClearCacheResponse.Builder builder = ClearCacheResponse.newBuilder();
         builder.setUnfreedBytes(unfreedBytes);
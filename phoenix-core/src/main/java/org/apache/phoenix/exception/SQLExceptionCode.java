@@ -438,6 +438,11 @@ public enum SQLExceptionCode {
     + "Table not in this region."),
     UNABLE_TO_UPSERT_TASK(1146, "XCL46",
         "Error upserting records in SYSTEM.TASK table"),
+    SNAPSHOT_QUERY_NOT_SUPPORTED(1148, "XCL48",
+        "Only queries of the table of the snapshot without aggregation or hash join can run "
+        + "against a snapshot."),
+    EXPLAIN_ANALYZE_NOT_SUPPORTED(1149, "XCL49",
+        "EXPLAIN ANALYZE is only supported for queries."),
     /**
      * Implementation defined class. Phoenix internal error. (errorcode 20, sqlstate INT).
      */
@@ -255,7 +255,7 @@ public abstract class BaseQueryPlan implements QueryPlan {
         }
         
         if (tableRef == TableRef.EMPTY_TABLE_REF) {
-            return newIterator(scanGrouper, scan, caches);
+            return context.profileIterator(this, newIterator(scanGrouper, scan, caches));
         }
         
         ScanUtil.setClientVersion(scan, MetaDataProtocol.PHOENIX_VERSION);
@@ -371,7 +371,7 @@ public abstract class BaseQueryPlan implements QueryPlan {
                     "Scan on table " + context.getCurrentTable().getTable().getName() + " ready for iteration: " + scan, connection));
         }
         
-        ResultIterator iterator =  newIterator(scanGrouper, scan, caches);
+        ResultIterator iterator = context.profileIterator(this, newIterator(scanGrouper, scan, caches));
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(LogUtil.addCustomAnnotations(
                     "Iterator for table " + context.getCurrentTable().getTable().getName() + " ready: " + iterator, connection));
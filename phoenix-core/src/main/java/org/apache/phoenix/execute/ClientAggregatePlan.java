@@ -217,7 +217,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
             resultScanner = new SequenceResultIterator(resultScanner, context.getSequenceManager());
         }
         
-        return resultScanner;
+        return context.profileIterator(this, resultScanner);
     }
 
     @Override
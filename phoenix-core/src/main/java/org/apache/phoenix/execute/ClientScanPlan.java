@@ -119,7 +119,7 @@ public class ClientScanPlan extends ClientProcessingPlan {
             iterator = new SequenceResultIterator(iterator, context.getSequenceManager());
         }
         
-        return iterator;
+        return context.profileIterator(this, iterator);
     }
 
     @Override
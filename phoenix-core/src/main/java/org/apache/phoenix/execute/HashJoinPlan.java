@@ -198,6 +198,17 @@ public class HashJoinPlan extends DelegateQueryPlan {
                 public TaskExecutionMetricsHolder getTaskExecutionMetric() {
                     return NO_OP_INSTANCE;
                 }
+
+                @Override
+                public String getWorkloadClass() {
+                    return delegate.getContext().getConnection().getWorkloadClass();
+                }
+
+                @Override
+                public boolean waitsForTasks() {
+                    // the sub plan runs its scans on the same pool
+                    return true;
+                }
             }));
         }
         
@@ -254,10 +265,9 @@ public class HashJoinPlan extends DelegateQueryPlan {
         }
 
         if (hasSubPlansWithPersistentCache) {
-            return peekForPersistentCache(iterator, scanGrouper, scan);
-        } else {
-            return iterator;
+            iterator = peekForPersistentCache(iterator, scanGrouper, scan);
         }
+        return getContext().profileIterator(this, iterator);
     }
 
     private ResultIterator peekForPersistentCache(ResultIterator iterator, ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
@@ -164,6 +164,10 @@ public class MutationState implements SQLCloseable {
 
     private final MutationMetricQueue mutationMetricQueue;
     private ReadMetricQueue readMetricQueue;
+    private WriteBehindFlusher writeBehindFlusher;
+    // server timestamps of the commit batches of mutations handed off to be written behind,
+    // validated by the thread of the connection as the connection meta data isn't thread safe
+    private List<long[]> validatedServerTimestamps;
 
     private Map<String, Long> timeInExecuteMutationMap = new HashMap<>();
     private static boolean allUpsertsMutations = true;
@@ -570,6 +574,86 @@ public class MutationState implements SQLCloseable {
         throwIfTooBig();
     }
 
+    /**
+     * Hands off the mutations of every table that has accumulated at least a full batch to be
+     * sent in the background, if write-behind is enabled and no transaction is in progress.
+     * Blocks while the mutations already handed off exceed the configured in-flight limit.
+     * A failure of a background send is thrown by the next {@link #commit()}, and no more
+     * mutations are handed off until then.
+     */
+    public void writeBehind() throws SQLException {
+        if (!connection.getQueryServices().getProps().getBoolean(
+                QueryServices.WRITE_BEHIND_ENABLED_ATTRIB,
+                QueryServicesOptions.DEFAULT_WRITE_BEHIND_ENABLED)
+                || phoenixTransactionContext.isTransactionRunning()) {
+            return;
+        }
+        if (writeBehindFlusher == null) {
+            long maxInFlightBytes = connection.getQueryServices().getProps().getLong(
+                    QueryServices.WRITE_BEHIND_MAX_IN_FLIGHT_BYTES_ATTRIB,
+                    QueryServicesOptions.DEFAULT_WRITE_BEHIND_MAX_IN_FLIGHT_BYTES);
+            writeBehindFlusher = new WriteBehindFlusher(
+                    connection.getQueryServices().getWriteBehindExecutor(), maxInFlightBytes);
+        }
+        if (writeBehindFlusher.hasFailed()) {
+            return;
+        }
+        boolean isHandedOff = false;
+        Iterator<Entry<TableRef, List<MultiRowMutationState>>> iterator =
+                mutationsMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<TableRef, List<MultiRowMutationState>> entry = iterator.next();
+            TableRef tableRef = entry.getKey();
+            PTable table = tableRef.getTable();
+            if (table.isTransactional() || table.getType() == PTableType.INDEX) {
+                continue;
+            }
+            int rows = 0;
+            for (MultiRowMutationState batch : entry.getValue()) {
+                rows += batch.size();
+            }
+            long sizeBytes = PhoenixKeyValueUtil.getEstimatedRowMutationSizeWithBatch(
+                    Collections.singletonMap(tableRef, entry.getValue()));
+            if (rows < batchSize && sizeBytes < batchSizeBytes) {
+                continue;
+            }
+            MutationState handedOff = new MutationState(maxSize, maxSizeBytes, connection);
+            handedOff.mutationsMap.put(tableRef, entry.getValue());
+            handedOff.numRows = rows;
+            handedOff.estimatedSize = sizeBytes;
+            handedOff.validatedServerTimestamps = new ArrayList<>();
+            for (Map<TableRef, MultiRowMutationState> commitBatch
+                    : handedOff.createCommitBatches()) {
+                handedOff.validatedServerTimestamps.add(handedOff.validateAll(commitBatch));
+            }
+            writeBehindFlusher.awaitCapacity(sizeBytes);
+            iterator.remove();
+            numRows -= rows;
+            isHandedOff = true;
+            writeBehindFlusher.submit(handedOff, sizeBytes);
+        }
+        if (isHandedOff) {
+            estimatedSize = PhoenixKeyValueUtil.getEstimatedRowMutationSizeWithBatch(mutationsMap);
+        }
+    }
+
+    /**
+     * Waits for the mutations handed off by {@link #writeBehind()} to be sent and throws the
+     * first failure, if any, after discarding the mutations that are still buffered.
+     */
+    public void awaitWriteBehind() throws SQLException {
+        if (writeBehindFlusher == null) {
+            return;
+        }
+        for (MutationState handedOff : writeBehindFlusher.awaitCompletion()) {
+            mutationMetricQueue.combineMetricQueues(handedOff.mutationMetricQueue);
+        }
+        if (writeBehindFlusher.hasFailed()) {
+            resetState();
+            writeBehindFlusher.throwIfFailed();
+        }
+    }
+
     private static ImmutableBytesPtr getNewRowKeyWithRowTimestamp(ImmutableBytesPtr ptr, long rowTimestamp, PTable table) {
         RowKeySchema schema = table.getRowKeySchema();
         int rowTimestampColPos = table.getRowTimestampColPos();
@@ -1186,8 +1270,11 @@ public class MutationState implements SQLCloseable {
             commitBatches = createCommitBatches(tableRefIterator);
         }
 
-        for (Map<TableRef, MultiRowMutationState> commitBatch : commitBatches) {
-            long [] serverTimestamps = validateServerTimestamps ? validateAll(commitBatch) : null;
+        for (int i = 0; i < commitBatches.size(); i++) {
+            Map<TableRef, MultiRowMutationState> commitBatch = commitBatches.get(i);
+            long [] serverTimestamps = !validateServerTimestamps ? null
+                    : validatedServerTimestamps != null ? validatedServerTimestamps.get(i)
+                    : validateAll(commitBatch);
             sendBatch(commitBatch, serverTimestamps, sendAll);
         }
     }
@@ -1828,6 +1915,9 @@ public class MutationState implements SQLCloseable {
 
     public void rollback() throws SQLException {
         try {
+            if (writeBehindFlusher != null) {
+                writeBehindFlusher.discard();
+            }
             phoenixTransactionContext.abort();
         } finally {
             resetState();
@@ -1835,6 +1925,7 @@ public class MutationState implements SQLCloseable {
     }
 
     public void commit() throws SQLException {
+        awaitWriteBehind();
         Map<TableRef, List<MultiRowMutationState>> txMutations = Collections.emptyMap();
         int retryCount = 0;
         do {
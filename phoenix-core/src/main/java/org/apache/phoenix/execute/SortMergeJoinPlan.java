@@ -186,9 +186,9 @@ public class SortMergeJoinPlan implements QueryPlan {
 
     @Override
     public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {        
-        return joinType == JoinType.Semi || joinType == JoinType.Anti ?
+        return context.profileIterator(this, joinType == JoinType.Semi || joinType == JoinType.Anti ?
                 new SemiAntiJoinIterator(lhsPlan.iterator(scanGrouper), rhsPlan.iterator(scanGrouper)) :
-                new BasicJoinIterator(lhsPlan.iterator(scanGrouper), rhsPlan.iterator(scanGrouper));
+                new BasicJoinIterator(lhsPlan.iterator(scanGrouper), rhsPlan.iterator(scanGrouper)));
     }
     
     @Override
@@ -192,7 +192,7 @@ public class TupleProjectionPlan extends DelegateQueryPlan {
             iterator = new FilterResultIterator(iterator, postFilter);
         }
         
-        return iterator;
+        return getContext().profileIterator(this, iterator);
     }
 
     @Override
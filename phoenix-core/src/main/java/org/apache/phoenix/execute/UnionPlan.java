@@ -44,12 +44,16 @@ import org.apache.phoenix.iterate.LimitingResultIterator;
 import org.apache.phoenix.iterate.MergeSortTopNResultIterator;
 import org.apache.phoenix.iterate.OffsetResultIterator;
 import org.apache.phoenix.iterate.ParallelScanGrouper;
+import org.apache.phoenix.iterate.ParallelUnionResultIterator;
 import org.apache.phoenix.iterate.ResultIterator;
 import org.apache.phoenix.iterate.UnionResultIterators;
 import org.apache.phoenix.jdbc.PhoenixStatement.Operation;
 import org.apache.phoenix.optimize.Cost;
 import org.apache.phoenix.parse.FilterableStatement;
+import org.apache.phoenix.query.ConnectionQueryServices;
 import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.TableRef;
 import org.apache.phoenix.util.ExpressionUtil;
 
@@ -170,7 +174,17 @@ public class UnionPlan implements QueryPlan {
         if (isOrdered) { // TopN
             scanner = new MergeSortTopNResultIterator(iterators, limit, offset, orderBy.getOrderByExpressions());
         } else {
-            scanner = new ConcatResultIterator(iterators);
+            if (isParallel()) {
+                ConnectionQueryServices services = parentContext.getConnection().getQueryServices();
+                int queueSize = services.getProps().getInt(
+                        QueryServices.PARALLEL_UNION_ALL_QUEUE_SIZE_ATTRIB,
+                        QueryServicesOptions.DEFAULT_PARALLEL_UNION_ALL_QUEUE_SIZE);
+                // the branches wait on their scans, so they don't run on the scan executor
+                scanner = new ParallelUnionResultIterator(iterators,
+                        services.getParallelUnionExecutor(), queueSize);
+            } else {
+                scanner = new ConcatResultIterator(iterators);
+            }
             if (offset != null) {
                 scanner = new OffsetResultIterator(scanner, offset);
             }
@@ -178,15 +192,26 @@ public class UnionPlan implements QueryPlan {
                 scanner = new LimitingResultIterator(scanner, limit);
             }          
         }
-        return scanner;
+        return parentContext.profileIterator(this, scanner);
+    }
+
+    /**
+     * Whether the branches are drained concurrently. Only applies when there is no ORDER BY, as
+     * otherwise the branches are already merge sorted as they are read.
+     */
+    private boolean isParallel() {
+        return plans.size() > 1 && orderBy.getOrderByExpressions().isEmpty()
+                && parentContext.getConnection().getQueryServices().getProps().getBoolean(
+                        QueryServices.PARALLEL_UNION_ALL_ENABLED_ATTRIB,
+                        QueryServicesOptions.DEFAULT_PARALLEL_UNION_ALL_ENABLED);
     }
 
     @Override
     public ExplainPlan getExplainPlan() throws SQLException {
         List<String> steps = new ArrayList<String>();
         ExplainPlanAttributesBuilder builder = new ExplainPlanAttributesBuilder();
-        String abstractExplainPlan = "UNION ALL OVER " + this.plans.size()
-            + " QUERIES";
+        String abstractExplainPlan = (isParallel() ? "PARALLEL " : "")
+            + "UNION ALL OVER " + this.plans.size() + " QUERIES";
         builder.setAbstractExplainPlan(abstractExplainPlan);
         steps.add(abstractExplainPlan);
         ResultIterator iterator = iterator();
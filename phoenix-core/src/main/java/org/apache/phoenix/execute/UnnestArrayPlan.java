@@ -55,7 +55,8 @@ public class UnnestArrayPlan extends DelegateQueryPlan {
 
     @Override
     public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
-        return new UnnestArrayResultIterator(delegate.iterator(scanGrouper, scan));
+        return getContext().profileIterator(this,
+                new UnnestArrayResultIterator(delegate.iterator(scanGrouper, scan)));
     }
 
     @Override
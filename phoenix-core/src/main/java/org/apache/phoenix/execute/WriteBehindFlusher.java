@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.execute;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.util.ServerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends batches of mutations handed off by a {@link MutationState} in the background, so that
+ * the application can keep executing statements while full batches are written to HBase.
+ *
+ * Batches are sent one after the other in the order in which they were handed off, which
+ * guarantees that a later write to a row is never overtaken by an earlier one. The total size
+ * of the batches that have been handed off but not sent yet is bounded by the configured
+ * in-flight limit: handing off a batch blocks until there is room for it. The first failure is
+ * kept until it is reported through {@link #throwIfFailed()} and any batch still pending at that
+ * point is dropped, as its mutations would not be committed anyway.
+ *
+ * Only the thread owning the {@link MutationState} is expected to call the public methods.
+ */
+class WriteBehindFlusher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindFlusher.class);
+
+    private final ExecutorService executor;
+    private final long maxInFlightBytes;
+
+    // All fields below are guarded by this
+    private final Queue<Pair<MutationState, Long>> pending = new ArrayDeque<>();
+    private final List<MutationState> sent = new ArrayList<>();
+    private long inFlightBytes;
+    private boolean isRunning;
+    private Throwable error;
+
+    WriteBehindFlusher(ExecutorService executor, long maxInFlightBytes) {
+        this.executor = executor;
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    /**
+     * Blocks until a batch of the given size can be handed off without going over the in-flight
+     * limit. A batch larger than the limit is let through once nothing else is in flight.
+     */
+    synchronized void awaitCapacity(long sizeBytes) throws SQLException {
+        try {
+            while (inFlightBytes > 0 && inFlightBytes + sizeBytes > maxInFlightBytes
+                    && error == null) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLExceptionInfo.Builder(SQLExceptionCode.INTERRUPTED_EXCEPTION)
+                    .setRootCause(e).build().buildException();
+        }
+    }
+
+    /**
+     * Queues the batch to be sent in the background.
+     */
+    synchronized void submit(MutationState batch, long sizeBytes) {
+        pending.add(new Pair<>(batch, sizeBytes));
+        inFlightBytes += sizeBytes;
+        if (!isRunning) {
+            isRunning = true;
+            try {
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the pool is saturated, so the thread of the connection sends the batch itself
+                LOGGER.debug("Write-behind executor is full, sending mutations synchronously", e);
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Pair<MutationState, Long> batch;
+            synchronized (this) {
+                batch = error == null ? pending.poll() : null;
+                if (batch == null) {
+                    dropPending();
+                    isRunning = false;
+                    notifyAll();
+                    return;
+                }
+            }
+            try {
+                batch.getFirst().send();
+            } catch (Throwable t) {
+                LOGGER.warn("Write-behind flush of mutations failed", t);
+                synchronized (this) {
+                    if (error == null) {
+                        error = t;
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    inFlightBytes -= batch.getSecond();
+                    sent.add(batch.getFirst());
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void dropPending() {
+        for (Pair<MutationState, Long> batch : pending) {
+            inFlightBytes -= batch.getSecond();
+        }
+        pending.clear();
+    }
+
+    /**
+     * @return true if a batch failed to be sent since the last call to {@link #throwIfFailed()}
+     */
+    synchronized boolean hasFailed() {
+        return error != null;
+    }
+
+    /**
+     * Blocks until every batch handed off so far has either been sent or dropped.
+     * @return the batches that were sent, or attempted to be sent, since the last call
+     */
+    synchronized List<MutationState> awaitCompletion() throws SQLException {
+        try {
+            while (isRunning) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLExceptionInfo.Builder(SQLExceptionCode.INTERRUPTED_EXCEPTION)
+                    .setRootCause(e).build().buildException();
+        }
+        List<MutationState> completed = new ArrayList<>(sent);
+        sent.clear();
+        return completed;
+    }
+
+    /**
+     * Throws the first failure that occurred while sending a batch in the background and
+     * clears it, so that the next batches handed off are sent again.
+     */
+    synchronized void throwIfFailed() throws SQLException {
+        Throwable t = error;
+        if (t == null) {
+            return;
+        }
+        error = null;
+        if (t instanceof SQLException) {
+            throw (SQLException) t;
+        }
+        throw ServerUtil.parseServerException(t);
+    }
+
+    /**
+     * Drops the batches that have not been sent yet, waits for the one being sent and forgets
+     * about any failure. Mutations that already reached HBase are not undone.
+     */
+    synchronized void discard() throws SQLException {
+        dropPending();
+        awaitCompletion();
+        error = null;
+    }
+}
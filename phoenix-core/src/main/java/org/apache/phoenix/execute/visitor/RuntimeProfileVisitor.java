@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.execute.visitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.phoenix.compile.ListJarsQueryPlan;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.compile.TraceQueryPlan;
+import org.apache.phoenix.execute.AggregatePlan;
+import org.apache.phoenix.execute.ClientAggregatePlan;
+import org.apache.phoenix.execute.ClientScanPlan;
+import org.apache.phoenix.execute.CursorFetchPlan;
+import org.apache.phoenix.execute.HashJoinPlan;
+import org.apache.phoenix.execute.LiteralResultIterationPlan;
+import org.apache.phoenix.execute.ScanPlan;
+import org.apache.phoenix.execute.SortMergeJoinPlan;
+import org.apache.phoenix.execute.TupleProjectionPlan;
+import org.apache.phoenix.execute.UnionPlan;
+import org.apache.phoenix.execute.UnnestArrayPlan;
+import org.apache.phoenix.iterate.ProfilingResultIterator;
+import org.apache.phoenix.monitoring.MetricType;
+import org.apache.phoenix.monitoring.ReadMetricQueue;
+
+/**
+ * Implementation of QueryPlanVisitor used by EXPLAIN ANALYZE to describe, once a QueryPlan has
+ * run, the runtime metrics of each of its steps. Each step gives the rows returned by the
+ * iterator of its plan and the time spent in it, which includes the time spent in the iterators
+ * of its input steps, e.g. a client aggregation includes the merge sort of its scans. A hash
+ * join build step gives the rows and time of its plan while the hash cache was built. The other
+ * metrics of a step are the request level metrics of its StatementContext, so a client step
+ * sharing the context of its input reports them once, on the input step. The skew of the scans
+ * is given by the maximum and median execution time of the tasks the scans were run by.
+ */
+public class RuntimeProfileVisitor implements QueryPlanVisitor<Void> {
+    private static final String INDENT = "    ";
+
+    private final List<String> profile = new ArrayList<>();
+    private final Set<ReadMetricQueue> profiledMetrics =
+            Collections.newSetFromMap(new IdentityHashMap<ReadMetricQueue, Boolean>());
+    private int depth;
+    private String prefix = "";
+
+    /**
+     * @return one line per step of the visited plans, the input steps being indented
+     */
+    public List<String> getProfile() {
+        return profile;
+    }
+
+    private void addStep(String operation, QueryPlan plan) {
+        addStep(operation, plan, null);
+    }
+
+    /**
+     * @param input the input of the step, whose metrics are reported on the input step when it
+     *            shares the context of the step
+     */
+    private void addStep(String operation, QueryPlan plan, QueryPlan input) {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            buf.append(INDENT);
+        }
+        buf.append(prefix).append(operation);
+        prefix = "";
+        if (plan.getTableRef() != null && plan.getTableRef().getTable() != null) {
+            buf.append(" OVER ").append(plan.getTableRef().getTable().getName().getString());
+        }
+        ProfilingResultIterator iterator =
+                plan.getContext() == null ? null : plan.getContext().getProfilingIterator(plan);
+        if (iterator != null) {
+            buf.append(" ").append(iterator.getRowCount()).append(" ROWS IN ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(iterator.getTimeInNextNanos()))
+                    .append(" MS");
+        }
+        ReadMetricQueue metrics = getMetrics(plan);
+        if (metrics != null && metrics != getMetrics(input) && profiledMetrics.add(metrics)) {
+            appendMetrics(buf, metrics);
+        }
+        profile.add(buf.toString());
+    }
+
+    private static ReadMetricQueue getMetrics(QueryPlan plan) {
+        return plan == null || plan.getContext() == null ? null
+                : plan.getContext().getReadMetricsQueue();
+    }
+
+    private static void appendMetrics(StringBuilder buf, ReadMetricQueue metrics) {
+        Map<MetricType, Long> totals = new EnumMap<>(MetricType.class);
+        for (Map<MetricType, Long> tableMetrics : metrics.aggregate().values()) {
+            for (Map.Entry<MetricType, Long> entry : tableMetrics.entrySet()) {
+                Long total = totals.get(entry.getKey());
+                totals.put(entry.getKey(),
+                        total == null ? entry.getValue() : total + entry.getValue());
+            }
+        }
+        if (totals.isEmpty()) {
+            return;
+        }
+        long rowsScanned = getTotal(totals, MetricType.COUNT_ROWS_SCANNED);
+        buf.append(" (rows in ").append(rowsScanned)
+                .append(", rows out ")
+                .append(rowsScanned - getTotal(totals, MetricType.COUNT_ROWS_FILTERED))
+                .append(", bytes ").append(getTotal(totals, MetricType.SCAN_BYTES))
+                .append(", regions ").append(getTotal(totals, MetricType.COUNT_SCANNED_REGIONS))
+                .append(", rpcs ").append(getTotal(totals, MetricType.COUNT_RPC_CALLS));
+        if (totals.containsKey(MetricType.SERVER_CPU_TIME)) {
+            buf.append(", server cpu ").append(getTotal(totals, MetricType.SERVER_CPU_TIME))
+                    .append(" us rows examined ")
+                    .append(getTotal(totals, MetricType.SERVER_ROWS_EXAMINED))
+                    .append(" filtered ").append(getTotal(totals, MetricType.SERVER_ROWS_FILTERED))
+                    .append(" memory ").append(getTotal(totals, MetricType.SERVER_MEMORY_RESERVED))
+                    .append(" bytes spilled ").append(getTotal(totals, MetricType.SERVER_SPILL_BYTES))
+                    .append(" bytes");
+        }
+        List<Long> taskTimes = metrics.getMetricValues(MetricType.TASK_EXECUTION_TIME);
+        if (!taskTimes.isEmpty()) {
+            Collections.sort(taskTimes);
+            buf.append(", tasks ").append(taskTimes.size())
+                    .append(" max ").append(taskTimes.get(taskTimes.size() - 1))
+                    .append(" ms median ").append(taskTimes.get(taskTimes.size() / 2))
+                    .append(" ms queue wait ")
+                    .append(getTotal(totals, MetricType.TASK_QUEUE_WAIT_TIME)).append(" ms");
+        }
+        buf.append(", memory ").append(getTotal(totals, MetricType.MEMORY_CHUNK_BYTES))
+                .append(" bytes waited ").append(getTotal(totals, MetricType.MEMORY_WAIT_TIME))
+                .append(" ms, spool files ").append(getTotal(totals, MetricType.SPOOL_FILE_COUNTER))
+                .append(" of ").append(getTotal(totals, MetricType.SPOOL_FILE_SIZE))
+                .append(" bytes)");
+    }
+
+    private static long getTotal(Map<MetricType, Long> totals, MetricType type) {
+        Long total = totals.get(type);
+        return total == null ? 0 : total;
+    }
+
+    private void visitInput(QueryPlan plan) {
+        depth++;
+        plan.accept(this);
+        depth--;
+    }
+
+    @Override
+    public Void defaultReturn(QueryPlan plan) {
+        addStep(plan.getClass().getSimpleName(), plan);
+        return null;
+    }
+
+    @Override
+    public Void visit(AggregatePlan plan) {
+        addStep("SERVER AGGREGATE SCAN", plan);
+        return null;
+    }
+
+    @Override
+    public Void visit(ScanPlan plan) {
+        addStep("SCAN", plan);
+        return null;
+    }
+
+    @Override
+    public Void visit(ClientAggregatePlan plan) {
+        addStep("CLIENT AGGREGATE", plan, plan.getDelegate());
+        visitInput(plan.getDelegate());
+        return null;
+    }
+
+    @Override
+    public Void visit(ClientScanPlan plan) {
+        addStep(plan.getOrderBy().getOrderByExpressions().isEmpty() ? "CLIENT SCAN"
+                : "CLIENT ORDER BY", plan, plan.getDelegate());
+        visitInput(plan.getDelegate());
+        return null;
+    }
+
+    @Override
+    public Void visit(LiteralResultIterationPlan plan) {
+        addStep("LITERAL", plan);
+        return null;
+    }
+
+    @Override
+    public Void visit(TupleProjectionPlan plan) {
+        addStep("PROJECTION", plan, plan.getDelegate());
+        visitInput(plan.getDelegate());
+        return null;
+    }
+
+    @Override
+    public Void visit(HashJoinPlan plan) {
+        addStep("HASH JOIN PROBE", plan, plan.getDelegate());
+        visitInput(plan.getDelegate());
+        for (HashJoinPlan.SubPlan subPlan : plan.getSubPlans()) {
+            prefix = subPlan instanceof HashJoinPlan.HashSubPlan ? "HASH JOIN BUILD: "
+                    : "SUBQUERY: ";
+            visitInput(subPlan.getInnerPlan());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(SortMergeJoinPlan plan) {
+        addStep("SORT MERGE JOIN", plan, plan.getLhsPlan());
+        visitInput(plan.getLhsPlan());
+        visitInput(plan.getRhsPlan());
+        return null;
+    }
+
+    @Override
+    public Void visit(UnionPlan plan) {
+        addStep("UNION ALL", plan);
+        for (QueryPlan subPlan : plan.getSubPlans()) {
+            visitInput(subPlan);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(UnnestArrayPlan plan) {
+        addStep("UNNEST ARRAY", plan, plan.getDelegate());
+        visitInput(plan.getDelegate());
+        return null;
+    }
+
+    @Override
+    public Void visit(CursorFetchPlan plan) {
+        addStep("CURSOR FETCH", plan, plan.getDelegate());
+        visitInput(plan.getDelegate());
+        return null;
+    }
+
+    @Override
+    public Void visit(ListJarsQueryPlan plan) {
+        return defaultReturn(plan);
+    }
+
+    @Override
+    public Void visit(TraceQueryPlan plan) {
+        return defaultReturn(plan);
+    }
+}
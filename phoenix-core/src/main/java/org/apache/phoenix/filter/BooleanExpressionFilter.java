@@ -28,6 +28,7 @@ import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableUtils;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.ExpressionType;
+import org.apache.phoenix.monitoring.ServerScanCost;
 import org.apache.phoenix.schema.IllegalDataException;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.ServerUtil;
@@ -45,6 +46,8 @@ abstract public class BooleanExpressionFilter extends FilterBase implements Writ
 
     protected Expression expression;
     private ImmutableBytesWritable tempPtr = new ImmutableBytesWritable();
+    // whether the expression evaluated to false for the current row
+    private boolean rowFiltered;
     
     public BooleanExpressionFilter() {
     }
@@ -94,12 +97,15 @@ abstract public class BooleanExpressionFilter extends FilterBase implements Writ
                 return null;
             }
         } catch (IllegalDataException e) {
+            rowFiltered = true;
             return Boolean.FALSE;
         }
         // If the entire Boolean expression evaluated to completion (evaluate returned true),
         // but the result was SQL NULL, treat it as Java Boolean FALSE rather than returning null,
         // which is used above to indicate incomplete evaluation.
-        return Boolean.TRUE.equals(expression.getDataType().toObject(tempPtr));
+        boolean result = Boolean.TRUE.equals(expression.getDataType().toObject(tempPtr));
+        rowFiltered = !result;
+        return result;
     }
 
     @Override
@@ -130,6 +136,10 @@ abstract public class BooleanExpressionFilter extends FilterBase implements Writ
 
     @Override
     public void reset() {
+        if (rowFiltered) {
+            ServerScanCost.recordRowFiltered();
+            rowFiltered = false;
+        }
         expression.reset();
     }
 }
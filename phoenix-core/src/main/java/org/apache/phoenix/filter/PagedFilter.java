@@ -24,6 +24,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
+import java.util.NavigableSet;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
@@ -48,6 +49,8 @@ public class PagedFilter extends FilterBase implements Writable {
     private long startTime;
     private byte[] rowKeyAtStop;
     private Filter delegate = null;
+    // Not serialized as it is only set on the server side, see BaseScannerRegionObserver
+    private NavigableSet<byte[]> essentialFamilies = null;
 
     public PagedFilter() {
         init();
@@ -67,6 +70,17 @@ public class PagedFilter extends FilterBase implements Writable {
         this.delegate = delegate;
     }
 
+    /**
+     * Overrides the column families reported as essential by the delegate filter. The delegate is
+     * usually a filter list in which row key only filters, such as the skip scan filter, report
+     * every column family as essential and so prevent loading the others on demand.
+     * @param essentialFamilies the column families that the delegate needs to filter a row, or
+     * null to use the delegate's own answer
+     */
+    public void setEssentialFamilies(NavigableSet<byte[]> essentialFamilies) {
+        this.essentialFamilies = essentialFamilies;
+    }
+
     public byte[] getRowKeyAtStop() {
         if (rowKeyAtStop != null) {
             return Arrays.copyOf(rowKeyAtStop, rowKeyAtStop.length);
@@ -203,6 +217,9 @@ public class PagedFilter extends FilterBase implements Writable {
 
     @Override
     public boolean isFamilyEssential(byte[] name) throws IOException {
+        if (essentialFamilies != null) {
+            return essentialFamilies.contains(name);
+        }
         if (delegate != null) {
             return delegate.isFamilyEssential(name);
         }
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.hbase.index.write;
+
+import static org.apache.phoenix.util.ServerUtil.wrapInDoNotRetryIOException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.hbase.Stoppable;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.AsyncConnection;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.phoenix.coprocessor.MetaDataProtocol;
+import org.apache.phoenix.hbase.index.exception.MultiIndexWriteFailureException;
+import org.apache.phoenix.hbase.index.exception.SingleIndexWriteFailureException;
+import org.apache.phoenix.hbase.index.table.HTableInterfaceReference;
+import org.apache.phoenix.hbase.index.util.KeyValueBuilder;
+import org.apache.phoenix.index.PhoenixIndexFailurePolicy;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.apache.phoenix.util.IndexUtil;
+import org.apache.phoenix.util.ServerUtil.ConnectionFactory;
+import org.apache.phoenix.util.ServerUtil.ConnectionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Multimap;
+
+/**
+ * {@link IndexCommitter} that writes to all the index tables through HBase's non-blocking
+ * {@link AsyncConnection}, instead of handing each index table to a thread of the index writer
+ * pool that then blocks on {@code Table#batch}. The batches for all the index tables are issued
+ * at once and the calling handler waits for all of them to complete, so no extra thread is tied
+ * up per index table and the index writer pool does not need to be sized after the number of
+ * global indexes.
+ * <p>
+ * Failures are tracked and reported the same way as {@link TrackingParallelWriterIndexCommitter}
+ * does, through a {@link MultiIndexWriteFailureException} listing the index tables that could
+ * not be written, so the configured {@link IndexFailurePolicy} handles them as before.
+ * <p>
+ * Enable it by setting {@link IndexWriter#INDEX_COMMITTER_CONF_KEY} to this class.
+ */
+public class AsyncIndexCommitter implements IndexCommitter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncIndexCommitter.class);
+
+    private AsyncConnection retryingConnection;
+    private AsyncConnection noRetriesConnection;
+    private Stoppable stopped;
+    private RegionCoprocessorEnvironment env;
+    private KeyValueBuilder kvBuilder;
+    protected boolean disableIndexOnFailure = false;
+
+    // for testing
+    public AsyncIndexCommitter(String hbaseVersion) {
+        kvBuilder = KeyValueBuilder.get(hbaseVersion);
+    }
+
+    public AsyncIndexCommitter() {
+    }
+
+    @Override
+    public void setup(IndexWriter parent, RegionCoprocessorEnvironment env, String name, boolean disableIndexOnFailure) {
+        this.disableIndexOnFailure = disableIndexOnFailure;
+        setup(ConnectionFactory.getAsyncConnection(ConnectionType.INDEX_WRITER_CONNECTION, env),
+                ConnectionFactory.getAsyncConnection(
+                        ConnectionType.INDEX_WRITER_CONNECTION_WITH_CUSTOM_THREADS_NO_RETRIES, env),
+                parent, env);
+        this.kvBuilder = KeyValueBuilder.get(env.getHBaseVersion());
+    }
+
+    /**
+     * Setup <tt>this</tt>.
+     * <p>
+     * Exposed for TESTING
+     */
+    void setup(AsyncConnection retryingConnection, AsyncConnection noRetriesConnection,
+            Stoppable stop, RegionCoprocessorEnvironment env) {
+        this.retryingConnection = retryingConnection;
+        this.noRetriesConnection = noRetriesConnection;
+        this.stopped = stop;
+        this.env = env;
+    }
+
+    @Override
+    public void write(Multimap<HTableInterfaceReference, Mutation> toWrite, final boolean allowLocalUpdates, final int clientVersion) throws IOException {
+        // if the client can retry index writes, then we don't need to retry here
+        AsyncConnection connection = disableIndexOnFailure
+                && clientVersion >= MetaDataProtocol.MIN_CLIENT_RETRY_INDEX_WRITES
+                ? noRetriesConnection : retryingConnection;
+        String localTableName = env == null ? null
+                : env.getRegion().getTableDescriptor().getTableName().getNameAsString();
+        List<HTableInterfaceReference> tables = new ArrayList<HTableInterfaceReference>();
+        List<CompletableFuture<?>> futures = new ArrayList<CompletableFuture<?>>();
+        for (Entry<HTableInterfaceReference, Collection<Mutation>> entry : toWrite.asMap().entrySet()) {
+            // get the mutations for each table. We leak the implementation here a little bit to save
+            // doing a complete copy over of all the index update for each table.
+            List<Mutation> mutations = kvBuilder.cloneIfNecessary((List<Mutation>)entry.getValue());
+            HTableInterfaceReference tableReference = entry.getKey();
+            boolean isLocal = tableReference.getTableName().equals(localTableName);
+            if (isLocal && !allowLocalUpdates) {
+                continue;
+            }
+            tables.add(tableReference);
+            CompletableFuture<?> future;
+            try {
+                throwFailureIfDone();
+                if (isLocal && writeLocalUpdates(mutations)) {
+                    future = CompletableFuture.completedFuture(null);
+                } else {
+                    if (LOGGER.isTraceEnabled()) {
+                        LOGGER.trace("Writing index update:" + mutations + " to table: "
+                                + tableReference);
+                    }
+                    future = connection.getTable(TableName.valueOf(tableReference.get().copyBytesIfNecessary()))
+                            .batchAll(mutations);
+                }
+            } catch (Exception e) {
+                future = new CompletableFuture<Void>();
+                future.completeExceptionally(e);
+            }
+            futures.add(future);
+        }
+
+        // wait for all the writes, even after a failure, so that we know every table that failed
+        List<HTableInterfaceReference> failedTables = new ArrayList<HTableInterfaceReference>();
+        Throwable cause = null;
+        boolean interrupted = false;
+        LOGGER.debug("Waiting on index updates to complete...");
+        for (int i = 0; i < futures.size(); i++) {
+            while (true) {
+                try {
+                    futures.get(i).get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    LOGGER.warn("Index Write failed for table " + tables.get(i), e);
+                    failedTables.add(tables.get(i));
+                    if (cause == null) {
+                        // the failure of the write itself, not its wrapper
+                        cause = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            // reset the interrupt status on the thread
+            Thread.currentThread().interrupt();
+        }
+
+        // if any of the writes failed, then we need to propagate the failure
+        if (failedTables.size() > 0) {
+            // DisableIndexOnFailure flag is used by the old design. Setting the cause in MIWFE
+            // does not work for old design, so only do this for new design
+            if (disableIndexOnFailure) {
+                throw new MultiIndexWriteFailureException(Collections.unmodifiableList(failedTables),
+                    PhoenixIndexFailurePolicy.getDisableIndexOnFailure(env));
+            } else {
+                MultiIndexWriteFailureException exception = new MultiIndexWriteFailureException(
+                        Collections.unmodifiableList(failedTables), false, cause);
+                throw wrapInDoNotRetryIOException("At least one index write failed after retries", exception,
+                        EnvironmentEdgeManager.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * @return true if the updates were written directly to the local index of the region and
+     *         false if they have to be written the standard way
+     */
+    private boolean writeLocalUpdates(List<Mutation> mutations) {
+        try {
+            IndexUtil.writeLocalUpdates(env.getRegion(), mutations, true);
+            return true;
+        } catch (IOException ignored) {
+            // when it's failed we fall back to the standard & slow way
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("indexRegion.batchMutate failed and fall " +
+                        "back to AsyncTable.batchAll(). Got error=" + ignored);
+            }
+            return false;
+        }
+    }
+
+    private void throwFailureIfDone() throws SingleIndexWriteFailureException {
+        if (stopped.isStopped()
+                || (env != null && (env.getConnection() == null || env.getConnection().isClosed()
+                || env.getConnection().isAborted()))
+                || Thread.currentThread().isInterrupted()) { throw new SingleIndexWriteFailureException(
+                        "Pool closed, not attempting to write to the index!", null); }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The connections are shared by all the index writers of the region server and are closed
+     * when the coprocessor connections are shut down, so there is nothing to release here.
+     */
+    @Override
+    public void stop(String why) {
+        LOGGER.info("Shutting down " + this.getClass().getSimpleName() + " because " + why);
+    }
+
+    @Override
+    public boolean isStopped() {
+        return this.stopped.isStopped();
+    }
+}
@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.UUID;
 
+import org.apache.phoenix.monitoring.ServerScanCost;
 import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
 import org.apache.phoenix.thirdparty.com.google.common.collect.MinMaxPriorityQueue;
 
@@ -314,6 +315,7 @@ public abstract class BufferedQueue<T> extends AbstractQueue<T> implements SizeA
                     inMemQueue.clear();
                     flushBuffer = true;
                 }
+                ServerScanCost.recordSpill(file.length());
             }
         }
         
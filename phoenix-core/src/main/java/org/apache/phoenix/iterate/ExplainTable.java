@@ -18,9 +18,11 @@
 package org.apache.phoenix.iterate;
 
 import java.text.Format;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -215,6 +217,20 @@ public abstract class ExplainTable {
                     "SERVER FILTER BY FIRST KEY ONLY");
             }
         }
+        NavigableSet<byte[]> essentialFamilies = ScanUtil.getEssentialColumnFamilies(scan);
+        if (essentialFamilies != null) {
+            List<String> familyNames = new ArrayList<>(essentialFamilies.size());
+            for (byte[] family : essentialFamilies) {
+                familyNames.add(Bytes.toString(family));
+            }
+            String serverEssentialColumnFamilies =
+                "SERVER LOAD OTHER COLUMN FAMILIES ON DEMAND, FILTER FAMILIES " + familyNames;
+            planSteps.add("    " + serverEssentialColumnFamilies);
+            if (explainPlanAttributesBuilder != null) {
+                explainPlanAttributesBuilder.setServerEssentialColumnFamilies(
+                    serverEssentialColumnFamilies);
+            }
+        }
         if (distinctFilter != null) {
             String serverDistinctFilter = "SERVER DISTINCT PREFIX FILTER OVER "
                 + groupBy.getExpressions().toString();
@@ -21,12 +21,15 @@ import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_NUM_PARAL
 
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.phoenix.cache.ServerCacheClient.ServerCache;
@@ -36,6 +39,8 @@ import org.apache.phoenix.job.JobManager.JobCallable;
 import org.apache.phoenix.monitoring.ReadMetricQueue;
 import org.apache.phoenix.monitoring.ScanMetricsHolder;
 import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.trace.util.Tracing;
 import org.apache.phoenix.util.EnvironmentEdgeManager;
 import org.apache.phoenix.util.LogUtil;
@@ -102,14 +107,41 @@ public class ParallelIterators extends BaseResultIterators {
         // Shuffle so that we start execution across many machines
         // before we fill up the thread pool
         Collections.shuffle(scanLocations);
+        int maxScansPerServer = context.getConnection().getQueryServices().getProps().getInt(
+                QueryServices.MAX_PARALLEL_SCANS_PER_REGION_SERVER_ATTRIB,
+                QueryServicesOptions.DEFAULT_MAX_PARALLEL_SCANS_PER_REGION_SERVER);
+        final RegionServerScanLimiter scanLimiter = new RegionServerScanLimiter(executor, maxScansPerServer);
+        final Map<ScanLocator, ServerName> scanServers = new IdentityHashMap<>();
+        if (maxScansPerServer > 0) {
+            // Interleave the region servers so that the scans are spread evenly across
+            // them, each one running no more than its share at a time
+            byte[] physicalName = tableRef.getTable().getPhysicalName().getBytes();
+            List<ServerName> servers = Lists.newArrayListWithExpectedSize(scanLocations.size());
+            for (ScanLocator scanLocation : scanLocations) {
+                ServerName server = null;
+                try {
+                    HRegionLocation location = context.getConnection().getQueryServices()
+                            .getTableRegionLocation(physicalName, scanLocation.getScan().getStartRow());
+                    server = location == null ? null : location.getServerName();
+                } catch (SQLException e) {
+                    LOGGER.debug("Unable to locate the region of scan " + scanLocation.getScan(), e);
+                }
+                servers.add(server);
+                scanServers.put(scanLocation, server);
+            }
+            scanLocations = RegionServerScanLimiter.interleave(scanLocations, servers);
+        }
         ReadMetricQueue readMetrics = context.getReadMetricsQueue();
         final String physicalTableName = tableRef.getTable().getPhysicalName().getString();
         int numScans = scanLocations.size();
         context.getOverallQueryMetrics().updateNumParallelScans(numScans);
         GLOBAL_NUM_PARALLEL_SCANS.update(numScans);
         final long renewLeaseThreshold = context.getConnection().getQueryServices().getRenewLeaseThresholdMilliSeconds();
+        Long estimatedRows = getEstimatedRowCount();
+        Long estimatedBytes = getEstimatedByteCount();
         for (final ScanLocator scanLocation : scanLocations) {
             final Scan scan = scanLocation.getScan();
+            final ServerName server = scanServers.get(scanLocation);
             final ScanMetricsHolder scanMetricsHolder = ScanMetricsHolder.getInstance(readMetrics, physicalTableName,
                 scan, context.getConnection().getLogLevel());
             final TaskExecutionMetricsHolder taskMetrics = new TaskExecutionMetricsHolder(readMetrics, physicalTableName);
@@ -117,11 +149,22 @@ public class ParallelIterators extends BaseResultIterators {
                     context.getConnection().getTableResultIteratorFactory().newIterator(
                         mutationState, tableRef, scan, scanMetricsHolder, renewLeaseThreshold, plan,
                         scanGrouper, caches);
+            if (estimatedRows != null && estimatedBytes != null && estimatedRows > 0) {
+                tableResultItr.setEstimatedRowWidth((double) estimatedBytes / estimatedRows);
+            }
             context.getConnection().addIteratorForLeaseRenewal(tableResultItr);
-            Future<PeekingResultIterator> future = executor.submit(Tracing.wrap(new JobCallable<PeekingResultIterator>() {
+            Future<PeekingResultIterator> future = scanLimiter.submit(server, Tracing.wrap(new JobCallable<PeekingResultIterator>() {
                 
                 @Override
                 public PeekingResultIterator call() throws Exception {
+                    try {
+                        return newIterator();
+                    } finally {
+                        scanLimiter.scanCompleted(server);
+                    }
+                }
+
+                private PeekingResultIterator newIterator() throws Exception {
                     long startTime = EnvironmentEdgeManager.currentTimeMillis();
                     PeekingResultIterator iterator = iteratorFactory.newIterator(
                             context,
@@ -162,6 +205,11 @@ public class ParallelIterators extends BaseResultIterators {
                 public TaskExecutionMetricsHolder getTaskExecutionMetric() {
                     return taskMetrics;
                 }
+
+                @Override
+                public String getWorkloadClass() {
+                    return context.getConnection().getWorkloadClass();
+                }
             }, "Parallel scanner for table: " + tableRef.getTable().getPhysicalName().getString()));
             // Add our future in the right place so that we can concatenate the
             // results of the inner futures versus merge sorting across all of them.
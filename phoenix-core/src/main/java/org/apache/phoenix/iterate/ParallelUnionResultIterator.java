@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.thirdparty.com.google.common.base.Preconditions.checkArgument;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.phoenix.compile.ExplainPlanAttributes
+    .ExplainPlanAttributesBuilder;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.schema.tuple.ResultTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ServerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * ResultIterator for UNION ALL without an ORDER BY that drains every branch concurrently. Each
+ * branch {@link PeekingResultIterator} is read by a task submitted to the given executor and its
+ * tuples are handed to the caller through a bounded queue, so that the scans of all branches can
+ * stream at the same time instead of one after the other as with {@link ConcatResultIterator}.
+ * The order in which tuples from different branches are returned is not defined.
+ *
+ * Closing this iterator stops the branch tasks and then closes the underlying
+ * {@link ResultIterators}, which takes care of combining per branch metrics.
+ */
+public class ParallelUnionResultIterator implements ResultIterator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelUnionResultIterator.class);
+
+    // Marker put on the queue by a branch task once it will not produce any more tuples
+    private static final Tuple END_OF_BRANCH =
+            new ResultTuple(Result.create(Collections.<Cell>emptyList()));
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private final ResultIterators resultIterators;
+    private final ExecutorService executor;
+    private final BlockingQueue<Tuple> queue;
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final List<Future<?>> futures = new ArrayList<>();
+    private int remainingBranches = -1;
+    private volatile boolean closed;
+
+    public ParallelUnionResultIterator(ResultIterators iterators, ExecutorService executor,
+            int queueSize) {
+        checkArgument(queueSize > 0, "Queue size must be positive");
+        this.resultIterators = iterators;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    @Override
+    public Tuple next() throws SQLException {
+        if (closed) {
+            return null;
+        }
+        if (remainingBranches < 0) {
+            submitBranches();
+        }
+        try {
+            while (remainingBranches > 0) {
+                Tuple tuple = queue.take();
+                if (tuple == END_OF_BRANCH) {
+                    remainingBranches--;
+                    throwIfFailed();
+                    continue;
+                }
+                return tuple;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLExceptionInfo.Builder(SQLExceptionCode.INTERRUPTED_EXCEPTION)
+                    .setRootCause(e).build().buildException();
+        }
+        throwIfFailed();
+        return null;
+    }
+
+    private void submitBranches() throws SQLException {
+        List<PeekingResultIterator> iterators = resultIterators.getIterators();
+        remainingBranches = iterators.size();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Draining " + remainingBranches + " UNION ALL branches in parallel");
+        }
+        try {
+            for (final PeekingResultIterator iterator : iterators) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        drain(iterator);
+                        return null;
+                    }
+                }));
+            }
+        } catch (RejectedExecutionException e) {
+            // Drop the branches not started yet, the started ones stop once this is closed
+            for (Iterator<Future<?>> iter = futures.iterator(); iter.hasNext();) {
+                if (iter.next().cancel(false)) {
+                    iter.remove();
+                }
+            }
+            remainingBranches = 0;
+            error.compareAndSet(null, e);
+            throwIfFailed();
+        }
+    }
+
+    private void drain(PeekingResultIterator iterator) throws InterruptedException {
+        try {
+            Tuple tuple;
+            while (!closed && (tuple = iterator.next()) != null) {
+                if (!offer(tuple)) {
+                    return;
+                }
+            }
+        } catch (Throwable t) {
+            error.compareAndSet(null, t);
+        } finally {
+            offer(END_OF_BRANCH);
+        }
+    }
+
+    /**
+     * Blocks until the tuple is queued or this iterator has been closed.
+     * @return true if the tuple was queued and false if this iterator was closed
+     */
+    private boolean offer(Tuple tuple) throws InterruptedException {
+        while (!queue.offer(tuple, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void throwIfFailed() throws SQLException {
+        Throwable t = error.get();
+        if (t instanceof SQLException) {
+            throw (SQLException) t;
+        } else if (t != null) {
+            throw ServerUtil.parseServerException(t);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        SQLException toThrow = null;
+        try {
+            // Unblock the branch tasks and wait for them to stop touching their iterators
+            // before those are closed underneath them.
+            queue.clear();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    if (toThrow == null) {
+                        toThrow = ServerUtil.parseServerException(e);
+                    }
+                }
+            }
+            queue.clear();
+        } finally {
+            try {
+                resultIterators.close();
+            } catch (SQLException e) {
+                if (toThrow == null) {
+                    toThrow = e;
+                } else {
+                    toThrow.setNextException(e);
+                }
+            }
+            if (toThrow != null) {
+                throw toThrow;
+            }
+        }
+    }
+
+    @Override
+    public void explain(List<String> planSteps) {
+        resultIterators.explain(planSteps);
+    }
+
+    @Override
+    public void explain(List<String> planSteps,
+            ExplainPlanAttributesBuilder explainPlanAttributesBuilder) {
+        resultIterators.explain(planSteps, explainPlanAttributesBuilder);
+    }
+
+    @VisibleForTesting
+    int getNumberOfBranches() {
+        return futures.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelUnionResultIterator [resultIterators=" + resultIterators + "]";
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.sql.SQLException;
+
+import org.apache.phoenix.schema.tuple.Tuple;
+
+/**
+ * Counts the rows returned by an iterator and the time spent in it, from the first call to
+ * next() to its exhaustion.
+ */
+public class ProfilingResultIterator extends DelegateResultIterator {
+
+    private long rowCount;
+    private long timeInNextNanos;
+    private long firstRowNanos = -1;
+
+    public ProfilingResultIterator(ResultIterator iterator) {
+        super(iterator);
+    }
+
+    @Override
+    public Tuple next() throws SQLException {
+        long start = System.nanoTime();
+        Tuple tuple = super.next();
+        long elapsed = System.nanoTime() - start;
+        timeInNextNanos += elapsed;
+        if (tuple != null) {
+            if (rowCount == 0) {
+                firstRowNanos = timeInNextNanos;
+            }
+            rowCount++;
+        }
+        return tuple;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getTimeInNextNanos() {
+        return timeInNextNanos;
+    }
+
+    /**
+     * @return the time until the first row was returned, or -1 if no row was returned
+     */
+    public long getFirstRowNanos() {
+        return firstRowNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfilingResultIterator [rowCount=" + rowCount + ", timeInNextNanos="
+                + timeInNextNanos + "]";
+    }
+}
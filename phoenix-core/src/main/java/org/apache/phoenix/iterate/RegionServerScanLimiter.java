@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+
+/**
+ * Submits the scan tasks of a query to the client thread pool with at most a given number of
+ * them running against each region server. A task over the limit is submitted once a task
+ * against the same server completed, a future standing in for it until then, so that the futures
+ * of all the scans are known upfront and keep their place in the results.
+ * <p>
+ * The tasks must call {@link #scanCompleted(Object)} once done, whether they succeed or not.
+ */
+class RegionServerScanLimiter {
+    private final ExecutorService executor;
+    private final int maxScansPerServer;
+    private final Map<Object, ServerScans> serverScans = new HashMap<>();
+
+    private static class ServerScans {
+        private int running;
+        private final ArrayDeque<DeferredFuture> pending = new ArrayDeque<>();
+    }
+
+    /**
+     * @param maxScansPerServer maximum number of tasks running against a server, no limit if not
+     *            positive
+     */
+    RegionServerScanLimiter(ExecutorService executor, int maxScansPerServer) {
+        this.executor = executor;
+        this.maxScansPerServer = maxScansPerServer;
+    }
+
+    /**
+     * Orders items round robin over the servers hosting them, in a random server order, keeping
+     * the order of the items of a same server
+     * @param servers the server of each item, null if unknown
+     */
+    static <T> List<T> interleave(List<T> items, List<?> servers) {
+        Map<Object, Iterator<T>> itemsByServer = new LinkedHashMap<>();
+        Map<Object, List<T>> lists = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Object server = servers.get(i);
+            List<T> list = lists.get(server);
+            if (list == null) {
+                list = new ArrayList<>();
+                lists.put(server, list);
+            }
+            list.add(items.get(i));
+        }
+        List<Object> serverOrder = new ArrayList<>(lists.keySet());
+        Collections.shuffle(serverOrder);
+        for (Object server : serverOrder) {
+            itemsByServer.put(server, lists.get(server).iterator());
+        }
+        List<T> interleaved = new ArrayList<>(items.size());
+        while (!itemsByServer.isEmpty()) {
+            for (Iterator<Iterator<T>> iter = itemsByServer.values().iterator(); iter.hasNext();) {
+                Iterator<T> serverItems = iter.next();
+                if (serverItems.hasNext()) {
+                    interleaved.add(serverItems.next());
+                } else {
+                    iter.remove();
+                }
+            }
+        }
+        return interleaved;
+    }
+
+    /**
+     * @param server the server the task scans, null if unknown in which case it isn't limited
+     */
+    Future<PeekingResultIterator> submit(Object server, Callable<PeekingResultIterator> task) {
+        if (maxScansPerServer > 0 && server != null) {
+            synchronized (this) {
+                ServerScans scans = serverScans.get(server);
+                if (scans == null) {
+                    scans = new ServerScans();
+                    serverScans.put(server, scans);
+                }
+                if (scans.running >= maxScansPerServer) {
+                    DeferredFuture future = new DeferredFuture(task);
+                    scans.pending.add(future);
+                    return future;
+                }
+                scans.running++;
+            }
+        }
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            scanCompleted(server);
+            throw e;
+        }
+    }
+
+    /**
+     * Submits the next pending task against the server, if any
+     */
+    void scanCompleted(Object server) {
+        if (maxScansPerServer <= 0 || server == null) {
+            return;
+        }
+        while (true) {
+            DeferredFuture next;
+            synchronized (this) {
+                ServerScans scans = serverScans.get(server);
+                if (scans == null) {
+                    return;
+                }
+                next = scans.pending.poll();
+                if (next == null) {
+                    scans.running--;
+                    return;
+                }
+            }
+            if (next.submit(executor)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Future of a task not submitted yet, which delegates to the future of the task once it is
+     */
+    private static class DeferredFuture implements Future<PeekingResultIterator> {
+        private final Callable<PeekingResultIterator> task;
+        private Future<PeekingResultIterator> delegate;
+        private RejectedExecutionException failure;
+        private boolean cancelled;
+
+        DeferredFuture(Callable<PeekingResultIterator> task) {
+            this.task = task;
+        }
+
+        /**
+         * @return whether the task was submitted, false if it was cancelled or rejected
+         */
+        synchronized boolean submit(ExecutorService executor) {
+            if (cancelled) {
+                return false;
+            }
+            try {
+                delegate = executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                failure = e;
+            }
+            notifyAll();
+            return delegate != null;
+        }
+
+        @Override
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            if (delegate != null) {
+                return delegate.cancel(mayInterruptIfRunning);
+            }
+            if (failure != null) {
+                return false;
+            }
+            cancelled = true;
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return delegate != null ? delegate.isCancelled() : cancelled;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return delegate != null ? delegate.isDone() : cancelled || failure != null;
+        }
+
+        private Future<PeekingResultIterator> getDelegate() throws ExecutionException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return delegate;
+        }
+
+        @Override
+        public PeekingResultIterator get() throws InterruptedException, ExecutionException {
+            Future<PeekingResultIterator> future;
+            synchronized (this) {
+                while (delegate == null && failure == null && !cancelled) {
+                    wait();
+                }
+                future = getDelegate();
+            }
+            return future.get();
+        }
+
+        @Override
+        public PeekingResultIterator get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            long endAt = EnvironmentEdgeManager.currentTimeMillis() + unit.toMillis(timeout);
+            Future<PeekingResultIterator> future;
+            synchronized (this) {
+                long waitTime = endAt - EnvironmentEdgeManager.currentTimeMillis();
+                while (delegate == null && failure == null && !cancelled) {
+                    if (waitTime <= 0) {
+                        throw new TimeoutException();
+                    }
+                    wait(waitTime);
+                    waitTime = endAt - EnvironmentEdgeManager.currentTimeMillis();
+                }
+                future = getDelegate();
+            }
+            return future.get(Math.max(endAt - EnvironmentEdgeManager.currentTimeMillis(), 0),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.query.QueryServices.ADAPTIVE_SCAN_SIZE_ENABLED_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.ADAPTIVE_SCAN_SIZE_MAX_CACHING_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.ADAPTIVE_SCAN_SIZE_TARGET_BYTES_PER_RPC_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.ADAPTIVE_SCAN_SIZE_TARGET_RPC_TIME_MS_ATTRIB;
+import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_ADAPTIVE_SCAN_SIZE_ENABLED;
+import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_ADAPTIVE_SCAN_SIZE_MAX_CACHING;
+import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_ADAPTIVE_SCAN_SIZE_TARGET_BYTES_PER_RPC;
+import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_ADAPTIVE_SCAN_SIZE_TARGET_RPC_TIME_MS;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
+import org.apache.phoenix.monitoring.ScanMetricsHolder;
+import org.apache.phoenix.util.ReadOnlyProps;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Sizes the RPCs of a scan, i.e. its caching and maximum result size, so that each of them
+ * carries about a target number of bytes and takes no longer than a target time.
+ * <p>
+ * The HBase client fixes the caching of a scanner when it opens, so a scan is sized from the
+ * bytes per row and fetch time per row observed by the previous scans of the same table, or
+ * from the estimated row width of the table until there are any. The observations of the scans
+ * of a table are smoothed into a moving average kept for the lifetime of the JVM. Only the
+ * scans returning the rows of the table feed it, as the rows returned by an aggregate or group
+ * by scan are neither as wide nor as quick to fetch as those of the table.
+ */
+public class ScanSizeController {
+    private static final int MIN_CACHING = 10;
+    // weight of the observations of a scan in the moving average of its table
+    private static final double SMOOTHING = 0.2;
+    // size of one in that many rows is measured
+    private static final int SAMPLE_INTERVAL = 16;
+    // scans returning fewer rows don't tell much
+    private static final int MIN_OBSERVED_ROWS = 2 * SAMPLE_INTERVAL;
+    private static final int MAX_TABLES = 1000;
+
+    private static final Map<String, RowStats> TABLE_STATS =
+            new LinkedHashMap<String, RowStats>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RowStats> eldest) {
+                    return size() > MAX_TABLES;
+                }
+            };
+
+    /**
+     * Moving averages of the rows returned by the scans of a table
+     */
+    @VisibleForTesting
+    static class RowStats {
+        final double bytesPerRow;
+        final double nanosPerRow;
+
+        RowStats(double bytesPerRow, double nanosPerRow) {
+            this.bytesPerRow = bytesPerRow;
+            this.nanosPerRow = nanosPerRow;
+        }
+
+        RowStats combine(double bytesPerRow, double nanosPerRow) {
+            return new RowStats(
+                    this.bytesPerRow + SMOOTHING * (bytesPerRow - this.bytesPerRow),
+                    this.nanosPerRow + SMOOTHING * (nanosPerRow - this.nanosPerRow));
+        }
+    }
+
+    private final String tableName;
+    private final long targetBytesPerRpc;
+    private final long targetRpcTimeNanos;
+    private final int maxCaching;
+    private double estimatedRowWidth;
+
+    private long rows;
+    private long sampledRows;
+    private long sampledBytes;
+    private long fetchNanos;
+    private boolean aggregate;
+    private boolean completed;
+
+    @VisibleForTesting
+    ScanSizeController(String tableName, long targetBytesPerRpc, long targetRpcTimeMs,
+            int maxCaching, double estimatedRowWidth) {
+        this.tableName = tableName;
+        this.targetBytesPerRpc = targetBytesPerRpc;
+        this.targetRpcTimeNanos = TimeUnit.MILLISECONDS.toNanos(targetRpcTimeMs);
+        this.maxCaching = Math.max(maxCaching, MIN_CACHING);
+        this.estimatedRowWidth = estimatedRowWidth;
+    }
+
+    /**
+     * @return the controller of a scan of the table, null if the adaptive sizing of scans is
+     *         disabled
+     */
+    public static ScanSizeController getInstance(ReadOnlyProps props, String tableName,
+            double estimatedRowWidth) {
+        if (!props.getBoolean(ADAPTIVE_SCAN_SIZE_ENABLED_ATTRIB,
+                DEFAULT_ADAPTIVE_SCAN_SIZE_ENABLED)) {
+            return null;
+        }
+        return new ScanSizeController(tableName,
+                props.getLong(ADAPTIVE_SCAN_SIZE_TARGET_BYTES_PER_RPC_ATTRIB,
+                        DEFAULT_ADAPTIVE_SCAN_SIZE_TARGET_BYTES_PER_RPC),
+                props.getLong(ADAPTIVE_SCAN_SIZE_TARGET_RPC_TIME_MS_ATTRIB,
+                        DEFAULT_ADAPTIVE_SCAN_SIZE_TARGET_RPC_TIME_MS),
+                props.getInt(ADAPTIVE_SCAN_SIZE_MAX_CACHING_ATTRIB,
+                        DEFAULT_ADAPTIVE_SCAN_SIZE_MAX_CACHING),
+                estimatedRowWidth);
+    }
+
+    /**
+     * Sets a better estimate of the row width, e.g. from guide posts
+     */
+    public void setEstimatedRowWidth(double estimatedRowWidth) {
+        this.estimatedRowWidth = estimatedRowWidth;
+    }
+
+    /**
+     * Sets the caching and maximum result size of the scan, before its scanner opens
+     */
+    public void sizeScan(Scan scan, ScanMetricsHolder scanMetricsHolder) {
+        RowStats stats;
+        synchronized (TABLE_STATS) {
+            stats = TABLE_STATS.get(tableName);
+        }
+        int caching = getCaching(stats, scan.getCaching());
+        if (scan.getLimit() > 0) {
+            caching = Math.min(caching, scan.getLimit());
+        }
+        scan.setCaching(caching);
+        scan.setMaxResultSize(targetBytesPerRpc);
+        aggregate = isAggregate(scan);
+        scanMetricsHolder.getScanCaching().change(caching);
+        scanMetricsHolder.getScanMaxResultSize().change(targetBytesPerRpc);
+    }
+
+    private static boolean isAggregate(Scan scan) {
+        return scan.getAttribute(BaseScannerRegionObserver.AGGREGATORS) != null
+                || scan.getAttribute(
+                        BaseScannerRegionObserver.UNORDERED_GROUP_BY_EXPRESSIONS) != null
+                || scan.getAttribute(
+                        BaseScannerRegionObserver.KEY_ORDERED_GROUP_BY_EXPRESSIONS) != null;
+    }
+
+    @VisibleForTesting
+    int getCaching(RowStats stats, int defaultCaching) {
+        double bytesPerRow = stats != null ? stats.bytesPerRow : estimatedRowWidth;
+        long caching = bytesPerRow > 0 ? (long) (targetBytesPerRpc / bytesPerRow)
+                : defaultCaching;
+        if (stats != null && stats.nanosPerRow > 0) {
+            caching = Math.min(caching, (long) (targetRpcTimeNanos / stats.nanosPerRow));
+        }
+        return (int) Math.max(MIN_CACHING, Math.min(maxCaching, caching));
+    }
+
+    /**
+     * Records a row returned by the scanner
+     * @param nanos time taken to fetch the row, which includes the RPC when it needed one
+     */
+    public void rowFetched(Result result, long nanos) {
+        fetchNanos += nanos;
+        if (rows++ % SAMPLE_INTERVAL == 0) {
+            sampledRows++;
+            sampledBytes += Result.getTotalSizeOfCells(result);
+        }
+    }
+
+    /**
+     * Folds the observations of the scan into those of its table, once, unless it aggregates
+     */
+    public void scanCompleted() {
+        if (completed || aggregate || rows < MIN_OBSERVED_ROWS) {
+            return;
+        }
+        completed = true;
+        observe(tableName, (double) sampledBytes / sampledRows, (double) fetchNanos / rows);
+    }
+
+    @VisibleForTesting
+    static void observe(String tableName, double bytesPerRow, double nanosPerRow) {
+        synchronized (TABLE_STATS) {
+            RowStats stats = TABLE_STATS.get(tableName);
+            TABLE_STATS.put(tableName, stats == null ? new RowStats(bytesPerRow, nanosPerRow)
+                    : stats.combine(bytesPerRow, nanosPerRow));
+        }
+    }
+
+    @VisibleForTesting
+    static RowStats getRowStats(String tableName) {
+        synchronized (TABLE_STATS) {
+            return TABLE_STATS.get(tableName);
+        }
+    }
+}
@@ -46,6 +46,7 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
@@ -56,6 +57,7 @@ import org.apache.phoenix.compile.ExplainPlanAttributes
 import org.apache.phoenix.monitoring.CombinableMetric;
 import org.apache.phoenix.monitoring.GlobalClientMetrics;
 import org.apache.phoenix.monitoring.ScanMetricsHolder;
+import org.apache.phoenix.monitoring.ServerScanCost;
 import org.apache.phoenix.schema.tuple.ResultTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.ServerUtil;
@@ -63,12 +65,23 @@ import org.apache.phoenix.util.ServerUtil;
 public class ScanningResultIterator implements ResultIterator {
     private final ResultScanner scanner;
     private final ScanMetricsHolder scanMetricsHolder;
+    private final ScanSizeController scanSizeController;
     boolean scanMetricsUpdated;
     boolean scanMetricsEnabled;
 
     public ScanningResultIterator(ResultScanner scanner, Scan scan, ScanMetricsHolder scanMetricsHolder) {
+        this(scanner, scan, scanMetricsHolder, null);
+    }
+
+    /**
+     * @param scanSizeController the controller which sized the scan, to which the rows fetched
+     *            are reported, or null
+     */
+    public ScanningResultIterator(ResultScanner scanner, Scan scan, ScanMetricsHolder scanMetricsHolder,
+            ScanSizeController scanSizeController) {
         this.scanner = scanner;
         this.scanMetricsHolder = scanMetricsHolder;
+        this.scanSizeController = scanSizeController;
         scanMetricsUpdated = false;
         scanMetricsEnabled = scan.isScanMetricsEnabled();
     }
@@ -78,6 +91,9 @@ public class ScanningResultIterator implements ResultIterator {
         // close the scanner so that metrics are available
         scanner.close();
         updateMetrics();
+        if (scanSizeController != null) {
+            scanSizeController.scanCompleted();
+        }
     }
 
     private void changeMetric(CombinableMetric metric, Long value) {
@@ -154,17 +170,36 @@ public class ScanningResultIterator implements ResultIterator {
 
     }
 
+    private void updateServerCost(ServerScanCost cost) {
+        changeMetric(scanMetricsHolder.getServerCpuTime(),
+                TimeUnit.NANOSECONDS.toMicros(cost.getCpuTimeNanos()));
+        changeMetric(scanMetricsHolder.getServerRowsExamined(), cost.getRowsExamined());
+        changeMetric(scanMetricsHolder.getServerRowsFiltered(), cost.getRowsFiltered());
+        changeMetric(scanMetricsHolder.getServerMemoryReserved(), cost.getMemoryReservedBytes());
+        changeMetric(scanMetricsHolder.getServerSpillBytes(), cost.getSpillBytes());
+        changeMetric(scanMetricsHolder.getServerMemoryWaitTime(),
+                TimeUnit.NANOSECONDS.toMicros(cost.getMemoryWaitNanos()));
+    }
+
     @Override
     public Tuple next() throws SQLException {
         try {
+            long startTime = scanSizeController == null ? 0 : System.nanoTime();
             Result result = scanner.next();
-            while (result != null && (result.isEmpty() || isDummy(result))) {
+            while (result != null && (result.isEmpty() || isDummy(result)
+                    || ServerScanCost.isScanCost(result))) {
+                if (ServerScanCost.isScanCost(result)) {
+                    updateServerCost(ServerScanCost.fromResult(result));
+                }
                 result = scanner.next();
             }
             if (result == null) {
                 close(); // Free up resources early
                 return null;
             }
+            if (scanSizeController != null) {
+                scanSizeController.rowFetched(result, System.nanoTime() - startTime);
+            }
             // TODO: use ResultTuple.setResult(result)?
             // Need to create a new one if holding on to it (i.e. OrderedResultIterator)
             return new ResultTuple(result);
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.snapshot.RestoreSnapshotHelper;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.CommonFSUtils;
+import org.apache.phoenix.cache.ServerCacheClient.ServerCache;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.execute.MutationState;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.join.HashJoinInfo;
+import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil;
+import org.apache.phoenix.monitoring.ScanMetricsHolder;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableType;
+import org.apache.phoenix.schema.TableRef;
+import org.apache.phoenix.util.ScanUtil;
+import org.apache.phoenix.util.ServerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Creates the iterators of the scans of a connection over a restored HBase snapshot instead of
+ * the live table. The snapshot is restored once, when the factory is created, and the regions
+ * intersecting each scan are opened in-process by a {@link TableSnapshotResultIterator}, so the
+ * scans of a query still run in parallel through the {@link ParallelScanGrouper}. As the Phoenix
+ * scanner run over the snapshot regions is the non aggregate one, aggregate and hash join scans
+ * are rejected.
+ * <p>
+ * The scans of the system tables, e.g. by {@link java.sql.DatabaseMetaData}, go to the live
+ * tables, while those of any other table than the one of the snapshot are rejected. The factory
+ * is shared with the connections derived from the one that created it, and the restored snapshot
+ * is deleted when the last of them is closed.
+ */
+public class SnapshotTableResultIteratorFactory implements TableResultIteratorFactory, Closeable {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(SnapshotTableResultIteratorFactory.class);
+
+    private final TableResultIteratorFactory liveTableFactory =
+            new DefaultTableResultIteratorFactory();
+    private final Configuration configuration;
+    private final String snapshotName;
+    private final TableName snapshotTable;
+    private final FileSystem fs;
+    private final Path restoreDir;
+    // number of connections using the restored snapshot
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    public SnapshotTableResultIteratorFactory(Configuration conf, String snapshotName,
+            String restoreBaseDir) throws SQLException {
+        this.snapshotName = snapshotName;
+        try {
+            Path rootDir = CommonFSUtils.getRootDir(conf);
+            this.fs = rootDir.getFileSystem(conf);
+            this.restoreDir = new Path(restoreBaseDir, UUID.randomUUID().toString());
+            RestoreSnapshotHelper.RestoreMetaChanges meta =
+                    RestoreSnapshotHelper.copySnapshotForScanner(conf, fs, rootDir, restoreDir,
+                            snapshotName);
+            this.snapshotTable = meta.getTableDescriptor().getTableName();
+        } catch (IOException e) {
+            throw ServerUtil.parseServerException(e);
+        }
+        LOGGER.info("Restored snapshot " + snapshotName + " of " + snapshotTable + " into "
+                + restoreDir);
+        this.configuration = new Configuration(conf);
+        PhoenixConfigurationUtil.setSnapshotNameKey(configuration, snapshotName);
+        // the iterators read the snapshot restored above instead of restoring it again
+        PhoenixConfigurationUtil.setRestoreDirKey(configuration, restoreDir.toString());
+        PhoenixConfigurationUtil.setMRSnapshotManagedExternally(configuration, true);
+    }
+
+    @VisibleForTesting
+    SnapshotTableResultIteratorFactory(Configuration conf, String snapshotName,
+            TableName snapshotTable, FileSystem fs, Path restoreDir) {
+        this.configuration = conf;
+        this.snapshotName = snapshotName;
+        this.snapshotTable = snapshotTable;
+        this.fs = fs;
+        this.restoreDir = restoreDir;
+    }
+
+    public String getSnapshotName() {
+        return snapshotName;
+    }
+
+    /**
+     * Shares the restored snapshot with a derived connection, which closes the factory in turn
+     * @return whether the snapshot is still restored, i.e. the factory can be shared
+     */
+    public boolean retain() {
+        int count;
+        do {
+            count = refCount.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * @return whether the scans of the table read the snapshot, false if they read the live
+     *         table
+     * @throws SQLException if the table can't be queried through the snapshot connection
+     */
+    @VisibleForTesting
+    boolean readsSnapshot(PTable table) throws SQLException {
+        if (Bytes.equals(table.getPhysicalName().getBytes(), snapshotTable.getName())) {
+            return true;
+        }
+        if (table.getType() == PTableType.SYSTEM) {
+            return false;
+        }
+        throw new SQLExceptionInfo.Builder(SQLExceptionCode.SNAPSHOT_QUERY_NOT_SUPPORTED)
+                .setMessage("Snapshot " + snapshotName + " is of table " + snapshotTable)
+                .setTableName(table.getName().getString()).build().buildException();
+    }
+
+    @Override
+    public TableResultIterator newIterator(MutationState mutationState, TableRef tableRef,
+            Scan scan, ScanMetricsHolder scanMetricsHolder, long renewLeaseThreshold,
+            QueryPlan plan, ParallelScanGrouper scanGrouper,
+            Map<ImmutableBytesPtr, ServerCache> caches) throws SQLException {
+        if (!readsSnapshot(tableRef.getTable())) {
+            return liveTableFactory.newIterator(mutationState, tableRef, scan, scanMetricsHolder,
+                    renewLeaseThreshold, plan, scanGrouper, caches);
+        }
+        if (!ScanUtil.isNonAggregateScan(scan)
+                || HashJoinInfo.deserializeHashJoinFromScan(scan) != null) {
+            throw new SQLExceptionInfo.Builder(SQLExceptionCode.SNAPSHOT_QUERY_NOT_SUPPORTED)
+                    .setTableName(tableRef.getTable().getName().getString()).build()
+                    .buildException();
+        }
+        return new TableResultIterator(mutationState, scan, scanMetricsHolder,
+                renewLeaseThreshold, plan, scanGrouper, caches) {
+            @Override
+            protected ResultIterator newScanIterator(Scan scan,
+                    ScanMetricsHolder scanMetricsHolder) throws IOException {
+                return new TableSnapshotResultIterator(configuration, scan, scanMetricsHolder);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (refCount.decrementAndGet() == 0) {
+            fs.delete(restoreDir, true);
+        }
+    }
+}
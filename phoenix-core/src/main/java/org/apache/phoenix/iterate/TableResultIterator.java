@@ -64,6 +64,7 @@ import org.apache.phoenix.util.ByteUtil;
 import org.apache.phoenix.util.Closeables;
 import org.apache.phoenix.util.EnvironmentEdgeManager;
 import org.apache.phoenix.util.ScanUtil;
+import org.apache.phoenix.util.SchemaUtil;
 import org.apache.phoenix.util.ServerUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -104,6 +105,7 @@ public class TableResultIterator implements ResultIterator {
     private int retry;
     private Map<ImmutableBytesPtr,ServerCache> caches;
     private HashCacheClient hashCacheClient;
+    private final ScanSizeController scanSizeController;
 
     @VisibleForTesting // Exposed for testing. DON'T USE ANYWHERE ELSE!
     TableResultIterator() {
@@ -115,6 +117,7 @@ public class TableResultIterator implements ResultIterator {
         this.scanGrouper = null;
         this.caches = null;
         this.retry = 0;
+        this.scanSizeController = null;
     }
 
     public static enum RenewLeaseStatus {
@@ -141,6 +144,19 @@ public class TableResultIterator implements ResultIterator {
         this.retry=plan.getContext().getConnection().getQueryServices().getProps()
                 .getInt(QueryConstants.HASH_JOIN_CACHE_RETRIES, QueryConstants.DEFAULT_HASH_JOIN_CACHE_RETRIES);
         ScanUtil.setScanAttributesForClient(scan, table, plan.getContext().getConnection());
+        this.scanSizeController = ScanSizeController.getInstance(
+                plan.getContext().getConnection().getQueryServices().getProps(),
+                table.getPhysicalName().getString(), SchemaUtil.estimateRowSize(table));
+    }
+
+    /**
+     * Sets the estimated width of the rows of the scan, e.g. from guide posts, used to size its
+     * RPCs if no scan of the table completed yet and scans are sized adaptively
+     */
+    public void setEstimatedRowWidth(double estimatedRowWidth) {
+        if (scanSizeController != null) {
+            scanSizeController.setEstimatedRowWidth(estimatedRowWidth);
+        }
     }
 
     @Override
@@ -235,9 +251,11 @@ public class TableResultIterator implements ResultIterator {
             }
             ResultIterator delegate = this.scanIterator;
             if (delegate == UNINITIALIZED_SCANNER) {
+                if (scanSizeController != null) {
+                    scanSizeController.sizeScan(scan, scanMetricsHolder);
+                }
                 try {
-                    this.scanIterator =
-                            new ScanningResultIterator(htable.getScanner(scan), scan, scanMetricsHolder);
+                    this.scanIterator = newScanIterator(scan, scanMetricsHolder);
                 } catch (IOException e) {
                     Closeables.closeQuietly(htable);
                     throw ServerUtil.parseServerException(e);
@@ -248,6 +266,16 @@ public class TableResultIterator implements ResultIterator {
         }
     }
 
+    /**
+     * @return the iterator over the results of the scan, which by default come from the region
+     *         servers
+     */
+    protected ResultIterator newScanIterator(Scan scan, ScanMetricsHolder scanMetricsHolder)
+            throws IOException {
+        return new ScanningResultIterator(htable.getScanner(scan), scan, scanMetricsHolder,
+                scanSizeController);
+    }
+
     @Override
     public String toString() {
         return "TableResultIterator [htable=" + htable + ", scan=" + scan  + "]";
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.jdbc;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.compile.ColumnProjector;
+import org.apache.phoenix.compile.RowProjector;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PDate;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.schema.types.PFloat;
+import org.apache.phoenix.schema.types.PTime;
+import org.apache.phoenix.schema.types.PUnsignedDate;
+import org.apache.phoenix.schema.types.PUnsignedDouble;
+import org.apache.phoenix.schema.types.PUnsignedFloat;
+import org.apache.phoenix.schema.types.PUnsignedTime;
+import org.apache.phoenix.schema.types.PWholeNumber;
+
+/**
+ *
+ * Rows of a {@link PhoenixResultSet} decoded column by column, as returned by
+ * {@link PhoenixResultSet#nextBatch(int)}. The batch and its vectors are reused by the
+ * following call, so their content has to be consumed or copied before then.
+ *
+ */
+public class PhoenixColumnBatch {
+
+    /**
+     * How the values of a column are held in its vector
+     */
+    public enum Kind {
+        /**
+         * In {@link ColumnVector#getLongs()}: whole numbers, and dates and times as
+         * milliseconds since the epoch
+         */
+        LONG,
+        /**
+         * In {@link ColumnVector#getDoubles()}: floating point numbers
+         */
+        DOUBLE,
+        /**
+         * In {@link ColumnVector#getLongs()} as 1 or 0
+         */
+        BOOLEAN,
+        /**
+         * In {@link ColumnVector#getBytes()} from {@link ColumnVector#getOffsets()}: any other
+         * type, serialized as by {@link PDataType#toBytes(Object)}, i.e. UTF-8 for strings
+         */
+        BYTES
+    }
+
+    /**
+     * Values of a column of the rows of a batch
+     */
+    public static class ColumnVector {
+        private final ColumnProjector projector;
+        private final PDataType type;
+        private final Kind kind;
+        private long[] longs = new long[0];
+        private double[] doubles = new double[0];
+        private int[] offsets = new int[1];
+        private byte[] bytes = new byte[0];
+        private long[] nulls = new long[0];
+
+        ColumnVector(ColumnProjector projector) {
+            this.projector = projector;
+            this.type = projector.getExpression().getDataType();
+            this.kind = kindOf(type);
+        }
+
+        private static Kind kindOf(PDataType type) {
+            if (type instanceof PWholeNumber || PDataType.equalsAny(type, PDate.INSTANCE,
+                    PUnsignedDate.INSTANCE, PTime.INSTANCE, PUnsignedTime.INSTANCE)) {
+                return Kind.LONG;
+            }
+            if (PDataType.equalsAny(type, PDouble.INSTANCE, PUnsignedDouble.INSTANCE,
+                    PFloat.INSTANCE, PUnsignedFloat.INSTANCE)) {
+                return Kind.DOUBLE;
+            }
+            if (type == PBoolean.INSTANCE) {
+                return Kind.BOOLEAN;
+            }
+            return Kind.BYTES;
+        }
+
+        private void ensureCapacity(int capacity) {
+            int words = (capacity + Long.SIZE - 1) / Long.SIZE;
+            if (nulls.length < words) {
+                nulls = new long[words];
+            } else {
+                Arrays.fill(nulls, 0L);
+            }
+            if (kind == Kind.DOUBLE) {
+                if (doubles.length < capacity) {
+                    doubles = new double[capacity];
+                }
+            } else if (kind == Kind.BYTES) {
+                if (offsets.length < capacity + 1) {
+                    offsets = new int[capacity + 1];
+                }
+            } else if (longs.length < capacity) {
+                longs = new long[capacity];
+            }
+        }
+
+        private void add(int row, Tuple tuple, ImmutableBytesWritable ptr) throws SQLException {
+            switch (kind) {
+            case LONG:
+                longs[row] = projector.getLong(tuple, ptr);
+                break;
+            case DOUBLE:
+                doubles[row] = projector.getDouble(tuple, ptr);
+                break;
+            case BOOLEAN:
+                longs[row] = Boolean.TRUE.equals(projector.getValue(tuple, type, ptr)) ? 1 : 0;
+                break;
+            default:
+                int offset = offsets[row];
+                if (projector.evaluate(tuple, ptr)) {
+                    int length = ptr.getLength();
+                    if (bytes.length < offset + length) {
+                        bytes = Arrays.copyOf(bytes, Math.max(offset + length, 2 * bytes.length));
+                    }
+                    if (projector.getExpression().getSortOrder() == SortOrder.DESC) {
+                        SortOrder.invert(ptr.get(), ptr.getOffset(), bytes, offset, length);
+                    } else {
+                        System.arraycopy(ptr.get(), ptr.getOffset(), bytes, offset, length);
+                    }
+                    offset += length;
+                }
+                offsets[row + 1] = offset;
+            }
+            if (ptr.getLength() == 0) {
+                nulls[row / Long.SIZE] |= 1L << (row % Long.SIZE);
+            }
+        }
+
+        public PDataType getType() {
+            return type;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public boolean isNull(int row) {
+            return (nulls[row / Long.SIZE] & (1L << (row % Long.SIZE))) != 0;
+        }
+
+        public long getLong(int row) {
+            return longs[row];
+        }
+
+        public double getDouble(int row) {
+            return doubles[row];
+        }
+
+        public boolean getBoolean(int row) {
+            return longs[row] != 0;
+        }
+
+        public int getOffset(int row) {
+            return offsets[row];
+        }
+
+        public int getLength(int row) {
+            return offsets[row + 1] - offsets[row];
+        }
+
+        /**
+         * @return the values of the LONG and BOOLEAN columns, 0 for nulls, valid up to the size of
+         *         the batch
+         */
+        public long[] getLongs() {
+            return longs;
+        }
+
+        /**
+         * @return the values of the DOUBLE columns, 0 for nulls, valid up to the size of the batch
+         */
+        public double[] getDoubles() {
+            return doubles;
+        }
+
+        /**
+         * @return the offsets in {@link #getBytes()} of the values of the BYTES columns, from
+         *         which a value extends up to the offset of the next row, so that nulls are empty
+         */
+        public int[] getOffsets() {
+            return offsets;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the bitmap of the null values, where bit {@code row % 64} of word
+         *         {@code row / 64} is set if the value of the row is null
+         */
+        public long[] getNulls() {
+            return nulls;
+        }
+    }
+
+    private final ColumnVector[] columns;
+    private final ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+    private int size;
+
+    PhoenixColumnBatch(RowProjector rowProjector) {
+        columns = new ColumnVector[rowProjector.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnVector(rowProjector.getColumnProjector(i));
+        }
+    }
+
+    void reset(int capacity) {
+        size = 0;
+        for (ColumnVector column : columns) {
+            column.ensureCapacity(capacity);
+        }
+    }
+
+    void addRow(Tuple tuple) throws SQLException {
+        for (ColumnVector column : columns) {
+            column.add(size, tuple, ptr);
+        }
+        size++;
+    }
+
+    /**
+     * @return the number of rows in the batch, 0 once the result set is exhausted
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param columnIndex the first column is 1, the second is 2, ...
+     */
+    public ColumnVector getColumn(int columnIndex) {
+        return columns[columnIndex - 1];
+    }
+}
@@ -23,6 +23,7 @@ import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_OPEN_INTE
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_OPEN_PHOENIX_CONNECTIONS;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_PHOENIX_CONNECTIONS_ATTEMPTED_COUNTER;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -54,9 +55,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -73,6 +77,7 @@ import org.apache.phoenix.execute.MutationState;
 import org.apache.phoenix.expression.function.FunctionArgumentType;
 import org.apache.phoenix.hbase.index.util.KeyValueBuilder;
 import org.apache.phoenix.iterate.DefaultTableResultIteratorFactory;
+import org.apache.phoenix.iterate.SnapshotTableResultIteratorFactory;
 import org.apache.phoenix.iterate.ParallelIteratorFactory;
 import org.apache.phoenix.iterate.TableResultIterator;
 import org.apache.phoenix.iterate.TableResultIteratorFactory;
@@ -121,6 +126,7 @@ import org.apache.phoenix.util.ReadOnlyProps;
 import org.apache.phoenix.util.SQLCloseable;
 import org.apache.phoenix.util.SQLCloseables;
 import org.apache.phoenix.util.SchemaUtil;
+import org.apache.phoenix.util.ServerUtil;
 import org.apache.phoenix.util.VarBinaryFormatter;
 
 import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
@@ -160,6 +166,10 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
     private final String timePattern;
     private final String timestampPattern;
     private int statementExecutionCounter;
+    // completes once the last asynchronous call on the connection or its statements completed
+    private CompletableFuture<?> lastAsyncCall = CompletableFuture.completedFuture(null);
+    // the cached tables last found current by a bulk validation of their metadata
+    private final Map<PTableKey, PTableRef> bulkValidatedTableRefs = new HashMap<>();
     private TraceScope traceScope = null;
     private volatile boolean isClosed = false;
     private Sampler<?> sampler;
@@ -167,6 +177,8 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
     private Consistency consistency = Consistency.STRONG;
     private Map<String, String> customTracingAnnotations = emptyMap();
     private final boolean isRequestLevelMetricsEnabled;
+    private final boolean isStatementDigestStatsEnabled;
+    private final String workloadClass;
     private final boolean isDescVarLengthRowKeyUpgrade;
     private ParallelIteratorFactory parallelIteratorFactory;
     private final LinkedBlockingQueue<WeakReference<TableResultIterator>> scannerQueue;
@@ -202,7 +214,8 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
         this(connection.getQueryServices(), connection.getURL(), connection
                 .getClientInfo(), connection.metaData, connection
                 .getMutationState(), isDescRowKeyOrderUpgrade,
-                isRunningUpgrade, connection.buildingIndex, true);
+                isRunningUpgrade, connection.buildingIndex, true,
+                connection.tableResultIteratorFactory);
         this.isAutoCommit = connection.isAutoCommit;
         this.isAutoFlush = connection.isAutoFlush;
         this.sampler = connection.sampler;
@@ -219,7 +232,8 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
         this(connection.getQueryServices(), connection.getURL(), connection
                 .getClientInfo(), connection.getMetaDataCache(), mutationState,
                 connection.isDescVarLengthRowKeyUpgrade(), connection
-                .isRunningUpgrade(), connection.buildingIndex, true);
+                .isRunningUpgrade(), connection.buildingIndex, true,
+                connection.tableResultIteratorFactory);
     }
 
     public PhoenixConnection(PhoenixConnection connection, long scn)
@@ -230,7 +244,8 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
 	public PhoenixConnection(PhoenixConnection connection, Properties props) throws SQLException {
         this(connection.getQueryServices(), connection.getURL(), props, connection.metaData, connection
                 .getMutationState(), connection.isDescVarLengthRowKeyUpgrade(),
-                connection.isRunningUpgrade(), connection.buildingIndex, true);
+                connection.isRunningUpgrade(), connection.buildingIndex, true,
+                connection.tableResultIteratorFactory);
         this.isAutoCommit = connection.isAutoCommit;
         this.isAutoFlush = connection.isAutoFlush;
         this.sampler = connection.sampler;
@@ -239,7 +254,7 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
 
     public PhoenixConnection(ConnectionQueryServices services, String url,
             Properties info, PMetaData metaData) throws SQLException {
-        this(services, url, info, metaData, null, false, false, false, false);
+        this(services, url, info, metaData, null, false, false, false, false, null);
     }
 
     public PhoenixConnection(PhoenixConnection connection,
@@ -247,13 +262,15 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
                     throws SQLException {
         this(services, connection.url, info, connection.metaData, null,
                 connection.isDescVarLengthRowKeyUpgrade(), connection
-                .isRunningUpgrade(), connection.buildingIndex, true);
+                .isRunningUpgrade(), connection.buildingIndex, true,
+                connection.tableResultIteratorFactory);
     }
 
     private PhoenixConnection(ConnectionQueryServices services, String url,
             Properties info, PMetaData metaData, MutationState mutationState,
             boolean isDescVarLengthRowKeyUpgrade, boolean isRunningUpgrade,
-            boolean buildingIndex, boolean isInternalConnection) throws SQLException {
+            boolean buildingIndex, boolean isInternalConnection,
+            TableResultIteratorFactory parentTableResultIteratorFactory) throws SQLException {
         GLOBAL_PHOENIX_CONNECTIONS_ATTEMPTED_COUNTER.increment();
         this.url = url;
         this.isDescVarLengthRowKeyUpgrade = isDescVarLengthRowKeyUpgrade;
@@ -386,20 +403,55 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
                 QueryServicesOptions.DEFAULT_LOGGING_LEVEL));
         this.auditLogLevel= LogLevel.valueOf(this.services.getProps().get(QueryServices.AUDIT_LOG_LEVEL,
                 QueryServicesOptions.DEFAULT_AUDIT_LOGGING_LEVEL));
-        this.isRequestLevelMetricsEnabled = JDBCUtil.isCollectingRequestLevelMetricsEnabled(url, info,
-                this.services.getProps());
+        this.isStatementDigestStatsEnabled = this.services.getProps().getBoolean(
+                QueryServices.STATEMENT_DIGEST_STATS_ENABLED_ATTRIB,
+                QueryServicesOptions.DEFAULT_STATEMENT_DIGEST_STATS_ENABLED);
+        // the statement digest statistics are taken from the request level metrics
+        this.isRequestLevelMetricsEnabled = isStatementDigestStatsEnabled
+                || JDBCUtil.isCollectingRequestLevelMetricsEnabled(url, info,
+                        this.services.getProps());
         this.mutationState = mutationState == null ? newMutationState(maxSize,
                 maxSizeBytes) : new MutationState(mutationState, this);
         this.metaData = metaData;
-        this.metaData.pruneTables(pruner);
-        this.metaData.pruneFunctions(pruner);
+        // Without an SCN, the pruner only removes the tables and functions of other tenants,
+        // which can't be looked up by this connection as the tenant id is part of their key.
+        // The cache structurally shares its entries with the global one, so keeping them costs
+        // nothing while pruning them would make opening a connection linear in the cache size.
+        if (this.scn != null) {
+            this.metaData.pruneTables(pruner);
+            this.metaData.pruneFunctions(pruner);
+        }
         this.services.addConnection(this);
 
         // setup tracing, if its enabled
         this.sampler = Tracing.getConfiguredSampler(this);
         this.customTracingAnnotations = getImmutableCustomTracingAnnotations();
         this.scannerQueue = new LinkedBlockingQueue<>();
-        this.tableResultIteratorFactory = new DefaultTableResultIteratorFactory();
+        String workloadClass = JDBCUtil.findProperty(url, this.info,
+                PhoenixRuntime.WORKLOAD_CLASS_ATTRIB);
+        this.workloadClass = workloadClass != null ? workloadClass
+                : tenantId != null ? tenantId.getString() : null;
+        String snapshotName = JDBCUtil.findProperty(url, this.info,
+                PhoenixRuntime.SNAPSHOT_NAME_ATTRIB);
+        if (snapshotName == null) {
+            this.tableResultIteratorFactory = new DefaultTableResultIteratorFactory();
+        } else if (parentTableResultIteratorFactory instanceof SnapshotTableResultIteratorFactory
+                && snapshotName.equals(((SnapshotTableResultIteratorFactory)
+                        parentTableResultIteratorFactory).getSnapshotName())
+                && ((SnapshotTableResultIteratorFactory) parentTableResultIteratorFactory)
+                        .retain()) {
+            // derived connections share the snapshot restored by their parent
+            this.tableResultIteratorFactory = parentTableResultIteratorFactory;
+        } else {
+            String restoreDir = JDBCUtil.findProperty(url, this.info,
+                    PhoenixRuntime.SNAPSHOT_RESTORE_DIR_ATTRIB);
+            if (restoreDir == null) {
+                restoreDir = services.getConfiguration().get("hbase.fs.tmp.dir")
+                        + "/phoenix-snapshot-restore";
+            }
+            this.tableResultIteratorFactory = new SnapshotTableResultIteratorFactory(
+                    services.getConfiguration(), snapshotName, restoreDir);
+        }
         this.isRunningUpgrade = isRunningUpgrade;
         
         this.logSamplingRate = Double.parseDouble(this.services.getProps().get(QueryServices.LOG_SAMPLE_RATE,
@@ -707,6 +759,14 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
             return;
         }
         try {
+            // mutations handed off to be written behind are not rolled back, so their failure
+            // is reported once they have all been sent
+            SQLException writeBehindFailure = null;
+            try {
+                mutationState.awaitWriteBehind();
+            } catch (SQLException e) {
+                writeBehindFailure = e;
+            }
             TableMetricsManager.pushMetricsFromConnInstanceMethod(getMutationMetrics());
             clearMetrics();
             try {
@@ -715,6 +775,14 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
                 }
                 closeStatements();
                 SQLCloseables.closeAllQuietly(childConnections);
+                if (tableResultIteratorFactory instanceof Closeable) {
+                    ((Closeable) tableResultIteratorFactory).close();
+                }
+                if (writeBehindFailure != null) {
+                    throw writeBehindFailure;
+                }
+            } catch (IOException e) {
+                throw ServerUtil.parseServerException(e);
             } finally {
                 services.removeConnection(this);
             }
@@ -746,6 +814,52 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
         statementExecutionCounter = 0;
     }
 
+    /**
+     * Commits asynchronously, as {@link #commit()} does, on the asynchronous executor of the
+     * query services.
+     * @return the future completed once the mutations are committed, or completed exceptionally
+     *         with a {@link CompletionException} wrapping the {@link SQLException} of the commit
+     */
+    public CompletableFuture<Void> commitAsync() {
+        return callAsync(() -> {
+            commit();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the call on the asynchronous executor of the query services once the previous
+     * asynchronous call on the connection, its statements or their result sets completed. As a
+     * connection isn't thread safe, its asynchronous calls run one at a time in the order they
+     * were made, and must not be mixed with synchronous calls until their future completed.
+     * Unrelated work runs concurrently on separate connections. The future of a failed call is
+     * completed exceptionally with a {@link CompletionException} wrapping the failure, which is
+     * the {@link RejectedExecutionException} if the executor rejected the call. The later
+     * asynchronous calls still run after a failed call.
+     */
+    synchronized <T> CompletableFuture<T> callAsync(
+            final CallRunner.CallableThrowable<T, SQLException> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Executor executor = services.getAsyncExecutor();
+        lastAsyncCall.whenComplete((result, previousFailure) -> {
+            try {
+                executor.execute(() -> {
+                    try {
+                        future.complete(call.call());
+                    } catch (SQLException e) {
+                        future.completeExceptionally(new CompletionException(e));
+                    } catch (Throwable t) {
+                        future.completeExceptionally(new CompletionException(t));
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(new CompletionException(e));
+            }
+        });
+        lastAsyncCall = future;
+        return future;
+    }
+
     @Override
     public Array createArrayOf(String typeName, Object[] elements)
             throws SQLException {
@@ -1186,6 +1300,34 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
         getQueryServices().updateResolvedTimestamp(table, resolvedTime);
     }
 
+    /**
+     * Marks the cached table as found current by a bulk validation of the metadata, which the
+     * table then isn't checked again for until the cached table is replaced, or for
+     * {@link QueryServices#METADATA_BULK_VALIDATION_WINDOW_MS_ATTRIB}
+     */
+    public void updateBulkValidatedTimestamp(PTable table, long validationTime)
+            throws SQLException {
+        updateResolvedTimestamp(table, validationTime);
+        bulkValidatedTableRefs.put(table.getKey(), metaData.getTableRef(table.getKey()));
+    }
+
+    /**
+     * @return true if the cached table was found current by the last bulk validation of its
+     *         metadata, and was not replaced since
+     */
+    public boolean isBulkValidated(PTableRef tableRef) {
+        PTableKey key = tableRef.getTable().getKey();
+        PTableRef validatedTableRef = bulkValidatedTableRefs.get(key);
+        if (validatedTableRef == null) {
+            return false;
+        }
+        if (validatedTableRef != tableRef) {
+            bulkValidatedTableRefs.remove(key);
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public void addFunction(PFunction function) throws SQLException {
         // TODO: since a connection is only used by one thread at a time,
@@ -1282,6 +1424,18 @@ public class PhoenixConnection implements Connection, MetaDataMutated, SQLClosea
         return isRequestLevelMetricsEnabled;
     }
 
+    public boolean isStatementDigestStatsEnabled() {
+        return isStatementDigestStatsEnabled;
+    }
+
+    /**
+     * @return the workload class the tasks of this connection are scheduled in, null for the
+     *         default class
+     */
+    public String getWorkloadClass() {
+        return workloadClass;
+    }
+
     public void clearMetrics() {
         mutationState.getMutationMetricQueue().clearMetrics();
         if (mutationState.getReadMetricQueue() != null) {
@@ -45,6 +45,7 @@ import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.phoenix.compile.BindManager;
 import org.apache.phoenix.compile.MutationPlan;
@@ -188,6 +189,15 @@ public class PhoenixPreparedStatement extends PhoenixStatement implements Prepar
         return executeQuery(statement,createQueryLogger(statement,query));
     }
 
+    /**
+     * Executes the query asynchronously, as {@link #executeQuery()} does. The parameters must
+     * not be rebound until the future completed.
+     * @see PhoenixStatement#executeQueryAsync(String)
+     */
+    public CompletableFuture<PhoenixResultSet> executeQueryAsync() {
+        return connection.callAsync(() -> (PhoenixResultSet) executeQuery());
+    }
+
     @Override
     public int executeUpdate() throws SQLException {
         throwIfUnboundParameters();
@@ -48,7 +48,10 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.apache.phoenix.monitoring.StatementDigestRegistry;
 import org.apache.phoenix.monitoring.TableMetricsManager;
 import org.apache.phoenix.thirdparty.com.google.common.primitives.Bytes;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -83,16 +86,12 @@ import org.apache.phoenix.schema.types.PBoolean;
 import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.schema.types.PDate;
 import org.apache.phoenix.schema.types.PDecimal;
-import org.apache.phoenix.schema.types.PDouble;
-import org.apache.phoenix.schema.types.PFloat;
 import org.apache.phoenix.schema.types.PInteger;
-import org.apache.phoenix.schema.types.PLong;
-import org.apache.phoenix.schema.types.PSmallint;
 import org.apache.phoenix.schema.types.PTime;
 import org.apache.phoenix.schema.types.PTimestamp;
-import org.apache.phoenix.schema.types.PTinyint;
 import org.apache.phoenix.schema.types.PVarbinary;
 import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.schema.types.PWholeNumber;
 import org.apache.phoenix.util.SQLCloseable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -149,6 +148,7 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
     private final int startPositionForDynamicCols;
 
     private RowProjector rowProjectorWithDynamicCols;
+    private PhoenixColumnBatch columnBatch;
     private Tuple currentRow = BEFORE_FIRST;
     private boolean isClosed = false;
     private boolean wasNull = false;
@@ -160,6 +160,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
 
     private Object exception;
     private long queryTime;
+    private String statementDigest;
+    private String normalizedStatement;
 
     public PhoenixResultSet(ResultIterator resultIterator, RowProjector rowProjector,
             StatementContext ctx) throws SQLException {
@@ -225,6 +227,9 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
                         context.getCurrentTable().getTable().getPhysicalName().toString();
                 updateTableLevelReadMetrics(tableName, isPointLookup);
             }
+            if (statementDigest != null) {
+                updateStatementDigestStatistics();
+            }
             if (!queryLogger.isSynced()) {
                 if(this.exception==null){
                     queryLogger.log(QueryLogInfo.QUERY_STATUS_I,QueryStatus.COMPLETED.toString());
@@ -393,12 +398,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
     public byte getByte(int columnIndex) throws SQLException {
 //        throw new SQLFeatureNotSupportedException();
         checkCursorState();
-        Byte value = (Byte)getRowProjector().getColumnProjector(columnIndex-1).getValue(currentRow,
-            PTinyint.INSTANCE, ptr);
-        wasNull = (value == null);
-        if (value == null) {
-            return 0;
-        }
+        byte value = getRowProjector().getColumnProjector(columnIndex-1).getByte(currentRow, ptr);
+        wasNull = (ptr.getLength() == 0);
         return value;
     }
 
@@ -475,12 +476,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
     @Override
     public double getDouble(int columnIndex) throws SQLException {
         checkCursorState();
-        Double value = (Double)getRowProjector().getColumnProjector(columnIndex-1)
-                .getValue(currentRow, PDouble.INSTANCE, ptr);
-        wasNull = (value == null);
-        if (value == null) {
-            return 0;
-        }
+        double value = getRowProjector().getColumnProjector(columnIndex-1).getDouble(currentRow, ptr);
+        wasNull = (ptr.getLength() == 0);
         return value;
     }
 
@@ -502,12 +499,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
     @Override
     public float getFloat(int columnIndex) throws SQLException {
         checkCursorState();
-        Float value = (Float)getRowProjector().getColumnProjector(columnIndex-1)
-                .getValue(currentRow, PFloat.INSTANCE, ptr);
-        wasNull = (value == null);
-        if (value == null) {
-            return 0;
-        }
+        float value = getRowProjector().getColumnProjector(columnIndex-1).getFloat(currentRow, ptr);
+        wasNull = (ptr.getLength() == 0);
         return value;
     }
 
@@ -524,12 +517,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
     @Override
     public int getInt(int columnIndex) throws SQLException {
         checkCursorState();
-        Integer value = (Integer)getRowProjector().getColumnProjector(columnIndex-1)
-                .getValue(currentRow, PInteger.INSTANCE, ptr);
-        wasNull = (value == null);
-        if (value == null) {
-            return 0;
-        }
+        int value = getRowProjector().getColumnProjector(columnIndex-1).getInt(currentRow, ptr);
+        wasNull = (ptr.getLength() == 0);
         return value;
     }
 
@@ -541,12 +530,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
     @Override
     public long getLong(int columnIndex) throws SQLException {
         checkCursorState();
-        Long value = (Long)getRowProjector().getColumnProjector(columnIndex-1).getValue(currentRow,
-            PLong.INSTANCE, ptr);
-        wasNull = (value == null);
-        if (value == null) {
-            return 0;
-        }
+        long value = getRowProjector().getColumnProjector(columnIndex-1).getLong(currentRow, ptr);
+        wasNull = (ptr.getLength() == 0);
         return value;
     }
 
@@ -653,12 +638,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
     @Override
     public short getShort(int columnIndex) throws SQLException {
         checkCursorState();
-        Short value = (Short)getRowProjector().getColumnProjector(columnIndex-1)
-                .getValue(currentRow, PSmallint.INSTANCE, ptr);
-        wasNull = (value == null);
-        if (value == null) {
-            return 0;
-        }
+        short value = getRowProjector().getColumnProjector(columnIndex-1).getShort(currentRow, ptr);
+        wasNull = (ptr.getLength() == 0);
         return value;
     }
 
@@ -679,6 +660,14 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
         // We can't coerce using our formatter because we don't have enough context in PDataType.
         ColumnProjector projector = getRowProjector().getColumnProjector(columnIndex-1);
         PDataType type = projector.getExpression().getDataType();
+        if (type instanceof PWholeNumber && statement.getFormatter(type) == null) {
+            // Skip boxing the whole numbers which have no formatter
+            long value = projector.getLong(currentRow, ptr);
+            if (wasNull = (ptr.getLength() == 0)) {
+                return null;
+            }
+            return Long.toString(value);
+        }
         Object value = projector.getValue(currentRow,type, ptr);
         if (wasNull = (value == null)) {
             return null;
@@ -901,6 +890,42 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
         return currentRow != null;
     }
 
+    /**
+     * Moves the cursor over up to the given number of rows and decodes their columns into the
+     * vectors of a batch, without creating an object per value. The cursor is left on the last
+     * row of the batch. Dynamic columns projected by wildcard queries are not part of the batch.
+     * @param maxRows the maximum number of rows in the batch
+     * @return the batch, which is reused by the next call, of size 0 once the result set is
+     *         exhausted
+     */
+    public PhoenixColumnBatch nextBatch(int maxRows) throws SQLException {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxRows);
+        }
+        if (columnBatch == null) {
+            columnBatch = new PhoenixColumnBatch(rowProjector);
+        }
+        columnBatch.reset(maxRows);
+        while (columnBatch.size() < maxRows && currentRow != null && next()) {
+            columnBatch.addRow(currentRow);
+        }
+        return columnBatch;
+    }
+
+    /**
+     * Fetches the next batch asynchronously, as {@link #nextBatch(int)} does, on the asynchronous
+     * executor of the query services. As the batch is reused, it has to be consumed before the
+     * following batch is requested.
+     * @return the future of the batch, or completed exceptionally with a
+     *         {@link CompletionException} wrapping the {@link SQLException} of the fetch
+     */
+    public CompletableFuture<PhoenixColumnBatch> nextBatchAsync(final int maxRows) {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxRows);
+        }
+        return statement.getConnection().callAsync(() -> nextBatch(maxRows));
+    }
+
     private void updateTableLevelReadMetrics(String tableName, boolean isPointLookup) {
         Map<String, Map<MetricType, Long>> readMetrics = getReadMetrics();
         TableMetricsManager.pushMetricsFromConnInstanceMethod(readMetrics);
@@ -929,6 +954,28 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
         }
     }
 
+    private void updateStatementDigestStatistics() {
+        long rowsScanned = 0;
+        long bytesRead = 0;
+        for (Map<MetricType, Long> tableReadMetrics : getReadMetrics().values()) {
+            rowsScanned += getMetricValue(tableReadMetrics, MetricType.COUNT_ROWS_SCANNED);
+            bytesRead += getMetricValue(tableReadMetrics, MetricType.SCAN_BYTES);
+        }
+        Map<MetricType, Long> overAllReadMetrics = getOverAllRequestReadMetrics();
+        long latencyMs = queryTime
+                + getMetricValue(overAllReadMetrics, MetricType.RESULT_SET_TIME_MS);
+        StatementDigestRegistry.recordExecutionMethod(
+                statement.getConnection().getQueryServices().getProps(), statementDigest,
+                normalizedStatement, latencyMs, rowsScanned, bytesRead,
+                getMetricValue(overAllReadMetrics, MetricType.NUM_PARALLEL_SCANS),
+                this.exception != null);
+    }
+
+    private static long getMetricValue(Map<MetricType, Long> metrics, MetricType type) {
+        Long value = metrics == null ? null : metrics.get(type);
+        return value == null ? 0 : value;
+    }
+
     @Override
     public boolean previous() throws SQLException {
         throw new SQLFeatureNotSupportedException();
@@ -1446,6 +1493,15 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable {
         this.queryTime = queryTime;
     }
 
+    /**
+     * Sets the digest under which the execution statistics of the statement are recorded when
+     * the result set is closed
+     */
+    public void setStatementDigest(String statementDigest, String normalizedStatement) {
+        this.statementDigest = statementDigest;
+        this.normalizedStatement = normalizedStatement;
+    }
+
     /**
      * Return the row projector to use
      * @return the row projector including dynamic column projectors in case we are including
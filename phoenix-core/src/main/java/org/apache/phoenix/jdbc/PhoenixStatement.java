@@ -62,6 +62,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 
 import org.apache.hadoop.conf.Configuration;
@@ -97,6 +100,7 @@ import org.apache.phoenix.compile.RowProjector;
 import org.apache.phoenix.compile.SequenceManager;
 import org.apache.phoenix.compile.StatementContext;
 import org.apache.phoenix.compile.StatementPlan;
+import org.apache.phoenix.compile.StatementStatisticsQueryPlan;
 import org.apache.phoenix.compile.TraceQueryPlan;
 import org.apache.phoenix.compile.UpsertCompiler;
 import org.apache.phoenix.coprocessor.MetaDataProtocol;
@@ -106,10 +110,12 @@ import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.exception.UpgradeRequiredException;
 import org.apache.phoenix.execute.MutationState;
 import org.apache.phoenix.execute.visitor.QueryPlanVisitor;
+import org.apache.phoenix.execute.visitor.RuntimeProfileVisitor;
 import org.apache.phoenix.expression.KeyValueColumnExpression;
 import org.apache.phoenix.expression.RowKeyColumnExpression;
 import org.apache.phoenix.iterate.MaterializedResultIterator;
 import org.apache.phoenix.iterate.ParallelScanGrouper;
+import org.apache.phoenix.iterate.ProfilingResultIterator;
 import org.apache.phoenix.iterate.ResultIterator;
 import org.apache.phoenix.log.AuditQueryLogger;
 import org.apache.phoenix.log.LogLevel;
@@ -117,6 +123,7 @@ import org.apache.phoenix.log.QueryLogInfo;
 import org.apache.phoenix.log.QueryLogger;
 import org.apache.phoenix.log.QueryLoggerUtil;
 import org.apache.phoenix.log.QueryStatus;
+import org.apache.phoenix.monitoring.StatementDigestRegistry;
 import org.apache.phoenix.monitoring.TableMetricsManager;
 import org.apache.phoenix.optimize.Cost;
 import org.apache.phoenix.parse.AddColumnStatement;
@@ -168,7 +175,9 @@ import org.apache.phoenix.parse.ParseNodeFactory;
 import org.apache.phoenix.parse.PrimaryKeyConstraint;
 import org.apache.phoenix.parse.SQLParser;
 import org.apache.phoenix.parse.SelectStatement;
+import org.apache.phoenix.parse.StatementDigestRewriter;
 import org.apache.phoenix.parse.ShowSchemasStatement;
+import org.apache.phoenix.parse.ShowStatementStatisticsStatement;
 import org.apache.phoenix.parse.ShowTablesStatement;
 import org.apache.phoenix.parse.TableName;
 import org.apache.phoenix.parse.TableNode;
@@ -282,6 +291,13 @@ public class PhoenixStatement implements Statement, SQLCloseable {
     private int maxRows;
     private int fetchSize = -1;
     private int queryTimeoutMillis;
+    // set while EXPLAIN ANALYZE compiles and runs its statement
+    private boolean collectRequestLevelMetrics;
+    private boolean profileIterators;
+    // digest of the last executed SELECT, kept for the re-executions of a prepared statement
+    private CompilableStatement digestedStatement;
+    private String statementDigest;
+    private String normalizedStatement;
     
     public PhoenixStatement(PhoenixConnection connection) {
         this.connection = connection;
@@ -297,6 +313,22 @@ public class PhoenixStatement implements Statement, SQLCloseable {
             QueryServicesOptions.DEFAULT_THREAD_TIMEOUT_MS);
     }
 
+    /**
+     * @return whether the contexts of the statements compiled by this statement collect request
+     *         level metrics
+     */
+    public boolean isRequestLevelMetricsEnabled() {
+        return collectRequestLevelMetrics || connection.isRequestLevelMetricsEnabled();
+    }
+
+    /**
+     * @return whether the contexts of the statements compiled by this statement profile the
+     *         iterators of their plans
+     */
+    public boolean isProfilingIterators() {
+        return profileIterators;
+    }
+
     protected List<PhoenixResultSet> getResultSets() {
         return resultSets;
     }
@@ -330,9 +362,11 @@ public class PhoenixStatement implements Statement, SQLCloseable {
                         @Override public PhoenixResultSet call() throws SQLException {
                             final long startTime = EnvironmentEdgeManager.currentTimeMillis();
                             boolean success = false;
+                            boolean retried = false;
                             boolean pointLookup = false;
                             String tableName = null;
                             PhoenixResultSet rs = null;
+                            boolean digested = computeStatementDigest(stmt);
                             try {
                                 PhoenixConnection conn = getConnection();
 
@@ -411,6 +445,7 @@ public class PhoenixStatement implements Statement, SQLCloseable {
                                                     e.getSchemaName(), e.getTableName(), true)
                                             .wasUpdated()) {
                                         //TODO we can log retry count and error for debugging in LOG table
+                                        retried = true;
                                         return executeQuery(stmt, false, queryLogger, noCommit);
                                     }
                                 }
@@ -460,6 +495,17 @@ public class PhoenixStatement implements Statement, SQLCloseable {
                                 if (rs != null) {
                                     rs.setQueryTime(executeQueryTimeSpent);
                                 }
+                                if (digested) {
+                                    if (rs != null) {
+                                        rs.setStatementDigest(statementDigest,
+                                                normalizedStatement);
+                                    } else if (!success && !retried) {
+                                        StatementDigestRegistry.recordExecutionMethod(
+                                                connection.getQueryServices().getProps(),
+                                                statementDigest, normalizedStatement,
+                                                executeQueryTimeSpent, 0, 0, 0, true);
+                                    }
+                                }
                             }
                             return rs;
                         }
@@ -477,6 +523,29 @@ public class PhoenixStatement implements Statement, SQLCloseable {
         }
     }
 
+    /**
+     * Computes the digest under which the execution statistics of a SELECT statement are kept,
+     * when the connection collects them.
+     * @return whether the statement has a digest
+     */
+    private boolean computeStatementDigest(CompilableStatement stmt) {
+        if (!connection.isStatementDigestStatsEnabled() || !(stmt instanceof SelectStatement)) {
+            return false;
+        }
+        if (stmt != digestedStatement) {
+            try {
+                normalizedStatement = StatementDigestRewriter.normalize((SelectStatement) stmt);
+                statementDigest = StatementDigestRewriter.getDigest(normalizedStatement);
+                digestedStatement = stmt;
+            } catch (SQLException e) {
+                LOGGER.debug("Unable to compute the digest of " + stmt, e);
+                digestedStatement = null;
+                return false;
+            }
+        }
+        return true;
+    }
+
     public String getTargetForAudit(CompilableStatement stmt) {
         String target = null;
         try {
@@ -554,6 +623,8 @@ public class PhoenixStatement implements Statement, SQLCloseable {
                                 state.join(lastState);
                                 if (connection.getAutoCommit()) {
                                     connection.commit();
+                                } else {
+                                    state.writeBehind();
                                 }
                                 setLastResultSet(null);
                                 setLastQueryPlan(null);
@@ -783,10 +854,73 @@ public class PhoenixStatement implements Statement, SQLCloseable {
                                 false)),
                     0, true);
 
+    /**
+     * Runs a query plan to completion and describes its runtime behavior
+     * @return the steps of the runtime profile of the plan
+     */
+    private static List<String> analyze(PhoenixStatement stmt, QueryPlan plan)
+            throws SQLException {
+        // Send mutations to hbase, so they are visible to the query, as executeQuery does
+        stmt.getConnection().getMutationState().sendUncommitted(plan.getSourceRefs().iterator());
+        long startTime = System.nanoTime();
+        ProfilingResultIterator iterator = new ProfilingResultIterator(plan.iterator());
+        long iteratorTime = System.nanoTime() - startTime;
+        try {
+            while (iterator.next() != null) {
+            }
+        } finally {
+            iterator.close();
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+        List<String> profile = new ArrayList<>();
+        StringBuilder buf = new StringBuilder("RUNTIME: ").append(iterator.getRowCount())
+                .append(" ROWS IN ").append(TimeUnit.NANOSECONDS.toMillis(elapsedTime))
+                .append(" MS");
+        if (iterator.getFirstRowNanos() >= 0) {
+            buf.append(", FIRST ROW AFTER ").append(TimeUnit.NANOSECONDS
+                    .toMillis(iteratorTime + iterator.getFirstRowNanos())).append(" MS");
+        }
+        profile.add(buf.toString());
+        RuntimeProfileVisitor visitor = new RuntimeProfileVisitor();
+        plan.accept(visitor);
+        profile.addAll(visitor.getProfile());
+        return profile;
+    }
+
+    private static ResultIterator newExplainIterator(List<String> planSteps,
+            Long estimatedBytesToScan, Long estimatedRowsToScan, Long estimateInfoTimestamp) {
+        List<Tuple> tuples = Lists.newArrayListWithExpectedSize(planSteps.size());
+        for (String planStep : planSteps) {
+            byte[] row = PVarchar.INSTANCE.toBytes(planStep);
+            List<Cell> cells = Lists.newArrayListWithCapacity(3);
+            cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_COLUMN,
+                MetaDataProtocol.MIN_TABLE_TIMESTAMP, ByteUtil.EMPTY_BYTE_ARRAY));
+            if (estimatedBytesToScan != null) {
+                cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_BYTES_ESTIMATE,
+                    MetaDataProtocol.MIN_TABLE_TIMESTAMP,
+                    PLong.INSTANCE.toBytes(estimatedBytesToScan)));
+            }
+            if (estimatedRowsToScan != null) {
+                cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ROWS_ESTIMATE,
+                    MetaDataProtocol.MIN_TABLE_TIMESTAMP,
+                    PLong.INSTANCE.toBytes(estimatedRowsToScan)));
+            }
+            if (estimateInfoTimestamp != null) {
+                cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ESTIMATE_INFO_TS,
+                    MetaDataProtocol.MIN_TABLE_TIMESTAMP,
+                    PLong.INSTANCE.toBytes(estimateInfoTimestamp)));
+            }
+            Collections.sort(cells, CellComparator.getInstance());
+            Tuple tuple = new MultiKeyValueTuple(cells);
+            tuples.add(tuple);
+        }
+        return new MaterializedResultIterator(tuples);
+    }
+
     private static class ExecutableExplainStatement extends ExplainStatement implements CompilableStatement {
 
-        public ExecutableExplainStatement(BindableStatement statement) {
-            super(statement);
+        public ExecutableExplainStatement(BindableStatement statement, boolean analyze) {
+            super(statement, analyze);
         }
 
         @Override
@@ -803,48 +937,58 @@ public class PhoenixStatement implements Statement, SQLCloseable {
         @Override
         public QueryPlan compilePlan(PhoenixStatement stmt, Sequence.ValueOp seqAction) throws SQLException {
             CompilableStatement compilableStmt = getStatement();
-            StatementPlan compilePlan = compilableStmt.compilePlan(stmt, Sequence.ValueOp.VALIDATE_SEQUENCE);
-            // For a QueryPlan, we need to get its optimized plan; for a MutationPlan, its enclosed QueryPlan
-            // has already been optimized during compilation.
-            if (compilePlan instanceof QueryPlan) {
-                QueryPlan dataPlan = (QueryPlan) compilePlan;
-                compilePlan = stmt.getConnection().getQueryServices().getOptimizer().optimize(stmt, dataPlan);
+            boolean collectRequestLevelMetrics = stmt.collectRequestLevelMetrics;
+            boolean profileIterators = stmt.profileIterators;
+            // the metrics EXPLAIN ANALYZE reports are collected by the contexts of the plan
+            stmt.collectRequestLevelMetrics |= isAnalyze();
+            stmt.profileIterators |= isAnalyze();
+            StatementPlan compilePlan;
+            List<String> planSteps;
+            try {
+                compilePlan = compilableStmt.compilePlan(stmt, Sequence.ValueOp.VALIDATE_SEQUENCE);
+                // For a QueryPlan, we need to get its optimized plan; for a MutationPlan, its enclosed QueryPlan
+                // has already been optimized during compilation.
+                if (compilePlan instanceof QueryPlan) {
+                    QueryPlan dataPlan = (QueryPlan) compilePlan;
+                    compilePlan = stmt.getConnection().getQueryServices().getOptimizer().optimize(stmt, dataPlan);
+                }
+                planSteps = compilePlan.getExplainPlan().getPlanSteps();
+                if (isAnalyze()) {
+                    if (!(compilePlan instanceof QueryPlan)) {
+                        throw new SQLExceptionInfo.Builder(
+                                SQLExceptionCode.EXPLAIN_ANALYZE_NOT_SUPPORTED).build()
+                                .buildException();
+                    }
+                }
+            } finally {
+                stmt.collectRequestLevelMetrics = collectRequestLevelMetrics;
+                stmt.profileIterators = profileIterators;
             }
             final StatementPlan plan = compilePlan;
-            List<String> planSteps = plan.getExplainPlan().getPlanSteps();
-            List<Tuple> tuples = Lists.newArrayListWithExpectedSize(planSteps.size());
-            Long estimatedBytesToScan = plan.getEstimatedBytesToScan();
-            Long estimatedRowsToScan = plan.getEstimatedRowsToScan();
-            Long estimateInfoTimestamp = plan.getEstimateInfoTimestamp();
-            for (String planStep : planSteps) {
-                byte[] row = PVarchar.INSTANCE.toBytes(planStep);
-                List<Cell> cells = Lists.newArrayListWithCapacity(3);
-                cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_COLUMN,
-                    MetaDataProtocol.MIN_TABLE_TIMESTAMP, ByteUtil.EMPTY_BYTE_ARRAY));
-                if (estimatedBytesToScan != null) {
-                    cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_BYTES_ESTIMATE,
-                        MetaDataProtocol.MIN_TABLE_TIMESTAMP,
-                        PLong.INSTANCE.toBytes(estimatedBytesToScan)));
-                }
-                if (estimatedRowsToScan != null) {
-                    cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ROWS_ESTIMATE,
-                        MetaDataProtocol.MIN_TABLE_TIMESTAMP,
-                        PLong.INSTANCE.toBytes(estimatedRowsToScan)));
-                }
-                if (estimateInfoTimestamp != null) {
-                    cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ESTIMATE_INFO_TS,
-                        MetaDataProtocol.MIN_TABLE_TIMESTAMP,
-                        PLong.INSTANCE.toBytes(estimateInfoTimestamp)));
-                }
-                Collections.sort(cells, CellComparator.getInstance());
-                Tuple tuple = new MultiKeyValueTuple(cells);
-                tuples.add(tuple);
-            }
-            final Long estimatedBytes = estimatedBytesToScan;
-            final Long estimatedRows = estimatedRowsToScan;
-            final Long estimateTs = estimateInfoTimestamp;
-            final ResultIterator iterator = new MaterializedResultIterator(tuples);
+            final List<String> explainSteps = planSteps;
+            final Long estimatedBytes = plan.getEstimatedBytesToScan();
+            final Long estimatedRows = plan.getEstimatedRowsToScan();
+            final Long estimateTs = plan.getEstimateInfoTimestamp();
             return new QueryPlan() {
+                private ResultIterator iterator;
+
+                /**
+                 * EXPLAIN ANALYZE runs the query here rather than when it is compiled, so that
+                 * describing the statement, e.g. through the meta data of a prepared statement,
+                 * doesn't execute it
+                 */
+                private ResultIterator getIterator() throws SQLException {
+                    if (iterator == null) {
+                        List<String> steps = explainSteps;
+                        if (isAnalyze()) {
+                            steps = new ArrayList<>(steps);
+                            steps.addAll(analyze(stmt, (QueryPlan) plan));
+                        }
+                        iterator = newExplainIterator(steps, estimatedBytes, estimatedRows,
+                                estimateTs);
+                    }
+                    return iterator;
+                }
 
                 @Override
                 public ParameterMetaData getParameterMetaData() {
@@ -858,17 +1002,17 @@ public class PhoenixStatement implements Statement, SQLCloseable {
 
                 @Override
                 public ResultIterator iterator() throws SQLException {
-                    return iterator;
+                    return getIterator();
                 }
                 
                 @Override
                 public ResultIterator iterator(ParallelScanGrouper scanGrouper) throws SQLException {
-                    return iterator;
+                    return getIterator();
                 }
 
                 @Override
                 public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
-                    return iterator;
+                    return getIterator();
                 }
 
                 @Override
@@ -1302,6 +1446,16 @@ public class PhoenixStatement implements Statement, SQLCloseable {
         }
     }
 
+    private static class ExecutableShowStatementStatisticsStatement
+            extends ShowStatementStatisticsStatement implements CompilableStatement {
+
+        @Override
+        public QueryPlan compilePlan(final PhoenixStatement stmt, Sequence.ValueOp seqAction)
+                throws SQLException {
+            return new StatementStatisticsQueryPlan(stmt);
+        }
+    }
+
     private static class ExecutableShowTablesStatement extends ShowTablesStatement
         implements CompilableStatement {
 
@@ -1904,8 +2058,8 @@ public class PhoenixStatement implements Statement, SQLCloseable {
         }
 
         @Override
-        public ExplainStatement explain(BindableStatement statement) {
-            return new ExecutableExplainStatement(statement);
+        public ExplainStatement explain(BindableStatement statement, boolean analyze) {
+            return new ExecutableExplainStatement(statement, analyze);
         }
 
         @Override
@@ -1934,6 +2088,11 @@ public class PhoenixStatement implements Statement, SQLCloseable {
             return new ExecutableShowSchemasStatement(pattern);
         }
 
+        @Override
+        public ShowStatementStatisticsStatement showStatementStatistics() {
+            return new ExecutableShowStatementStatisticsStatement();
+        }
+
         @Override
         public ShowCreateTable showCreateTable(TableName tableName) {
             return new ExecutableShowCreateTable(tableName);
@@ -2136,6 +2295,18 @@ public class PhoenixStatement implements Statement, SQLCloseable {
         return executeQuery(stmt, createQueryLogger(stmt, sql));
     }
 
+    /**
+     * Executes the query asynchronously, as {@link #executeQuery(String)} does, on the
+     * asynchronous executor of the query services. The parallel scans of the query are started
+     * before the future completes, so its rows are best fetched with
+     * {@link PhoenixResultSet#nextBatchAsync(int)}.
+     * @return the future of the result set, or completed exceptionally with a
+     *         {@link CompletionException} wrapping the {@link SQLException} of the query
+     */
+    public CompletableFuture<PhoenixResultSet> executeQueryAsync(final String sql) {
+        return connection.callAsync(() -> (PhoenixResultSet) executeQuery(sql));
+    }
+
     @Override
     public int executeUpdate(String sql) throws SQLException {
         CompilableStatement stmt = parseStatement(sql);
@@ -35,13 +35,18 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
+import javax.management.ObjectName;
 
+import org.apache.hadoop.metrics2.util.MBeans;
 import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
 
 import org.apache.phoenix.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * 
@@ -53,6 +58,7 @@ import org.apache.phoenix.util.EnvironmentEdgeManager;
 @SuppressWarnings("rawtypes")
 public class JobManager<T> extends AbstractRoundRobinQueue<T> {
 	
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobManager.class);
     private static final AtomicLong PHOENIX_POOL_INDEX = new AtomicLong(1);
 	
     public JobManager(int maxSize) {
@@ -70,6 +76,20 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
     public static interface JobRunnable<T> extends Runnable {
         public Object getJobId();
         public TaskExecutionMetricsHolder getTaskExecutionMetric();
+        /**
+         * @return the workload class the thread pool is shared by when it schedules fairly
+         *         between classes, null for the default class
+         */
+        public default String getWorkloadClass() {
+            return null;
+        }
+        /**
+         * @return true if the task waits for tasks it submits to the same thread pool, in which
+         *         case it isn't held back by the maximum concurrency of its workload class
+         */
+        public default boolean waitsForTasks() {
+            return false;
+        }
     }
 
     public static ThreadPoolExecutor createThreadPoolExec(int keepAliveMs, int size, int queueSize, boolean useInstrumentedThreadPool) {
@@ -79,6 +99,19 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
         } else {
             queue = new JobManager<Runnable>(queueSize);
         }
+        return createThreadPoolExec(keepAliveMs, size, queue, useInstrumentedThreadPool);
+    }
+
+    /**
+     * Creates the thread pool over the given queue. When the queue is a
+     * {@link WorkloadFairShareQueue}, all the threads are kept started so that every task goes
+     * through the queue, which then decides which workload class runs next. The queue is then
+     * registered with JMX until the pool terminates.
+     */
+    public static ThreadPoolExecutor createThreadPoolExec(int keepAliveMs, int size,
+            final BlockingQueue<Runnable> queue, boolean useInstrumentedThreadPool) {
+        final WorkloadFairShareQueue fairShareQueue = queue instanceof WorkloadFairShareQueue
+                ? (WorkloadFairShareQueue) queue : null;
         String name = "phoenix-" + PHOENIX_POOL_INDEX.getAndIncrement();
         ThreadFactory threadFactory = new ThreadFactoryBuilder()
                 .setNameFormat(name + "-thread-%s")
@@ -86,6 +119,7 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
                 .setThreadFactory(
                         new ContextClassLoaderThreadFactory(JobManager.class.getClassLoader()))
                 .build();
+        final AtomicReference<ObjectName> mbeanName = new AtomicReference<>();
         ThreadPoolExecutor exec;
         if (useInstrumentedThreadPool) {
             // For thread pool, set core threads = max threads -- we don't ever want to exceed core threads, but want to go up to core threads *before* using the queue.
@@ -99,6 +133,26 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
                 protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
                     return new InstrumentedJobFutureTask<T>(runnable, value);
                 }
+
+                @Override
+                protected void afterExecute(Runnable task, Throwable t) {
+                    try {
+                        super.afterExecute(task, t);
+                    } finally {
+                        if (fairShareQueue != null) {
+                            fairShareQueue.afterExecute(task);
+                        }
+                    }
+                }
+
+                @Override
+                protected void terminated() {
+                    try {
+                        super.terminated();
+                    } finally {
+                        unregisterMBean(mbeanName.getAndSet(null));
+                    }
+                }
             };
         } else {
             // For thread pool, set core threads = max threads -- we don't ever want to exceed core threads, but want to go up to core threads *before* using the queue.
@@ -113,12 +167,50 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
                 protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
                     return new JobFutureTask<T>(runnable, value);
                 }
+
+                @Override
+                protected void afterExecute(Runnable task, Throwable t) {
+                    try {
+                        super.afterExecute(task, t);
+                    } finally {
+                        if (fairShareQueue != null) {
+                            fairShareQueue.afterExecute(task);
+                        }
+                    }
+                }
+
+                @Override
+                protected void terminated() {
+                    try {
+                        super.terminated();
+                    } finally {
+                        unregisterMBean(mbeanName.getAndSet(null));
+                    }
+                }
             };
         }
-        exec.allowCoreThreadTimeOut(true); // ... and allow core threads to time out.  This just keeps things clean when idle, and is nice for ftests modes, etc., where we'd especially like these not to linger.
+        if (fairShareQueue != null) {
+            // A task only gets to a new thread without going through the queue while the pool
+            // has fewer threads than its core size, so keep all the threads started.
+            exec.prestartAllCoreThreads();
+            try {
+                mbeanName.set(MBeans.register("Phoenix", "WorkloadFairShare-" + name,
+                        fairShareQueue));
+            } catch (Exception e) {
+                LOGGER.warn("Unable to register the workload fair share queue with JMX", e);
+            }
+        } else {
+            exec.allowCoreThreadTimeOut(true); // ... and allow core threads to time out.  This just keeps things clean when idle, and is nice for ftests modes, etc., where we'd especially like these not to linger.
+        }
         return exec;
     }
 
+    private static void unregisterMBean(ObjectName mbeanName) {
+        if (mbeanName != null) {
+            MBeans.unregister(mbeanName);
+        }
+    }
+
     /**
      * Subclasses FutureTask for the sole purpose of providing {@link #getCallable()}, which is used to extract the producer in the {@link JobBasedRoundRobinQueue}
      */
@@ -126,15 +218,22 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
         private final Object jobId;
         @Nullable
         private final TaskExecutionMetricsHolder taskMetric;
+        @Nullable
+        private final String workloadClass;
+        private final boolean waitsForTasks;
         
         public JobFutureTask(Runnable r, T t) {
             super(r, t);
             if(r instanceof JobRunnable){
               	this.jobId = ((JobRunnable)r).getJobId();
               	this.taskMetric = ((JobRunnable)r).getTaskExecutionMetric();
+              	this.workloadClass = ((JobRunnable)r).getWorkloadClass();
+              	this.waitsForTasks = ((JobRunnable)r).waitsForTasks();
             } else {
             	this.jobId = this;
             	this.taskMetric = null;
+            	this.workloadClass = null;
+            	this.waitsForTasks = false;
             }
         }
         
@@ -144,15 +243,27 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
             if (c instanceof JobCallable) {
                 this.jobId = ((JobCallable<T>) c).getJobId();
                 this.taskMetric = ((JobCallable<T>) c).getTaskExecutionMetric();
+                this.workloadClass = ((JobCallable<T>) c).getWorkloadClass();
+                this.waitsForTasks = ((JobCallable<T>) c).waitsForTasks();
             } else {
                 this.jobId = this;
                 this.taskMetric = null;
+                this.workloadClass = null;
+                this.waitsForTasks = false;
             }
         }
         
         public Object getJobId() {
             return jobId;
         }
+
+        public String getWorkloadClass() {
+            return workloadClass;
+        }
+
+        public boolean waitsForTasks() {
+            return waitsForTasks;
+        }
     }
     
     /**
@@ -201,6 +312,20 @@ public class JobManager<T> extends AbstractRoundRobinQueue<T> {
     public static interface JobCallable<T> extends Callable<T> {
         public Object getJobId();
         public TaskExecutionMetricsHolder getTaskExecutionMetric();
+        /**
+         * @return the workload class the thread pool is shared by when it schedules fairly
+         *         between classes, null for the default class
+         */
+        public default String getWorkloadClass() {
+            return null;
+        }
+        /**
+         * @return true if the task waits for tasks it submits to the same thread pool, in which
+         *         case it isn't held back by the maximum concurrency of its workload class
+         */
+        public default boolean waitsForTasks() {
+            return false;
+        }
     }
 
 
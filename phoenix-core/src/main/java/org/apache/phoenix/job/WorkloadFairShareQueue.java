@@ -0,0 +1,520 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.job;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.phoenix.job.JobManager.JobFutureTask;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+
+/**
+ * Bounded blocking queue of the client thread pool that shares the threads between workload
+ * classes, a class being the tenant of a connection or the workload class it names. Each class
+ * gets a share of the threads proportional to its weight, whatever the number of queries it runs
+ * or the number of scans of its queries, through start time fair queuing: the class whose tasks
+ * received the least service relative to its weight is served first. Within a class the tasks
+ * of its jobs are taken round robin, as in {@link JobManager}.
+ * <p>
+ * A class may also be capped to a number of concurrently running tasks, in which case its tasks
+ * stay in the queue while the cap is reached even though threads are idle. As the cap is only
+ * enforced for the tasks going through the queue, the executor must keep all its threads started,
+ * and it must call {@link #afterExecute(Runnable)} once a task taken from the queue has run.
+ * The cap only applies to the leaf tasks, e.g. the scans: a task that waits for tasks it submits
+ * to the same pool, such as the sub plan of a hash join waiting for its scans, is neither held
+ * back by the cap nor counted against it, as its class could otherwise reach the cap with tasks
+ * all waiting for tasks the cap holds back.
+ * <p>
+ * The classes with a configured weight or maximum concurrency are tracked for the life of the
+ * queue. Any other class, e.g. a tenant, is dropped once it has neither queued nor running
+ * tasks, so the queue doesn't grow with every tenant it has seen. Its statistics are then reset,
+ * and it doesn't keep the service it got ahead of the other classes, as if it had been idle.
+ */
+public class WorkloadFairShareQueue extends AbstractQueue<Runnable>
+        implements BlockingQueue<Runnable>, WorkloadFairShareQueueMXBean {
+
+    public static final String DEFAULT_WORKLOAD_CLASS = "";
+
+    private final int maxSize;
+    private final Map<String, Integer> weights;
+    private final Map<String, Integer> maxConcurrencies;
+    private final int defaultMaxConcurrency;
+
+    private final Object lock = new Object();
+    private final Map<String, WorkloadClass> workloadClasses = new HashMap<>();
+    private final List<WorkloadClass> queuedClasses = new ArrayList<>();
+    private final Map<Runnable, WorkloadClass> runningTasks = new IdentityHashMap<>();
+    // start tag of the last task taken, from which the classes that become busy start
+    private double virtualTime;
+    private int size;
+
+    /**
+     * @param maxSize maximum number of queued tasks
+     * @param weights weight of the workload classes, 1 for the classes not listed
+     * @param maxConcurrencies maximum number of running tasks of the workload classes
+     * @param defaultMaxConcurrency maximum number of running tasks of the classes not listed in
+     *            maxConcurrencies, no limit if not positive
+     */
+    public WorkloadFairShareQueue(int maxSize, Map<String, Integer> weights,
+            Map<String, Integer> maxConcurrencies, int defaultMaxConcurrency) {
+        this.maxSize = maxSize;
+        this.weights = weights;
+        this.maxConcurrencies = maxConcurrencies;
+        this.defaultMaxConcurrency = defaultMaxConcurrency;
+    }
+
+    /**
+     * Parses a comma separated list of workload class and value pairs, e.g. reports:1,api:4
+     */
+    public static Map<String, Integer> parseClassValues(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> values = new HashMap<>();
+        for (String pair : spec.split(",")) {
+            // tenant ids may contain colons, the value never does
+            int index = pair.lastIndexOf(':');
+            if (index <= 0) {
+                throw new IllegalArgumentException(
+                        "Expected <workload class>:<value> but got " + pair);
+            }
+            int value = Integer.parseInt(pair.substring(index + 1).trim());
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value in " + pair);
+            }
+            values.put(pair.substring(0, index).trim(), value);
+        }
+        return values;
+    }
+
+    private static class Entry {
+        private final Runnable task;
+        private final long enqueueTime;
+        // whether the task is subject to the maximum concurrency of its class
+        private final boolean capped;
+
+        Entry(Runnable task, long enqueueTime, boolean capped) {
+            this.task = task;
+            this.enqueueTime = enqueueTime;
+            this.capped = capped;
+        }
+    }
+
+    private static class Job {
+        private final Object jobId;
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+        Job(Object jobId) {
+            this.jobId = jobId;
+        }
+    }
+
+    private static class WorkloadClass {
+        private final String name;
+        private final double stride;
+        private final int maxConcurrency;
+        private final Map<Object, Job> jobs = new HashMap<>();
+        private final ArrayDeque<Job> jobOrder = new ArrayDeque<>();
+        // tasks waiting for other tasks, which go ahead of the leaf tasks of the class
+        private final ArrayDeque<Entry> uncapped = new ArrayDeque<>();
+        private double pass;
+        private int queued;
+        private int running;
+        private long executed;
+        private long totalQueueWaitTimeMs;
+        private long maxQueueWaitTimeMs;
+
+        WorkloadClass(String name, int weight, int maxConcurrency) {
+            this.name = name;
+            this.stride = 1.0 / Math.max(weight, 1);
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        boolean isEligible() {
+            return !uncapped.isEmpty() || (queued > 0
+                    && (maxConcurrency <= 0 || running < maxConcurrency));
+        }
+
+        void add(Object jobId, Entry entry) {
+            queued++;
+            if (!entry.capped) {
+                uncapped.addLast(entry);
+                return;
+            }
+            Job job = jobs.get(jobId);
+            if (job == null) {
+                job = new Job(jobId);
+                jobs.put(jobId, job);
+                // new jobs go first, as short queries then don't wait behind long ones
+                jobOrder.addFirst(job);
+            }
+            job.entries.addLast(entry);
+        }
+
+        Entry peek() {
+            return !uncapped.isEmpty() ? uncapped.getFirst()
+                    : jobOrder.getFirst().entries.getFirst();
+        }
+
+        Entry remove() {
+            queued--;
+            if (!uncapped.isEmpty()) {
+                return uncapped.removeFirst();
+            }
+            Job job = jobOrder.removeFirst();
+            Entry entry = job.entries.removeFirst();
+            if (job.entries.isEmpty()) {
+                jobs.remove(job.jobId);
+            } else {
+                jobOrder.addLast(job);
+            }
+            return entry;
+        }
+
+        boolean remove(Object task) {
+            for (Iterator<Entry> iter = uncapped.iterator(); iter.hasNext();) {
+                if (iter.next().task == task) {
+                    iter.remove();
+                    queued--;
+                    return true;
+                }
+            }
+            for (Iterator<Job> jobIter = jobOrder.iterator(); jobIter.hasNext();) {
+                Job job = jobIter.next();
+                for (Iterator<Entry> iter = job.entries.iterator(); iter.hasNext();) {
+                    if (iter.next().task == task) {
+                        iter.remove();
+                        if (job.entries.isEmpty()) {
+                            jobIter.remove();
+                            jobs.remove(job.jobId);
+                        }
+                        queued--;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String getWorkloadClassName(Runnable task) {
+        String name = null;
+        if (task instanceof JobFutureTask) {
+            name = ((JobFutureTask<?>) task).getWorkloadClass();
+        }
+        return name == null ? DEFAULT_WORKLOAD_CLASS : name;
+    }
+
+    private static Object getJobId(Runnable task) {
+        return task instanceof JobFutureTask ? ((JobFutureTask<?>) task).getJobId() : task;
+    }
+
+    private static boolean isCapped(Runnable task) {
+        return !(task instanceof JobFutureTask && ((JobFutureTask<?>) task).waitsForTasks());
+    }
+
+    private WorkloadClass getWorkloadClass(String name) {
+        WorkloadClass workloadClass = workloadClasses.get(name);
+        if (workloadClass == null) {
+            Integer weight = weights.get(name);
+            Integer maxConcurrency = maxConcurrencies.get(name);
+            workloadClass = new WorkloadClass(name, weight == null ? 1 : weight,
+                    maxConcurrency == null ? defaultMaxConcurrency : maxConcurrency);
+            workloadClasses.put(name, workloadClass);
+        }
+        return workloadClass;
+    }
+
+    /**
+     * Drops a class that is idle, unless it is configured
+     */
+    private void removeIfIdle(WorkloadClass workloadClass) {
+        if (workloadClass.queued == 0 && workloadClass.running == 0
+                && !weights.containsKey(workloadClass.name)
+                && !maxConcurrencies.containsKey(workloadClass.name)) {
+            workloadClasses.remove(workloadClass.name);
+        }
+    }
+
+    /**
+     * @return the eligible class with the smallest pass, null if none
+     */
+    private WorkloadClass nextClass() {
+        WorkloadClass next = null;
+        for (WorkloadClass workloadClass : queuedClasses) {
+            if (workloadClass.isEligible() && (next == null || workloadClass.pass < next.pass)) {
+                next = workloadClass;
+            }
+        }
+        return next;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        synchronized (lock) {
+            if (size >= maxSize) {
+                return false;
+            }
+            WorkloadClass workloadClass = getWorkloadClass(getWorkloadClassName(task));
+            if (workloadClass.queued == 0) {
+                // an idle class doesn't bank the service it didn't use
+                workloadClass.pass = Math.max(workloadClass.pass, virtualTime);
+                queuedClasses.add(workloadClass);
+            }
+            workloadClass.add(getJobId(task),
+                    new Entry(task, EnvironmentEdgeManager.currentTimeMillis(), isCapped(task)));
+            size++;
+            lock.notifyAll();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        long endAt = EnvironmentEdgeManager.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized (lock) {
+            boolean taken;
+            long waitTime = endAt - EnvironmentEdgeManager.currentTimeMillis();
+            while (!(taken = offer(task)) && waitTime > 0) {
+                lock.wait(waitTime);
+                waitTime = endAt - EnvironmentEdgeManager.currentTimeMillis();
+            }
+            return taken;
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        synchronized (lock) {
+            while (!offer(task)) {
+                lock.wait();
+            }
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        synchronized (lock) {
+            WorkloadClass workloadClass = nextClass();
+            if (workloadClass == null) {
+                return null;
+            }
+            Entry entry = workloadClass.remove();
+            virtualTime = workloadClass.pass;
+            workloadClass.pass += workloadClass.stride;
+            if (workloadClass.queued == 0) {
+                queuedClasses.remove(workloadClass);
+            }
+            size--;
+            long queueWaitTime = EnvironmentEdgeManager.currentTimeMillis() - entry.enqueueTime;
+            workloadClass.executed++;
+            workloadClass.totalQueueWaitTimeMs += queueWaitTime;
+            workloadClass.maxQueueWaitTimeMs =
+                    Math.max(workloadClass.maxQueueWaitTimeMs, queueWaitTime);
+            if (entry.capped) {
+                workloadClass.running++;
+                runningTasks.put(entry.task, workloadClass);
+            } else {
+                removeIfIdle(workloadClass);
+            }
+            lock.notifyAll();
+            return entry.task;
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long endAt = EnvironmentEdgeManager.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized (lock) {
+            Runnable task;
+            long waitTime = endAt - EnvironmentEdgeManager.currentTimeMillis();
+            while ((task = poll()) == null && waitTime > 0) {
+                lock.wait(waitTime);
+                waitTime = endAt - EnvironmentEdgeManager.currentTimeMillis();
+            }
+            return task;
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        synchronized (lock) {
+            Runnable task;
+            while ((task = poll()) == null) {
+                lock.wait();
+            }
+            return task;
+        }
+    }
+
+    /**
+     * Releases the slot of a task taken from the queue once it has run
+     */
+    public void afterExecute(Runnable task) {
+        synchronized (lock) {
+            WorkloadClass workloadClass = runningTasks.remove(task);
+            if (workloadClass != null) {
+                workloadClass.running--;
+                removeIfIdle(workloadClass);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        synchronized (lock) {
+            WorkloadClass workloadClass = nextClass();
+            return workloadClass == null ? null : workloadClass.peek().task;
+        }
+    }
+
+    @Override
+    public boolean remove(Object task) {
+        synchronized (lock) {
+            for (WorkloadClass workloadClass : queuedClasses) {
+                if (workloadClass.remove(task)) {
+                    if (workloadClass.queued == 0) {
+                        queuedClasses.remove(workloadClass);
+                        removeIfIdle(workloadClass);
+                    }
+                    size--;
+                    lock.notifyAll();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        synchronized (lock) {
+            List<Runnable> tasks = new ArrayList<>(size);
+            for (WorkloadClass workloadClass : queuedClasses) {
+                for (Entry entry : workloadClass.uncapped) {
+                    tasks.add(entry.task);
+                }
+                for (Job job : workloadClass.jobOrder) {
+                    for (Entry entry : job.entries) {
+                        tasks.add(entry.task);
+                    }
+                }
+            }
+            return tasks.iterator();
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        synchronized (lock) {
+            return maxSize - size;
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Drains the queued tasks whether or not their class reached its maximum concurrency, as
+     * the executor only drains its queue when shutting down
+     */
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        synchronized (lock) {
+            int drained = 0;
+            while (drained < maxElements && !queuedClasses.isEmpty()) {
+                WorkloadClass workloadClass = queuedClasses.get(0);
+                c.add(workloadClass.remove().task);
+                if (workloadClass.queued == 0) {
+                    queuedClasses.remove(0);
+                    removeIfIdle(workloadClass);
+                }
+                size--;
+                drained++;
+            }
+            lock.notifyAll();
+            return drained;
+        }
+    }
+
+    private <T> Map<String, T> getClassValues(Function<WorkloadClass, T> getter) {
+        synchronized (lock) {
+            Map<String, T> values = new TreeMap<>();
+            for (WorkloadClass workloadClass : workloadClasses.values()) {
+                values.put(workloadClass.name, getter.apply(workloadClass));
+            }
+            return values;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getQueuedTasks() {
+        return getClassValues(workloadClass -> workloadClass.queued);
+    }
+
+    @Override
+    public Map<String, Integer> getRunningTasks() {
+        return getClassValues(workloadClass -> workloadClass.running);
+    }
+
+    @Override
+    public Map<String, Long> getExecutedTasks() {
+        return getClassValues(workloadClass -> workloadClass.executed);
+    }
+
+    @Override
+    public Map<String, Long> getTotalQueueWaitTimeMs() {
+        return getClassValues(workloadClass -> workloadClass.totalQueueWaitTimeMs);
+    }
+
+    @Override
+    public Map<String, Long> getMaxQueueWaitTimeMs() {
+        return getClassValues(workloadClass -> workloadClass.maxQueueWaitTimeMs);
+    }
+}
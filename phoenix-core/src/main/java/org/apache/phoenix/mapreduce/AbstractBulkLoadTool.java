@@ -46,6 +46,7 @@ import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.tool.LoadIncrementalHFiles;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MRConfig;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.Tool;
@@ -72,7 +73,8 @@ import org.apache.phoenix.thirdparty.com.google.common.base.Splitter;
 import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
 
 /**
- * Base tool for running MapReduce-based ingests of data.
+ * Base tool for running MapReduce-based ingests of data. The job runs on the cluster, or in this
+ * process when the local option is given.
  */
 public abstract class AbstractBulkLoadTool extends Configured implements Tool {
 
@@ -89,6 +91,12 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
     static final Option HELP_OPT = new Option("h", "help", false, "Show this help and quit");
     static final Option SKIP_HEADER_OPT = new Option("k", "skip-header", false, "Skip the first line of CSV files (the header)");
     static final Option ENABLE_CORRUPT_INDEXES = new Option( "corruptindexes", "corruptindexes", false, "Allow bulk loading into non-empty tables with global secondary indexes");
+    static final Option LOCAL_OPT = new Option("l", "local", false, "Run the import in this process instead of on the cluster. The input is sorted and the HFiles are written locally before being bulk loaded");
+    static final Option LOCAL_THREADS_OPT = new Option("lt", "local-threads", true, "Number of threads parsing the input and writing HFiles in local mode, defaults to the number of cores");
+
+    // Parallelism of the map and reduce tasks of the local job runner
+    static final String LOCAL_MAX_MAPS_CONFKEY = "mapreduce.local.map.tasks.maximum";
+    static final String LOCAL_MAX_REDUCES_CONFKEY = "mapreduce.local.reduce.tasks.maximum";
 
     /**
      * Set configuration values based on parsed command line options.
@@ -114,6 +122,8 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
         options.addOption(HELP_OPT);
         options.addOption(SKIP_HEADER_OPT);
         options.addOption(ENABLE_CORRUPT_INDEXES);
+        options.addOption(LOCAL_OPT);
+        options.addOption(LOCAL_THREADS_OPT);
         return options;
     }
 
@@ -158,9 +168,49 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
                     "parameter");
         }
 
+        if (cmdLine.hasOption(LOCAL_THREADS_OPT.getOpt())) {
+            if (!cmdLine.hasOption(LOCAL_OPT.getOpt())) {
+                throw new IllegalStateException(LOCAL_THREADS_OPT.getLongOpt() + " may only be " +
+                        "used in conjunction with " + LOCAL_OPT.getLongOpt());
+            }
+            getLocalThreads(cmdLine);
+        }
+
         return cmdLine;
     }
 
+    private static int getLocalThreads(CommandLine cmdLine) {
+        if (!cmdLine.hasOption(LOCAL_THREADS_OPT.getOpt())) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        int threads;
+        try {
+            threads = Integer.parseInt(cmdLine.getOptionValue(LOCAL_THREADS_OPT.getOpt()));
+        } catch (NumberFormatException e) {
+            threads = 0;
+        }
+        if (threads < 1) {
+            throw new IllegalStateException(LOCAL_THREADS_OPT.getLongOpt() + " must be a " +
+                    "positive number");
+        }
+        return threads;
+    }
+
+    /**
+     * Configures the job to run in this process rather than on the cluster. The mappers encode
+     * the input in parallel and spill sorted runs to local disk, and there is one reducer per
+     * region, run in parallel, writing the HFiles of its region to the output path, from where
+     * they are bulk loaded as usual.
+     *
+     * @param conf job configuration
+     * @param threads number of map and reduce tasks run concurrently
+     */
+    static void configureLocalJob(Configuration conf, int threads) {
+        conf.set(MRConfig.FRAMEWORK_NAME, MRConfig.LOCAL_FRAMEWORK_NAME);
+        conf.setInt(LOCAL_MAX_MAPS_CONFKEY, threads);
+        conf.setInt(LOCAL_MAX_REDUCES_CONFKEY, threads);
+    }
+
     private void printHelpAndExit(String errorMessage, Options options) {
         System.err.println(errorMessage);
         printHelpAndExit(options, 1);
@@ -209,6 +259,11 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
                 conf.set(entry.getKey(), entry.getValue());
             }
         }
+        if (cmdLine.hasOption(LOCAL_OPT.getOpt())) {
+            int threads = getLocalThreads(cmdLine);
+            LOGGER.info("Running the import locally with {} threads", threads);
+            configureLocalJob(conf, threads);
+        }
         // Skip the first line of the CSV file(s)?
         if (cmdLine.hasOption(SKIP_HEADER_OPT.getOpt())) {
             PhoenixTextInputFormat.setSkipHeader(conf);
@@ -42,9 +42,15 @@ import org.apache.phoenix.mapreduce.util.ConnectionUtil;
 import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil;
 import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil.MRJobType;
 import org.apache.phoenix.query.HBaseFactoryProvider;
+import org.apache.phoenix.mapreduce.PhoenixSplitPlanner.ScanEstimate;
 import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.stats.GuidePostsInfo;
+import org.apache.phoenix.schema.stats.GuidePostsKey;
 import org.apache.phoenix.schema.stats.StatisticsUtil;
 import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.PrefixByteCodec;
+import org.apache.phoenix.util.SchemaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -102,6 +108,18 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
                 .getAdmin());
 
         final List<InputSplit> psplits = Lists.newArrayListWithExpectedSize(splits.size());
+        // Plan the splits toward a target size, or follow the scans of the query plan?
+        final long targetSize = PhoenixConfigurationUtil.getSplitTargetSize(config);
+        final List<ScanEstimate> scanEstimates = Lists.newArrayList();
+        List<byte[]> guidePosts = Collections.emptyList();
+        long[] guidePostBytes = null;
+        if (targetSize > 0) {
+            GuidePostsInfo gps = getGuidePosts(qplan);
+            if (!gps.isEmptyGuidePost()) {
+                guidePosts = PrefixByteCodec.decodeBytes(gps.getGuidePosts(), gps.getMaxLength());
+                guidePostBytes = gps.getByteCounts();
+            }
+        }
         for (List<Scan> scans : qplan.getScans()) {
             // Get the region location
             HRegionLocation location = regionLocator.getRegionLocation(
@@ -116,6 +134,16 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
                     location.getRegion().getRegionName()
             );
 
+            if (targetSize > 0) {
+                long[] estimates = PhoenixSplitPlanner.estimateScanBytes(scans, regionSize,
+                        guidePosts, guidePostBytes);
+                for (int i = 0; i < scans.size(); i++) {
+                    scanEstimates.add(new ScanEstimate(scans.get(i), regionLocation,
+                            estimates[i]));
+                }
+                continue;
+            }
+
             // Generate splits based off statistics, or just region splits?
             boolean splitByStats = PhoenixConfigurationUtil.getSplitByStats(config);
 
@@ -151,10 +179,26 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
                 psplits.add(new PhoenixInputSplit(scans, regionSize, regionLocation));
             }
         }
+        if (targetSize > 0) {
+            psplits.addAll(PhoenixSplitPlanner.planSplits(scanEstimates, targetSize));
+            LOGGER.info("Planned " + psplits.size() + " splits out of " + scanEstimates.size()
+                    + " scans with a target size of " + targetSize + " bytes");
+        }
         return psplits;
     }
     }
     
+    private static GuidePostsInfo getGuidePosts(QueryPlan qplan) throws IOException {
+        PTable table = qplan.getTableRef().getTable();
+        GuidePostsKey key = new GuidePostsKey(table.getPhysicalName().getBytes(),
+                SchemaUtil.getEmptyColumnFamily(table));
+        try {
+            return qplan.getContext().getConnection().getQueryServices().getTableStats(key);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
     /**
      * Returns the query plan associated with the select query.
      * @param context
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.util.ScanUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plans the input splits of a job toward a target size. The size of each scan of the query plan
+ * is estimated from the byte counts of the guideposts it covers, scans larger than the target
+ * size are divided and the scans hosted by the same region server are packed into splits of up
+ * to the target size. The splits are returned round robin over the region servers, so that the
+ * tasks started first don't all read from the same server.
+ */
+public class PhoenixSplitPlanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoenixSplitPlanner.class);
+
+    /**
+     * A scan with the region server hosting it and its estimated size
+     */
+    public static class ScanEstimate {
+        private final Scan scan;
+        private final String location;
+        private final long bytes;
+
+        public ScanEstimate(Scan scan, String location, long bytes) {
+            this.scan = scan;
+            this.location = location;
+            this.bytes = bytes;
+        }
+
+        public Scan getScan() {
+            return scan;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private PhoenixSplitPlanner() {
+    }
+
+    /**
+     * Estimates the size of the scans of a region. A scan gets the byte counts of the guideposts
+     * ending within it, and the scans in which no guidepost ends share what remains of the size
+     * of the region.
+     * @param scans scans of the region, in key order
+     * @param regionSize size of the region
+     * @param guidePosts guideposts of the table, in key order
+     * @param guidePostBytes byte count of the chunk ending at each guidepost
+     * @return estimated size of each scan
+     */
+    public static long[] estimateScanBytes(List<Scan> scans, long regionSize,
+            List<byte[]> guidePosts, long[] guidePostBytes) {
+        long[] estimates = new long[scans.size()];
+        long estimatedBytes = 0;
+        int unestimatedScans = 0;
+        for (int i = 0; i < scans.size(); i++) {
+            byte[] startRow = scans.get(i).getStartRow();
+            byte[] stopRow = scans.get(i).getStopRow();
+            int index = Collections.binarySearch(guidePosts, startRow, Bytes.BYTES_COMPARATOR);
+            // the chunk ending at the start row belongs to the previous scan
+            index = index >= 0 ? index + 1 : -(index + 1);
+            boolean estimated = false;
+            for (; index < guidePosts.size() && (stopRow.length == 0
+                    || Bytes.compareTo(guidePosts.get(index), stopRow) <= 0); index++) {
+                estimates[i] += guidePostBytes[index];
+                estimated = true;
+            }
+            if (estimated) {
+                estimatedBytes += estimates[i];
+            } else {
+                estimates[i] = -1;
+                unestimatedScans++;
+            }
+        }
+        if (unestimatedScans > 0) {
+            long remainingBytes = Math.max(regionSize - estimatedBytes, 0) / unestimatedScans;
+            for (int i = 0; i < estimates.length; i++) {
+                if (estimates[i] < 0) {
+                    estimates[i] = remainingBytes;
+                }
+            }
+        }
+        return estimates;
+    }
+
+    /**
+     * @param scans scans of the query plan, in key order
+     * @param targetSize target size of the splits in bytes
+     * @return the splits, with their estimated size as length
+     */
+    public static List<PhoenixInputSplit> planSplits(List<ScanEstimate> scans, long targetSize)
+            throws IOException {
+        Map<String, List<PhoenixInputSplit>> splitsByLocation = new LinkedHashMap<>();
+        Map<String, List<ScanEstimate>> pendingByLocation = new LinkedHashMap<>();
+        for (ScanEstimate scan : scans) {
+            for (ScanEstimate piece : subdivide(scan, targetSize)) {
+                List<ScanEstimate> pending =
+                        pendingByLocation.computeIfAbsent(piece.location, k -> new ArrayList<>());
+                if (!pending.isEmpty() && getBytes(pending) + piece.bytes > targetSize) {
+                    splitsByLocation.computeIfAbsent(piece.location, k -> new ArrayList<>())
+                            .add(newSplit(pending));
+                    pending.clear();
+                }
+                pending.add(piece);
+            }
+        }
+        for (Map.Entry<String, List<ScanEstimate>> pending : pendingByLocation.entrySet()) {
+            if (!pending.getValue().isEmpty()) {
+                splitsByLocation.computeIfAbsent(pending.getKey(), k -> new ArrayList<>())
+                        .add(newSplit(pending.getValue()));
+            }
+        }
+
+        List<PhoenixInputSplit> splits = new ArrayList<>();
+        List<Iterator<PhoenixInputSplit>> iterators = new ArrayList<>();
+        for (List<PhoenixInputSplit> locationSplits : splitsByLocation.values()) {
+            iterators.add(locationSplits.iterator());
+        }
+        while (!iterators.isEmpty()) {
+            for (Iterator<Iterator<PhoenixInputSplit>> it = iterators.iterator(); it.hasNext();) {
+                Iterator<PhoenixInputSplit> locationSplits = it.next();
+                if (locationSplits.hasNext()) {
+                    splits.add(locationSplits.next());
+                } else {
+                    it.remove();
+                }
+            }
+        }
+        return splits;
+    }
+
+    private static long getBytes(List<ScanEstimate> scans) {
+        long bytes = 0;
+        for (ScanEstimate scan : scans) {
+            bytes += scan.bytes;
+        }
+        return bytes;
+    }
+
+    private static PhoenixInputSplit newSplit(List<ScanEstimate> scans) {
+        List<Scan> splitScans = new ArrayList<>(scans.size());
+        for (ScanEstimate scan : scans) {
+            splitScans.add(scan.scan);
+        }
+        long bytes = getBytes(scans);
+        PhoenixInputSplit split = new PhoenixInputSplit(splitScans, bytes, scans.get(0).location);
+        LOGGER.info("Split of " + splitScans.size() + " scans in keyrange " + split.getKeyRange()
+                + " on " + scans.get(0).location + " with an estimated size of " + bytes
+                + " bytes");
+        return split;
+    }
+
+    /**
+     * Divides a scan larger than the target size into scans of about the target size, assuming
+     * the rows are evenly spread over its key range.
+     */
+    static List<ScanEstimate> subdivide(ScanEstimate scan, long targetSize) throws IOException {
+        int pieces = (int) Math.min((scan.bytes + targetSize - 1) / targetSize, 1024);
+        // local index scans carry region relative keys in their attributes
+        if (pieces <= 1 || ScanUtil.isLocalIndex(scan.scan)) {
+            return Collections.singletonList(scan);
+        }
+        byte[] startRow = scan.scan.getStartRow();
+        byte[] stopRow = scan.scan.getStopRow();
+        if (stopRow.length == 0) {
+            // the rows of the last region are bounded by the largest key of the same length
+            stopRow = new byte[Math.max(startRow.length, 1)];
+            Arrays.fill(stopRow, (byte) 0xFF);
+        }
+        byte[][] splitKeys;
+        try {
+            splitKeys = Bytes.split(startRow, stopRow, pieces - 1);
+        } catch (IllegalArgumentException e) {
+            splitKeys = null;
+        }
+        if (splitKeys == null) {
+            // the key range is too narrow to be divided
+            return Collections.singletonList(scan);
+        }
+        List<ScanEstimate> subScans = new ArrayList<>(pieces);
+        long bytes = scan.bytes / pieces;
+        for (int i = 0; i < pieces; i++) {
+            Scan subScan = new Scan(scan.scan);
+            if (i > 0) {
+                subScan.withStartRow(splitKeys[i]);
+            }
+            if (i < pieces - 1) {
+                subScan.withStopRow(splitKeys[i + 1]);
+            }
+            subScans.add(new ScanEstimate(subScan, scan.location, bytes));
+        }
+        return subScans;
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.ipc.CoprocessorRpcUtils.BlockingRpcCallback;
+import org.apache.hadoop.hbase.ipc.ServerRpcController;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.coprocessor.IndexDigestEndpoint;
+import org.apache.phoenix.coprocessor.MetaDataProtocol;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.BucketDigest;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.IndexDigestRequest;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.IndexDigestResponse;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.IndexDigestService;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.RowDigest;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.index.IndexMaintainer;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.query.HBaseFactoryProvider;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.util.ByteUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.ByteString;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Compares a global index with its data table using the digests computed by the
+ * {@link IndexDigestEndpoint}. The index key space is divided into buckets, a few per index
+ * region, and the digests of the index rows expected from the data table are compared with the
+ * digests of the actual index rows bucket by bucket. Only the rows of the buckets whose digests
+ * differ are then compared one by one, so that neither table is shipped to the client.
+ */
+public class IndexDigestScrutiny {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexDigestScrutiny.class);
+
+    public static final int DEFAULT_BUCKETS_PER_REGION = 16;
+    /**
+     * Maximum number of rows compared one by one, which the client holds in memory. The
+     * mismatching buckets beyond it are only counted.
+     */
+    public static final long MAX_COMPARED_ROWS = 1000000;
+
+    /**
+     * Outcome of the comparison
+     */
+    public static class Result {
+        private long expectedRowCount;
+        private long actualRowCount;
+        private int bucketCount;
+        private int mismatchingBucketCount;
+        private int comparedBucketCount;
+        private long missingRowCount;
+        private long extraRowCount;
+        private long invalidRowCount;
+        private long unverifiedRowCount;
+
+        public long getExpectedRowCount() {
+            return expectedRowCount;
+        }
+
+        public long getActualRowCount() {
+            return actualRowCount;
+        }
+
+        public int getBucketCount() {
+            return bucketCount;
+        }
+
+        public int getMismatchingBucketCount() {
+            return mismatchingBucketCount;
+        }
+
+        /**
+         * @return number of mismatching buckets whose rows were compared one by one, the row
+         *         counts below only covering these buckets
+         */
+        public int getComparedBucketCount() {
+            return comparedBucketCount;
+        }
+
+        /**
+         * @return number of index rows expected from the data table that are not in the index
+         */
+        public long getMissingRowCount() {
+            return missingRowCount;
+        }
+
+        /**
+         * @return number of index rows that are not expected from the data table
+         */
+        public long getExtraRowCount() {
+            return extraRowCount;
+        }
+
+        /**
+         * @return number of index rows whose covered columns differ from the expected ones
+         */
+        public long getInvalidRowCount() {
+            return invalidRowCount;
+        }
+
+        /**
+         * @return number of unverified index rows, which are not counted as missing or extra
+         */
+        public long getUnverifiedRowCount() {
+            return unverifiedRowCount;
+        }
+
+        /**
+         * @return whether the digests of the index differ from the ones expected from the data
+         *         table in any bucket
+         */
+        public boolean isMismatched() {
+            return mismatchingBucketCount > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "expectedRows=" + expectedRowCount + ", actualRows=" + actualRowCount
+                    + ", buckets=" + bucketCount + ", mismatchingBuckets="
+                    + mismatchingBucketCount + ", comparedBuckets=" + comparedBucketCount
+                    + ", missingRows=" + missingRowCount + ", extraRows=" + extraRowCount
+                    + ", invalidRows=" + invalidRowCount + ", unverifiedRows="
+                    + unverifiedRowCount;
+        }
+    }
+
+    private final PhoenixConnection connection;
+    private final PTable dataTable;
+    private final PTable indexTable;
+    private final long maxTimestamp;
+    private final int bucketsPerRegion;
+    private final long outputMaxRows;
+
+    /**
+     * @param maxTimestamp exclusive upper bound of the timestamps of the cells compared
+     * @param outputMaxRows maximum number of invalid rows logged
+     */
+    public IndexDigestScrutiny(PhoenixConnection connection, PTable dataTable, PTable indexTable,
+            long maxTimestamp, int bucketsPerRegion, long outputMaxRows) {
+        this.connection = connection;
+        this.dataTable = dataTable;
+        this.indexTable = indexTable;
+        this.maxTimestamp = maxTimestamp;
+        this.bucketsPerRegion = bucketsPerRegion;
+        this.outputMaxRows = outputMaxRows;
+    }
+
+    public Result run(Configuration configuration) throws Exception {
+        ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+        IndexMaintainer.serialize(dataTable, ptr, Collections.singletonList(indexTable),
+                connection);
+        ByteString indexMaintainer = ByteString.copyFrom(ByteUtil.copyKeyBytesIfNecessary(ptr));
+
+        // each region is digested within a single RPC
+        Configuration conf = HBaseConfiguration.create(configuration);
+        conf.setLong(HConstants.HBASE_RPC_TIMEOUT_KEY,
+                conf.getLong(QueryServices.INDEX_REBUILD_RPC_TIMEOUT_ATTRIB,
+                        QueryServicesOptions.DEFAULT_INDEX_REBUILD_RPC_TIMEOUT));
+        TableName dataTableName = TableName.valueOf(dataTable.getPhysicalName().getBytes());
+        TableName indexTableName = TableName.valueOf(indexTable.getPhysicalName().getBytes());
+        try (Connection hConnection =
+                     HBaseFactoryProvider.getHConnectionFactory().createConnection(conf);
+             Table dataHTable = hConnection.getTable(dataTableName);
+             Table indexHTable = hConnection.getTable(indexTableName);
+             RegionLocator indexLocator = hConnection.getRegionLocator(indexTableName)) {
+            checkEndpoint(hConnection, dataTableName);
+            checkEndpoint(hConnection, indexTableName);
+            List<byte[]> bucketStartKeys = getBucketStartKeys(indexLocator.getStartKeys(),
+                    indexLocator.getEndKeys(), bucketsPerRegion);
+            IndexDigestRequest.Builder requestBuilder = IndexDigestRequest.newBuilder()
+                    .setIndexMaintainer(indexMaintainer)
+                    .setMaxTimestamp(maxTimestamp)
+                    .setClientVersion(MetaDataProtocol.PHOENIX_VERSION);
+            for (byte[] startKey : bucketStartKeys) {
+                requestBuilder.addBucketStartKeys(ByteString.copyFrom(startKey));
+            }
+
+            Result result = new Result();
+            result.bucketCount = bucketStartKeys.size() + 1;
+            Map<Integer, long[]> expectedDigests = new HashMap<>();
+            for (IndexDigestResponse response : getDigests(dataHTable,
+                    requestBuilder.setExpected(true).build())) {
+                result.expectedRowCount += addBucketDigests(response, expectedDigests);
+            }
+            Map<Integer, long[]> actualDigests = new HashMap<>();
+            for (IndexDigestResponse response : getDigests(indexHTable,
+                    requestBuilder.setExpected(false).build())) {
+                result.actualRowCount += addBucketDigests(response, actualDigests);
+            }
+            List<Integer> mismatchingBuckets =
+                    getMismatchingBuckets(expectedDigests, actualDigests);
+            result.mismatchingBucketCount = mismatchingBuckets.size();
+            LOGGER.info("Index digests of {} differ in {} out of {} buckets",
+                    indexTableName, mismatchingBuckets.size(), result.bucketCount);
+            if (mismatchingBuckets.isEmpty()) {
+                return result;
+            }
+
+            // drill into the mismatching buckets
+            List<Integer> comparedBuckets = getComparedBuckets(mismatchingBuckets,
+                    expectedDigests, actualDigests, MAX_COMPARED_ROWS);
+            result.comparedBucketCount = comparedBuckets.size();
+            if (comparedBuckets.size() < mismatchingBuckets.size()) {
+                LOGGER.warn("Comparing the rows of {} out of {} mismatching buckets of {}, to"
+                        + " hold at most {} rows", comparedBuckets.size(),
+                        mismatchingBuckets.size(), indexTableName, MAX_COMPARED_ROWS);
+            }
+            if (comparedBuckets.isEmpty()) {
+                return result;
+            }
+            requestBuilder.addAllRowBuckets(comparedBuckets);
+            Map<ImmutableBytesPtr, Long> expectedRows = new HashMap<>();
+            for (IndexDigestResponse response : getDigests(dataHTable,
+                    requestBuilder.setExpected(true).build())) {
+                addRowDigests(response, expectedRows, null);
+            }
+            Map<ImmutableBytesPtr, Long> actualRows = new HashMap<>();
+            Set<ImmutableBytesPtr> unverifiedRows = new HashSet<>();
+            for (IndexDigestResponse response : getDigests(indexHTable,
+                    requestBuilder.setExpected(false).build())) {
+                addRowDigests(response, actualRows, unverifiedRows);
+            }
+            compareRows(expectedRows, actualRows, unverifiedRows, result);
+            return result;
+        }
+    }
+
+    /**
+     * Fails if the table was created before the {@link IndexDigestEndpoint} was added to the
+     * coprocessors of Phoenix tables, rather than failing on a missing service later
+     */
+    private static void checkEndpoint(Connection hConnection, TableName tableName)
+            throws IOException {
+        try (Admin admin = hConnection.getAdmin()) {
+            if (!admin.getDescriptor(tableName).hasCoprocessor(
+                    IndexDigestEndpoint.class.getName())) {
+                throw new IllegalStateException("The digest option needs the "
+                        + IndexDigestEndpoint.class.getSimpleName() + " coprocessor, which "
+                        + tableName + " does not have yet. It is added when Phoenix updates the"
+                        + " coprocessors of the table, for instance when the table is altered");
+            }
+        }
+    }
+
+    /**
+     * @return the first mismatching buckets whose rows, expected and actual, add up to at most
+     *         maxRows
+     */
+    @VisibleForTesting
+    static List<Integer> getComparedBuckets(List<Integer> mismatchingBuckets,
+            Map<Integer, long[]> expectedDigests, Map<Integer, long[]> actualDigests,
+            long maxRows) {
+        List<Integer> comparedBuckets = new ArrayList<>();
+        long rowCount = 0;
+        long[] none = new long[2];
+        for (int bucket : mismatchingBuckets) {
+            rowCount += expectedDigests.getOrDefault(bucket, none)[0]
+                    + actualDigests.getOrDefault(bucket, none)[0];
+            if (rowCount > maxRows) {
+                break;
+            }
+            comparedBuckets.add(bucket);
+        }
+        return comparedBuckets;
+    }
+
+    private static Iterable<IndexDigestResponse> getDigests(Table table,
+            final IndexDigestRequest request) throws Exception {
+        try {
+            return table.coprocessorService(IndexDigestService.class, null, null,
+                    instance -> {
+                        ServerRpcController controller = new ServerRpcController();
+                        BlockingRpcCallback<IndexDigestResponse> rpcCallback =
+                                new BlockingRpcCallback<>();
+                        instance.getIndexDigests(controller, request, rpcCallback);
+                        if (controller.getFailedOn() != null) {
+                            throw controller.getFailedOn();
+                        }
+                        return rpcCallback.get();
+                    }).values();
+        } catch (Throwable t) {
+            throw new Exception(t);
+        }
+    }
+
+    /**
+     * Adds the digests of a region to the digests of each bucket
+     * @return the number of rows digested by the region
+     */
+    @VisibleForTesting
+    static long addBucketDigests(IndexDigestResponse response, Map<Integer, long[]> digests) {
+        long rowCount = 0;
+        for (BucketDigest bucketDigest : response.getBucketsList()) {
+            long[] digest = digests.computeIfAbsent(bucketDigest.getBucket(), k -> new long[2]);
+            digest[0] += bucketDigest.getRowCount();
+            digest[1] += bucketDigest.getDigest();
+            rowCount += bucketDigest.getRowCount();
+        }
+        return rowCount;
+    }
+
+    @VisibleForTesting
+    static List<Integer> getMismatchingBuckets(Map<Integer, long[]> expectedDigests,
+            Map<Integer, long[]> actualDigests) {
+        TreeSet<Integer> buckets = new TreeSet<>(expectedDigests.keySet());
+        buckets.addAll(actualDigests.keySet());
+        List<Integer> mismatchingBuckets = new ArrayList<>();
+        long[] none = new long[2];
+        for (int bucket : buckets) {
+            long[] expected = expectedDigests.getOrDefault(bucket, none);
+            long[] actual = actualDigests.getOrDefault(bucket, none);
+            if (expected[0] != actual[0] || expected[1] != actual[1]) {
+                mismatchingBuckets.add(bucket);
+            }
+        }
+        return mismatchingBuckets;
+    }
+
+    private static void addRowDigests(IndexDigestResponse response,
+            Map<ImmutableBytesPtr, Long> rows, Set<ImmutableBytesPtr> unverifiedRows) {
+        for (RowDigest row : response.getRowsList()) {
+            ImmutableBytesPtr rowKey = new ImmutableBytesPtr(row.getRowKey().toByteArray());
+            if (row.getUnverified()) {
+                unverifiedRows.add(rowKey);
+            } else {
+                rows.put(rowKey, row.getDigest());
+            }
+        }
+    }
+
+    private void compareRows(Map<ImmutableBytesPtr, Long> expectedRows,
+            Map<ImmutableBytesPtr, Long> actualRows, Set<ImmutableBytesPtr> unverifiedRows,
+            Result result) {
+        long loggedRows = 0;
+        for (Map.Entry<ImmutableBytesPtr, Long> expectedRow : expectedRows.entrySet()) {
+            Long actualDigest = actualRows.get(expectedRow.getKey());
+            String problem;
+            if (actualDigest == null && unverifiedRows.contains(expectedRow.getKey())) {
+                // counted with the unverified rows below
+                continue;
+            } else if (actualDigest == null) {
+                result.missingRowCount++;
+                problem = "Missing";
+            } else if (!actualDigest.equals(expectedRow.getValue())) {
+                result.invalidRowCount++;
+                problem = "Invalid";
+            } else {
+                continue;
+            }
+            if (loggedRows++ < outputMaxRows) {
+                LOGGER.info("{} index row {}", problem,
+                        Bytes.toStringBinary(expectedRow.getKey().copyBytesIfNecessary()));
+            }
+        }
+        for (ImmutableBytesPtr actualRow : actualRows.keySet()) {
+            if (!expectedRows.containsKey(actualRow)) {
+                result.extraRowCount++;
+                if (loggedRows++ < outputMaxRows) {
+                    LOGGER.info("Extra index row {}",
+                            Bytes.toStringBinary(actualRow.copyBytesIfNecessary()));
+                }
+            }
+        }
+        for (ImmutableBytesPtr unverifiedRow : unverifiedRows) {
+            result.unverifiedRowCount++;
+            if (loggedRows++ < outputMaxRows) {
+                LOGGER.info("Unverified index row {}",
+                        Bytes.toStringBinary(unverifiedRow.copyBytesIfNecessary()));
+            }
+        }
+    }
+
+    /**
+     * Divides each region into buckets of the same size of the key space.
+     * @return the start keys of the buckets, in order, without the empty start key of the first
+     *         bucket
+     */
+    @VisibleForTesting
+    static List<byte[]> getBucketStartKeys(byte[][] regionStartKeys, byte[][] regionEndKeys,
+            int bucketsPerRegion) {
+        List<byte[]> bucketStartKeys = new ArrayList<>();
+        for (int i = 0; i < regionStartKeys.length; i++) {
+            byte[] startKey = regionStartKeys[i];
+            byte[] endKey = regionEndKeys[i];
+            if (startKey.length > 0) {
+                bucketStartKeys.add(startKey);
+            }
+            if (bucketsPerRegion <= 1) {
+                continue;
+            }
+            if (endKey.length == 0) {
+                // the keys of the last region are bounded by the largest key of the same length
+                endKey = new byte[Math.max(startKey.length, 1)];
+                Arrays.fill(endKey, (byte) 0xFF);
+            }
+            byte[][] splits;
+            try {
+                splits = Bytes.split(startKey, endKey, bucketsPerRegion - 1);
+            } catch (IllegalArgumentException e) {
+                splits = null;
+            }
+            if (splits == null) {
+                // the range is too narrow to be divided
+                continue;
+            }
+            for (int j = 1; j < splits.length - 1; j++) {
+                bucketStartKeys.add(splits[j]);
+            }
+        }
+        return bucketStartKeys;
+    }
+}
@@ -56,6 +56,7 @@ import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil;
 import org.apache.phoenix.mapreduce.util.PhoenixMapReduceUtil;
 import org.apache.phoenix.parse.HintNode.Hint;
 import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableType;
 import org.apache.phoenix.util.EnvironmentEdgeManager;
 import org.apache.phoenix.util.PhoenixRuntime;
 import org.apache.phoenix.util.QueryUtil;
@@ -114,6 +115,14 @@ public class IndexScrutinyTool extends Configured implements Tool {
     private static final Option OUTPUT_MAX = new Option("om", "output-max", true, "Max number of invalid rows to output per mapper.  Defaults to 1M");
     private static final Option TENANT_ID_OPTION = new Option("tenant", "tenant-id", true,
             "If specified, uses Tenant connection for tenant view index scrutiny (optional)");
+    private static final Option DIGEST_OPTION = new Option("dg", "digest", false,
+            "If specified, compares digests of the index rows computed by the region servers over"
+                    + " buckets of the index key space, and only compares the rows of the buckets"
+                    + " whose digests differ. Runs in the foreground without a MapReduce job and"
+                    + " only applies to global indexes on tables (optional)");
+    private static final Option DIGEST_BUCKETS_OPTION = new Option("dgb", "digest-buckets", true,
+            "Number of buckets each index region is divided into for the digest option.  Defaults to "
+                    + IndexDigestScrutiny.DEFAULT_BUCKETS_PER_REGION);
     public static final String INDEX_JOB_NAME_TEMPLATE = "PHOENIX_SCRUTINY_[%s]_[%s]";
 
     @Inject
@@ -158,6 +167,8 @@ public class IndexScrutinyTool extends Configured implements Tool {
         options.addOption(BATCH_SIZE_OPTION);
         options.addOption(SOURCE_TABLE_OPTION);
         options.addOption(TENANT_ID_OPTION);
+        options.addOption(DIGEST_OPTION);
+        options.addOption(DIGEST_BUCKETS_OPTION);
         return options;
     }
 
@@ -438,6 +449,17 @@ public class IndexScrutinyTool extends Configured implements Tool {
                             : 1000000L;
             /** end - parse command line configs **/
 
+            if (cmdLine.hasOption(DIGEST_OPTION.getOpt())) {
+                int bucketsPerRegion =
+                        cmdLine.hasOption(DIGEST_BUCKETS_OPTION.getOpt())
+                                ? Integer.parseInt(
+                                    cmdLine.getOptionValue(DIGEST_BUCKETS_OPTION.getOpt()))
+                                : IndexDigestScrutiny.DEFAULT_BUCKETS_PER_REGION;
+                return runDigestScrutiny(connection.unwrap(PhoenixConnection.class), configuration,
+                    schemaName, qDataTable, indexTable, tenantId, ts, bucketsPerRegion,
+                    outputMaxRows);
+            }
+
             if (outputInvalidRows && OutputFormat.TABLE.equals(outputFormat)) {
                 // create the output table if it doesn't exist
                 Configuration outputConfiguration = HBaseConfiguration.create(configuration);
@@ -515,6 +537,36 @@ public class IndexScrutinyTool extends Configured implements Tool {
         }
     }
 
+    private int runDigestScrutiny(PhoenixConnection connection, Configuration configuration,
+            String schemaName, String qDataTable, String indexTable, String tenantId, long ts,
+            int bucketsPerRegion, long outputMaxRows) throws Exception {
+        final String qIndexTable = SchemaUtil.getQualifiedTableName(schemaName, indexTable);
+        final PTable pdataTable = PhoenixRuntime.getTable(connection, qDataTable);
+        final PTable pindexTable = PhoenixRuntime.getTable(connection, qIndexTable);
+        if (tenantId != null || pdataTable.getType() != PTableType.TABLE
+                || pindexTable.getIndexType() != PTable.IndexType.GLOBAL
+                || pdataTable.isTransactional()) {
+            throw new IllegalArgumentException(
+                    "The digest option only applies to global indexes on non transactional tables");
+        }
+        if (bucketsPerRegion < 1) {
+            throw new IllegalArgumentException(
+                    DIGEST_BUCKETS_OPTION.getLongOpt() + " must be at least 1");
+        }
+        LOGGER.info(String.format(
+            "Running digest scrutiny [dataTable=%s, indexTable=%s, timestamp=%s, bucketsPerRegion=%s]",
+            qDataTable, qIndexTable, ts, bucketsPerRegion));
+        IndexDigestScrutiny.Result result =
+                new IndexDigestScrutiny(connection, pdataTable, pindexTable, ts, bucketsPerRegion,
+                        outputMaxRows).run(configuration);
+        if (result.isMismatched()) {
+            LOGGER.error("Digest scrutiny of " + qIndexTable + " found mismatches: " + result);
+            return -1;
+        }
+        LOGGER.info("Digest scrutiny of " + qIndexTable + " finished: " + result);
+        return 0;
+    }
+
     private void validateTimestamp(Configuration configuration, long ts) {
         long maxLookBackAge = BaseScannerRegionObserver.getMaxLookbackInMillis(configuration);
         if (maxLookBackAge != BaseScannerRegionObserver.DEFAULT_PHOENIX_MAX_LOOKBACK_AGE * 1000L) {
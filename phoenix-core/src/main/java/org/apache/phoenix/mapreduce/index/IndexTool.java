@@ -55,6 +55,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.apache.hadoop.hbase.client.Admin;
@@ -63,13 +64,16 @@ import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.HFileOutputFormat2;
 import org.apache.hadoop.hbase.mapreduce.TableInputFormat;
 import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
 import org.apache.hadoop.hbase.mapreduce.TableOutputFormat;
+import org.apache.hadoop.hbase.tool.LoadIncrementalHFiles;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.CommonFSUtils;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.StringUtils;
@@ -77,6 +81,7 @@ import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 import org.apache.phoenix.compile.PostIndexDDLCompiler;
 import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
+import org.apache.phoenix.coprocessor.IndexToolVerificationResult;
 import org.apache.phoenix.hbase.index.ValueGetter;
 import org.apache.phoenix.hbase.index.covered.update.ColumnReference;
 import org.apache.phoenix.hbase.index.util.IndexManagementUtil;
@@ -214,6 +219,7 @@ public class IndexTool extends Configured implements Tool {
     private boolean useSnapshot;
     private boolean isLocalIndexBuild = false;
     private boolean shouldDeleteBeforeRebuild;
+    private boolean useHFiles;
     private PTable pIndexTable = null;
     private PTable pDataTable;
     private String tenantId = null;
@@ -300,6 +306,11 @@ public class IndexTool extends Configured implements Tool {
                 + "Only supported for global indexes. If this option is used with -v AFTER, these "
                 + "extra rows will be identified but not repaired.");
 
+    private static final Option HFILE_OPTION = new Option("hf", "hfile", false,
+            "Build a global index by writing HFiles split by the index regions and bulk loading "
+                + "them, instead of writing the index rows through the region servers. Requires "
+                + "the run-foreground option and supports NONE and AFTER verification only");
+
     public static final String INDEX_JOB_NAME_TEMPLATE = "PHOENIX_%s.%s_INDX_%s";
 
     public static final String INVALID_TIME_RANGE_EXCEPTION_MESSAGE = "startTime is greater than "
@@ -338,6 +349,7 @@ public class IndexTool extends Configured implements Tool {
         options.addOption(RETRY_VERIFY_OPTION);
         options.addOption(DISABLE_LOGGING_OPTION);
         options.addOption(USE_INDEX_TABLE_AS_SOURCE_OPTION);
+        options.addOption(HFILE_OPTION);
         return options;
     }
 
@@ -395,6 +407,25 @@ public class IndexTool extends Configured implements Tool {
         if (splitIndex && cmdLine.hasOption(PARTIAL_REBUILD_OPTION.getOpt())) {
             throw new IllegalStateException("Cannot split index for a partial rebuild, as the index table is dropped");
         }
+        if (cmdLine.hasOption(HFILE_OPTION.getOpt())) {
+            if (cmdLine.hasOption(PARTIAL_REBUILD_OPTION.getOpt())) {
+                throw new IllegalStateException(HFILE_OPTION.getLongOpt() + " is not compatible with "
+                        + PARTIAL_REBUILD_OPTION.getLongOpt());
+            }
+            if (!cmdLine.hasOption(RUN_FOREGROUND_OPTION.getOpt())) {
+                throw new IllegalStateException(HFILE_OPTION.getLongOpt() + " requires "
+                        + RUN_FOREGROUND_OPTION.getLongOpt() + " as the HFiles are bulk loaded once"
+                        + " the job completes");
+            }
+            if (cmdLine.hasOption(VERIFY_OPTION.getOpt())) {
+                IndexVerifyType verifyType =
+                        IndexVerifyType.fromValue(cmdLine.getOptionValue(VERIFY_OPTION.getOpt()));
+                if (verifyType != IndexVerifyType.NONE && verifyType != IndexVerifyType.AFTER) {
+                    throw new IllegalStateException(HFILE_OPTION.getLongOpt() + " only supports "
+                            + "NONE or AFTER verification");
+                }
+            }
+        }
         if (loggingDisabledMismatchesVerifyOption(cmdLine)){
             throw new IllegalStateException("Can't disable index verification logging when no " +
                 "index verification or the wrong kind of index verification has been requested. " +
@@ -488,9 +519,11 @@ public class IndexTool extends Configured implements Tool {
                             Long.toString(TransactionUtil.convertToNanoseconds(maxTimeRange)));
                     configuration.set(PhoenixConfigurationUtil.TX_PROVIDER, pDataTable.getTransactionProvider().name());
                 }
-                if (useSnapshot || (!isLocalIndexBuild && pDataTable.isTransactional())) {
+                if (useSnapshot || useHFiles
+                        || (!isLocalIndexBuild && pDataTable.isTransactional())) {
                     PhoenixConfigurationUtil.setCurrentScnValue(configuration, maxTimeRange);
-                    if (indexVerifyType != IndexVerifyType.NONE) {
+                    // HFile builds are verified by a server side job once the HFiles are loaded
+                    if (indexVerifyType != IndexVerifyType.NONE && !useHFiles) {
                         LOGGER.warn("Verification is not supported for snapshots and transactional"
                                 + "table index rebuilds, verification parameter ignored");
                     }
@@ -509,7 +542,7 @@ public class IndexTool extends Configured implements Tool {
                     if (lastVerifyTime != null) {
                         PhoenixConfigurationUtil.setIndexToolLastVerifyTime(configuration, lastVerifyTime);
                     }
-                    return configureJobForServerBuildIndex();
+                    return configureJobForServerBuildIndex(indexVerifyType);
                 }
             }
         }
@@ -691,12 +724,16 @@ public class IndexTool extends Configured implements Tool {
                             .setInput(job, PhoenixIndexDBWritable.class, snapshotName, dataTableWithSchema, restoreDir, selectQuery);
             }
             TableMapReduceUtil.initCredentials(job);
-            
+
+            if (useHFiles) {
+                job.setMapperClass(PhoenixIndexImportHFileMapper.class);
+                return configureSubmittableJobUsingHFiles(job, pConnection);
+            }
             job.setMapperClass(PhoenixIndexImportDirectMapper.class);
             return configureSubmittableJobUsingDirectApi(job);
         }
 
-        private Job configureJobForServerBuildIndex() throws Exception {
+        private Job configureJobForServerBuildIndex(IndexVerifyType verifyType) throws Exception {
             long indexRebuildQueryTimeoutMs =
                     configuration.getLong(QueryServices.INDEX_REBUILD_QUERY_TIMEOUT_ATTRIB,
                             QueryServicesOptions.DEFAULT_INDEX_REBUILD_QUERY_TIMEOUT);
@@ -726,7 +763,7 @@ public class IndexTool extends Configured implements Tool {
             if (startTime != null) {
                 PhoenixConfigurationUtil.setIndexToolStartTime(configuration, startTime);
             }
-            PhoenixConfigurationUtil.setIndexVerifyType(configuration, indexVerifyType);
+            PhoenixConfigurationUtil.setIndexVerifyType(configuration, verifyType);
             PhoenixConfigurationUtil.setDisableLoggingVerifyType(configuration, disableLoggingType);
             String physicalIndexTable = pIndexTable.getPhysicalName().getString();
 
@@ -780,7 +817,36 @@ public class IndexTool extends Configured implements Tool {
             job.setNumReduceTasks(1);
             return job;
         }
-        
+
+        /**
+         * Writes the index rows into HFiles instead of the index table. The map output is
+         * partitioned by the regions of the index table and sorted, so that each reducer writes
+         * the HFiles of one region, which are bulk loaded once the job completes.
+         */
+        private Job configureSubmittableJobUsingHFiles(Job job, PhoenixConnection pConnection)
+                throws Exception {
+            Configuration conf = job.getConfiguration();
+            HBaseConfiguration.merge(conf, HBaseConfiguration.create(conf));
+            job.setMapOutputKeyClass(ImmutableBytesWritable.class);
+            job.setMapOutputValueClass(KeyValue.class);
+            TableName physicalIndexTable = TableName.valueOf(pIndexTable.getPhysicalName().getBytes());
+            try (org.apache.hadoop.hbase.client.Connection hConn =
+                    getTemporaryHConnection(pConnection);
+                    Table table = hConn.getTable(physicalIndexTable);
+                    RegionLocator regionLocator = hConn.getRegionLocator(physicalIndexTable)) {
+                HFileOutputFormat2.configureIncrementalLoad(job, table.getDescriptor(),
+                        regionLocator);
+            }
+            TableMapReduceUtil.addDependencyJars(job);
+            return job;
+        }
+
+        /**
+         * Verifies the index loaded from HFiles on the server side, without rebuilding it.
+         */
+        private Job getVerifyJob() throws Exception {
+            return configureJobForServerBuildIndex(IndexVerifyType.ONLY);
+        }
     }
 
     public Job getJob() {
@@ -851,6 +917,11 @@ public class IndexTool extends Configured implements Tool {
             throws Exception {
         Path outputPath = null;
         FileSystem fs;
+        Path tempBasePath = null;
+        if (basePath == null && useHFiles) {
+            basePath = "/tmp/" + UUID.randomUUID();
+            tempBasePath = new Path(basePath);
+        }
         if (basePath != null) {
             outputPath =
                     CsvBulkImportUtil.getOutputPath(new Path(basePath),
@@ -869,7 +940,82 @@ public class IndexTool extends Configured implements Tool {
         }
         LOGGER.info("Running Index Build in Foreground. Waits for the build to complete."
                 + " This may take a long time!.");
-        return job.waitForCompletion(true);
+        try {
+            if (!job.waitForCompletion(true)) {
+                return false;
+            }
+            return !useHFiles || completeHFileBuild(conn, jobFactory, outputPath);
+        } finally {
+            // The HFiles of a failed build are left behind only in an output path the user chose
+            if (tempBasePath != null) {
+                deleteTempBasePath(tempBasePath, configuration);
+            }
+        }
+    }
+
+    private static void deleteTempBasePath(Path tempBasePath, Configuration configuration) {
+        try {
+            if (!tempBasePath.getFileSystem(configuration).delete(tempBasePath, true)) {
+                LOGGER.warn("Failed to delete the temporary output directory {}", tempBasePath);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete the temporary output directory " + tempBasePath, e);
+        }
+    }
+
+    /**
+     * Bulk loads the HFiles written by the index build job into the index table, verifies the
+     * index if requested and then marks it active, as the reducer of the other build modes does.
+     * An index that fails the verification is left in the BUILDING state, so it is not used.
+     */
+    private boolean completeHFileBuild(Connection conn, JobFactory jobFactory, Path outputPath)
+            throws Exception {
+        Configuration jobConf = job.getConfiguration();
+        TableName physicalIndexTable = TableName.valueOf(pIndexTable.getPhysicalName().getBytes());
+        try (org.apache.hadoop.hbase.client.Connection hConn =
+                getTemporaryHConnection(conn.unwrap(PhoenixConnection.class));
+                Admin admin = hConn.getAdmin();
+                Table table = hConn.getTable(physicalIndexTable);
+                RegionLocator regionLocator = hConn.getRegionLocator(physicalIndexTable)) {
+            LOGGER.info("Loading index HFiles from {} into {}", outputPath, physicalIndexTable);
+            new LoadIncrementalHFiles(jobConf).doBulkLoad(outputPath, admin, table, regionLocator);
+        }
+        if (!outputPath.getFileSystem(jobConf).delete(outputPath, true)) {
+            LOGGER.warn("Failed to delete the output directory {}", outputPath);
+        }
+        if (indexVerifyType == IndexVerifyType.AFTER) {
+            Job verifyJob = jobFactory.getVerifyJob();
+            LOGGER.info("Verifying the index loaded from HFiles");
+            if (!verifyJob.waitForCompletion(true)) {
+                return false;
+            }
+            if (isVerificationFailed(verifyJob.getCounters())) {
+                LOGGER.error("Verification of the index loaded from HFiles failed, leaving {} in"
+                        + " the BUILDING state. Check the verification tables for the invalid rows",
+                        pIndexTable.getName().getString());
+                return false;
+            }
+        }
+        IndexToolUtil.updateIndexState(jobConf, PIndexState.ACTIVE);
+        PhoenixIndexImportDirectReducer.updateTasksTable(jobConf);
+        return true;
+    }
+
+    /**
+     * Whether the counters of a verify only job report index rows that are invalid, missing or
+     * extra. Like {@link IndexToolVerificationResult#isVerificationFailed()}, rows beyond the max
+     * lookback age do not fail the verification on their own.
+     */
+    @VisibleForTesting
+    public static boolean isVerificationFailed(Counters counters) {
+        long failedRowCount = 0;
+        for (PhoenixIndexToolJobCounters counter : new PhoenixIndexToolJobCounters[] {
+                PhoenixIndexToolJobCounters.BEFORE_REBUILD_INVALID_INDEX_ROW_COUNT,
+                PhoenixIndexToolJobCounters.BEFORE_REBUILD_MISSING_INDEX_ROW_COUNT,
+                PhoenixIndexToolJobCounters.BEFORE_REPAIR_EXTRA_VERIFIED_INDEX_ROW_COUNT }) {
+            failedRowCount += counters.findCounter(counter).getValue();
+        }
+        return failedRowCount > 0;
     }
 
     @VisibleForTesting
@@ -923,6 +1069,7 @@ public class IndexTool extends Configured implements Tool {
         isForeground = cmdLine.hasOption(RUN_FOREGROUND_OPTION.getOpt());
         useSnapshot = cmdLine.hasOption(SNAPSHOT_OPTION.getOpt());
         shouldDeleteBeforeRebuild = cmdLine.hasOption(DELETE_ALL_AND_REBUILD_OPTION.getOpt());
+        useHFiles = cmdLine.hasOption(HFILE_OPTION.getOpt());
         return 0;
     }
 
@@ -977,6 +1124,11 @@ public class IndexTool extends Configured implements Tool {
             connection, SchemaUtil.getQualifiedTableName(schemaName, indexTable));
         indexType = pIndexTable.getIndexType();
         qIndexTable = SchemaUtil.getQualifiedTableName(schemaName, indexTable);
+        if (useHFiles && (IndexType.LOCAL.equals(indexType) || pDataTable.isTransactional())) {
+            throw new IllegalArgumentException(String.format(
+                "%s is not a global index of a non transactional table, which is required to "
+                    + "build it from HFiles.", qIndexTable));
+        }
         if (IndexType.LOCAL.equals(indexType)) {
             isLocalIndexBuild = true;
             if (useSnapshot) {
@@ -181,7 +181,7 @@ public class PhoenixIndexImportDirectReducer extends
     @Override
     protected void cleanup(Context context) throws IOException, InterruptedException{
         try {
-            updateTasksTable(context);
+            updateTasksTable(context.getConfiguration());
             resultRepository.close();
         } catch (SQLException e) {
             LOGGER.error(" Failed to update the tasks table");
@@ -189,17 +189,20 @@ public class PhoenixIndexImportDirectReducer extends
         }
     }
 
-    private void updateTasksTable(Context context) throws SQLException, IOException {
+    /**
+     * Completes the index rebuild tasks of the index built by the job.
+     */
+    static void updateTasksTable(Configuration configuration) throws SQLException, IOException {
         final Properties overrideProps = new Properties();
         final Connection
                 connection = ConnectionUtil
-                .getOutputConnection(context.getConfiguration(), overrideProps);
+                .getOutputConnection(configuration, overrideProps);
         try {
-            String fullTableName = PhoenixConfigurationUtil.getInputTableName(context.getConfiguration());
-            String tenantId = context.getConfiguration().get(MAPREDUCE_TENANT_ID, null);
+            String fullTableName = PhoenixConfigurationUtil.getInputTableName(configuration);
+            String tenantId = configuration.get(MAPREDUCE_TENANT_ID, null);
             String schemaName = SchemaUtil.getSchemaNameFromFullName(fullTableName);
             String tableName = SchemaUtil.getTableNameFromFullName(fullTableName);
-            String indexName = PhoenixConfigurationUtil.getDisableIndexes(context.getConfiguration());
+            String indexName = PhoenixConfigurationUtil.getDisableIndexes(configuration);
             List<Task.TaskRecord> taskRecords = Task.queryTaskTable(connection, null, schemaName, tableName,
                     PTable.TaskType.INDEX_REBUILD, tenantId, indexName);
             if (taskRecords != null && taskRecords.size() > 0) {
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce.index;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellScanner;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.phoenix.execute.MutationState;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.mapreduce.PhoenixJobCounters;
+import org.apache.phoenix.mapreduce.util.ConnectionUtil;
+import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.util.ColumnInfo;
+import org.apache.phoenix.util.EncodedColumnsUtil;
+import org.apache.phoenix.util.IndexUtil.IndexStatusUpdater;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.SchemaUtil;
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mapper that turns rows of the data table into the cells of the index table, for the
+ * HFileOutputFormat2 to sort them and write them into HFiles per index region. The index rows
+ * are built the same way as by {@link PhoenixIndexImportDirectMapper}, by upserting into the
+ * index, and are marked verified.
+ */
+public class PhoenixIndexImportHFileMapper extends
+        Mapper<NullWritable, PhoenixIndexDBWritable, ImmutableBytesWritable, KeyValue> {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(PhoenixIndexImportHFileMapper.class);
+
+    private static boolean dropIndexRowForTesting = false;
+
+    /**
+     * Drops the first index row of every batch, so the verification of the loaded index fails.
+     */
+    @VisibleForTesting
+    public static void setDropIndexRowForTesting(boolean drop) {
+        dropIndexRowForTesting = drop;
+    }
+
+    private final PhoenixIndexDBWritable indxWritable = new PhoenixIndexDBWritable();
+
+    private final ImmutableBytesWritable outputKey = new ImmutableBytesWritable();
+
+    private Connection connection;
+
+    private PreparedStatement pStatement;
+
+    private int batchSize;
+
+    private int currentBatchCount = 0;
+
+    private IndexStatusUpdater indexStatusUpdater;
+
+    @Override
+    protected void setup(final Context context) throws IOException, InterruptedException {
+        super.setup(context);
+        final Configuration configuration = context.getConfiguration();
+        try {
+            List<ColumnInfo> indxTblColumnMetadata =
+                    PhoenixConfigurationUtil.getUpsertColumnMetadataList(configuration);
+            indxWritable.setColumnMetadata(indxTblColumnMetadata);
+
+            final Properties overrideProps = new Properties();
+            String scn = configuration.get(PhoenixConfigurationUtil.CURRENT_SCN_VALUE);
+            if (scn != null) {
+                // the cells are written with the timestamp the index is built at
+                overrideProps.put(PhoenixRuntime.BUILD_INDEX_AT_ATTRIB, scn);
+            }
+            connection = ConnectionUtil.getOutputConnection(configuration, overrideProps);
+            connection.setAutoCommit(false);
+            batchSize = ((PhoenixConnection) connection).getMutateBatchSize();
+
+            final String upsertQuery = PhoenixConfigurationUtil.getUpsertStatement(configuration);
+            this.pStatement = connection.prepareStatement(upsertQuery);
+
+            String indexTableName =
+                    PhoenixConfigurationUtil.getIndexToolIndexTableName(configuration);
+            PTable pIndexTable = PhoenixRuntime.getTable(connection, indexTableName);
+            indexStatusUpdater = new IndexStatusUpdater(
+                SchemaUtil.getEmptyColumnFamily(pIndexTable),
+                EncodedColumnsUtil.getEmptyKeyValueInfo(pIndexTable).getFirst());
+        } catch (Exception e) {
+            tryClosingResources();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    protected void map(NullWritable key, PhoenixIndexDBWritable record, Context context)
+            throws IOException, InterruptedException {
+        try {
+            currentBatchCount++;
+            indxWritable.setValues(record.getValues());
+            indxWritable.write(this.pStatement);
+            this.pStatement.execute();
+            if (currentBatchCount % batchSize == 0) {
+                writeBatch(context);
+            }
+            context.progress();
+        } catch (SQLException e) {
+            LOGGER.error(" Error {}  while read/write of a record ", e.getMessage());
+            context.getCounter(PhoenixJobCounters.FAILED_RECORDS).increment(currentBatchCount);
+            throw new RuntimeException(e);
+        }
+        context.getCounter(PhoenixJobCounters.INPUT_RECORDS).increment(1);
+    }
+
+    /**
+     * Emits the cells of the index rows upserted since the last batch.
+     */
+    private void writeBatch(Context context) throws IOException, SQLException,
+            InterruptedException {
+        MutationState mutationState =
+                connection.unwrap(PhoenixConnection.class).getMutationState();
+        final Iterator<Pair<byte[], List<Mutation>>> iterator =
+                mutationState.toMutations(true, null);
+        boolean dropIndexRow = dropIndexRowForTesting;
+        while (iterator.hasNext()) {
+            Pair<byte[], List<Mutation>> mutationPair = iterator.next();
+            for (Mutation mutation : mutationPair.getSecond()) {
+                if (dropIndexRow) {
+                    dropIndexRow = false;
+                    continue;
+                }
+                indexStatusUpdater.setVerified(mutation.cellScanner());
+                outputKey.set(mutation.getRow());
+                CellScanner cellScanner = mutation.cellScanner();
+                while (cellScanner.advance()) {
+                    Cell cell = cellScanner.current();
+                    context.write(outputKey, KeyValueUtil.ensureKeyValue(cell));
+                }
+            }
+            context.getCounter(PhoenixJobCounters.OUTPUT_RECORDS).increment(
+                mutationPair.getSecond().size());
+        }
+        connection.rollback();
+        currentBatchCount = 0;
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        try {
+            if (currentBatchCount > 0) {
+                writeBatch(context);
+            }
+            super.cleanup(context);
+        } catch (SQLException e) {
+            LOGGER.error(" Error {}  while read/write of a record ", e.getMessage());
+            context.getCounter(PhoenixJobCounters.FAILED_RECORDS).increment(currentBatchCount);
+            throw new RuntimeException(e);
+        } finally {
+            tryClosingResources();
+        }
+    }
+
+    private void tryClosingResources() {
+        if (this.connection != null) {
+            try {
+                this.connection.close();
+            } catch (SQLException e) {
+                LOGGER.error("Error while closing connection in the PhoenixIndexMapper class ", e);
+            }
+        }
+    }
+}
@@ -176,6 +176,12 @@ public final class PhoenixConfigurationUtil {
 
     public static final boolean DEFAULT_SPLIT_BY_STATS = true;
 
+    // Target size in bytes of the splits, toward which the scans are coalesced or subdivided based
+    // on the guidepost byte counts. Splits follow the scans of the query plan when not positive
+    public static final String MAPREDUCE_SPLIT_TARGET_SIZE = "phoenix.mapreduce.split.target.size";
+
+    public static final long DEFAULT_SPLIT_TARGET_SIZE = 0;
+
     public static final String SNAPSHOT_NAME_KEY = "phoenix.mapreduce.snapshot.name";
 
     public static final String RESTORE_DIR_KEY = "phoenix.tableSnapshot.restore.dir";
@@ -885,6 +891,11 @@ public final class PhoenixConfigurationUtil {
         configuration.setBoolean(MAPREDUCE_SPLIT_BY_STATS, value);
     }
 
+    public static void setSplitTargetSize(final Configuration configuration, long targetSize) {
+        Preconditions.checkNotNull(configuration);
+        configuration.setLong(MAPREDUCE_SPLIT_TARGET_SIZE, targetSize);
+    }
+
     public static String getDisableIndexes(Configuration configuration) {
         Preconditions.checkNotNull(configuration);
         return configuration.get(DISABLED_INDEXES);
@@ -930,6 +941,11 @@ public final class PhoenixConfigurationUtil {
         return split;
     }
 
+    public static long getSplitTargetSize(final Configuration configuration) {
+        Preconditions.checkNotNull(configuration);
+        return configuration.getLong(MAPREDUCE_SPLIT_TARGET_SIZE, DEFAULT_SPLIT_TARGET_SIZE);
+    }
+
 	public static boolean getStatsForParallelizationProp(PhoenixConnection conn, PTable table) {
 	    Boolean useStats = table.useStatsForParallelization();
 	    if (useStats != null) {
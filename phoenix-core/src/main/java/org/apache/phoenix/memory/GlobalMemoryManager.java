@@ -21,6 +21,7 @@ import net.jcip.annotations.GuardedBy;
 
 import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.monitoring.ServerScanCost;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,6 +74,8 @@ public class GlobalMemoryManager implements MemoryManager {
                     .build().buildException());
         }
         long nBytes;
+        boolean accounting = ServerScanCost.isAccounting();
+        long startTime = accounting ? System.nanoTime() : 0;
         synchronized(sync) {
             if (usedMemoryBytes + minBytes > maxMemoryBytes) {
                 throw new InsufficientMemoryException(
@@ -90,6 +93,9 @@ public class GlobalMemoryManager implements MemoryManager {
             }
             usedMemoryBytes += nBytes;
         }
+        if (accounting) {
+            ServerScanCost.recordMemoryReserved(nBytes, System.nanoTime() - startTime);
+        }
         return nBytes;
     }
 
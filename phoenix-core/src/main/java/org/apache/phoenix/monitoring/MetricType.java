@@ -156,6 +156,24 @@ public enum MetricType {
     COUNT_REMOTE_RPC_RETRIES("rrr", "Number of remote RPC retries",LogLevel.DEBUG, PLong.INSTANCE),
     COUNT_ROWS_SCANNED("ws", "Number of rows scanned",LogLevel.DEBUG, PLong.INSTANCE),
     COUNT_ROWS_FILTERED("wf", "Number of rows filtered",LogLevel.DEBUG,PLong.INSTANCE),
+    // phoenix server cost metrics, returned by the region servers with the results of a scan
+    SERVER_CPU_TIME("scpu", "Microseconds of CPU time spent in Phoenix region scanners",
+            LogLevel.OFF, PLong.INSTANCE),
+    SERVER_ROWS_EXAMINED("sre", "Number of rows examined by Phoenix region scanners",
+            LogLevel.OFF, PLong.INSTANCE),
+    SERVER_ROWS_FILTERED("srf", "Number of rows filtered out by Phoenix filters",
+            LogLevel.OFF, PLong.INSTANCE),
+    SERVER_MEMORY_RESERVED("smr", "Number of bytes reserved through the region server memory manager",
+            LogLevel.OFF, PLong.INSTANCE),
+    SERVER_SPILL_BYTES("ssb", "Number of bytes spilled to disk by Phoenix region scanners",
+            LogLevel.OFF, PLong.INSTANCE),
+    SERVER_MEMORY_WAIT_TIME("smw", "Microseconds spent reserving memory through the region server memory manager",
+            LogLevel.OFF, PLong.INSTANCE),
+    // sizes of the RPCs of adaptively sized scans, summed over the scans
+    SCAN_CACHING("sca", "Number of rows per RPC chosen for adaptively sized scans",
+            LogLevel.OFF, PLong.INSTANCE),
+    SCAN_MAX_RESULT_SIZE("smx", "Number of bytes per RPC chosen for adaptively sized scans",
+            LogLevel.OFF, PLong.INSTANCE),
     COUNTER_METADATA_INCONSISTENCY("mi", "Number of times the metadata inconsistencies ",
             LogLevel.DEBUG, PLong.INSTANCE),
     NUM_SYSTEM_TABLE_RPC_SUCCESS("nstrs", "Number of successful system table RPC calls",
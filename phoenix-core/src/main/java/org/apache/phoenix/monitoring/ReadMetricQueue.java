@@ -90,6 +90,22 @@ public class ReadMetricQueue {
         return publishedMetrics;
     }
 
+    /**
+     * @return the values of the metrics of a type over all tables, one per metric allotted, as
+     *         for instance one per task for the task metrics
+     */
+    public List<Long> getMetricValues(MetricType type) {
+        List<Long> values = new ArrayList<>();
+        for (Entry<MetricKey, Queue<CombinableMetric>> entry : metricsMap.entrySet()) {
+            if (entry.getKey().type == type) {
+                for (CombinableMetric metric : entry.getValue()) {
+                    values.add(metric.getValue());
+                }
+            }
+        }
+        return values;
+    }
+
     public void clearMetrics() {
         metricsMap.clear(); // help gc
     }
@@ -29,13 +29,23 @@ import static org.apache.phoenix.monitoring.MetricType.COUNT_RPC_CALLS;
 import static org.apache.phoenix.monitoring.MetricType.COUNT_RPC_RETRIES;
 import static org.apache.phoenix.monitoring.MetricType.COUNT_SCANNED_REGIONS;
 import static org.apache.phoenix.monitoring.MetricType.SCAN_BYTES;
+import static org.apache.phoenix.monitoring.MetricType.SCAN_CACHING;
+import static org.apache.phoenix.monitoring.MetricType.SCAN_MAX_RESULT_SIZE;
+import static org.apache.phoenix.monitoring.MetricType.SERVER_CPU_TIME;
+import static org.apache.phoenix.monitoring.MetricType.SERVER_MEMORY_RESERVED;
+import static org.apache.phoenix.monitoring.MetricType.SERVER_MEMORY_WAIT_TIME;
+import static org.apache.phoenix.monitoring.MetricType.SERVER_ROWS_EXAMINED;
+import static org.apache.phoenix.monitoring.MetricType.SERVER_ROWS_FILTERED;
+import static org.apache.phoenix.monitoring.MetricType.SERVER_SPILL_BYTES;
 
 import java.io.IOException;
 import java.util.Map;
 
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.JsonMapper;
+import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
 import org.apache.phoenix.log.LogLevel;
+import org.apache.phoenix.schema.types.PDataType;
 
 public class ScanMetricsHolder {
 
@@ -51,6 +61,14 @@ public class ScanMetricsHolder {
     private final CombinableMetric countOfRowsScanned;
     private final CombinableMetric countOfRowsFiltered;
     private final CombinableMetric countOfBytesScanned;
+    private final CombinableMetric serverCpuTime;
+    private final CombinableMetric serverRowsExamined;
+    private final CombinableMetric serverRowsFiltered;
+    private final CombinableMetric serverMemoryReserved;
+    private final CombinableMetric serverSpillBytes;
+    private final CombinableMetric serverMemoryWaitTime;
+    private final CombinableMetric scanCaching;
+    private final CombinableMetric scanMaxResultSize;
     private  Map<String, Long> scanMetricMap;
     private Object scan;
 
@@ -61,6 +79,10 @@ public class ScanMetricsHolder {
             Scan scan, LogLevel connectionLogLevel) {
         if (connectionLogLevel == LogLevel.OFF && !readMetrics.isRequestMetricsEnabled()) { return NO_OP_INSTANCE; }
         scan.setScanMetricsEnabled(true);
+        if (readMetrics.isRequestMetricsEnabled()) {
+            // the cost of the scan on the region server is only kept in request level metrics
+            scan.setAttribute(BaseScannerRegionObserver.SCAN_COST, PDataType.TRUE_BYTES);
+        }
         return new ScanMetricsHolder(readMetrics, tableName, scan);
     }
 
@@ -81,6 +103,14 @@ public class ScanMetricsHolder {
         countOfRowsScanned = readMetrics.allotMetric(COUNT_ROWS_SCANNED, tableName);
         countOfRowsFiltered = readMetrics.allotMetric(COUNT_ROWS_FILTERED, tableName);
         countOfBytesScanned = readMetrics.allotMetric(SCAN_BYTES,tableName);
+        serverCpuTime = readMetrics.allotMetric(SERVER_CPU_TIME, tableName);
+        serverRowsExamined = readMetrics.allotMetric(SERVER_ROWS_EXAMINED, tableName);
+        serverRowsFiltered = readMetrics.allotMetric(SERVER_ROWS_FILTERED, tableName);
+        serverMemoryReserved = readMetrics.allotMetric(SERVER_MEMORY_RESERVED, tableName);
+        serverSpillBytes = readMetrics.allotMetric(SERVER_SPILL_BYTES, tableName);
+        serverMemoryWaitTime = readMetrics.allotMetric(SERVER_MEMORY_WAIT_TIME, tableName);
+        scanCaching = readMetrics.allotMetric(SCAN_CACHING, tableName);
+        scanMaxResultSize = readMetrics.allotMetric(SCAN_MAX_RESULT_SIZE, tableName);
     }
 
     public CombinableMetric getCountOfRemoteRPCcalls() {
@@ -135,6 +165,38 @@ public class ScanMetricsHolder {
         return countOfBytesScanned;
     }
 
+    public CombinableMetric getServerCpuTime() {
+        return serverCpuTime;
+    }
+
+    public CombinableMetric getServerRowsExamined() {
+        return serverRowsExamined;
+    }
+
+    public CombinableMetric getServerRowsFiltered() {
+        return serverRowsFiltered;
+    }
+
+    public CombinableMetric getServerMemoryReserved() {
+        return serverMemoryReserved;
+    }
+
+    public CombinableMetric getServerSpillBytes() {
+        return serverSpillBytes;
+    }
+
+    public CombinableMetric getServerMemoryWaitTime() {
+        return serverMemoryWaitTime;
+    }
+
+    public CombinableMetric getScanCaching() {
+        return scanCaching;
+    }
+
+    public CombinableMetric getScanMaxResultSize() {
+        return scanMaxResultSize;
+    }
+
     public void setScanMetricMap(Map<String, Long> scanMetricMap) {
         this.scanMetricMap = scanMetricMap;
     }
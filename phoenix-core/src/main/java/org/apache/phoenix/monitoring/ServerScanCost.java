@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.apache.phoenix.util.ByteUtil.EMPTY_BYTE_ARRAY;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+
+/**
+ * Cost of a scan in the Phoenix code of a region server. The region scanner of the scan makes
+ * its cost the current one of the handler thread for the duration of each call, so that the
+ * filters, memory manager and spill files used on its behalf record into it without having to
+ * be handed the scan. The cost is returned to the client as the last row of the scan results,
+ * holding a single cell in the empty column family like the dummy rows of paged scans.
+ */
+public class ServerScanCost {
+    public static final byte[] SCAN_COST_QUALIFIER = Bytes.toBytes("_ScanCost");
+
+    private static final int VALUE_COUNT = 6;
+    private static final ThreadLocal<ServerScanCost> CURRENT = new ThreadLocal<>();
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private long cpuTimeNanos;
+    private long rowsExamined;
+    private long rowsFiltered;
+    private long memoryReservedBytes;
+    private long spillBytes;
+    private long memoryWaitNanos;
+
+    public ServerScanCost() {
+    }
+
+    public ServerScanCost(long cpuTimeNanos, long rowsExamined, long rowsFiltered,
+            long memoryReservedBytes, long spillBytes, long memoryWaitNanos) {
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.rowsExamined = rowsExamined;
+        this.rowsFiltered = rowsFiltered;
+        this.memoryReservedBytes = memoryReservedBytes;
+        this.spillBytes = spillBytes;
+        this.memoryWaitNanos = memoryWaitNanos;
+    }
+
+    /**
+     * Makes this cost the current one of the calling thread and starts accounting its CPU time.
+     * @return the previous cost of the thread, to be passed to {@link #exit(ServerScanCost)}
+     */
+    public ServerScanCost enter() {
+        ServerScanCost previous = CURRENT.get();
+        CURRENT.set(this);
+        cpuTimeNanos -= getCurrentThreadCpuTime();
+        return previous;
+    }
+
+    /**
+     * Stops accounting the CPU time of the calling thread and restores its previous cost.
+     */
+    public void exit(ServerScanCost previous) {
+        cpuTimeNanos += getCurrentThreadCpuTime();
+        CURRENT.set(previous);
+    }
+
+    private static long getCurrentThreadCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+                ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    public static boolean isAccounting() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Records a row read from the region that passed the filters of the scan
+     */
+    public static void recordRowExamined() {
+        ServerScanCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.rowsExamined++;
+        }
+    }
+
+    /**
+     * Records a row read from the region that was filtered out by a Phoenix filter
+     */
+    public static void recordRowFiltered() {
+        ServerScanCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.rowsExamined++;
+            cost.rowsFiltered++;
+        }
+    }
+
+    public static void recordMemoryReserved(long bytes, long waitNanos) {
+        ServerScanCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.memoryReservedBytes += bytes;
+            cost.memoryWaitNanos += waitNanos;
+        }
+    }
+
+    public static void recordSpill(long bytes) {
+        ServerScanCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.spillBytes += bytes;
+        }
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    public long getRowsExamined() {
+        return rowsExamined;
+    }
+
+    public long getRowsFiltered() {
+        return rowsFiltered;
+    }
+
+    public long getMemoryReservedBytes() {
+        return memoryReservedBytes;
+    }
+
+    public long getSpillBytes() {
+        return spillBytes;
+    }
+
+    public long getMemoryWaitNanos() {
+        return memoryWaitNanos;
+    }
+
+    /**
+     * Adds the cell carrying this cost to the results of a scanner call
+     */
+    public void addCell(byte[] rowKey, List<Cell> results) {
+        byte[] value = new byte[VALUE_COUNT * Bytes.SIZEOF_LONG];
+        int offset = Bytes.putLong(value, 0, cpuTimeNanos);
+        offset = Bytes.putLong(value, offset, rowsExamined);
+        offset = Bytes.putLong(value, offset, rowsFiltered);
+        offset = Bytes.putLong(value, offset, memoryReservedBytes);
+        offset = Bytes.putLong(value, offset, spillBytes);
+        Bytes.putLong(value, offset, memoryWaitNanos);
+        results.add(PhoenixKeyValueUtil.newKeyValue(rowKey, 0, rowKey.length, EMPTY_BYTE_ARRAY,
+                SCAN_COST_QUALIFIER, 0, value, 0, value.length));
+    }
+
+    public static boolean isScanCost(Result result) {
+        Cell[] cells = result.rawCells();
+        return cells != null && cells.length == 1
+                && CellUtil.matchingColumn(cells[0], EMPTY_BYTE_ARRAY, SCAN_COST_QUALIFIER);
+    }
+
+    /**
+     * @param result a result for which {@link #isScanCost(Result)} is true
+     */
+    public static ServerScanCost fromResult(Result result) {
+        Cell cell = result.rawCells()[0];
+        byte[] value = cell.getValueArray();
+        int offset = cell.getValueOffset();
+        long[] values = new long[VALUE_COUNT];
+        for (int i = 0; i < VALUE_COUNT && (i + 1) * Bytes.SIZEOF_LONG <= cell.getValueLength();
+                i++) {
+            values[i] = Bytes.toLong(value, offset + i * Bytes.SIZEOF_LONG);
+        }
+        return new ServerScanCost(values[0], values[1], values[2], values[3], values[4],
+                values[5]);
+    }
+
+    @Override
+    public String toString() {
+        return "ServerScanCost [cpuTimeNanos=" + cpuTimeNanos + ", rowsExamined=" + rowsExamined
+                + ", rowsFiltered=" + rowsFiltered + ", memoryReservedBytes="
+                + memoryReservedBytes + ", spillBytes=" + spillBytes + ", memoryWaitNanos="
+                + memoryWaitNanos + "]";
+    }
+}
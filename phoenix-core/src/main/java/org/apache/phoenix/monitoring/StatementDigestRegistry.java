@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.metrics2.util.MBeans;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the execution statistics of the statements run by the clients of this JVM, per statement
+ * digest. The digests are spread over lock striped segments, each one bounded and evicting its
+ * least recently executed digest, so that recording an execution only contends with the
+ * executions of the digests of the same segment.
+ * The statistics are exposed through JMX and the SHOW STATEMENT STATISTICS statement.
+ */
+public class StatementDigestRegistry implements StatementDigestRegistryMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementDigestRegistry.class);
+    private static final int SEGMENT_COUNT = 16;
+    private static final int SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private static volatile StatementDigestRegistry instance = null;
+
+    private final Segment[] segments;
+
+    public StatementDigestRegistry(int maxSize) {
+        int segmentCount = Math.max(Math.min(SEGMENT_COUNT, maxSize), 1);
+        int maxSegmentSize = Math.max(maxSize / segmentCount, 1);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maxSegmentSize);
+        }
+    }
+
+    /**
+     * @param props the query services properties of the connection using the registry, which
+     *            size the registry if it is not created yet
+     * @return the registry of this JVM, created and registered with JMX on first use
+     */
+    public static StatementDigestRegistry getInstance(ReadOnlyProps props) {
+        StatementDigestRegistry localRef = instance;
+        if (localRef == null) {
+            synchronized (StatementDigestRegistry.class) {
+                localRef = instance;
+                if (localRef == null) {
+                    localRef = new StatementDigestRegistry(props.getInt(
+                            QueryServices.STATEMENT_DIGEST_STATS_MAX_SIZE_ATTRIB,
+                            QueryServicesOptions.DEFAULT_STATEMENT_DIGEST_STATS_MAX_SIZE));
+                    try {
+                        MBeans.register("Phoenix", "StatementDigestStatistics", localRef);
+                    } catch (Exception e) {
+                        LOGGER.warn("Unable to register the statement digest statistics with JMX",
+                                e);
+                    }
+                    instance = localRef;
+                }
+            }
+        }
+        return localRef;
+    }
+
+    /**
+     * Records an execution of a statement in the registry of this JVM, without failing if the
+     * statistics can't be updated.
+     * @param props the query services properties of the connection running the statement
+     * @param latencyMs time spent executing the statement and reading its results
+     */
+    public static void recordExecutionMethod(ReadOnlyProps props, String digest, String statement,
+            long latencyMs, long rowsScanned, long bytesRead, long parallelScans, boolean failed) {
+        try {
+            getInstance(props).recordExecution(digest, statement, latencyMs, rowsScanned, bytesRead,
+                    parallelScans, failed);
+        } catch (Exception e) {
+            LOGGER.error("Failed updating the statement digest statistics", e);
+        }
+    }
+
+    public void recordExecution(String digest, String statement, long latencyMs,
+            long rowsScanned, long bytesRead, long parallelScans, boolean failed) {
+        Segment segment = segments[(digest.hashCode() & Integer.MAX_VALUE) % segments.length];
+        synchronized (segment) {
+            DigestStatistics stats = segment.get(digest);
+            if (stats == null) {
+                stats = new DigestStatistics(statement);
+                segment.put(digest, stats);
+            }
+            stats.record(latencyMs, rowsScanned, bytesRead, parallelScans, failed);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public List<StatementDigestStatistics> getStatistics() {
+        List<StatementDigestStatistics> statistics = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<String, DigestStatistics> entry : segment.entrySet()) {
+                    statistics.add(entry.getValue().toStatistics(entry.getKey()));
+                }
+            }
+        }
+        statistics.sort((a, b) -> Long.compare(b.getTotalTimeMs(), a.getTotalTimeMs()));
+        return statistics;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Digests of a segment, in access order so that the least recently executed one is evicted
+     */
+    private static class Segment extends LinkedHashMap<String, DigestStatistics> {
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DigestStatistics> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * Statistics of a digest, guarded by the lock of its segment
+     */
+    private static class DigestStatistics {
+        private final String statement;
+        // auto resizing, so that the histograms of fast statements stay small
+        private final Histogram latencies = new Histogram(SIGNIFICANT_VALUE_DIGITS);
+        private long errorCount;
+        private long totalTimeMs;
+        private long rowsScanned;
+        private long bytesRead;
+        private long parallelScans;
+        private long lastExecutionTime;
+
+        DigestStatistics(String statement) {
+            this.statement = statement;
+        }
+
+        void record(long latencyMs, long rowsScanned, long bytesRead, long parallelScans,
+                boolean failed) {
+            latencyMs = Math.max(latencyMs, 0);
+            latencies.recordValue(latencyMs);
+            totalTimeMs += latencyMs;
+            this.rowsScanned += rowsScanned;
+            this.bytesRead += bytesRead;
+            this.parallelScans += parallelScans;
+            if (failed) {
+                errorCount++;
+            }
+            lastExecutionTime = EnvironmentEdgeManager.currentTimeMillis();
+        }
+
+        StatementDigestStatistics toStatistics(String digest) {
+            return new StatementDigestStatistics(digest, statement, latencies.getTotalCount(),
+                    errorCount, totalTimeMs, latencies.getValueAtPercentile(50),
+                    latencies.getValueAtPercentile(99), latencies.getValueAtPercentile(99.9),
+                    latencies.getMaxValue(), rowsScanned, bytesRead, parallelScans,
+                    lastExecutionTime);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import java.util.List;
+
+/**
+ * JMX view of the {@link StatementDigestRegistry}
+ */
+public interface StatementDigestRegistryMXBean {
+
+    /**
+     * @return the number of digests the registry holds statistics for
+     */
+    int getSize();
+
+    /**
+     * @return the statistics of every digest, by descending total time
+     */
+    List<StatementDigestStatistics> getStatistics();
+
+    /**
+     * Drops the statistics of every digest
+     */
+    void clear();
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Statistics of the executions of the statements sharing a digest, as of the time they were
+ * taken from the {@link StatementDigestRegistry}. The latencies are in milliseconds.
+ */
+public class StatementDigestStatistics {
+    private final String digest;
+    private final String statement;
+    private final long executionCount;
+    private final long errorCount;
+    private final long totalTimeMs;
+    private final long medianTimeMs;
+    private final long p99TimeMs;
+    private final long p999TimeMs;
+    private final long maxTimeMs;
+    private final long rowsScanned;
+    private final long bytesRead;
+    private final long parallelScans;
+    private final long lastExecutionTime;
+
+    @ConstructorProperties({ "digest", "statement", "executionCount", "errorCount",
+            "totalTimeMs", "medianTimeMs", "p99TimeMs", "p999TimeMs", "maxTimeMs", "rowsScanned",
+            "bytesRead", "parallelScans", "lastExecutionTime" })
+    public StatementDigestStatistics(String digest, String statement, long executionCount,
+            long errorCount, long totalTimeMs, long medianTimeMs, long p99TimeMs,
+            long p999TimeMs, long maxTimeMs, long rowsScanned, long bytesRead,
+            long parallelScans, long lastExecutionTime) {
+        this.digest = digest;
+        this.statement = statement;
+        this.executionCount = executionCount;
+        this.errorCount = errorCount;
+        this.totalTimeMs = totalTimeMs;
+        this.medianTimeMs = medianTimeMs;
+        this.p99TimeMs = p99TimeMs;
+        this.p999TimeMs = p999TimeMs;
+        this.maxTimeMs = maxTimeMs;
+        this.rowsScanned = rowsScanned;
+        this.bytesRead = bytesRead;
+        this.parallelScans = parallelScans;
+        this.lastExecutionTime = lastExecutionTime;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * @return the statement with its constants replaced by placeholders
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getTotalTimeMs() {
+        return totalTimeMs;
+    }
+
+    public long getMedianTimeMs() {
+        return medianTimeMs;
+    }
+
+    public long getP99TimeMs() {
+        return p99TimeMs;
+    }
+
+    public long getP999TimeMs() {
+        return p999TimeMs;
+    }
+
+    public long getMaxTimeMs() {
+        return maxTimeMs;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getParallelScans() {
+        return parallelScans;
+    }
+
+    public long getLastExecutionTime() {
+        return lastExecutionTime;
+    }
+}
@@ -21,15 +21,28 @@ import org.apache.phoenix.jdbc.PhoenixStatement.Operation;
 
 public class ExplainStatement implements BindableStatement {
     private final BindableStatement statement;
+    private final boolean analyze;
     
     public ExplainStatement(BindableStatement statement) {
+        this(statement, false);
+    }
+
+    /**
+     * @param analyze whether the statement is run to report the runtime metrics of its plan
+     */
+    public ExplainStatement(BindableStatement statement, boolean analyze) {
         this.statement = statement;
+        this.analyze = analyze;
     }
 
     public BindableStatement getStatement() {
         return statement;
     }
 
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
     @Override
     public int getBindCount() {
         return statement.getBindCount();
@@ -215,7 +215,11 @@ public class ParseNodeFactory {
     }
 
     public ExplainStatement explain(BindableStatement statement) {
-        return new ExplainStatement(statement);
+        return explain(statement, false);
+    }
+
+    public ExplainStatement explain(BindableStatement statement, boolean analyze) {
+        return new ExplainStatement(statement, analyze);
     }
 
     public AliasedNode aliasedNode(String alias, ParseNode expression) {
@@ -953,6 +957,10 @@ public class ParseNodeFactory {
         return new ShowSchemasStatement(pattern);
     }
 
+    public ShowStatementStatisticsStatement showStatementStatistics() {
+        return new ShowStatementStatisticsStatement();
+    }
+
     public ShowCreateTable showCreateTable(TableName tableName) {
         return new ShowCreateTableStatement(tableName);
     }
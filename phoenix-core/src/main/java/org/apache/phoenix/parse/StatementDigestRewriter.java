@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.parse;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.phoenix.compile.ColumnResolver;
+import org.apache.phoenix.thirdparty.com.google.common.hash.Hashing;
+
+/**
+ * Rewrites a SELECT statement into its shape by replacing its literals and bind parameters with
+ * placeholders, so that the executions of a statement differing only by their constants share
+ * the same digest. IN lists of constants are collapsed into a single placeholder, as their
+ * length usually varies from one execution to the next.
+ */
+public class StatementDigestRewriter extends ParseNodeRewriter {
+    private static final ParseNodeFactory NODE_FACTORY = new ParseNodeFactory();
+
+    private static class PlaceholderParseNode extends BindParseNode {
+        PlaceholderParseNode() {
+            super("0");
+        }
+
+        @Override
+        public void toSQL(ColumnResolver resolver, StringBuilder buf) {
+            buf.append('?');
+        }
+    }
+
+    private static final PlaceholderParseNode PLACEHOLDER = new PlaceholderParseNode();
+
+    private StatementDigestRewriter() {
+    }
+
+    /**
+     * @return the statement with its constants replaced by placeholders, as SQL
+     */
+    public static String normalize(SelectStatement statement) throws SQLException {
+        if (statement.isUnion()) {
+            StringBuilder buf = new StringBuilder();
+            for (SelectStatement select : statement.getSelects()) {
+                if (buf.length() > 0) {
+                    buf.append(" UNION ALL ");
+                }
+                buf.append(normalize(select));
+            }
+            return buf.toString();
+        }
+        return rewriteStatement(statement).toString();
+    }
+
+    /**
+     * @return the digest of the normalized statement, as hex
+     */
+    public static String getDigest(String normalizedStatement) {
+        return Hashing.murmur3_128().hashString(normalizedStatement, StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    private static SelectStatement rewriteStatement(SelectStatement statement)
+            throws SQLException {
+        TableNode from = statement.getFrom();
+        TableNode normFrom = from == null ? null : from.accept(new DerivedTableRewriter());
+        if (normFrom != from) {
+            statement = NODE_FACTORY.select(statement, normFrom);
+        }
+        statement = ParseNodeRewriter.rewrite(statement, new StatementDigestRewriter());
+        if (statement.getLimit() != null) {
+            statement = NODE_FACTORY.select(statement, NODE_FACTORY.limit(PLACEHOLDER));
+        }
+        if (statement.getOffset() != null && statement.getOffset().isIntegerOffset()) {
+            statement = NODE_FACTORY.select(statement, statement.getOrderBy(),
+                    statement.getLimit(), new OffsetNode(PLACEHOLDER));
+        }
+        return statement;
+    }
+
+    @Override
+    public ParseNode visit(LiteralParseNode node) throws SQLException {
+        return node == LiteralParseNode.STAR ? node : PLACEHOLDER;
+    }
+
+    @Override
+    public ParseNode visit(BindParseNode node) throws SQLException {
+        return PLACEHOLDER;
+    }
+
+    @Override
+    public ParseNode visit(SubqueryParseNode node) throws SQLException {
+        return NODE_FACTORY.subquery(rewriteStatement(node.getSelectNode()),
+                node.expectSingleRow());
+    }
+
+    @Override
+    public ParseNode visitLeave(InListParseNode node, List<ParseNode> nodes) throws SQLException {
+        List<ParseNode> children = new ArrayList<>(2);
+        children.add(nodes.get(0));
+        children.add(PLACEHOLDER);
+        return NODE_FACTORY.inList(children, node.isNegate());
+    }
+
+    /**
+     * Rewrites the statements of the derived tables, the join conditions being rewritten by
+     * {@link ParseNodeRewriter#rewrite(SelectStatement, ParseNodeRewriter)}
+     */
+    private static class DerivedTableRewriter implements TableNodeVisitor<TableNode> {
+
+        @Override
+        public TableNode visit(BindTableNode boundTableNode) throws SQLException {
+            return boundTableNode;
+        }
+
+        @Override
+        public TableNode visit(JoinTableNode joinNode) throws SQLException {
+            TableNode lhsNode = joinNode.getLHS();
+            TableNode rhsNode = joinNode.getRHS();
+            TableNode normLhsNode = lhsNode.accept(this);
+            TableNode normRhsNode = rhsNode.accept(this);
+            if (lhsNode == normLhsNode && rhsNode == normRhsNode) {
+                return joinNode;
+            }
+            return NODE_FACTORY.join(joinNode.getType(), normLhsNode, normRhsNode,
+                    joinNode.getOnNode(), joinNode.isSingleValueOnly());
+        }
+
+        @Override
+        public TableNode visit(NamedTableNode namedTableNode) throws SQLException {
+            return namedTableNode;
+        }
+
+        @Override
+        public TableNode visit(DerivedTableNode subselectNode) throws SQLException {
+            return NODE_FACTORY.derivedTable(subselectNode.getAlias(),
+                    rewriteStatement(subselectNode.getSelect()));
+        }
+    }
+}
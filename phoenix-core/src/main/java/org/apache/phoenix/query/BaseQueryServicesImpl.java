@@ -20,6 +20,7 @@ package org.apache.phoenix.query;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.phoenix.job.JobManager;
+import org.apache.phoenix.job.WorkloadFairShareQueue;
 import org.apache.phoenix.memory.GlobalMemoryManager;
 import org.apache.phoenix.memory.MemoryManager;
 import org.apache.phoenix.optimize.QueryOptimizer;
@@ -36,16 +37,44 @@ import org.apache.phoenix.util.ReadOnlyProps;
  */
 public abstract class BaseQueryServicesImpl implements QueryServices {
     private final ThreadPoolExecutor executor;
+    // the executors of the optional features are only created once used
+    private volatile ThreadPoolExecutor asyncExecutor;
+    private volatile ThreadPoolExecutor writeBehindExecutor;
+    private volatile ThreadPoolExecutor parallelUnionExecutor;
+    private final int keepAliveMs;
+    private final int queueSize;
+    private final int asyncThreadPoolSize;
+    private final int asyncQueueSize;
+    private final int writeBehindThreadPoolSize;
+    private final int parallelUnionThreadPoolSize;
     private final MemoryManager memoryManager;
     private final ReadOnlyProps props;
     private final QueryOptimizer queryOptimizer;
     
     public BaseQueryServicesImpl(ReadOnlyProps defaultProps, QueryServicesOptions options) {
-        this.executor =  JobManager.createThreadPoolExec(
-                options.getKeepAliveMs(), 
-                options.getThreadPoolSize(), 
-                options.getQueueSize(),
-                options.isGlobalMetricsEnabled());
+        if (options.isFairShareSchedulingEnabled() && options.getQueueSize() > 0) {
+            this.executor = JobManager.createThreadPoolExec(
+                    options.getKeepAliveMs(),
+                    options.getThreadPoolSize(),
+                    new WorkloadFairShareQueue(options.getQueueSize(),
+                            WorkloadFairShareQueue.parseClassValues(options.getFairShareWeights()),
+                            WorkloadFairShareQueue.parseClassValues(
+                                    options.getFairShareMaxConcurrency()),
+                            options.getFairShareDefaultMaxConcurrency()),
+                    options.isGlobalMetricsEnabled());
+        } else {
+            this.executor =  JobManager.createThreadPoolExec(
+                    options.getKeepAliveMs(), 
+                    options.getThreadPoolSize(), 
+                    options.getQueueSize(),
+                    options.isGlobalMetricsEnabled());
+        }
+        this.keepAliveMs = options.getKeepAliveMs();
+        this.queueSize = options.getQueueSize();
+        this.asyncThreadPoolSize = options.getAsyncThreadPoolSize();
+        this.asyncQueueSize = options.getAsyncQueueSize();
+        this.writeBehindThreadPoolSize = options.getWriteBehindThreadPoolSize();
+        this.parallelUnionThreadPoolSize = options.getParallelUnionThreadPoolSize();
         this.memoryManager = new GlobalMemoryManager(
                 Runtime.getRuntime().maxMemory() * options.getMaxMemoryPerc() / 100);
         this.props = options.getProps(defaultProps);
@@ -57,6 +86,45 @@ public abstract class BaseQueryServicesImpl implements QueryServices {
         return executor;
     }
 
+    @Override
+    public ThreadPoolExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            synchronized (this) {
+                if (asyncExecutor == null) {
+                    asyncExecutor = JobManager.createThreadPoolExec(keepAliveMs,
+                            asyncThreadPoolSize, asyncQueueSize, false);
+                }
+            }
+        }
+        return asyncExecutor;
+    }
+
+    @Override
+    public ThreadPoolExecutor getWriteBehindExecutor() {
+        if (writeBehindExecutor == null) {
+            synchronized (this) {
+                if (writeBehindExecutor == null) {
+                    writeBehindExecutor = JobManager.createThreadPoolExec(keepAliveMs,
+                            writeBehindThreadPoolSize, queueSize, false);
+                }
+            }
+        }
+        return writeBehindExecutor;
+    }
+
+    @Override
+    public ThreadPoolExecutor getParallelUnionExecutor() {
+        if (parallelUnionExecutor == null) {
+            synchronized (this) {
+                if (parallelUnionExecutor == null) {
+                    parallelUnionExecutor = JobManager.createThreadPoolExec(keepAliveMs,
+                            parallelUnionThreadPoolSize, queueSize, false);
+                }
+            }
+        }
+        return parallelUnionExecutor;
+    }
+
     @Override
     public MemoryManager getMemoryManager() {
         return memoryManager;
@@ -108,6 +108,14 @@ public interface ConnectionQueryServices extends QueryServices, MetaDataMutated
      */
     public MetaDataMutationResult getTable(PName tenantId, byte[] schemaName, byte[] tableName,
             long tableTimestamp, long clientTimetamp) throws SQLException;
+    /**
+     * Checks with a single call per SYSTEM.CATALOG region whether the given tables, as found in
+     * the client side cache, are still current.
+     * @param clientTimestamp if the client connection has an scn, the scn
+     * @return the tables of the list that changed, were dropped or could not be validated
+     */
+    public List<PTable> validateTableTimestamps(List<PTable> tables, long clientTimestamp)
+            throws SQLException;
     public MetaDataMutationResult getFunctions(PName tenantId, List<Pair<byte[], Long>> functionNameAndTimeStampPairs, long clientTimestamp) throws SQLException;
 
     public MetaDataMutationResult createTable(List<Mutation> tableMetaData, byte[] tableName, PTableType tableType,
@@ -107,12 +107,15 @@ import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
@@ -168,6 +171,7 @@ import org.apache.hadoop.ipc.RemoteException;
 import org.apache.phoenix.compile.MutationPlan;
 import org.apache.phoenix.coprocessor.ChildLinkMetaDataEndpoint;
 import org.apache.phoenix.coprocessor.GroupedAggregateRegionObserver;
+import org.apache.phoenix.coprocessor.IndexDigestEndpoint;
 import org.apache.phoenix.coprocessor.MetaDataEndpointImpl;
 import org.apache.phoenix.coprocessor.MetaDataProtocol;
 import org.apache.phoenix.coprocessor.MetaDataProtocol.MetaDataMutationResult;
@@ -202,7 +206,10 @@ import org.apache.phoenix.coprocessor.generated.MetaDataProtos.GetVersionRequest
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.GetVersionResponse;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.MetaDataResponse;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.MetaDataService;
+import org.apache.phoenix.coprocessor.generated.MetaDataProtos.TableTimestamp;
 import org.apache.phoenix.coprocessor.generated.MetaDataProtos.UpdateIndexStateRequest;
+import org.apache.phoenix.coprocessor.generated.MetaDataProtos.ValidateTableTimestampsRequest;
+import org.apache.phoenix.coprocessor.generated.MetaDataProtos.ValidateTableTimestampsResponse;
 import org.apache.phoenix.exception.InvalidRegionSplitPolicyException;
 import org.apache.phoenix.exception.PhoenixIOException;
 import org.apache.phoenix.exception.RetriableUpgradeException;
@@ -295,6 +302,7 @@ import org.apache.phoenix.util.PropertiesUtil;
 import org.apache.phoenix.util.QueryUtil;
 import org.apache.phoenix.util.ReadOnlyProps;
 import org.apache.phoenix.util.SchemaUtil;
+import org.apache.phoenix.util.SequenceUtil;
 import org.apache.phoenix.util.ServerUtil;
 import org.apache.phoenix.util.StringUtil;
 import org.apache.phoenix.util.TimeKeeper;
@@ -350,6 +358,7 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
 
     private final Object connectionCountLock = new Object();
     private final boolean returnSequenceValues ;
+    private final float sequencePrefetchThreshold;
 
     private Connection connection;
     private volatile boolean initialized;
@@ -447,6 +456,8 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
         String hbaseVersion = VersionInfo.getVersion();
         this.kvBuilder = KeyValueBuilder.get(hbaseVersion);
         this.returnSequenceValues = props.getBoolean(QueryServices.RETURN_SEQUENCE_VALUES_ATTRIB, QueryServicesOptions.DEFAULT_RETURN_SEQUENCE_VALUES);
+        this.sequencePrefetchThreshold = props.getFloat(QueryServices.SEQUENCE_PREFETCH_THRESHOLD_ATTRIB,
+                QueryServicesOptions.DEFAULT_SEQUENCE_PREFETCH_THRESHOLD);
         this.renewLeaseEnabled = config.getBoolean(RENEW_LEASE_ENABLED, DEFAULT_RENEW_LEASE_ENABLED);
         this.renewLeasePoolSize = config.getInt(RENEW_LEASE_THREAD_POOL_SIZE, DEFAULT_RENEW_LEASE_THREAD_POOL_SIZE);
         this.renewLeaseThreshold = config.getInt(RENEW_LEASE_THRESHOLD_MILLISECONDS, DEFAULT_RENEW_LEASE_THRESHOLD_MILLISECONDS);
@@ -1047,6 +1058,9 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
             if (!newDesc.hasCoprocessor(ServerCachingEndpointImpl.class.getName())) {
                 builder.addCoprocessor(ServerCachingEndpointImpl.class.getName(), null, priority, null);
             }
+            if (!newDesc.hasCoprocessor(IndexDigestEndpoint.class.getName())) {
+                builder.addCoprocessor(IndexDigestEndpoint.class.getName(), null, priority, null);
+            }
 
             // TODO: better encapsulation for this
             // Since indexes can't have indexes, don't install our indexing coprocessor for indexes.
@@ -2085,6 +2099,96 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
         });
     }
 
+    @Override
+    public List<PTable> validateTableTimestamps(final List<PTable> tables,
+            final long clientTimestamp) throws SQLException {
+        if (tables.isEmpty()) {
+            return tables;
+        }
+        final ValidateTableTimestampsRequest.Builder requestBuilder =
+                ValidateTableTimestampsRequest.newBuilder();
+        byte[] startKey = null;
+        byte[] endKey = null;
+        for (PTable table : tables) {
+            byte[] tenantIdBytes = table.getTenantId() == null ? ByteUtil.EMPTY_BYTE_ARRAY
+                    : table.getTenantId().getBytes();
+            byte[] schemaBytes = table.getSchemaName().getBytes();
+            byte[] tableBytes = table.getTableName().getBytes();
+            byte[] tableKey = SchemaUtil.getTableKey(tenantIdBytes, schemaBytes, tableBytes);
+            if (startKey == null || Bytes.compareTo(tableKey, startKey) < 0) {
+                startKey = tableKey;
+            }
+            if (endKey == null || Bytes.compareTo(tableKey, endKey) > 0) {
+                endKey = tableKey;
+            }
+            requestBuilder.addTables(TableTimestamp.newBuilder()
+                    .setTenantId(ByteStringer.wrap(tenantIdBytes))
+                    .setSchemaName(ByteStringer.wrap(schemaBytes))
+                    .setTableName(ByteStringer.wrap(tableBytes))
+                    .setTableTimestamp(table.getTimeStamp()));
+        }
+        requestBuilder.setClientTimestamp(clientTimestamp);
+        requestBuilder.setClientVersion(VersionUtil.encodeVersion(PHOENIX_MAJOR_VERSION,
+                PHOENIX_MINOR_VERSION, PHOENIX_PATCH_NUMBER));
+        final ValidateTableTimestampsRequest request = requestBuilder.build();
+        long startTime = EnvironmentEdgeManager.currentTimeMillis();
+        Map<byte[], ValidateTableTimestampsResponse> results;
+        // The tables usually live in the same region, but SYSTEM.CATALOG may be split, in which
+        // case each region in the key range checks the tables it holds
+        try (Table htable = this.getTable(SchemaUtil.getPhysicalName(
+                PhoenixDatabaseMetaData.SYSTEM_CATALOG_NAME_BYTES, this.getProps()).getName())) {
+            results = htable.coprocessorService(MetaDataService.class, startKey, endKey,
+                    new Batch.Call<MetaDataService, ValidateTableTimestampsResponse>() {
+                        @Override
+                        public ValidateTableTimestampsResponse call(MetaDataService instance)
+                                throws IOException {
+                            ServerRpcController controller = new ServerRpcController();
+                            BlockingRpcCallback<ValidateTableTimestampsResponse> rpcCallback =
+                                    new BlockingRpcCallback<ValidateTableTimestampsResponse>();
+                            instance.validateTableTimestamps(controller, request, rpcCallback);
+                            if (controller.getFailedOn() != null) {
+                                throw controller.getFailedOn();
+                            }
+                            return rpcCallback.get();
+                        }
+                    });
+            TableMetricsManager.updateMetricsForSystemCatalogTableMethod(null,
+                    NUM_SYSTEM_TABLE_RPC_SUCCESS, 1);
+        } catch (Throwable t) {
+            TableMetricsManager.updateMetricsForSystemCatalogTableMethod(null,
+                    NUM_SYSTEM_TABLE_RPC_FAILURES, 1);
+            throw ServerUtil.parseServerException(t);
+        } finally {
+            TableMetricsManager.updateMetricsForSystemCatalogTableMethod(null,
+                    TIME_SPENT_IN_SYSTEM_TABLE_RPC_CALLS,
+                    EnvironmentEdgeManager.currentTimeMillis() - startTime);
+        }
+        // A table is current only if the region holding it checked it and found no change
+        boolean[] unchanged = new boolean[tables.size()];
+        for (ValidateTableTimestampsResponse response : results.values()) {
+            if (response == null) {
+                continue;
+            }
+            boolean[] notChecked = new boolean[tables.size()];
+            for (int index : response.getChangedTableIndexesList()) {
+                notChecked[index] = true;
+            }
+            for (int index : response.getNotInRegionTableIndexesList()) {
+                notChecked[index] = true;
+            }
+            for (int i = 0; i < notChecked.length; i++) {
+                unchanged[i] |= !notChecked[i];
+            }
+        }
+        List<PTable> changedTables = new ArrayList<PTable>();
+        for (int i = 0; i < unchanged.length; i++) {
+            if (!unchanged[i]) {
+                changedTables.add(tables.get(i));
+            }
+        }
+        return changedTables;
+    }
+
     @Override
     public MetaDataMutationResult dropTable(final List<Mutation> tableMetaData, final PTableType tableType,
             final boolean cascade) throws SQLException {
@@ -5200,6 +5304,7 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
                 }
             }
             if (toIncrementList.isEmpty()) {
+                prefetchSequences(sequences, sequenceAllocations, timestamp, op);
                 return;
             }
             Table hTable = this.getTable(SchemaUtil.getPhysicalName(PhoenixDatabaseMetaData.SYSTEM_SEQUENCE_NAME_BYTES,this.getProps()).getName());
@@ -5238,6 +5343,7 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
                     exceptions[indexes[i]] = e;
                 }
             }
+            prefetchSequences(sequences, sequenceAllocations, timestamp, op);
         } finally {
             for (Sequence sequence : sequences) {
                 sequence.getLock().unlock();
@@ -5245,6 +5351,42 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
         }
     }
 
+    /**
+     * Starts fetching the next block of values of the sequences that handed out enough of their
+     * current block, so that statements do not wait for a round trip to SYSTEM.SEQUENCE when the
+     * block runs out. Must be called holding the locks of the sequences.
+     */
+    private void prefetchSequences(List<Sequence> sequences,
+            List<SequenceAllocation> sequenceAllocations, long timestamp, Sequence.ValueOp op) {
+        for (int i = 0; i < sequences.size(); i++) {
+            Sequence sequence = sequences.get(i);
+            if (!sequence.shouldPrefetch(timestamp, op,
+                    sequenceAllocations.get(i).getNumAllocations(), sequencePrefetchThreshold)) {
+                continue;
+            }
+            final Increment inc = sequence.newIncrement(HConstants.LATEST_TIMESTAMP,
+                    Sequence.ValueOp.INCREMENT_SEQUENCE, SequenceUtil.DEFAULT_NUM_SLOTS_TO_ALLOCATE);
+            try {
+                sequence.setPrefetch(CompletableFuture.supplyAsync(() -> {
+                    Object[] resultObjects = new Object[1];
+                    try (Table hTable = getTable(SchemaUtil.getPhysicalName(
+                            PhoenixDatabaseMetaData.SYSTEM_SEQUENCE_NAME_BYTES, getProps()).getName())) {
+                        hTable.batch(Collections.singletonList(inc), resultObjects);
+                    } catch (IOException | SQLException e) {
+                        throw new CompletionException(e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CompletionException(e);
+                    }
+                    return (Result) resultObjects[0];
+                }, getExecutor()));
+            } catch (RejectedExecutionException e) {
+                // The pool is busy, the values are fetched when the current block runs out
+                LOGGER.debug("Could not prefetch the next values of " + sequence.getKey(), e);
+            }
+        }
+    }
+
     /**
      * checks if sequenceAllocation's sequence there in sequenceMap, also returns Global Sequences
      * from Tenant sequenceAllocations
@@ -275,6 +275,13 @@ public class ConnectionlessQueryServicesImpl extends DelegateQueryServices imple
         }
     }
 
+    @Override
+    public List<PTable> validateTableTimestamps(List<PTable> tables, long clientTimestamp)
+            throws SQLException {
+        // The client side metadata is the only metadata there is
+        return Collections.emptyList();
+    }
+
     private static byte[] getTableName(List<Mutation> tableMetaData, byte[] physicalTableName) {
         if (physicalTableName != null) {
             return physicalTableName;
@@ -117,6 +117,12 @@ public class DelegateConnectionQueryServices extends DelegateQueryServices imple
         return getDelegate().getTable(tenantId, schemaBytes, tableBytes, tableTimestamp, clientTimestamp);
     }
 
+    @Override
+    public List<PTable> validateTableTimestamps(List<PTable> tables, long clientTimestamp)
+            throws SQLException {
+        return getDelegate().validateTableTimestamps(tables, clientTimestamp);
+    }
+
     @Override
     public MetaDataMutationResult createTable(List<Mutation> tableMetaData, byte[] physicalName, PTableType tableType,
                                               Map<String, Object> tableProps,
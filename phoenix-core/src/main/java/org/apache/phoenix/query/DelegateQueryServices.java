@@ -50,6 +50,21 @@ public class DelegateQueryServices implements QueryServices {
         return parent.getExecutor();
     }
 
+    @Override
+    public ThreadPoolExecutor getAsyncExecutor() {
+        return parent.getAsyncExecutor();
+    }
+
+    @Override
+    public ThreadPoolExecutor getWriteBehindExecutor() {
+        return parent.getWriteBehindExecutor();
+    }
+
+    @Override
+    public ThreadPoolExecutor getParallelUnionExecutor() {
+        return parent.getParallelUnionExecutor();
+    }
+
     @Override
     public MemoryManager getMemoryManager() {
         return parent.getMemoryManager();
@@ -395,10 +395,159 @@ public interface QueryServices extends SQLCloseable {
      * Region server holding the SYSTEM.CATALOG table in batch oriented jobs.
      */
     String SKIP_SYSTEM_TABLES_EXISTENCE_CHECK = "phoenix.skip.system.tables.existence.check";
+
+    /**
+     * Parameter to drain the branches of a UNION ALL without ORDER BY concurrently instead of
+     * one after the other. Rows of different branches are then returned interleaved.
+     */
+    String PARALLEL_UNION_ALL_ENABLED_ATTRIB = "phoenix.query.union.parallel.enabled";
+    /**
+     * Maximum number of rows buffered between the branches of a parallel UNION ALL and the client.
+     */
+    String PARALLEL_UNION_ALL_QUEUE_SIZE_ATTRIB = "phoenix.query.union.parallel.queueSize";
+    /**
+     * Number of threads draining the branches of parallel UNION ALL queries. The branches wait on
+     * their parallel scans, so they are kept apart from the threads running the scans.
+     */
+    String PARALLEL_UNION_ALL_THREAD_POOL_SIZE_ATTRIB = "phoenix.query.union.parallel.threadPoolSize";
+    /**
+     * Parameter to read only the column families referenced by the WHERE clause first when a
+     * query filters on some of the column families of a table, and to load the others on demand
+     * for the rows that pass the filter.
+     */
+    String ON_DEMAND_COLUMN_FAMILY_LOADING_ENABLED_ATTRIB =
+            "phoenix.query.onDemandColumnFamilyLoading.enabled";
+    /**
+     * Parameter to reorder the children of AND and OR expressions in the WHERE clause by their
+     * estimated evaluation cost and selectivity, with row key predicates evaluated first.
+     */
+    String PREDICATE_REORDERING_ENABLED_ATTRIB = "phoenix.query.predicateReordering.enabled";
+    /**
+     * Parameter to send full batches of mutations to HBase in the background while the
+     * application keeps executing statements on a connection that is not auto committing.
+     * Failures are reported by the next commit.
+     */
+    String WRITE_BEHIND_ENABLED_ATTRIB = "phoenix.mutate.writeBehind.enabled";
+    /**
+     * Maximum estimated size in bytes of the mutations of a connection that have been handed
+     * off to be sent in the background but have not been sent yet.
+     */
+    String WRITE_BEHIND_MAX_IN_FLIGHT_BYTES_ATTRIB = "phoenix.mutate.writeBehind.maxInFlightBytes";
+    /**
+     * Number of threads sending the mutations written behind, kept apart from the threads
+     * running the parallel scans and the asynchronous calls, which may wait on them.
+     */
+    String WRITE_BEHIND_THREAD_POOL_SIZE_ATTRIB = "phoenix.mutate.writeBehind.threadPoolSize";
+    /**
+     * Parameter to check in one call to SYSTEM.CATALOG that all the cached tables a query refers
+     * to, and their ancestors, are still current instead of calling getTable for each of them.
+     * Requires servers that support the bulk validation endpoint.
+     */
+    String METADATA_BULK_VALIDATION_ENABLED_ATTRIB = "phoenix.metadata.bulkValidation.enabled";
+    /**
+     * Time in milliseconds for which a table found current by bulk validation is not checked
+     * again, even if its UPDATE_CACHE_FREQUENCY is shorter. Bounds how stale the metadata used
+     * to compile a statement may be. Tables fetched by getTable keep their update cache
+     * frequency.
+     */
+    String METADATA_BULK_VALIDATION_WINDOW_MS_ATTRIB = "phoenix.metadata.bulkValidation.windowMs";
+    /**
+     * Maximum size in bytes of the views combined with their ancestors, and of the serialized
+     * tables, that the metadata endpoint of a region server caches to answer getTable calls,
+     * half of it for each. 0 disables the cache.
+     */
+    String MAX_SERVER_RESOLVED_METADATA_CACHE_SIZE_ATTRIB = "phoenix.coprocessor.maxResolvedMetaDataCacheSize";
+    /**
+     * Fraction of the cached block of sequence values handed out after which the client starts
+     * fetching the next block in the background. 0 disables prefetching.
+     */
+    String SEQUENCE_PREFETCH_THRESHOLD_ATTRIB = "phoenix.sequence.prefetchThreshold";
+    /**
+     * Whether the client keeps per statement digest statistics of the SELECT statements it runs,
+     * which turns on request level metrics collection.
+     */
+    String STATEMENT_DIGEST_STATS_ENABLED_ATTRIB = "phoenix.statement.digestStats.enabled";
+    /**
+     * Maximum number of statement digests for which the client keeps statistics, the least
+     * recently executed ones being evicted. The statistics are shared by the JVM, so the value
+     * of the first connection recording or reading them applies.
+     */
+    String STATEMENT_DIGEST_STATS_MAX_SIZE_ATTRIB = "phoenix.statement.digestStats.maxSize";
+    /**
+     * Whether the client thread pool shares its threads fairly between workload classes instead
+     * of between queries. The workload class of a connection is set through the
+     * {@link org.apache.phoenix.util.PhoenixRuntime#WORKLOAD_CLASS_ATTRIB} connection property and
+     * defaults to its tenant id.
+     */
+    String FAIR_SHARE_SCHEDULING_ENABLED_ATTRIB = "phoenix.query.fairShare.enabled";
+    /**
+     * Comma separated weights of the workload classes, e.g. reports:1,api:4. The threads are
+     * shared between the busy classes in proportion to their weight, which defaults to 1.
+     */
+    String FAIR_SHARE_WEIGHTS_ATTRIB = "phoenix.query.fairShare.weights";
+    /**
+     * Comma separated maximum number of concurrently running tasks of the workload classes,
+     * e.g. reports:16
+     */
+    String FAIR_SHARE_MAX_CONCURRENCY_ATTRIB = "phoenix.query.fairShare.maxConcurrency";
+    /**
+     * Maximum number of concurrently running tasks of the workload classes not listed in
+     * {@link #FAIR_SHARE_MAX_CONCURRENCY_ATTRIB}, e.g. of each tenant. No limit if not positive.
+     */
+    String FAIR_SHARE_DEFAULT_MAX_CONCURRENCY_ATTRIB =
+            "phoenix.query.fairShare.defaultMaxConcurrency";
+    /**
+     * Maximum number of parallel scans of a query running concurrently against a region server.
+     * The scans are then submitted round robin across the region servers, those over the limit
+     * once a previous scan against the same server completed. No limit if not positive.
+     */
+    String MAX_PARALLEL_SCANS_PER_REGION_SERVER_ATTRIB =
+            "phoenix.query.maxParallelScansPerRegionServer";
+    /**
+     * Whether the caching and maximum result size of scans are sized from the row width and
+     * fetch time observed by the previous scans of a table, instead of coming from the fetch size
+     */
+    String ADAPTIVE_SCAN_SIZE_ENABLED_ATTRIB = "phoenix.query.adaptiveScanSize.enabled";
+    /**
+     * Number of bytes an adaptively sized scan aims to return per RPC
+     */
+    String ADAPTIVE_SCAN_SIZE_TARGET_BYTES_PER_RPC_ATTRIB =
+            "phoenix.query.adaptiveScanSize.targetBytesPerRpc";
+    /**
+     * Time an RPC of an adaptively sized scan should take at most, in milliseconds
+     */
+    String ADAPTIVE_SCAN_SIZE_TARGET_RPC_TIME_MS_ATTRIB =
+            "phoenix.query.adaptiveScanSize.targetRpcTimeMs";
+    /**
+     * Maximum number of rows an adaptively sized scan fetches per RPC
+     */
+    String ADAPTIVE_SCAN_SIZE_MAX_CACHING_ATTRIB = "phoenix.query.adaptiveScanSize.maxCaching";
+    /**
+     * Number of threads running the asynchronous queries, fetches and commits. They are kept
+     * apart from the threads running the parallel scans, which they wait on.
+     */
+    String ASYNC_THREAD_POOL_SIZE_ATTRIB = "phoenix.query.async.threadPoolSize";
+    /**
+     * Maximum number of asynchronous queries, fetches and commits waiting for a thread, over
+     * which they are rejected
+     */
+    String ASYNC_QUEUE_SIZE_ATTRIB = "phoenix.query.async.queueSize";
     /**
      * Get executor service used for parallel scans
      */
     public ThreadPoolExecutor getExecutor();
+    /**
+     * Get executor service used for asynchronous queries, fetches and commits
+     */
+    public ThreadPoolExecutor getAsyncExecutor();
+    /**
+     * Get executor service used to send the mutations written behind
+     */
+    public ThreadPoolExecutor getWriteBehindExecutor();
+    /**
+     * Get executor service used to drain the branches of parallel UNION ALL queries
+     */
+    public ThreadPoolExecutor getParallelUnionExecutor();
     /**
      * Get the memory manager used to track memory usage
      */
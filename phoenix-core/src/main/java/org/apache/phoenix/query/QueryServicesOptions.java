@@ -90,6 +90,17 @@ import static org.apache.phoenix.query.QueryServices.STATS_GUIDEPOST_WIDTH_BYTES
 import static org.apache.phoenix.query.QueryServices.STATS_UPDATE_FREQ_MS_ATTRIB;
 import static org.apache.phoenix.query.QueryServices.STATS_USE_CURRENT_TIME_ATTRIB;
 import static org.apache.phoenix.query.QueryServices.TABLE_LEVEL_METRICS_ENABLED;
+import static org.apache.phoenix.query.QueryServices.FAIR_SHARE_DEFAULT_MAX_CONCURRENCY_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.FAIR_SHARE_MAX_CONCURRENCY_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.FAIR_SHARE_SCHEDULING_ENABLED_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.FAIR_SHARE_WEIGHTS_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.MAX_PARALLEL_SCANS_PER_REGION_SERVER_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.ASYNC_QUEUE_SIZE_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.ASYNC_THREAD_POOL_SIZE_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.WRITE_BEHIND_THREAD_POOL_SIZE_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.PARALLEL_UNION_ALL_THREAD_POOL_SIZE_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.STATEMENT_DIGEST_STATS_ENABLED_ATTRIB;
+import static org.apache.phoenix.query.QueryServices.STATEMENT_DIGEST_STATS_MAX_SIZE_ATTRIB;
 import static org.apache.phoenix.query.QueryServices.THREAD_POOL_SIZE_ATTRIB;
 import static org.apache.phoenix.query.QueryServices.THREAD_TIMEOUT_MS_ATTRIB;
 import static org.apache.phoenix.query.QueryServices.TRACING_BATCH_SIZE;
@@ -393,6 +404,33 @@ public class QueryServicesOptions {
     public static final boolean DEFAULT_MOVE_CHILD_LINKS_DURING_UPGRADE_ENABLED = true;
     public static final int DEFAULT_TIMEOUT_DURING_UPGRADE_MS = 60000 * 30; // 30 mins
     public static final int DEFAULT_SCAN_PAGE_SIZE = 32768;
+    public static final boolean DEFAULT_PARALLEL_UNION_ALL_ENABLED = false;
+    public static final int DEFAULT_PARALLEL_UNION_ALL_QUEUE_SIZE = 1000;
+    public static final int DEFAULT_PARALLEL_UNION_ALL_THREAD_POOL_SIZE = 64;
+    public static final boolean DEFAULT_ON_DEMAND_COLUMN_FAMILY_LOADING_ENABLED = false;
+    public static final boolean DEFAULT_PREDICATE_REORDERING_ENABLED = false;
+    public static final boolean DEFAULT_WRITE_BEHIND_ENABLED = false;
+    public static final long DEFAULT_WRITE_BEHIND_MAX_IN_FLIGHT_BYTES = 52428800; // 50 MB
+    public static final int DEFAULT_WRITE_BEHIND_THREAD_POOL_SIZE = 16;
+    public static final boolean DEFAULT_METADATA_BULK_VALIDATION_ENABLED = false;
+    public static final long DEFAULT_METADATA_BULK_VALIDATION_WINDOW_MS = 1000;
+    public static final long DEFAULT_MAX_SERVER_RESOLVED_METADATA_CACHE_SIZE =
+            1024L * 1024L * 20L; // 20 Mb
+    public static final float DEFAULT_SEQUENCE_PREFETCH_THRESHOLD = 0f;
+    public static final boolean DEFAULT_STATEMENT_DIGEST_STATS_ENABLED = false;
+    public static final int DEFAULT_STATEMENT_DIGEST_STATS_MAX_SIZE = 1000;
+
+    public static final boolean DEFAULT_FAIR_SHARE_SCHEDULING_ENABLED = false;
+    public static final String DEFAULT_FAIR_SHARE_WEIGHTS = "";
+    public static final String DEFAULT_FAIR_SHARE_MAX_CONCURRENCY = "";
+    public static final int DEFAULT_FAIR_SHARE_DEFAULT_MAX_CONCURRENCY = 0;
+    public static final int DEFAULT_MAX_PARALLEL_SCANS_PER_REGION_SERVER = 0;
+    public static final boolean DEFAULT_ADAPTIVE_SCAN_SIZE_ENABLED = false;
+    public static final long DEFAULT_ADAPTIVE_SCAN_SIZE_TARGET_BYTES_PER_RPC = 2 * 1024 * 1024; // 2 MB
+    public static final long DEFAULT_ADAPTIVE_SCAN_SIZE_TARGET_RPC_TIME_MS = 1000;
+    public static final int DEFAULT_ADAPTIVE_SCAN_SIZE_MAX_CACHING = 10000;
+    public static final int DEFAULT_ASYNC_THREAD_POOL_SIZE = 32;
+    public static final int DEFAULT_ASYNC_QUEUE_SIZE = 5000;
 
     private final Configuration config;
 
@@ -730,6 +768,57 @@ public class QueryServicesOptions {
         return config.getBoolean(METRIC_PUBLISHER_ENABLED, DEFAULT_IS_METRIC_PUBLISHER_ENABLED);
     }
 
+    public boolean isStatementDigestStatsEnabled() {
+        return config.getBoolean(STATEMENT_DIGEST_STATS_ENABLED_ATTRIB,
+                DEFAULT_STATEMENT_DIGEST_STATS_ENABLED);
+    }
+
+    public int getStatementDigestStatsMaxSize() {
+        return config.getInt(STATEMENT_DIGEST_STATS_MAX_SIZE_ATTRIB,
+                DEFAULT_STATEMENT_DIGEST_STATS_MAX_SIZE);
+    }
+
+    public boolean isFairShareSchedulingEnabled() {
+        return config.getBoolean(FAIR_SHARE_SCHEDULING_ENABLED_ATTRIB,
+                DEFAULT_FAIR_SHARE_SCHEDULING_ENABLED);
+    }
+
+    public String getFairShareWeights() {
+        return config.get(FAIR_SHARE_WEIGHTS_ATTRIB, DEFAULT_FAIR_SHARE_WEIGHTS);
+    }
+
+    public String getFairShareMaxConcurrency() {
+        return config.get(FAIR_SHARE_MAX_CONCURRENCY_ATTRIB, DEFAULT_FAIR_SHARE_MAX_CONCURRENCY);
+    }
+
+    public int getFairShareDefaultMaxConcurrency() {
+        return config.getInt(FAIR_SHARE_DEFAULT_MAX_CONCURRENCY_ATTRIB,
+                DEFAULT_FAIR_SHARE_DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public int getMaxParallelScansPerRegionServer() {
+        return config.getInt(MAX_PARALLEL_SCANS_PER_REGION_SERVER_ATTRIB,
+                DEFAULT_MAX_PARALLEL_SCANS_PER_REGION_SERVER);
+    }
+
+    public int getAsyncThreadPoolSize() {
+        return config.getInt(ASYNC_THREAD_POOL_SIZE_ATTRIB, DEFAULT_ASYNC_THREAD_POOL_SIZE);
+    }
+
+    public int getAsyncQueueSize() {
+        return config.getInt(ASYNC_QUEUE_SIZE_ATTRIB, DEFAULT_ASYNC_QUEUE_SIZE);
+    }
+
+    public int getWriteBehindThreadPoolSize() {
+        return config.getInt(WRITE_BEHIND_THREAD_POOL_SIZE_ATTRIB,
+                DEFAULT_WRITE_BEHIND_THREAD_POOL_SIZE);
+    }
+
+    public int getParallelUnionThreadPoolSize() {
+        return config.getInt(PARALLEL_UNION_ALL_THREAD_POOL_SIZE_ATTRIB,
+                DEFAULT_PARALLEL_UNION_ALL_THREAD_POOL_SIZE);
+    }
+
     @VisibleForTesting
     public void setAllowedListForTableLevelMetrics(String tableNameList){
         set(ALLOWED_LIST_FOR_TABLE_LEVEL_METRICS,tableNameList);
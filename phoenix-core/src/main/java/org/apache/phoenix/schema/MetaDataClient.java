@@ -139,6 +139,7 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
@@ -774,13 +775,146 @@ public class MetaDataClient {
                         (table.getTenantId() != null ? ", Tenant ID: " + table.getTenantId() : ""));
             }
 
+            // the tables the last bulk validation found current are not checked again for its
+            // window, whatever their update cache frequency
+            long maxAge = connection.isBulkValidated(tableRef)
+                    ? Math.max(effectiveUpdateCacheFreq, getBulkValidationWindow())
+                    : effectiveUpdateCacheFreq;
             return (table.getRowTimestampColPos() == -1 &&
-                    connection.getMetaDataCache().getAge(tableRef) <
-                            effectiveUpdateCacheFreq);
+                    connection.getMetaDataCache().getAge(tableRef) < maxAge);
         }
         return false;
     }
 
+    private boolean isBulkValidationEnabled() {
+        return connection.getQueryServices().getProps().getBoolean(
+                QueryServices.METADATA_BULK_VALIDATION_ENABLED_ATTRIB,
+                QueryServicesOptions.DEFAULT_METADATA_BULK_VALIDATION_ENABLED);
+    }
+
+    private long getBulkValidationWindow() {
+        return isBulkValidationEnabled() ? connection.getQueryServices().getProps().getLong(
+                QueryServices.METADATA_BULK_VALIDATION_WINDOW_MS_ATTRIB,
+                QueryServicesOptions.DEFAULT_METADATA_BULK_VALIDATION_WINDOW_MS) : 0;
+    }
+
+    /**
+     * Checks in one call to the server that the cached tables with the given names, and their
+     * ancestors, are still current, so that resolving them afterwards does not need a getTable
+     * call per table. The tables found unchanged are marked as resolved now and are then not
+     * checked again for {@link QueryServices#METADATA_BULK_VALIDATION_WINDOW_MS_ATTRIB}. The
+     * tables that changed, the views whose ancestors changed and the tables that are not cached
+     * are left for {@link #updateCache(PName, String, String, boolean)} to fetch as usual.
+     * <p>
+     * Does nothing unless {@link QueryServices#METADATA_BULK_VALIDATION_ENABLED_ATTRIB} is set,
+     * or if the connection has an SCN.
+     */
+    public void validateTableTimestamps(List<TableName> tableNames) throws SQLException {
+        if (!isBulkValidationEnabled() || connection.getSCN() != null) {
+            return;
+        }
+        Map<PTableKey, PTable> tablesToValidate = new LinkedHashMap<>();
+        Map<PTableKey, PTable> parents = new HashMap<>();
+        Set<PTableKey> keysWithUnvalidatedParent = new HashSet<>();
+        for (TableName tableName : tableNames) {
+            addTableToValidate(tableName.getSchemaName(), tableName.getTableName(),
+                    tablesToValidate, parents, keysWithUnvalidatedParent);
+        }
+        if (tablesToValidate.isEmpty()) {
+            return;
+        }
+        List<PTable> tables = new ArrayList<>(tablesToValidate.values());
+        long validationTime = EnvironmentEdgeManager.currentTimeMillis();
+        List<PTable> changedTables;
+        try {
+            changedTables = connection.getQueryServices().validateTableTimestamps(tables,
+                    HConstants.LATEST_TIMESTAMP);
+        } catch (SQLException e) {
+            // The tables are then validated one by one, as if bulk validation was disabled
+            LOGGER.warn("Bulk validation of the cached metadata of " + tablesToValidate.keySet()
+                    + " failed", e);
+            return;
+        }
+        Set<PTableKey> changedKeys = new HashSet<>();
+        for (PTable table : changedTables) {
+            changedKeys.add(table.getKey());
+        }
+        for (PTable table : tables) {
+            if (isCurrent(table, changedKeys, parents, keysWithUnvalidatedParent)) {
+                connection.updateBulkValidatedTimestamp(table, validationTime);
+            }
+        }
+    }
+
+    /**
+     * A cached view inherits the columns and indexes of its ancestors, and a change to one of
+     * them is only picked up by fetching the view again. So a view is current only if none of
+     * its ancestors changed or could not be validated, and none of them is cached at a later
+     * timestamp than the one the view was combined with.
+     */
+    private static boolean isCurrent(PTable table, Set<PTableKey> changedKeys,
+            Map<PTableKey, PTable> parents, Set<PTableKey> keysWithUnvalidatedParent) {
+        for (PTable ancestor = table; ancestor != null;
+                ancestor = parents.get(ancestor.getKey())) {
+            if (changedKeys.contains(ancestor.getKey())
+                    || keysWithUnvalidatedParent.contains(ancestor.getKey())
+                    || ancestor.getTimeStamp() > table.getTimeStamp()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the cached table, or null if the table is not cached or can't be validated in bulk
+     */
+    private PTable addTableToValidate(String schemaName, String tableName,
+            Map<PTableKey, PTable> tablesToValidate, Map<PTableKey, PTable> parents,
+            Set<PTableKey> keysWithUnvalidatedParent) {
+        // System tables are not checked for changes, and inherited view indexes are resolved
+        // through their parent view
+        if (SYSTEM_CATALOG_SCHEMA.equals(schemaName)
+                || tableName.contains(QueryConstants.CHILD_VIEW_INDEX_NAME_SEPARATOR)) {
+            return null;
+        }
+        String fullTableName = SchemaUtil.getTableName(schemaName, tableName);
+        PTableRef tableRef = null;
+        // as in updateCache, fall back to the global table for tenant specific connections
+        for (PName tenantId : Arrays.asList(connection.getTenantId(), null)) {
+            try {
+                tableRef = connection.getTableRef(new PTableKey(tenantId, fullTableName));
+                break;
+            } catch (TableNotFoundException e) {
+                if (tenantId == null) {
+                    return null;
+                }
+            }
+        }
+        PTable table = tableRef.getTable();
+        if (table.isTransactional() || table.getRowTimestampColPos() != -1) {
+            return null;
+        }
+        if (tablesToValidate.containsKey(table.getKey())
+                || avoidRpcToGetTable(false, HConstants.LATEST_TIMESTAMP, false, table, tableRef,
+                        tableRef.getResolvedTimeStamp())) {
+            return table;
+        }
+        tablesToValidate.put(table.getKey(), table);
+        // the ancestors are validated too, as a change to one of them makes the view stale
+        if (table.getParentTableName() != null) {
+            PTable parent = addTableToValidate(table.getParentSchemaName() == null ? null
+                            : table.getParentSchemaName().getString(),
+                    table.getParentTableName().getString(), tablesToValidate, parents,
+                    keysWithUnvalidatedParent);
+            if (parent == null) {
+                keysWithUnvalidatedParent.add(table.getKey());
+            } else {
+                parents.put(table.getKey(), parent);
+            }
+        }
+        return table;
+    }
+
     public MetaDataMutationResult updateCache(String schemaName) throws SQLException {
         return updateCache(schemaName, false);
     }
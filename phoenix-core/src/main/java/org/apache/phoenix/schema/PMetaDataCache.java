@@ -19,105 +19,81 @@ package org.apache.phoenix.schema;
 
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.Map;
 
 import org.apache.phoenix.parse.PFunction;
 import org.apache.phoenix.parse.PSchema;
+import org.apache.phoenix.util.PersistentHashMap;
 import org.apache.phoenix.util.TimeKeeper;
 
-import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
 import org.apache.phoenix.thirdparty.com.google.common.collect.MinMaxPriorityQueue;
 import org.apache.phoenix.thirdparty.com.google.common.primitives.Longs;
 
+/**
+ * Tables, functions and schemas cached by a {@link PMetaDataImpl}. They are kept in
+ * {@link PersistentHashMap}s, so cloning the cache for a new connection is O(1): the clone
+ * shares all of its entries with the original until either of them is updated, and an update
+ * only copies the path to the updated entry.
+ *
+ * The {@link PTableRef}s are shared as well, so the last access time of a table is the last
+ * time any of the caches sharing its entry accessed it. Pruning of least recently used tables
+ * works from a snapshot of those times.
+ */
 class PMetaDataCache implements Cloneable {
     private static final int MIN_REMOVAL_SIZE = 3;
-    private static final Comparator<PTableRef> COMPARATOR = new Comparator<PTableRef>() {
+    private static final Comparator<AccessSnapshot> COMPARATOR = new Comparator<AccessSnapshot>() {
         @Override
-        public int compare(PTableRef tableRef1, PTableRef tableRef2) {
-            return Longs.compare(tableRef1.getLastAccessTime(), tableRef2.getLastAccessTime());
+        public int compare(AccessSnapshot snapshot1, AccessSnapshot snapshot2) {
+            return Longs.compare(snapshot1.lastAccessTime, snapshot2.lastAccessTime);
         }
     };
-    private static final MinMaxPriorityQueue.Builder<PTableRef> BUILDER = MinMaxPriorityQueue.orderedBy(COMPARATOR);
-    
-    private long currentByteSize;
-    private final long maxByteSize;
-    private final int expectedCapacity;
-    private final TimeKeeper timeKeeper;
-    private final PTableRefFactory tableRefFactory;
+    private static final MinMaxPriorityQueue.Builder<AccessSnapshot> BUILDER = MinMaxPriorityQueue.orderedBy(COMPARATOR);
 
-    private final Map<PTableKey,PTableRef> tables;
-    final Map<PTableKey,PFunction> functions;
-    final Map<PTableKey,PSchema> schemas;
-    
-    private static Map<PTableKey,PTableRef> newMap(int expectedCapacity) {
-        // Use regular HashMap, as we cannot use a LinkedHashMap that orders by access time
-        // safely across multiple threads (as the underlying collection is not thread safe).
-        // Instead, we track access time and prune it based on the copy we've made.
-        return Maps.newHashMapWithExpectedSize(expectedCapacity);
-    }
-
-    private static Map<PTableKey,PFunction> newFunctionMap(int expectedCapacity) {
-        // Use regular HashMap, as we cannot use a LinkedHashMap that orders by access time
-        // safely across multiple threads (as the underlying collection is not thread safe).
-        // Instead, we track access time and prune it based on the copy we've made.
-        return Maps.newHashMapWithExpectedSize(expectedCapacity);
-    }
-
-    private static Map<PTableKey,PSchema> newSchemaMap(int expectedCapacity) {
-        // Use regular HashMap, as we cannot use a LinkedHashMap that orders by access time
-        // safely across multiple threads (as the underlying collection is not thread safe).
-        // Instead, we track access time and prune it based on the copy we've made.
-        return Maps.newHashMapWithExpectedSize(expectedCapacity);
-    }
+    /**
+     * Last access time of a table captured when pruning, as other caches sharing the
+     * {@link PTableRef} may update it concurrently.
+     */
+    private static class AccessSnapshot {
+        private final PTableRef tableRef;
+        private final long lastAccessTime;
 
-    private Map<PTableKey,PTableRef> cloneMap(Map<PTableKey,PTableRef> tables, int expectedCapacity) {
-        Map<PTableKey,PTableRef> newTables = newMap(Math.max(tables.size(),expectedCapacity));
-        // Copy value so that access time isn't changing anymore
-        for (PTableRef tableAccess : tables.values()) {
-            newTables.put(tableAccess.getTable().getKey(), tableRefFactory.makePTableRef(tableAccess));
+        private AccessSnapshot(PTableRef tableRef) {
+            this.tableRef = tableRef;
+            this.lastAccessTime = tableRef.getLastAccessTime();
         }
-        return newTables;
     }
 
-    private static Map<PTableKey, PSchema> cloneSchemaMap(Map<PTableKey, PSchema> schemas, int expectedCapacity) {
-        Map<PTableKey, PSchema> newSchemas = newSchemaMap(Math.max(schemas.size(), expectedCapacity));
-        // Copy value so that access time isn't changing anymore
-        for (PSchema schema : schemas.values()) {
-            newSchemas.put(schema.getSchemaKey(), new PSchema(schema));
-        }
-        return newSchemas;
-    }
+    private long currentByteSize;
+    private final long maxByteSize;
+    private final TimeKeeper timeKeeper;
+    private final PTableRefFactory tableRefFactory;
 
-    private static Map<PTableKey,PFunction> cloneFunctionsMap(Map<PTableKey,PFunction> functions, int expectedCapacity) {
-        Map<PTableKey,PFunction> newFunctions = newFunctionMap(Math.max(functions.size(),expectedCapacity));
-        for (PFunction functionAccess : functions.values()) {
-            newFunctions.put(functionAccess.getKey(), new PFunction(functionAccess));
-        }
-        return newFunctions;
-    }
+    private PersistentHashMap<PTableKey,PTableRef> tables;
+    private PersistentHashMap<PTableKey,PFunction> functions;
+    private PersistentHashMap<PTableKey,PSchema> schemas;
 
     PMetaDataCache(PMetaDataCache toClone) {
         this.tableRefFactory = toClone.tableRefFactory;
         this.timeKeeper = toClone.timeKeeper;
         this.maxByteSize = toClone.maxByteSize;
         this.currentByteSize = toClone.currentByteSize;
-        this.expectedCapacity = toClone.expectedCapacity;
-        this.tables = cloneMap(toClone.tables, expectedCapacity);
-        this.functions = cloneFunctionsMap(toClone.functions, expectedCapacity);
-        this.schemas = cloneSchemaMap(toClone.schemas, expectedCapacity);
+        this.tables = toClone.tables;
+        this.functions = toClone.functions;
+        this.schemas = toClone.schemas;
     }
-    
+
+    /**
+     * @param initialCapacity unused, as the persistent maps grow one entry at a time
+     */
     public PMetaDataCache(int initialCapacity, long maxByteSize, TimeKeeper timeKeeper, PTableRefFactory tableRefFactory) {
         this.currentByteSize = 0;
         this.maxByteSize = maxByteSize;
-        this.expectedCapacity = initialCapacity;
-        this.tables = newMap(this.expectedCapacity);
-        this.functions = newFunctionMap(this.expectedCapacity);
+        this.tables = PersistentHashMap.empty();
+        this.functions = PersistentHashMap.empty();
         this.timeKeeper = timeKeeper;
-        this.schemas = newSchemaMap(this.expectedCapacity);
+        this.schemas = PersistentHashMap.empty();
         this.tableRefFactory = tableRefFactory;
     }
-    
+
     public PTableRef get(PTableKey key) {
         PTableRef tableAccess = this.tables.get(key);
         if (tableAccess == null) {
@@ -126,12 +102,12 @@ class PMetaDataCache implements Cloneable {
         tableAccess.setLastAccessTime(timeKeeper.getCurrentTime());
         return tableAccess;
     }
-    
+
     @Override
     public PMetaDataCache clone() {
         return new PMetaDataCache(this);
     }
-    
+
     /**
      * Used when the cache is growing past its max size to clone in a single pass.
      * Removes least recently used tables to get size of cache below its max size by
@@ -140,30 +116,30 @@ class PMetaDataCache implements Cloneable {
     public PMetaDataCache cloneMinusOverage(long overage) {
         assert(overage > 0);
         int nToRemove = Math.max(MIN_REMOVAL_SIZE, (int)Math.ceil((currentByteSize-maxByteSize) / ((double)currentByteSize / size())) + 1);
-        MinMaxPriorityQueue<PTableRef> toRemove = BUILDER.expectedSize(nToRemove).create();
-        PMetaDataCache newCache = new PMetaDataCache(this.size(), this.maxByteSize, this.timeKeeper, this.tableRefFactory);
-        
+        MinMaxPriorityQueue<AccessSnapshot> toRemove = BUILDER.expectedSize(nToRemove).create();
+        PMetaDataCache newCache = new PMetaDataCache(this);
+
         long toRemoveBytes = 0;
-        // Add to new cache, but track references to remove when done
-        // to bring cache at least overage amount below it's max size.
+        // Track references to remove when done to bring cache
+        // at least overage amount below it's max size.
         for (PTableRef tableRef : this.tables.values()) {
-            newCache.put(tableRef.getTable().getKey(), tableRefFactory.makePTableRef(tableRef));
-            toRemove.add(tableRef);
+            toRemove.add(new AccessSnapshot(tableRef));
             toRemoveBytes += tableRef.getEstimatedSize();
-            while (toRemoveBytes - toRemove.peekLast().getEstimatedSize() >= overage) {
-                PTableRef removedRef = toRemove.removeLast();
-                toRemoveBytes -= removedRef.getEstimatedSize();
+            while (toRemoveBytes - toRemove.peekLast().tableRef.getEstimatedSize() >= overage) {
+                AccessSnapshot removed = toRemove.removeLast();
+                toRemoveBytes -= removed.tableRef.getEstimatedSize();
             }
         }
-        for (PTableRef toRemoveRef : toRemove) {
-            newCache.remove(toRemoveRef.getTable().getKey());
+        for (AccessSnapshot toRemoveRef : toRemove) {
+            newCache.remove(toRemoveRef.tableRef.getTable().getKey());
         }
         return newCache;
     }
 
     PTable put(PTableKey key, PTableRef ref) {
         currentByteSize += ref.getEstimatedSize();
-        PTableRef oldTableAccess = this.tables.put(key, ref);
+        PTableRef oldTableAccess = this.tables.get(key);
+        this.tables = this.tables.put(key, ref);
         PTable oldTable = null;
         if (oldTableAccess != null) {
             currentByteSize -= oldTableAccess.getEstimatedSize();
@@ -175,16 +151,17 @@ class PMetaDataCache implements Cloneable {
     public long getAge(PTableRef ref) {
         return timeKeeper.getCurrentTime() - ref.getCreateTime();
     }
-    
+
     public PTable remove(PTableKey key) {
-        PTableRef value = this.tables.remove(key);
+        PTableRef value = this.tables.get(key);
         if (value == null) {
             return null;
         }
+        this.tables = this.tables.remove(key);
         currentByteSize -= value.getEstimatedSize();
         return value.getTable();
     }
-    
+
     public Iterator<PTable> iterator() {
         final Iterator<PTableRef> iterator = this.tables.values().iterator();
         return new Iterator<PTable>() {
@@ -203,7 +180,7 @@ class PMetaDataCache implements Cloneable {
             public void remove() {
                 throw new UnsupportedOperationException();
             }
-            
+
         };
     }
 
@@ -218,4 +195,32 @@ class PMetaDataCache implements Cloneable {
     public long getMaxSize() {
         return this.maxByteSize;
     }
-}
\ No newline at end of file
+
+    PFunction getFunction(PTableKey key) {
+        return this.functions.get(key);
+    }
+
+    Iterable<PFunction> getFunctions() {
+        return this.functions.values();
+    }
+
+    void putFunction(PTableKey key, PFunction function) {
+        this.functions = this.functions.put(key, function);
+    }
+
+    void removeFunction(PTableKey key) {
+        this.functions = this.functions.remove(key);
+    }
+
+    PSchema getSchema(PTableKey key) {
+        return this.schemas.get(key);
+    }
+
+    void putSchema(PTableKey key, PSchema schema) {
+        this.schemas = this.schemas.put(key, schema);
+    }
+
+    void removeSchema(PTableKey key) {
+        this.schemas = this.schemas.remove(key);
+    }
+}
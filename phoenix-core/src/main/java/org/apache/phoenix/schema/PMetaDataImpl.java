@@ -38,8 +38,9 @@ import org.apache.phoenix.util.TimeKeeper;
 import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
 
 /**
- * Client-side cache of MetaData, not thread safe. Internally uses a LinkedHashMap that evicts the
- * oldest entries when size grows beyond the maxSize specified at create time.
+ * Client-side cache of MetaData, not thread safe. Internally uses persistent maps, so that
+ * {@link #clone()} is O(1), and evicts the least recently used entries when size grows beyond
+ * the maxSize specified at create time.
  */
 public class PMetaDataImpl implements PMetaData {
     
@@ -84,7 +85,7 @@ public class PMetaDataImpl implements PMetaData {
 
     @Override
     public PFunction getFunction(PTableKey key) throws FunctionNotFoundException {
-        PFunction function = metaData.functions.get(key);
+        PFunction function = metaData.getFunction(key);
         if (function == null) {
             throw new FunctionNotFoundException(key.getName());
         }
@@ -272,26 +273,26 @@ public class PMetaDataImpl implements PMetaData {
 
     @Override
     public void addFunction(PFunction function) throws SQLException {
-        this.metaData.functions.put(function.getKey(), function);
+        this.metaData.putFunction(function.getKey(), function);
     }
 
     @Override
     public void removeFunction(PName tenantId, String function, long functionTimeStamp)
             throws SQLException {
-        this.metaData.functions.remove(new PTableKey(tenantId, function));
+        this.metaData.removeFunction(new PTableKey(tenantId, function));
     }
 
     @Override
     public void pruneFunctions(Pruner pruner) {
         List<PTableKey> keysToPrune = Lists.newArrayListWithExpectedSize(this.size());
-        for (PFunction function : this.metaData.functions.values()) {
+        for (PFunction function : this.metaData.getFunctions()) {
             if (pruner.prune(function)) {
                 keysToPrune.add(function.getKey());
             }
         }
         if (!keysToPrune.isEmpty()) {
             for (PTableKey key : keysToPrune) {
-                metaData.functions.remove(key);
+                metaData.removeFunction(key);
             }
         }
     }
@@ -303,19 +304,19 @@ public class PMetaDataImpl implements PMetaData {
 
     @Override
     public void addSchema(PSchema schema) throws SQLException {
-        this.metaData.schemas.put(schema.getSchemaKey(), schema);
+        this.metaData.putSchema(schema.getSchemaKey(), schema);
     }
 
     @Override
     public PSchema getSchema(PTableKey key) throws SchemaNotFoundException {
-        PSchema schema = metaData.schemas.get(key);
+        PSchema schema = metaData.getSchema(key);
         if (schema == null) { throw new SchemaNotFoundException(key.getName()); }
         return schema;
     }
 
     @Override
     public void removeSchema(PSchema schema, long schemaTimeStamp) {
-        this.metaData.schemas.remove(schema.getSchemaKey());
+        this.metaData.removeSchema(schema.getSchemaKey());
     }
 
 }
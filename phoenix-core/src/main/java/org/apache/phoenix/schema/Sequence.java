@@ -33,6 +33,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.hadoop.hbase.Cell;
@@ -56,11 +58,14 @@ import org.apache.phoenix.schema.types.PLong;
 import org.apache.phoenix.util.ByteUtil;
 import org.apache.phoenix.util.PhoenixKeyValueUtil;
 import org.apache.phoenix.util.SequenceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
 import org.apache.phoenix.thirdparty.com.google.common.math.LongMath;
 
 public class Sequence {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Sequence.class);
     public static final int SUCCESS = 0;
     
     public enum ValueOp {
@@ -106,6 +111,9 @@ public class Sequence {
     private final SequenceKey key;
     private final ReentrantLock lock;
     private List<SequenceValue> values;
+    // Result of the increment allocating the block of values that follows the current one,
+    // started in the background before the current block runs out
+    private CompletableFuture<Result> prefetch;
     
     public Sequence(SequenceKey key) {
         if (key == null) throw new NullPointerException();
@@ -196,10 +204,80 @@ public class Sequence {
             if (op == ValueOp.VALIDATE_SEQUENCE) {
                 return value.currentValue;
             }
+            Result prefetched = takePrefetch(timestamp, numToAllocate);
+            if (prefetched != null) {
+                return incrementValue(prefetched, op, numToAllocate);
+            }
             throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
         }
         return increment(value, op, numToAllocate);
     }
+
+    /**
+     * @param threshold fraction of a block of values after which the next block is fetched
+     * @return true if the next block of values should be fetched in the background, because at
+     *         least the threshold of the current block has been handed out
+     */
+    public boolean shouldPrefetch(long timestamp, ValueOp op, long numToAllocate,
+            float threshold) {
+        if (prefetch != null || threshold <= 0 || op != ValueOp.INCREMENT_SEQUENCE
+                || timestamp != HConstants.LATEST_TIMESTAMP
+                || SequenceUtil.isBulkAllocation(numToAllocate)) {
+            return false;
+        }
+        SequenceValue value = findSequenceValue(timestamp);
+        // cycling sequences wrap around, so blocks cannot be handed out ahead of time
+        if (value == null || value.isUnitialized() || value.cycle || value.limitReached
+                || value.cacheSize <= 0) {
+            return false;
+        }
+        long remaining = (value.nextValue - value.currentValue) / value.incrementBy;
+        return remaining <= value.cacheSize * (1 - threshold);
+    }
+
+    /**
+     * Sets the increment fetching the next block of values in the background. It is consumed
+     * once the current block runs out, or returned with the unused values.
+     */
+    public void setPrefetch(CompletableFuture<Result> prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Waits for the next block of values fetched in the background, if any.
+     * @return the result of the increment, or null if there is none or it failed, in which case
+     *         the caller increments the sequence itself
+     */
+    private Result takePrefetch(long timestamp, long numToAllocate) {
+        if (prefetch == null || timestamp != HConstants.LATEST_TIMESTAMP
+                || SequenceUtil.isBulkAllocation(numToAllocate)) {
+            return null;
+        }
+        CompletableFuture<Result> pending = prefetch;
+        prefetch = null;
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.debug("Prefetching the next values of " + key + " failed", e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * @return the block of values fetched in the background, or null if there is none
+     */
+    private SequenceValue takePrefetchedValue() {
+        Result result = takePrefetch(HConstants.LATEST_TIMESTAMP,
+                SequenceUtil.DEFAULT_NUM_SLOTS_TO_ALLOCATE);
+        // a single cell is an error code, meaning no values were allocated
+        if (result == null || result.rawCells().length == 1) {
+            return null;
+        }
+        return new SequenceValue(result, ValueOp.INCREMENT_SEQUENCE,
+                SequenceUtil.DEFAULT_NUM_SLOTS_TO_ALLOCATE);
+    }
     
     /**
      * This method first checks whether value.currentValue = value.nextValue, this check is what 
@@ -279,8 +357,12 @@ public class Sequence {
             return Collections.emptyList();
         }
         List<Append> appends = Lists.newArrayListWithExpectedSize(values.size());
+        SequenceValue latest = findSequenceValue(HConstants.LATEST_TIMESTAMP);
+        SequenceValue prefetched = latest == null ? null : takePrefetchedValue();
         for (SequenceValue value : values) {
-            if (value.isInitialized() && value.currentValue != value.nextValue) {
+            if (value == latest && prefetched != null) {
+                appends.add(newReturn(value, prefetched));
+            } else if (value.isInitialized() && value.currentValue != value.nextValue) {
                 appends.add(newReturn(value));
             }
         }
@@ -292,12 +374,30 @@ public class Sequence {
         if (value == null) {
             throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
         }
+        SequenceValue prefetched = timestamp == HConstants.LATEST_TIMESTAMP
+                ? takePrefetchedValue() : null;
+        if (prefetched != null) {
+            return newReturn(value, prefetched);
+        }
         if (value.currentValue == value.nextValue) {
             throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
         }
         return newReturn(value);
     }
 
+    /**
+     * Returns the unused values of the current block together with the block fetched in the
+     * background. The server only takes values back if no other values were allocated since,
+     * so if another client allocated values between the two blocks only the prefetched block
+     * can be returned.
+     */
+    private Append newReturn(SequenceValue value, SequenceValue prefetched) {
+        if (value.isInitialized() && value.nextValue == prefetched.currentValue) {
+            prefetched.currentValue = value.currentValue;
+        }
+        return newReturn(prefetched);
+    }
+
     private Append newReturn(SequenceValue value) {
         byte[] key = this.key.getKey();
         Append append = new Append(key);
@@ -617,6 +717,7 @@ public class Sequence {
         if (code == null) {
             // Insert delete marker so that point-in-time sequences work
             insertSequenceValue(new SequenceValue(timestamp, true));
+            prefetch = null;
             return timestamp;
         }
         // TODO: We could have the server return the timestamps of the
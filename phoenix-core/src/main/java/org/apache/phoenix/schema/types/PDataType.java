@@ -1017,6 +1017,61 @@ public abstract class PDataType<T> implements DataType<T>, Comparable<PDataType<
         return toObject(ptr.get(), ptr.getOffset(), ptr.getLength(), this, sortOrder);
     }
 
+    /*
+     * The decode methods convert a non empty value of this type to a primitive the way toObject
+     * of the matching type would, without allocating when this type is a fixed width number.
+     */
+
+    private boolean isFixedWidthNumber() {
+        return equalsAny(this, PLong.INSTANCE, PUnsignedLong.INSTANCE, PInteger.INSTANCE,
+                PUnsignedInt.INSTANCE, PSmallint.INSTANCE, PUnsignedSmallint.INSTANCE,
+                PTinyint.INSTANCE, PUnsignedTinyint.INSTANCE, PFloat.INSTANCE,
+                PUnsignedFloat.INSTANCE, PDouble.INSTANCE, PUnsignedDouble.INSTANCE);
+    }
+
+    public final long decodeLong(byte[] b, int o, int l, SortOrder sortOrder) {
+        if (isFixedWidthNumber() || equalsAny(this, PDate.INSTANCE, PUnsignedDate.INSTANCE,
+                PTime.INSTANCE, PUnsignedTime.INSTANCE)) {
+            return getCodec().decodeLong(b, o, sortOrder);
+        }
+        return (Long) PLong.INSTANCE.toObject(b, o, l, this, sortOrder);
+    }
+
+    public final int decodeInt(byte[] b, int o, int l, SortOrder sortOrder) {
+        if (isFixedWidthNumber()) {
+            return getCodec().decodeInt(b, o, sortOrder);
+        }
+        return (Integer) PInteger.INSTANCE.toObject(b, o, l, this, sortOrder);
+    }
+
+    public final short decodeShort(byte[] b, int o, int l, SortOrder sortOrder) {
+        if (isFixedWidthNumber()) {
+            return getCodec().decodeShort(b, o, sortOrder);
+        }
+        return (Short) PSmallint.INSTANCE.toObject(b, o, l, this, sortOrder);
+    }
+
+    public final byte decodeByte(byte[] b, int o, int l, SortOrder sortOrder) {
+        if (isFixedWidthNumber()) {
+            return getCodec().decodeByte(b, o, sortOrder);
+        }
+        return (Byte) PTinyint.INSTANCE.toObject(b, o, l, this, sortOrder);
+    }
+
+    public final float decodeFloat(byte[] b, int o, int l, SortOrder sortOrder) {
+        if (isFixedWidthNumber()) {
+            return getCodec().decodeFloat(b, o, sortOrder);
+        }
+        return (Float) PFloat.INSTANCE.toObject(b, o, l, this, sortOrder);
+    }
+
+    public final double decodeDouble(byte[] b, int o, int l, SortOrder sortOrder) {
+        if (isFixedWidthNumber()) {
+            return getCodec().decodeDouble(b, o, sortOrder);
+        }
+        return (Double) PDouble.INSTANCE.toObject(b, o, l, this, sortOrder);
+    }
+
     public final Object toObject(byte[] bytes, int offset, int length) {
         return toObject(bytes, offset, length, this);
     }
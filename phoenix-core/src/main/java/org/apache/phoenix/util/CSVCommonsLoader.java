@@ -18,24 +18,37 @@
 package org.apache.phoenix.util;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.util.csv.CsvChunkReader;
 import org.apache.phoenix.util.csv.CsvUpsertExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.phoenix.thirdparty.com.google.common.base.Charsets;
 import org.apache.phoenix.thirdparty.com.google.common.base.Joiner;
+import org.apache.phoenix.thirdparty.com.google.common.base.Strings;
 import org.apache.phoenix.thirdparty.com.google.common.base.Throwables;
 import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableMap;
+import org.apache.phoenix.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /***
  * Upserts CSV data using Phoenix JDBC connection
@@ -46,6 +59,12 @@ public class CSVCommonsLoader {
 
     public static final String DEFAULT_ARRAY_ELEMENT_SEPARATOR = ":";
 
+    // Number of characters of input handed to a loading thread at a time
+    private static final int PARALLEL_CHUNK_SIZE = 1024 * 1024;
+    // Sent to the loading threads once the whole input has been handed out, chunks of input
+    // are never empty
+    private static final String END_OF_INPUT = "";
+
     private static final Map<Character,Character> CTRL_CHARACTER_TABLE =
             ImmutableMap.<Character,Character>builder()
                         .put('1', '\u0001')
@@ -71,6 +90,10 @@ public class CSVCommonsLoader {
 
 
     private final String arrayElementSeparator;
+    private final int numThreads;
+    // counts of the last upsert, shared by all the threads loading it
+    private final AtomicLong totalUpserts = new AtomicLong();
+    private final AtomicLong badRecords = new AtomicLong();
 
     public enum PhoenixHeaderSource {
         FROM_TABLE,
@@ -86,6 +109,17 @@ public class CSVCommonsLoader {
     public CSVCommonsLoader(PhoenixConnection conn, String tableName,
             List<String> columns, boolean isStrict, char fieldDelimiter, char quoteCharacter,
             Character escapeCharacter, String arrayElementSeparator) {
+        this(conn, tableName, columns, isStrict, fieldDelimiter, quoteCharacter, escapeCharacter,
+                arrayElementSeparator, 1);
+    }
+
+    /**
+     * @param numThreads number of threads parsing and upserting files, each with its own
+     *            connection
+     */
+    public CSVCommonsLoader(PhoenixConnection conn, String tableName,
+            List<String> columns, boolean isStrict, char fieldDelimiter, char quoteCharacter,
+            Character escapeCharacter, String arrayElementSeparator, int numThreads) {
         this.conn = conn;
         this.tableName = tableName;
         this.columns = columns;
@@ -103,6 +137,7 @@ public class CSVCommonsLoader {
         }
 
         this.arrayElementSeparator = arrayElementSeparator;
+        this.numThreads = numThreads;
         this.format = buildFormat();
     }
 
@@ -110,6 +145,20 @@ public class CSVCommonsLoader {
         return format;
     }
 
+    /**
+     * @return the number of records upserted by the last upsert
+     */
+    public long getTotalUpsertCount() {
+        return totalUpserts.get();
+    }
+
+    /**
+     * @return the number of records of the last upsert that could not be upserted
+     */
+    public long getBadRecordCount() {
+        return badRecords.get();
+    }
+
     /**
      * default settings
      * delimiter = ','
@@ -170,10 +219,17 @@ public class CSVCommonsLoader {
      *
      * The constructor determines the format for the CSV files.
      *
+     * With more than one thread, the file is split into chunks of whole records that the
+     * threads parse and upsert concurrently, committing through their own connection.
+     *
      * @param fileName
      * @throws Exception
      */
     public void upsert(String fileName) throws Exception {
+        if (numThreads > 1) {
+            upsertInParallel(fileName);
+            return;
+        }
         CSVParser parser = CSVParser.parse(new File(fileName), Charsets.UTF_8, format);
         upsert(parser);
     }
@@ -205,8 +261,10 @@ public class CSVCommonsLoader {
         try {
             conn.setAutoCommit(false);
             long start = EnvironmentEdgeManager.currentTimeMillis();
+            totalUpserts.set(0);
+            badRecords.set(0);
             CsvUpsertListener upsertListener = new CsvUpsertListener(conn,
-                    conn.getMutateBatchSize(), isStrict);
+                    conn.getMutateBatchSize(), isStrict, totalUpserts, badRecords);
             CsvUpsertExecutor csvUpsertExecutor = new CsvUpsertExecutor(conn,
                 SchemaUtil.getEscapedFullTableName(tableName),
                     columnInfoList, upsertListener, arrayElementSeparator);
@@ -232,6 +290,102 @@ public class CSVCommonsLoader {
         }
     }
 
+    private void upsertInParallel(String fileName) throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream(fileName), Charsets.UTF_8)) {
+            CsvChunkReader chunkReader = new CsvChunkReader(reader, format);
+            // the header line is parsed up front, the chunks are parsed without header
+            CSVParser headerParser = headerSource == PhoenixHeaderSource.IN_LINE
+                    ? CSVParser.parse(Strings.nullToEmpty(chunkReader.nextChunk(1)), format)
+                    : null;
+            List<ColumnInfo> columnInfoList = buildColumnInfoList(headerParser);
+            CSVFormat chunkFormat = format.withHeader((String[]) null);
+
+            long start = EnvironmentEdgeManager.currentTimeMillis();
+            totalUpserts.set(0);
+            badRecords.set(0);
+            BlockingQueue<String> chunks = new ArrayBlockingQueue<>(2 * numThreads);
+            ExecutorService executor = Executors.newFixedThreadPool(numThreads,
+                    new ThreadFactoryBuilder().setDaemon(true)
+                            .setNameFormat("phoenix-csv-loader-%d").build());
+            try {
+                List<Future<Void>> loaders = new ArrayList<>(numThreads);
+                for (int i = 0; i < numThreads; i++) {
+                    loaders.add(executor.submit(() -> {
+                        upsertChunks(chunks, chunkFormat, columnInfoList);
+                        return null;
+                    }));
+                }
+                String chunk;
+                while ((chunk = chunkReader.nextChunk(PARALLEL_CHUNK_SIZE)) != null) {
+                    queueChunk(chunks, chunk, loaders);
+                }
+                for (int i = 0; i < numThreads; i++) {
+                    queueChunk(chunks, END_OF_INPUT, loaders);
+                }
+                for (Future<Void> loader : loaders) {
+                    getLoaderResult(loader);
+                }
+            } finally {
+                // interrupts the loaders waiting for chunks if one of them failed
+                executor.shutdownNow();
+            }
+
+            double elapsedDuration = ((EnvironmentEdgeManager.currentTimeMillis() - start) / 1000.0);
+            System.out.println("CSV Upsert complete. " + totalUpserts.get() + " rows upserted"
+                    + (badRecords.get() > 0 ? ", " + badRecords.get() + " bad records" : "")
+                    + " by " + numThreads + " threads");
+            System.out.println("Time: " + elapsedDuration + " sec(s)\n");
+        }
+    }
+
+    /**
+     * Upserts the chunks taken from the queue until the end of the input, through a connection
+     * of its own.
+     */
+    private void upsertChunks(BlockingQueue<String> chunks, CSVFormat chunkFormat,
+            List<ColumnInfo> columnInfoList) throws Exception {
+        try (PhoenixConnection loaderConn = new PhoenixConnection(conn)) {
+            loaderConn.setAutoCommit(false);
+            CsvUpsertListener upsertListener = new CsvUpsertListener(loaderConn,
+                    loaderConn.getMutateBatchSize(), isStrict, totalUpserts, badRecords);
+            try (CsvUpsertExecutor csvUpsertExecutor = new CsvUpsertExecutor(loaderConn,
+                    SchemaUtil.getEscapedFullTableName(tableName), columnInfoList,
+                    upsertListener, arrayElementSeparator)) {
+                String chunk;
+                while (!(chunk = chunks.take()).isEmpty()) {
+                    try (CSVParser parser = CSVParser.parse(chunk, chunkFormat)) {
+                        csvUpsertExecutor.execute(parser);
+                    }
+                }
+            }
+            loaderConn.commit();
+        }
+    }
+
+    /**
+     * Waits for room in the queue, failing if a loader stopped early.
+     */
+    private static void queueChunk(BlockingQueue<String> chunks, String chunk,
+            List<Future<Void>> loaders) throws Exception {
+        while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<Void> loader : loaders) {
+                if (loader.isDone()) {
+                    getLoaderResult(loader);
+                    throw new IllegalStateException("CSV loader thread stopped before the end of the input");
+                }
+            }
+        }
+    }
+
+    private static void getLoaderResult(Future<Void> loader) throws Exception {
+        try {
+            loader.get();
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), Exception.class);
+            throw e;
+        }
+    }
+
     private List<ColumnInfo> buildColumnInfoList(CSVParser parser) throws SQLException {
         List<String> columns = this.columns;
         switch (headerSource) {
@@ -257,21 +411,32 @@ public class CSVCommonsLoader {
 
         private final PhoenixConnection conn;
         private final int upsertBatchSize;
-        private long totalUpserts = 0L;
+        private long upserts = 0L;
+        // shared by the listeners of all the threads loading the same input
+        private final AtomicLong totalUpserts;
+        private final AtomicLong badRecords;
         private final boolean strict;
 
         CsvUpsertListener(PhoenixConnection conn, int upsertBatchSize, boolean strict) {
+            this(conn, upsertBatchSize, strict, new AtomicLong(), new AtomicLong());
+        }
+
+        CsvUpsertListener(PhoenixConnection conn, int upsertBatchSize, boolean strict,
+                AtomicLong totalUpserts, AtomicLong badRecords) {
             this.conn = conn;
             this.upsertBatchSize = upsertBatchSize;
             this.strict = strict;
+            this.totalUpserts = totalUpserts;
+            this.badRecords = badRecords;
         }
 
         @Override
         public void upsertDone(long upsertCount) {
-            totalUpserts = upsertCount;
+            long total = totalUpserts.addAndGet(upsertCount - upserts);
+            upserts = upsertCount;
             if (upsertCount % upsertBatchSize == 0) {
-                if (upsertCount % 1000 == 0) {
-                    LOGGER.info("Processed upsert #{}", upsertCount);
+                if (total % 1000 == 0) {
+                    LOGGER.info("Processed upsert #{}", total);
                 }
                 try {
                     LOGGER.info("Committing after {} records", upsertCount);
@@ -284,6 +449,7 @@ public class CSVCommonsLoader {
 
         @Override
         public void errorOnRecord(CSVRecord csvRecord, Throwable throwable) {
+            badRecords.incrementAndGet();
             LOGGER.error("Error upserting record " + csvRecord, throwable.getMessage());
             if (strict) {
                 Throwables.propagate(throwable);
@@ -296,7 +462,16 @@ public class CSVCommonsLoader {
          * @return the total count of upserts
          */
         public long getTotalUpsertCount() {
-            return totalUpserts;
+            return totalUpserts.get();
+        }
+
+        /**
+         * Get the total number of records that could not be upserted up until now.
+         *
+         * @return the total count of bad records
+         */
+        public long getBadRecordCount() {
+            return badRecords.get();
         }
     }
 }
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.phoenix.thirdparty.com.google.common.base.Preconditions;
+
+/**
+ * Immutable hash map that is updated by creating a new version of the map, implemented as a
+ * hash array mapped trie. An update only copies the nodes on the path from the root to the
+ * updated entry, so it costs O(log32 n) and every other node is shared between the old and the
+ * new version. Taking a snapshot of the map is therefore free, which makes it suitable for
+ * caches that are copied often and then diverge a little, such as the client side metadata
+ * cache of each connection.
+ *
+ * Keys may not be null. All versions of the map are safe to read concurrently.
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // Maximum depth of the trie: 7 levels of bitmap nodes to consume the 32 bits of the hash
+    // and one level of collision nodes for keys with the same hash
+    private static final int MAX_DEPTH = 8;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Preconditions.checkNotNull(key);
+        return root == null ? null : (V) root.get(0, hash(key), key);
+    }
+
+    /**
+     * @return a map with the given entry added or replaced, or this map if it already maps the
+     * key to the same value instance
+     */
+    public PersistentHashMap<K, V> put(K key, V value) {
+        Preconditions.checkNotNull(key);
+        int[] sizeChange = new int[1];
+        Node node = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = node.put(0, hash(key), key, value, sizeChange);
+        return newRoot == root ? this : new PersistentHashMap<K, V>(newRoot, size + sizeChange[0]);
+    }
+
+    /**
+     * @return a map without the entry for the given key, or this map if there is no such entry
+     */
+    public PersistentHashMap<K, V> remove(Object key) {
+        Preconditions.checkNotNull(key);
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? PersistentHashMap.<K, V>empty()
+                : new PersistentHashMap<K, V>(newRoot, size - 1);
+    }
+
+    public Iterable<V> values() {
+        return new Iterable<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                final Iterator<Map.Entry<K, V>> entries = PersistentHashMap.this.iterator();
+                return new Iterator<V>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public V next() {
+                        return entries.next().getValue();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<K, V>(root);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        // spread the bits like HashMap does, as the low bits pick the slot of the root node
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Node of the trie. Its entries are stored as consecutive pairs in an array, where a pair is
+     * either a key and its value or a null key and a child node.
+     */
+    private abstract static class Node {
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object get(int shift, int hash, Object key);
+
+        abstract Node put(int shift, int hash, Object key, Object value, int[] sizeChange);
+
+        /**
+         * @return the node without the key, this node if the key is absent or null if the node
+         * is left empty
+         */
+        abstract Node remove(int shift, int hash, Object key);
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                return ((Node) v).get(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, int[] sizeChange) {
+            int bit = bit(hash, shift);
+            int i = 2 * index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                sizeChange[0] = 1;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node newChild = child.put(shift + BITS, hash, key, value, sizeChange);
+                return newChild == child ? this : with(i, null, newChild);
+            }
+            if (key.equals(k)) {
+                return v == value ? this : with(i, k, value);
+            }
+            sizeChange[0] = 1;
+            return with(i, null, createNode(shift + BITS, k, v, hash, key, value));
+        }
+
+        private BitmapNode with(int i, Object key, Object value) {
+            Object[] newArray = array.clone();
+            newArray[i] = key;
+            newArray[i + 1] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node newChild = child.remove(shift + BITS, hash, key);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild != null) {
+                    return with(i, null, newChild);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new BitmapNode(bitmap & ~bit, newArray);
+        }
+
+        private static Node createNode(int shift, Object key1, Object value1, int hash2,
+                Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+            }
+            // Hashes that differ are always separated before the shift goes past 32 bits
+            int[] ignored = new int[1];
+            return EMPTY.put(shift, hash1, key1, value1, ignored)
+                    .put(shift, hash2, key2, value2, ignored);
+        }
+    }
+
+    /**
+     * Leaf node holding the entries of keys that all have the same hash.
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int i = find(key);
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, int[] sizeChange) {
+            if (hash != this.hash) {
+                // Push this node down under a bitmap node that can tell both hashes apart
+                return new BitmapNode(bit(this.hash, shift), new Object[] { null, this })
+                        .put(shift, hash, key, value, sizeChange);
+            }
+            int i = find(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[i + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            sizeChange[0] = 1;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int i = hash == this.hash ? find(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new CollisionNode(hash, newArray);
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Object[][] arrays = new Object[MAX_DEPTH + 1][];
+        private final int[] positions = new int[MAX_DEPTH + 1];
+        private int depth = -1;
+        private Map.Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                push(root);
+                advance();
+            }
+        }
+
+        private void push(Node node) {
+            depth++;
+            arrays[depth] = node.array;
+            positions[depth] = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int i = positions[depth];
+                if (i >= array.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+                positions[depth] = i + 2;
+                if (array[i] == null) {
+                    push((Node) array[i + 1]);
+                } else {
+                    next = new AbstractMap.SimpleImmutableEntry<K, V>((K) array[i], (V) array[i + 1]);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> entry = next;
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -194,6 +194,29 @@ public class PhoenixRuntime {
      */
     public static final String REQUEST_METRIC_ATTRIB = "RequestMetric";
 
+    /**
+     * Use this connection property to run the queries of a connection against the named HBase
+     * snapshot of their table instead of the live table. The snapshot is restored once per
+     * connection, and shared with the connections derived from it, and its regions are read
+     * in-process by the client, without going through the region servers. Only queries of the
+     * table of the snapshot without aggregation or hash join are supported.
+     */
+    public static final String SNAPSHOT_NAME_ATTRIB = "SnapshotName";
+
+    /**
+     * Use this connection property to set the directory the snapshot named by
+     * {@link #SNAPSHOT_NAME_ATTRIB} is restored into. It must be on the same file system as the
+     * HBase root directory. Defaults to a directory under hbase.fs.tmp.dir.
+     */
+    public static final String SNAPSHOT_RESTORE_DIR_ATTRIB = "SnapshotRestoreDir";
+
+    /**
+     * Use this connection property to set the workload class the client thread pool is shared
+     * by when {@link org.apache.phoenix.query.QueryServices#FAIR_SHARE_SCHEDULING_ENABLED_ATTRIB}
+     * is set. Defaults to the tenant id of the connection.
+     */
+    public static final String WORKLOAD_CLASS_ATTRIB = "WorkloadClass";
+
     /**
      * Use this column name on the row returned by explain plan result set to get estimate of number
      * of bytes read.
@@ -226,6 +249,9 @@ public class PhoenixRuntime {
             AUTO_COMMIT_ATTRIB,
             CONSISTENCY_ATTRIB,
             REQUEST_METRIC_ATTRIB,
+            SNAPSHOT_NAME_ATTRIB,
+            SNAPSHOT_RESTORE_DIR_ATTRIB,
+            WORKLOAD_CLASS_ATTRIB,
             };
 
     /**
@@ -318,7 +344,8 @@ public class PhoenixRuntime {
                         }
                         CSVCommonsLoader csvLoader = new CSVCommonsLoader(conn, tableName, execCmd.getColumns(),
                                 execCmd.isStrict(), execCmd.getFieldDelimiter(), execCmd.getQuoteCharacter(),
-                                execCmd.getEscapeCharacter(), execCmd.getArrayElementSeparator());
+                                execCmd.getEscapeCharacter(), execCmd.getArrayElementSeparator(),
+                                execCmd.getLoaderThreads());
                         csvLoader.upsert(inputFile);
                     }
                 }
@@ -658,6 +685,7 @@ public class PhoenixRuntime {
         private String srcTable;
         private boolean localIndexUpgrade;
         private String binaryEncoding;
+        private int loaderThreads;
 
         /**
          * Factory method to build up an {@code ExecutionCommand} based on supplied parameters.
@@ -704,6 +732,9 @@ public class PhoenixRuntime {
             Option localIndexUpgradeOption = new Option("l", "local-index-upgrade", false,
                 "Used to upgrade local index data by moving index data from separate table to "
                 + "separate column families in the same table.");
+            Option loaderThreadsOption = new Option("p", "parallel", true,
+                    "Number of threads loading each CSV file, each with its own connection. " +
+                    "Defaults to 1");
             Options options = new Options();
             options.addOption(tableOption);
             options.addOption(headerOption);
@@ -717,6 +748,7 @@ public class PhoenixRuntime {
             options.addOption(mapNamespaceOption);
             options.addOption(localIndexUpgradeOption);
             options.addOption(binaryEncodingOption);
+            options.addOption(loaderThreadsOption);
 
             CommandLineParser parser = DefaultParser.builder().
                     setAllowPartialMatching(false).
@@ -764,6 +796,19 @@ public class PhoenixRuntime {
                         cmdLine.getOptionValue(escapeCharacterOption.getOpt(), "\\"));
             }
 
+            execCmd.loaderThreads = 1;
+            if (cmdLine.hasOption(loaderThreadsOption.getOpt())) {
+                try {
+                    execCmd.loaderThreads = Integer.parseInt(
+                            cmdLine.getOptionValue(loaderThreadsOption.getOpt()));
+                } catch (NumberFormatException e) {
+                    usageError("The number of loader threads must be a number", options);
+                }
+                if (execCmd.loaderThreads < 1) {
+                    usageError("The number of loader threads must be at least 1", options);
+                }
+            }
+
             execCmd.arrayElementSeparator = cmdLine.getOptionValue(
                     arrayValueSeparatorOption.getOpt(),
                     CSVCommonsLoader.DEFAULT_ARRAY_ELEMENT_SEPARATOR);
@@ -846,7 +891,8 @@ public class PhoenixRuntime {
                     "  psql localhost my_ddl.sql my_table.csv\n" +
                     "  psql -t MY_TABLE my_cluster:1825 my_table2012-Q3.csv\n" +
                     "  psql -t MY_TABLE -h COL1,COL2,COL3 my_cluster:1825 my_table2012-Q3.csv\n" +
-                    "  psql -t MY_TABLE -h COL1,COL2,COL3 -d : my_cluster:1825 my_table2012-Q3.csv");
+                    "  psql -t MY_TABLE -h COL1,COL2,COL3 -d : my_cluster:1825 my_table2012-Q3.csv\n" +
+                    "  psql -t MY_TABLE -p 8 my_cluster:1825 my_table2012-Q3.csv");
             System.exit(-1);
         }
 
@@ -886,6 +932,10 @@ public class PhoenixRuntime {
             return strict;
         }
 
+        public int getLoaderThreads() {
+            return loaderThreads;
+        }
+
         public boolean isUpgrade() {
             return isUpgrade;
         }
@@ -27,16 +27,22 @@ import static org.apache.phoenix.query.QueryConstants.ENCODED_EMPTY_COLUMN_NAME;
 import static org.apache.phoenix.schema.types.PDataType.TRUE_BYTES;
 import static org.apache.phoenix.util.ByteUtil.EMPTY_BYTE_ARRAY;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
@@ -53,6 +59,7 @@ import org.apache.hadoop.hbase.io.TimeRange;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.phoenix.compile.OrderByCompiler.OrderBy;
 import org.apache.phoenix.compile.ScanRanges;
 import org.apache.phoenix.compile.StatementContext;
@@ -682,6 +689,48 @@ public class ScanUtil {
         scan.setLoadColumnFamiliesOnDemand(true);
     }
 
+    /**
+     * Records the column families that the server side filter of the scan needs to evaluate a
+     * row. The remaining column families are then only loaded, on demand, for the rows that pass
+     * the filter.
+     * @param scan the scan
+     * @param families the essential column families
+     */
+    public static void setEssentialColumnFamilies(Scan scan, Collection<byte[]> families) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(stream)) {
+            WritableUtils.writeVInt(output, families.size());
+            for (byte[] family : families) {
+                Bytes.writeByteArray(output, family);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e); // not possible
+        }
+        scan.setAttribute(BaseScannerRegionObserver.ESSENTIAL_COLUMN_FAMILIES, stream.toByteArray());
+    }
+
+    /**
+     * @param scan the scan
+     * @return the column families set through {@link #setEssentialColumnFamilies(Scan, Collection)}
+     * or null if all column families are essential
+     */
+    public static NavigableSet<byte[]> getEssentialColumnFamilies(Scan scan) {
+        byte[] familiesBytes = scan.getAttribute(BaseScannerRegionObserver.ESSENTIAL_COLUMN_FAMILIES);
+        if (familiesBytes == null) {
+            return null;
+        }
+        NavigableSet<byte[]> families = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(familiesBytes))) {
+            int count = WritableUtils.readVInt(input);
+            for (int i = 0; i < count; i++) {
+                families.add(Bytes.readByteArray(input));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e); // not possible
+        }
+        return families;
+    }
+
     private static byte[] getReversedRow(byte[] startRow) {
         /*
          * Must get previous key because this is going from an inclusive start key to an exclusive stop key, and we need
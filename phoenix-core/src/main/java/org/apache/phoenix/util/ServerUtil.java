@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.concurrent.Future;
 import java.util.regex.Matcher;
@@ -38,6 +39,7 @@ import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.AsyncConnection;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
 import org.apache.hadoop.hbase.client.Table;
@@ -305,6 +307,8 @@ public class ServerUtil {
         
         private static Map<ConnectionType, Connection> connections =
                 new ConcurrentHashMap<ConnectionType, Connection>();
+        private static Map<ConnectionType, AsyncConnection> asyncConnections =
+                new ConcurrentHashMap<ConnectionType, AsyncConnection>();
 
         public static Connection getConnection(final ConnectionType connectionType, final RegionCoprocessorEnvironment env) {
             return connections.computeIfAbsent(connectionType, new Function<ConnectionType, Connection>() {
@@ -319,6 +323,29 @@ public class ServerUtil {
             });
         }
 
+        /**
+         * Returns a shared non-blocking connection of the given type. Unlike the connections
+         * returned by {@link #getConnection(ConnectionType, RegionCoprocessorEnvironment)}, it is
+         * a regular cluster connection and not a short-circuit one to the local region server.
+         */
+        public static AsyncConnection getAsyncConnection(final ConnectionType connectionType,
+                final RegionCoprocessorEnvironment env) {
+            return asyncConnections.computeIfAbsent(connectionType, new Function<ConnectionType, AsyncConnection>() {
+                @Override
+                public AsyncConnection apply(ConnectionType t) {
+                    try {
+                        return org.apache.hadoop.hbase.client.ConnectionFactory.createAsyncConnection(
+                                getTypeSpecificConfiguration(connectionType, env.getConfiguration())).get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    } catch (ExecutionException e) {
+                        throw new RuntimeException(e.getCause());
+                    }
+                }
+            });
+        }
+
         public static Configuration getTypeSpecificConfiguration(ConnectionType connectionType, Configuration conf) {
             switch (connectionType) {
             case COMPACTION_CONNECTION:
@@ -346,6 +373,14 @@ public class ServerUtil {
                     }
                 }
                 connections.clear();
+                for (AsyncConnection connection : asyncConnections.values()) {
+                    try {
+                        connection.close();
+                    } catch (IOException e) {
+                        LOGGER.warn("Unable to close coprocessor async connection", e);
+                    }
+                }
+                asyncConnections.clear();
             }
         }
 
@@ -353,6 +388,10 @@ public class ServerUtil {
             return connections.size();
         }
 
+        public static int getAsyncConnectionsCount() {
+            return asyncConnections.size();
+        }
+
      }
 
     public static Configuration getCompactionConfig(Configuration conf) {
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.commons.csv.CSVFormat;
+
+/**
+ * Splits CSV input into chunks made of whole records, so that the chunks can be parsed
+ * independently of each other. A line break ends a record unless it is part of a quoted value,
+ * which is the case when an odd number of unescaped quote characters has been read since the
+ * start of the record.
+ */
+public class CsvChunkReader {
+
+    private static final int UNDEFINED = -1;
+
+    private final Reader reader;
+    private final int quoteCharacter;
+    private final int escapeCharacter;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    public CsvChunkReader(Reader reader, CSVFormat format) {
+        this.reader = reader;
+        this.quoteCharacter = format.getQuoteCharacter() == null
+                ? UNDEFINED : format.getQuoteCharacter();
+        this.escapeCharacter = format.getEscapeCharacter() == null
+                ? UNDEFINED : format.getEscapeCharacter();
+    }
+
+    /**
+     * Reads the next chunk of records.
+     *
+     * @param minSize number of characters after which the chunk ends at the next record boundary
+     * @return the chunk, or null once the input is exhausted
+     */
+    public String nextChunk(int minSize) throws IOException {
+        StringBuilder chunk = new StringBuilder(minSize + 1024);
+        boolean quoted = false;
+        boolean escaped = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer);
+                position = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    return chunk.length() == 0 ? null : chunk.toString();
+                }
+            }
+            char c = buffer[position++];
+            chunk.append(c);
+            if (escaped) {
+                escaped = false;
+            } else if (c == escapeCharacter) {
+                escaped = true;
+            } else if (c == quoteCharacter) {
+                quoted = !quoted;
+            } else if ((c == '\n' || c == '\r') && !quoted && chunk.length() >= minSize) {
+                // a CRLF split after the CR leaves an empty line, which the parser ignores
+                return chunk.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.cache;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.schema.PMetaDataEntity;
+import org.apache.phoenix.schema.PNameFactory;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableKey;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.phoenix.thirdparty.com.google.common.cache.Cache;
+import org.apache.phoenix.thirdparty.com.google.common.cache.CacheBuilder;
+
+public class ResolvedMetaDataCacheTest {
+
+    private static final ImmutableBytesPtr PARENT_KEY =
+            new ImmutableBytesPtr(Bytes.toBytes("PARENT"));
+    private static final ImmutableBytesPtr BASE_KEY = new ImmutableBytesPtr(Bytes.toBytes("BASE"));
+
+    private Cache<ImmutableBytesPtr, PMetaDataEntity> metaDataCache;
+    private ResolvedMetaDataCache cache;
+
+    @Before
+    public void setUp() {
+        metaDataCache = CacheBuilder.newBuilder().build();
+        cache = new ResolvedMetaDataCache(1024 * 1024, 60000);
+    }
+
+    private static PTable table(String name, long timestamp) {
+        PTable table = mock(PTable.class);
+        when(table.getKey()).thenReturn(new PTableKey(null, name));
+        when(table.getName()).thenReturn(PNameFactory.newName(name));
+        when(table.getTimeStamp()).thenReturn(timestamp);
+        return table;
+    }
+
+    private List<Pair<ImmutableBytesPtr, Long>> cacheAncestors(long parentTimestamp,
+            long baseTimestamp) {
+        metaDataCache.put(PARENT_KEY, table("PARENT", parentTimestamp));
+        metaDataCache.put(BASE_KEY, table("BASE", baseTimestamp));
+        return Arrays.asList(new Pair<>(PARENT_KEY, parentTimestamp),
+                new Pair<>(BASE_KEY, baseTimestamp));
+    }
+
+    @Test
+    public void testResolvedViewReusedWhileUnchanged() {
+        PTable view = table("VIEW", 10);
+        PTable resolvedView = table("VIEW", 10);
+        cache.putResolvedView(view, cacheAncestors(5, 1), resolvedView);
+        assertSame(resolvedView, cache.getResolvedView(view, metaDataCache));
+        assertSame(resolvedView, cache.getResolvedView(table("VIEW", 10), metaDataCache));
+    }
+
+    @Test
+    public void testResolvedViewInvalidatedByViewChange() {
+        PTable view = table("VIEW", 10);
+        cache.putResolvedView(view, cacheAncestors(5, 1), table("VIEW", 10));
+        assertNull(cache.getResolvedView(table("VIEW", 11), metaDataCache));
+    }
+
+    @Test
+    public void testResolvedViewInvalidatedByAncestorChange() {
+        PTable view = table("VIEW", 10);
+        cache.putResolvedView(view, cacheAncestors(5, 1), table("VIEW", 10));
+        // DDL on the base table replaces its PTable in the server side cache
+        metaDataCache.put(BASE_KEY, table("BASE", 12));
+        assertNull(cache.getResolvedView(view, metaDataCache));
+        // the entry stays invalid even if the ancestor is back to the old timestamp
+        metaDataCache.put(BASE_KEY, table("BASE", 1));
+        assertNull(cache.getResolvedView(view, metaDataCache));
+    }
+
+    @Test
+    public void testResolvedViewInvalidatedByAncestorEviction() {
+        PTable view = table("VIEW", 10);
+        cache.putResolvedView(view, cacheAncestors(5, 1), table("VIEW", 10));
+        metaDataCache.invalidate(PARENT_KEY);
+        assertNull(cache.getResolvedView(view, metaDataCache));
+    }
+
+    @Test
+    public void testCacheBoundedByBytes() {
+        ResolvedMetaDataCache smallCache = new ResolvedMetaDataCache(64 * 1024, 60000);
+        PTable view = table("VIEW", 10);
+        PTable resolvedView = table("VIEW", 10);
+        when(resolvedView.getEstimatedSize()).thenReturn(1024 * 1024);
+        smallCache.putResolvedView(view, cacheAncestors(5, 1), resolvedView);
+        assertNull(smallCache.getResolvedView(view, metaDataCache));
+        // views of a usual size still fit
+        smallCache.putResolvedView(view, cacheAncestors(5, 1), table("VIEW", 10));
+        assertTrue(smallCache.getResolvedView(view, metaDataCache) != null);
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        PTable view = table("VIEW", 10);
+        cache.putResolvedView(view, cacheAncestors(5, 1), table("VIEW", 10));
+        cache.invalidateAll();
+        assertNull(cache.getResolvedView(view, metaDataCache));
+    }
+}
@@ -45,6 +45,8 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Properties;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
@@ -54,11 +56,15 @@ import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.expression.AndExpression;
+import org.apache.phoenix.expression.ComparisonExpression;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.expression.LikeExpression;
 import org.apache.phoenix.expression.LiteralExpression;
 import org.apache.phoenix.expression.RowKeyColumnExpression;
 import org.apache.phoenix.expression.function.SubstrFunction;
+import org.apache.phoenix.filter.BooleanExpressionFilter;
 import org.apache.phoenix.filter.RowKeyComparisonFilter;
 import org.apache.phoenix.filter.SkipScanFilter;
 import org.apache.phoenix.jdbc.PhoenixConnection;
@@ -66,6 +72,7 @@ import org.apache.phoenix.jdbc.PhoenixPreparedStatement;
 import org.apache.phoenix.query.BaseConnectionlessQueryTest;
 import org.apache.phoenix.query.KeyRange;
 import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.ColumnRef;
 import org.apache.phoenix.schema.PColumn;
 import org.apache.phoenix.schema.PTable;
@@ -80,6 +87,8 @@ import org.apache.phoenix.util.ByteUtil;
 import org.apache.phoenix.util.DateUtil;
 import org.apache.phoenix.util.NumberUtil;
 import org.apache.phoenix.util.PropertiesUtil;
+import org.apache.phoenix.util.QueryUtil;
+import org.apache.phoenix.util.ScanUtil;
 import org.apache.phoenix.util.SchemaUtil;
 import org.apache.phoenix.util.StringUtil;
 import org.apache.phoenix.util.TestUtil;
@@ -1026,4 +1035,63 @@ public class WhereCompilerTest extends BaseConnectionlessQueryTest {
         assertEquals(FETCH_SIZE, pstmt.getFetchSize());
         assertEquals(FETCH_SIZE, scan.getCaching());
     }
+
+    @Test
+    public void testEssentialColumnFamiliesForFilterOnSubsetOfFamilies() throws SQLException {
+        Properties props = PropertiesUtil.deepCopy(TEST_PROPERTIES);
+        props.setProperty(QueryServices.ON_DEMAND_COLUMN_FAMILY_LOADING_ENABLED_ATTRIB,
+                Boolean.TRUE.toString());
+        PhoenixConnection pconn = DriverManager.getConnection(getUrl(), props).unwrap(PhoenixConnection.class);
+        pconn.createStatement().execute("CREATE TABLE onDemandCF (k VARCHAR PRIMARY KEY, "
+                + "meta.status VARCHAR, payload.doc VARCHAR, payload.extra VARCHAR)");
+
+        String query = "SELECT payload.doc FROM onDemandCF WHERE meta.status = 'ok'";
+        QueryPlan plan = newPreparedStatement(pconn, query).optimizeQuery();
+        NavigableSet<byte[]> families = ScanUtil.getEssentialColumnFamilies(plan.getContext().getScan());
+        assertNotNull(families);
+        assertEquals(1, families.size());
+        assertArrayEquals(Bytes.toBytes("META"), families.first());
+        String explainPlan = QueryUtil.getExplainPlan(
+                pconn.createStatement().executeQuery("EXPLAIN " + query));
+        assertTrue(explainPlan, explainPlan.contains(
+                "SERVER LOAD OTHER COLUMN FAMILIES ON DEMAND, FILTER FAMILIES [META]"));
+
+        // Every family is needed by the filter, so nothing can be loaded on demand
+        query = "SELECT * FROM onDemandCF WHERE meta.status = 'ok' AND payload.extra = 'x'";
+        plan = newPreparedStatement(pconn, query).optimizeQuery();
+        assertNull(ScanUtil.getEssentialColumnFamilies(plan.getContext().getScan()));
+
+        // Disabled by default
+        pconn = DriverManager.getConnection(getUrl(), PropertiesUtil.deepCopy(TEST_PROPERTIES))
+                .unwrap(PhoenixConnection.class);
+        query = "SELECT payload.doc FROM onDemandCF WHERE meta.status = 'ok'";
+        plan = newPreparedStatement(pconn, query).optimizeQuery();
+        assertNull(ScanUtil.getEssentialColumnFamilies(plan.getContext().getScan()));
+    }
+
+    @Test
+    public void testPredicateReordering() throws SQLException {
+        String query = "select * from atable where a_string like '%foo%' and a_integer = 0"
+                + " and entity_id like '%bar%'";
+        Properties props = PropertiesUtil.deepCopy(TEST_PROPERTIES);
+        props.setProperty(QueryServices.PREDICATE_REORDERING_ENABLED_ATTRIB, Boolean.TRUE.toString());
+        PhoenixConnection pconn = DriverManager.getConnection(getUrl(), props).unwrap(PhoenixConnection.class);
+        QueryPlan plan = newPreparedStatement(pconn, query).optimizeQuery();
+        Expression where = ((BooleanExpressionFilter) plan.getContext().getScan().getFilter()).getExpression();
+        assertTrue(where instanceof AndExpression);
+        List<Expression> children = where.getChildren();
+        assertEquals(3, children.size());
+        // Row key predicate first, then the cheap equality and the LIKE on a cell last
+        assertTrue(children.get(0) instanceof LikeExpression);
+        assertTrue(children.get(0).toString(), children.get(0).toString().contains("ENTITY_ID"));
+        assertTrue(children.get(1) instanceof ComparisonExpression);
+        assertTrue(children.get(2) instanceof LikeExpression);
+
+        pconn = DriverManager.getConnection(getUrl(), PropertiesUtil.deepCopy(TEST_PROPERTIES))
+                .unwrap(PhoenixConnection.class);
+        plan = newPreparedStatement(pconn, query).optimizeQuery();
+        where = ((BooleanExpressionFilter) plan.getContext().getScan().getFilter()).getExpression();
+        assertTrue(where.getChildren().get(0) instanceof LikeExpression);
+        assertTrue(where.getChildren().get(1) instanceof ComparisonExpression);
+    }
 }
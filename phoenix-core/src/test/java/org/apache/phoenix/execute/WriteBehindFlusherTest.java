@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.execute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class WriteBehindFlusherTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static MutationState recordingBatch(final List<MutationState> sent) throws SQLException {
+        final MutationState batch = mock(MutationState.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                sent.add(batch);
+                return null;
+            }
+        }).when(batch).send();
+        return batch;
+    }
+
+    @Test
+    public void testBatchesSentInOrder() throws Exception {
+        List<MutationState> sent = Collections.synchronizedList(new ArrayList<MutationState>());
+        WriteBehindFlusher flusher = new WriteBehindFlusher(executor, 1000);
+        List<MutationState> batches = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            MutationState batch = recordingBatch(sent);
+            batches.add(batch);
+            flusher.awaitCapacity(10);
+            flusher.submit(batch, 10);
+        }
+        assertEquals(batches, flusher.awaitCompletion());
+        assertEquals(batches, sent);
+        assertFalse(flusher.hasFailed());
+        flusher.throwIfFailed();
+    }
+
+    @Test
+    public void testAwaitCapacityBlocksUntilSent() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        MutationState slow = mock(MutationState.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return null;
+            }
+        }).when(slow).send();
+        final WriteBehindFlusher flusher = new WriteBehindFlusher(executor, 100);
+        flusher.submit(slow, 80);
+
+        final CountDownLatch admitted = new CountDownLatch(1);
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flusher.awaitCapacity(50);
+                    admitted.countDown();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        assertFalse(admitted.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(admitted.await(10, TimeUnit.SECONDS));
+        flusher.awaitCompletion();
+    }
+
+    @Test
+    public void testFailureDropsPendingBatchesAndIsThrownOnce() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        MutationState failing = mock(MutationState.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                throw new SQLException("flush failed");
+            }
+        }).when(failing).send();
+        MutationState next = mock(MutationState.class);
+
+        WriteBehindFlusher flusher = new WriteBehindFlusher(executor, 1000);
+        flusher.submit(failing, 10);
+        flusher.submit(next, 10);
+        release.countDown();
+        flusher.awaitCompletion();
+        verify(next, never()).send();
+        assertTrue(flusher.hasFailed());
+        try {
+            flusher.throwIfFailed();
+            fail("Expected the write-behind failure to be thrown");
+        } catch (SQLException e) {
+            assertEquals("flush failed", e.getMessage());
+        }
+        assertFalse(flusher.hasFailed());
+        flusher.throwIfFailed();
+    }
+
+    @Test
+    public void testRejectedBatchIsSentByCaller() throws Exception {
+        ThreadPoolExecutor full = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>());
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            full.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            List<MutationState> sent = Collections.synchronizedList(new ArrayList<MutationState>());
+            MutationState batch = recordingBatch(sent);
+            WriteBehindFlusher flusher = new WriteBehindFlusher(full, 1000);
+            flusher.submit(batch, 10);
+            // sent before submit returned
+            assertEquals(Collections.singletonList(batch), sent);
+            assertEquals(Collections.singletonList(batch), flusher.awaitCompletion());
+            release.countDown();
+        } finally {
+            full.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDiscardForgetsFailure() throws Exception {
+        MutationState failing = mock(MutationState.class);
+        doThrow(new SQLException("flush failed")).when(failing).send();
+        WriteBehindFlusher flusher = new WriteBehindFlusher(executor, 1000);
+        flusher.submit(failing, 10);
+        flusher.discard();
+        assertFalse(flusher.hasFailed());
+        flusher.throwIfFailed();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.execute.visitor;
+
+import static org.apache.phoenix.util.TestUtil.ATABLE_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.junit.Test;
+
+public class RuntimeProfileVisitorTest extends BaseConnectionlessQueryTest {
+
+    private static List<String> getExplainSteps(ResultSet rs) throws Exception {
+        List<String> steps = new ArrayList<>();
+        while (rs.next()) {
+            steps.add(rs.getString(1));
+        }
+        return steps;
+    }
+
+    @Test
+    public void testRuntimeSteps() throws Exception {
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            List<String> steps = getExplainSteps(conn.createStatement()
+                    .executeQuery("EXPLAIN ANALYZE SELECT 1 UNION ALL SELECT 2"));
+            int runtimeStep = -1;
+            for (int i = 0; i < steps.size(); i++) {
+                if (steps.get(i).startsWith("RUNTIME: ")) {
+                    runtimeStep = i;
+                }
+            }
+            assertTrue(steps.toString(), runtimeStep >= 0);
+            assertTrue(steps.get(runtimeStep),
+                    steps.get(runtimeStep).startsWith("RUNTIME: 2 ROWS IN "));
+            assertTrue(steps.get(runtimeStep),
+                    steps.get(runtimeStep).contains(", FIRST ROW AFTER "));
+            List<String> profile = steps.subList(runtimeStep + 1, steps.size());
+            assertEquals(3, profile.size());
+            // each step gives the rows returned by its iterator
+            assertTrue(profile.get(0), profile.get(0).startsWith("UNION ALL 2 ROWS IN "));
+            assertTrue(profile.get(1), profile.get(1).startsWith("    LITERAL 1 ROWS IN "));
+            assertTrue(profile.get(2), profile.get(2).startsWith("    LITERAL 1 ROWS IN "));
+        }
+    }
+
+    @Test
+    public void testExplainWithoutAnalyzeHasNoRuntimeSteps() throws Exception {
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            for (String step : getExplainSteps(conn.createStatement()
+                    .executeQuery("EXPLAIN SELECT 1 UNION ALL SELECT 2"))) {
+                assertFalse(step, step.startsWith("RUNTIME: "));
+            }
+        }
+    }
+
+    @Test
+    public void testPreparedExplainAnalyzeDescribedWithoutRunning() throws Exception {
+        try (Connection conn = DriverManager.getConnection(getUrl())) {
+            // running a scan fails without a server, so describing the statement must not run it
+            PreparedStatement stmt =
+                    conn.prepareStatement("EXPLAIN ANALYZE SELECT * FROM " + ATABLE_NAME);
+            assertEquals(0, stmt.getParameterMetaData().getParameterCount());
+            assertTrue(stmt.getMetaData().getColumnCount() > 0);
+        }
+    }
+}
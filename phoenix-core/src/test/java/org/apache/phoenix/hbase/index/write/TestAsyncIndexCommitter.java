@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.hbase.index.write;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+import org.apache.hadoop.hbase.Stoppable;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.AdvancedScanResultConsumer;
+import org.apache.hadoop.hbase.client.AsyncConnection;
+import org.apache.hadoop.hbase.client.AsyncTable;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.regionserver.Region;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.VersionInfo;
+import org.apache.phoenix.hbase.index.exception.MultiIndexWriteFailureException;
+import org.apache.phoenix.hbase.index.table.HTableInterfaceReference;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.util.ScanUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.ArrayListMultimap;
+import org.apache.phoenix.thirdparty.com.google.common.collect.Multimap;
+
+public class TestAsyncIndexCommitter {
+
+  private final byte[] row = Bytes.toBytes("row");
+  private RegionCoprocessorEnvironment env;
+  private AsyncConnection connection;
+  private Stoppable stop;
+
+  @Before
+  public void setup() {
+    env = Mockito.mock(RegionCoprocessorEnvironment.class);
+    Region mockRegion = Mockito.mock(Region.class);
+    Mockito.when(env.getRegion()).thenReturn(mockRegion);
+    TableDescriptor mockTableDesc = Mockito.mock(TableDescriptor.class);
+    Mockito.when(mockTableDesc.getTableName()).thenReturn(TableName.valueOf("data"));
+    Mockito.when(mockRegion.getTableDescriptor()).thenReturn(mockTableDesc);
+    Mockito.when(env.getConnection()).thenReturn(Mockito.mock(Connection.class));
+    Mockito.when(env.getConfiguration()).thenReturn(new Configuration());
+    connection = Mockito.mock(AsyncConnection.class);
+    stop = Mockito.mock(Stoppable.class);
+  }
+
+  @SuppressWarnings("unchecked")
+  private AsyncTable<AdvancedScanResultConsumer> mockTable(String name,
+      CompletableFuture<List<Object>> result) {
+    AsyncTable<AdvancedScanResultConsumer> table = Mockito.mock(AsyncTable.class);
+    Mockito.when(table.batchAll(Mockito.anyList())).thenReturn(result);
+    Mockito.when(connection.getTable(TableName.valueOf(name))).thenReturn(table);
+    return table;
+  }
+
+  private Multimap<HTableInterfaceReference, Mutation> updatesFor(String... tableNames) {
+    Multimap<HTableInterfaceReference, Mutation> indexUpdates = ArrayListMultimap.create();
+    for (String tableName : tableNames) {
+      Put m = new Put(row);
+      m.addColumn(Bytes.toBytes("family"), Bytes.toBytes("qual"), null);
+      indexUpdates.put(
+          new HTableInterfaceReference(new ImmutableBytesPtr(Bytes.toBytes(tableName))), m);
+    }
+    return indexUpdates;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testWritesAllIndexTables() throws Exception {
+    AsyncTable<AdvancedScanResultConsumer> index1 =
+        mockTable("index1", CompletableFuture.completedFuture((List<Object>) null));
+    AsyncTable<AdvancedScanResultConsumer> index2 =
+        mockTable("index2", CompletableFuture.completedFuture((List<Object>) null));
+
+    AsyncIndexCommitter writer = new AsyncIndexCommitter(VersionInfo.getVersion());
+    writer.setup(connection, connection, stop, env);
+    writer.write(updatesFor("index1", "index2"), true, ScanUtil.UNKNOWN_CLIENT_VERSION);
+    Mockito.verify(index1).batchAll(Mockito.anyList());
+    Mockito.verify(index2).batchAll(Mockito.anyList());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testReportsEveryFailedTable() throws Exception {
+    CompletableFuture<List<Object>> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IOException("index write failed"));
+    AsyncTable<AdvancedScanResultConsumer> index1 = mockTable("index1", failed);
+    mockTable("index2", CompletableFuture.completedFuture((List<Object>) null));
+
+    AsyncIndexCommitter writer = new AsyncIndexCommitter(VersionInfo.getVersion());
+    writer.setup(connection, connection, stop, env);
+    writer.disableIndexOnFailure = true;
+    try {
+      writer.write(updatesFor("index1", "index2"), true, ScanUtil.UNKNOWN_CLIENT_VERSION);
+      fail("Expected the index write failure to be propagated");
+    } catch (MultiIndexWriteFailureException e) {
+      assertEquals(1, e.getFailedTables().size());
+      assertEquals("index1", e.getFailedTables().get(0).getTableName());
+    }
+    Mockito.verify(index1).batchAll(Mockito.anyList());
+  }
+
+  @Test
+  public void testPropagatesTheCauseOfTheFailure() throws Exception {
+    IOException cause = new IOException("index write failed");
+    CompletableFuture<List<Object>> failed = new CompletableFuture<>();
+    failed.completeExceptionally(cause);
+    mockTable("index1", failed);
+
+    AsyncIndexCommitter writer = new AsyncIndexCommitter(VersionInfo.getVersion());
+    writer.setup(connection, connection, stop, env);
+    writer.disableIndexOnFailure = false;
+    try {
+      writer.write(updatesFor("index1"), true, ScanUtil.UNKNOWN_CLIENT_VERSION);
+      fail("Expected the index write failure to be propagated");
+    } catch (DoNotRetryIOException e) {
+      MultiIndexWriteFailureException failure = (MultiIndexWriteFailureException) e.getCause();
+      assertEquals(1, failure.getFailedTables().size());
+      assertSame(cause, failure.getCause());
+    }
+  }
+
+  @Test
+  public void testSkipsLocalUpdatesWhenNotAllowed() throws Exception {
+    AsyncIndexCommitter writer = new AsyncIndexCommitter(VersionInfo.getVersion());
+    writer.setup(connection, connection, stop, env);
+    writer.write(updatesFor("data"), false, ScanUtil.UNKNOWN_CLIENT_VERSION);
+    Mockito.verifyZeroInteractions(connection);
+    writer.stop("test finished");
+    assertFalse(writer.isStopped());
+  }
+}
@@ -17,10 +17,12 @@
  */
 package org.apache.phoenix.index;
 
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.phoenix.thirdparty.org.apache.commons.cli.CommandLine;
 import org.apache.phoenix.end2end.IndexToolIT;
 import org.apache.phoenix.mapreduce.index.IndexScrutinyTool;
 import org.apache.phoenix.mapreduce.index.IndexTool;
+import org.apache.phoenix.mapreduce.index.PhoenixIndexToolJobCounters;
 import org.apache.phoenix.query.BaseTest;
 import org.apache.phoenix.schema.PTable;
 import org.apache.phoenix.util.EnvironmentEdgeManager;
@@ -37,6 +39,8 @@ import static org.apache.phoenix.mapreduce.index.IndexTool.FEATURE_NOT_APPLICABL
 import static org.apache.phoenix.mapreduce.index.IndexTool.INVALID_TIME_RANGE_EXCEPTION_MESSAGE;
 import static org.apache.phoenix.mapreduce.index.IndexTool.RETRY_VERIFY_NOT_APPLICABLE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 public class IndexToolTest extends BaseTest {
@@ -366,4 +370,48 @@ public class IndexToolTest extends BaseTest {
         assertEquals(IndexScrutinyTool.SourceTable.INDEX_TABLE_SOURCE, it.getSourceTable());
     }
 
+    @Test
+    public void testHFileBuildRequiresForeground() {
+        String[] args = { "-s", schema, "-dt", dataTable, "-it", indexTable, "-hf" };
+        exceptionRule.expect(IllegalStateException.class);
+        it.parseOptions(args);
+    }
+
+    @Test
+    public void testHFileBuildSupportsVerifyAfter() {
+        String[] args = { "-s", schema, "-dt", dataTable, "-it", indexTable, "-hf", "-runfg",
+            "-v", IndexTool.IndexVerifyType.AFTER.getValue() };
+        it.parseOptions(args);
+    }
+
+    @Test
+    public void testHFileBuildRejectsVerifyBefore() {
+        String[] args = { "-s", schema, "-dt", dataTable, "-it", indexTable, "-hf", "-runfg",
+            "-v", IndexTool.IndexVerifyType.BEFORE.getValue() };
+        exceptionRule.expect(IllegalStateException.class);
+        it.parseOptions(args);
+    }
+
+    @Test
+    public void testHFileBuildVerificationFailsOnInvalidRows() {
+        Counters counters = new Counters();
+        counters.findCounter(PhoenixIndexToolJobCounters.BEFORE_REBUILD_VALID_INDEX_ROW_COUNT)
+            .setValue(10);
+        counters.findCounter(
+            PhoenixIndexToolJobCounters.BEFORE_REBUILD_BEYOND_MAXLOOKBACK_INVALID_INDEX_ROW_COUNT)
+            .setValue(1);
+        assertFalse(IndexTool.isVerificationFailed(counters));
+        counters.findCounter(PhoenixIndexToolJobCounters.BEFORE_REBUILD_INVALID_INDEX_ROW_COUNT)
+            .setValue(1);
+        assertTrue(IndexTool.isVerificationFailed(counters));
+    }
+
+    @Test
+    public void testHFileBuildVerificationFailsOnMissingRows() {
+        Counters counters = new Counters();
+        counters.findCounter(PhoenixIndexToolJobCounters.BEFORE_REBUILD_MISSING_INDEX_ROW_COUNT)
+            .setValue(1);
+        assertTrue(IndexTool.isVerificationFailed(counters));
+    }
+
 }
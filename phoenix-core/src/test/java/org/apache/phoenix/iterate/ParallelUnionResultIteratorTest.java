@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN;
+import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN_FAMILY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.AssertResults;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelUnionResultIteratorTest {
+    private final static byte[] A = Bytes.toBytes("a");
+    private final static byte[] B = Bytes.toBytes("b");
+    private final static byte[] C = Bytes.toBytes("c");
+    private final static byte[] D = Bytes.toBytes("d");
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static Tuple tuple(byte[] row, int value) {
+        return new SingleKeyValueTuple(
+                new KeyValue(row, SINGLE_COLUMN_FAMILY, SINGLE_COLUMN, Bytes.toBytes(value)));
+    }
+
+    @Test
+    public void testAllBranchesReturned() throws Throwable {
+        List<PeekingResultIterator> branches = Arrays.<PeekingResultIterator>asList(
+                new MaterializedResultIterator(Arrays.asList(tuple(A, 1))),
+                new MaterializedResultIterator(Arrays.<Tuple>asList()),
+                new MaterializedResultIterator(Arrays.asList(tuple(B, 2), tuple(C, 3))),
+                new MaterializedResultIterator(Arrays.asList(tuple(D, 4))));
+        Tuple[] expectedResults = new Tuple[] {
+                tuple(A, 1), tuple(B, 2), tuple(C, 3), tuple(D, 4) };
+
+        // Queue smaller than the results so that branch tasks have to wait on the consumer
+        ResultIterator scanner = new ParallelUnionResultIterator(
+                new MaterializedResultIterators(branches), executor, 1);
+        AssertResults.assertUnorderedResults(scanner, expectedResults);
+    }
+
+    @Test
+    public void testBranchFailureIsRethrown() throws Throwable {
+        PeekingResultIterator failing = new MaterializedResultIterator(Arrays.asList(tuple(A, 1))) {
+            @Override
+            public Tuple next() throws SQLException {
+                throw new SQLException("branch failed");
+            }
+        };
+        List<PeekingResultIterator> branches = Arrays.<PeekingResultIterator>asList(
+                failing, new MaterializedResultIterator(Arrays.asList(tuple(B, 2))));
+        ResultIterator scanner = new ParallelUnionResultIterator(
+                new MaterializedResultIterators(branches), executor, 10);
+        try {
+            while (scanner.next() != null) {
+            }
+            fail("Expected branch failure to be rethrown");
+        } catch (SQLException e) {
+            assertEquals("branch failed", e.getMessage());
+        } finally {
+            scanner.close();
+        }
+    }
+
+    @Test
+    public void testCloseBeforeExhausted() throws Throwable {
+        List<Tuple> many = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            many.add(tuple(Bytes.toBytes(i), i));
+        }
+        final boolean[] closed = new boolean[1];
+        ResultIterators iterators = new MaterializedResultIterators(
+                Arrays.<PeekingResultIterator>asList(new MaterializedResultIterator(many),
+                        new MaterializedResultIterator(many))) {
+            @Override
+            public void close() throws SQLException {
+                closed[0] = true;
+            }
+        };
+        ParallelUnionResultIterator scanner =
+                new ParallelUnionResultIterator(iterators, executor, 2);
+        assertNotNull(scanner.next());
+        assertEquals(2, scanner.getNumberOfBranches());
+        scanner.close();
+        assertTrue(closed[0]);
+        assertNull(scanner.next());
+    }
+
+    @Test
+    public void testRejectedBranchFailsTheUnion() throws Throwable {
+        List<Tuple> many = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            many.add(tuple(Bytes.toBytes(i), i));
+        }
+        final boolean[] closed = new boolean[1];
+        ResultIterators iterators = new MaterializedResultIterators(
+                Arrays.<PeekingResultIterator>asList(new MaterializedResultIterator(many),
+                        new MaterializedResultIterator(many))) {
+            @Override
+            public void close() throws SQLException {
+                closed[0] = true;
+            }
+        };
+        // the first branch keeps the only thread busy, so the second one is rejected
+        ExecutorService singleThreadExecutor = new ThreadPoolExecutor(1, 1, 0,
+                TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>());
+        try {
+            ResultIterator scanner =
+                    new ParallelUnionResultIterator(iterators, singleThreadExecutor, 1);
+            try {
+                scanner.next();
+                fail("Expected the rejected branch to fail the union");
+            } catch (SQLException e) {
+                assertTrue(e.toString(), e.getCause() instanceof RejectedExecutionException);
+            }
+            try {
+                scanner.next();
+                fail("Expected the failure to be rethrown");
+            } catch (SQLException e) {
+                assertTrue(e.toString(), e.getCause() instanceof RejectedExecutionException);
+            }
+            scanner.close();
+            assertTrue(closed[0]);
+        } finally {
+            singleThreadExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RegionServerScanLimiterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testInterleaveIsRoundRobinOverServers() {
+        List<String> items = Arrays.asList("a1", "a2", "a3", "b1", "c1", "c2");
+        List<String> servers = Arrays.asList("a", "a", "a", "b", "c", "c");
+        List<String> interleaved = RegionServerScanLimiter.interleave(items, servers);
+        assertEquals(items.size(), interleaved.size());
+        // the first round has a scan of each server, then the remaining servers take turns
+        List<Character> firstRound = new ArrayList<>();
+        for (String item : interleaved.subList(0, 3)) {
+            firstRound.add(item.charAt(0));
+        }
+        assertTrue(firstRound.containsAll(Arrays.asList('a', 'b', 'c')));
+        assertEquals("a3", interleaved.get(5));
+        // the scans of a server keep their order
+        assertTrue(interleaved.indexOf("a1") < interleaved.indexOf("a2"));
+        assertTrue(interleaved.indexOf("c1") < interleaved.indexOf("c2"));
+    }
+
+    @Test
+    public void testScansOfAServerAreLimited() throws Exception {
+        final RegionServerScanLimiter limiter = new RegionServerScanLimiter(executor, 2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        List<Future<PeekingResultIterator>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(limiter.submit("server", new Callable<PeekingResultIterator>() {
+                @Override
+                public PeekingResultIterator call() throws Exception {
+                    try {
+                        int now = running.incrementAndGet();
+                        maxRunning.accumulateAndGet(now, Math::max);
+                        release.await();
+                        running.decrementAndGet();
+                        return PeekingResultIterator.EMPTY_ITERATOR;
+                    } finally {
+                        limiter.scanCompleted("server");
+                    }
+                }
+            }));
+        }
+        try {
+            futures.get(5).get(50, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (TimeoutException expected) {
+        }
+        assertFalse(futures.get(5).isDone());
+        release.countDown();
+        for (Future<PeekingResultIterator> future : futures) {
+            assertEquals(PeekingResultIterator.EMPTY_ITERATOR, future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testCancelledScanIsNotSubmitted() throws Exception {
+        final RegionServerScanLimiter limiter = new RegionServerScanLimiter(executor, 1);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<PeekingResultIterator> task = new Callable<PeekingResultIterator>() {
+            @Override
+            public PeekingResultIterator call() throws Exception {
+                try {
+                    calls.incrementAndGet();
+                    release.await();
+                    return PeekingResultIterator.EMPTY_ITERATOR;
+                } finally {
+                    limiter.scanCompleted("server");
+                }
+            }
+        };
+        Future<PeekingResultIterator> first = limiter.submit("server", task);
+        Future<PeekingResultIterator> second = limiter.submit("server", task);
+        Future<PeekingResultIterator> third = limiter.submit("server", task);
+        assertTrue(second.cancel(false));
+        assertTrue(second.isCancelled());
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        third.get(10, TimeUnit.SECONDS);
+        assertEquals(2, calls.get());
+    }
+}
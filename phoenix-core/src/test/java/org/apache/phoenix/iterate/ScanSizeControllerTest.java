@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
+import org.apache.phoenix.iterate.ScanSizeController.RowStats;
+import org.apache.phoenix.log.LogLevel;
+import org.apache.phoenix.monitoring.ReadMetricQueue;
+import org.apache.phoenix.monitoring.ScanMetricsHolder;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.Test;
+
+public class ScanSizeControllerTest {
+
+    private static final long TARGET_BYTES = 1024 * 1024;
+
+    @Test
+    public void testDisabledByDefault() {
+        assertNull(ScanSizeController.getInstance(ReadOnlyProps.EMPTY_PROPS, "T", 100));
+        assertNotNull(ScanSizeController.getInstance(new ReadOnlyProps(Collections.singletonMap(
+                QueryServices.ADAPTIVE_SCAN_SIZE_ENABLED_ATTRIB, "true")), "T", 100));
+    }
+
+    @Test
+    public void testCachingFollowsRowWidth() {
+        ScanSizeController controller = new ScanSizeController("T", TARGET_BYTES, 1000, 10000, 1024);
+        // estimated width until a scan completed
+        assertEquals(1024, controller.getCaching(null, 1000));
+        // wide rows
+        assertEquals(10, controller.getCaching(new RowStats(1024 * 1024, 0), 1000));
+        // narrow rows
+        assertEquals(10000, controller.getCaching(new RowStats(10, 0), 1000));
+        // unknown width
+        assertEquals(1000, new ScanSizeController("T", TARGET_BYTES, 1000, 10000, 0)
+                .getCaching(null, 1000));
+    }
+
+    @Test
+    public void testCachingBoundedByRpcTime() {
+        ScanSizeController controller = new ScanSizeController("T", TARGET_BYTES, 1000, 10000, 1024);
+        // 10ms per row
+        assertEquals(100, controller.getCaching(new RowStats(100, 10000000), 1000));
+    }
+
+    @Test
+    public void testObservationsAreSmoothed() {
+        String tableName = "ScanSizeControllerTest.testObservationsAreSmoothed";
+        ScanSizeController controller = new ScanSizeController(tableName, TARGET_BYTES, 1000,
+                10000, 1024);
+        Result result = Result.create(Collections.singletonList(new KeyValue(Bytes.toBytes("row"),
+                Bytes.toBytes("f"), Bytes.toBytes("q"), new byte[100])));
+        controller.rowFetched(result, 1000);
+        controller.scanCompleted();
+        // too few rows to tell
+        assertNull(ScanSizeController.getRowStats(tableName));
+        for (int i = 1; i < 64; i++) {
+            controller.rowFetched(result, 1000);
+        }
+        controller.scanCompleted();
+        RowStats stats = ScanSizeController.getRowStats(tableName);
+        assertEquals(Result.getTotalSizeOfCells(result), stats.bytesPerRow, 0.001);
+        assertEquals(1000, stats.nanosPerRow, 0.001);
+
+        ScanSizeController.observe(tableName, stats.bytesPerRow * 2, 2000);
+        stats = ScanSizeController.getRowStats(tableName);
+        assertEquals(Result.getTotalSizeOfCells(result) * 1.2, stats.bytesPerRow, 0.001);
+        assertEquals(1200, stats.nanosPerRow, 0.001);
+    }
+
+    @Test
+    public void testAggregateScansAreNotObserved() {
+        String tableName = "ScanSizeControllerTest.testAggregateScansAreNotObserved";
+        ScanSizeController controller = new ScanSizeController(tableName, TARGET_BYTES, 1000,
+                10000, 1024);
+        Scan scan = new Scan();
+        scan.setAttribute(BaseScannerRegionObserver.AGGREGATORS, new byte[0]);
+        controller.sizeScan(scan, ScanMetricsHolder.getInstance(
+                new ReadMetricQueue(false, LogLevel.OFF), tableName, scan, LogLevel.OFF));
+        Result result = Result.create(Collections.singletonList(new KeyValue(Bytes.toBytes("row"),
+                Bytes.toBytes("f"), Bytes.toBytes("q"), new byte[100])));
+        for (int i = 0; i < 64; i++) {
+            controller.rowFetched(result, 1000);
+        }
+        controller.scanCompleted();
+        // the aggregated rows say nothing about the rows of the table
+        assertNull(ScanSizeController.getRowStats(tableName));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.SQLException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.schema.PNameFactory;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableType;
+import org.junit.Test;
+
+public class SnapshotTableResultIteratorFactoryTest {
+
+    private static PTable table(String physicalName, PTableType type) {
+        PTable table = mock(PTable.class);
+        when(table.getName()).thenReturn(PNameFactory.newName(physicalName));
+        when(table.getPhysicalName()).thenReturn(PNameFactory.newName(physicalName));
+        when(table.getType()).thenReturn(type);
+        return table;
+    }
+
+    private static SnapshotTableResultIteratorFactory factory(Path restoreDir) throws Exception {
+        Configuration conf = new Configuration(false);
+        return new SnapshotTableResultIteratorFactory(conf, "SNAP", TableName.valueOf("NS:T"),
+                FileSystem.getLocal(conf), restoreDir);
+    }
+
+    @Test
+    public void testOnlyTheSnapshotTableReadsTheSnapshot() throws Exception {
+        SnapshotTableResultIteratorFactory factory = factory(new Path("/unused"));
+        assertTrue(factory.readsSnapshot(table("NS:T", PTableType.TABLE)));
+        // views over the table of the snapshot read it too
+        assertTrue(factory.readsSnapshot(table("NS:T", PTableType.VIEW)));
+        assertFalse(factory.readsSnapshot(table("SYSTEM:CATALOG", PTableType.SYSTEM)));
+        try {
+            factory.readsSnapshot(table("NS:OTHER", PTableType.TABLE));
+            fail();
+        } catch (SQLException e) {
+            assertEquals(SQLExceptionCode.SNAPSHOT_QUERY_NOT_SUPPORTED.getErrorCode(),
+                    e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testRestoredSnapshotIsDeletedByTheLastConnection() throws Exception {
+        File restoreDir = Files.createTempDirectory("snapshot-restore").toFile();
+        SnapshotTableResultIteratorFactory factory =
+                factory(new Path(restoreDir.getAbsolutePath()));
+        // a derived connection
+        assertTrue(factory.retain());
+        factory.close();
+        assertTrue(restoreDir.exists());
+        factory.close();
+        assertFalse(restoreDir.exists());
+        assertFalse(factory.retain());
+    }
+}
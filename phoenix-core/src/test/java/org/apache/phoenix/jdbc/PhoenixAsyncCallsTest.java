@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.query.DelegateConnectionQueryServices;
+import org.junit.Test;
+
+/**
+ * Tests the asynchronous calls of connections, statements and result sets
+ */
+public class PhoenixAsyncCallsTest extends BaseConnectionlessQueryTest {
+
+    @Test
+    public void testAsyncCallsRunInOrderAndReportFailures() throws Exception {
+        PhoenixConnection connection = DriverManager.getConnection(getUrl(), new Properties())
+                .unwrap(PhoenixConnection.class);
+        PhoenixPreparedStatement stmt = connection.prepareStatement("DELETE FROM " + ATABLE)
+                .unwrap(PhoenixPreparedStatement.class);
+        CompletableFuture<PhoenixResultSet> query = stmt.executeQueryAsync();
+        CompletableFuture<Void> commit = connection.commitAsync();
+        // the commit still runs after the failed query
+        assertNull(commit.get(10, TimeUnit.SECONDS));
+        assertTrue(query.isDone());
+        try {
+            query.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(SQLExceptionCode.EXECUTE_QUERY_NOT_APPLICABLE.getErrorCode(),
+                    ((SQLException) e.getCause()).getErrorCode());
+        }
+    }
+
+    @Test
+    public void testExecuteQueryAsync() throws Exception {
+        PhoenixConnection connection = DriverManager.getConnection(getUrl(), new Properties())
+                .unwrap(PhoenixConnection.class);
+        PhoenixPreparedStatement stmt = connection.prepareStatement("SELECT 7")
+                .unwrap(PhoenixPreparedStatement.class);
+        PhoenixResultSet rs = stmt.executeQueryAsync().get(10, TimeUnit.SECONDS);
+        assertTrue(rs.next());
+        assertEquals(7, rs.getInt(1));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void testNextBatchAsync() throws Exception {
+        PhoenixConnection connection = DriverManager.getConnection(getUrl(), new Properties())
+                .unwrap(PhoenixConnection.class);
+        PhoenixResultSet rs = connection.createStatement()
+                .executeQuery("SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3")
+                .unwrap(PhoenixResultSet.class);
+        // the branches of the union may be read in any order
+        long sum = 0;
+        PhoenixColumnBatch batch = rs.nextBatchAsync(2).get(10, TimeUnit.SECONDS);
+        assertEquals(2, batch.size());
+        assertEquals(PhoenixColumnBatch.Kind.LONG, batch.getColumn(1).getKind());
+        sum += batch.getColumn(1).getLong(0) + batch.getColumn(1).getLong(1);
+        batch = rs.nextBatchAsync(2).get(10, TimeUnit.SECONDS);
+        assertEquals(1, batch.size());
+        sum += batch.getColumn(1).getLong(0);
+        assertEquals(6, sum);
+        assertEquals(0, rs.nextBatchAsync(2).get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void testRejectedCallFailsWithCompletionException() throws Exception {
+        PhoenixConnection connection = DriverManager.getConnection(getUrl(), new Properties())
+                .unwrap(PhoenixConnection.class);
+        final ThreadPoolExecutor rejectingExecutor = new ThreadPoolExecutor(1, 1, 0,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        rejectingExecutor.shutdown();
+        PhoenixConnection rejectingConnection = new PhoenixConnection(connection,
+                new DelegateConnectionQueryServices(connection.getQueryServices()) {
+                    @Override
+                    public ThreadPoolExecutor getAsyncExecutor() {
+                        return rejectingExecutor;
+                    }
+                }, new Properties());
+        CompletableFuture<Void> commit = rejectingConnection.commitAsync();
+        // the future holds the CompletionException itself, not only when joined
+        Throwable failure = commit.handle((result, e) -> e).get(10, TimeUnit.SECONDS);
+        assertTrue(String.valueOf(failure), failure instanceof CompletionException);
+        assertTrue(String.valueOf(failure.getCause()),
+                failure.getCause() instanceof RejectedExecutionException);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Arrays;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.ExpressionProjector;
+import org.apache.phoenix.compile.RowProjector;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.jdbc.PhoenixColumnBatch.ColumnVector;
+import org.apache.phoenix.jdbc.PhoenixColumnBatch.Kind;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.tuple.ResultTuple;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PDate;
+import org.apache.phoenix.schema.types.PDecimal;
+import org.apache.phoenix.schema.types.PDouble;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.junit.Test;
+
+public class PhoenixColumnBatchTest {
+
+    private static ExpressionProjector projector(Expression expression) {
+        return new ExpressionProjector("C", "T", expression, false);
+    }
+
+    @Test
+    public void testColumnsAreDecodedIntoVectors() throws Exception {
+        RowProjector rowProjector = new RowProjector(Arrays.asList(
+                projector(LiteralExpression.newConstant(7, PInteger.INSTANCE)),
+                projector(LiteralExpression.newConstant(2.5, PDouble.INSTANCE)),
+                projector(LiteralExpression.newConstant(true, PBoolean.INSTANCE)),
+                projector(LiteralExpression.newConstant("abc", PVarchar.INSTANCE, SortOrder.DESC)),
+                projector(LiteralExpression.newConstant(null, PVarchar.INSTANCE)),
+                projector(LiteralExpression.newConstant(new Date(1000), PDate.INSTANCE)),
+                projector(LiteralExpression.newConstant(new BigDecimal("1.5"), PDecimal.INSTANCE))),
+                0, false);
+        PhoenixColumnBatch batch = new PhoenixColumnBatch(rowProjector);
+        batch.reset(70);
+        for (int i = 0; i < 70; i++) {
+            batch.addRow(ResultTuple.EMPTY_TUPLE);
+        }
+        assertEquals(70, batch.size());
+        assertEquals(7, batch.getColumnCount());
+
+        ColumnVector ints = batch.getColumn(1);
+        assertEquals(Kind.LONG, ints.getKind());
+        assertEquals(7, ints.getLong(69));
+        assertFalse(ints.isNull(69));
+        assertEquals(2.5, batch.getColumn(2).getDouble(0), 0);
+        assertTrue(batch.getColumn(3).getBoolean(0));
+
+        ColumnVector strings = batch.getColumn(4);
+        assertEquals(Kind.BYTES, strings.getKind());
+        assertEquals(3, strings.getOffset(1));
+        assertEquals("abc", Bytes.toString(strings.getBytes(), strings.getOffset(1),
+                strings.getLength(1)));
+
+        ColumnVector nulls = batch.getColumn(5);
+        assertTrue(nulls.isNull(0));
+        assertTrue(nulls.isNull(69));
+        assertEquals(0, nulls.getLength(69));
+
+        assertEquals(1000, batch.getColumn(6).getLong(0));
+        ColumnVector decimals = batch.getColumn(7);
+        assertEquals(new BigDecimal("1.5"), PDecimal.INSTANCE.toObject(decimals.getBytes(),
+                decimals.getOffset(0), decimals.getLength(0)));
+
+        // the vectors are reused
+        long[] longs = ints.getLongs();
+        batch.reset(10);
+        batch.addRow(ResultTuple.EMPTY_TUPLE);
+        assertEquals(1, batch.size());
+        assertSame(longs, batch.getColumn(1).getLongs());
+        assertFalse(batch.getColumn(1).isNull(1));
+    }
+}
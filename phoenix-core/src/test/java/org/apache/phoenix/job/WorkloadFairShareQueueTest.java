@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.phoenix.job.JobManager.JobCallable;
+import org.apache.phoenix.job.JobManager.JobFutureTask;
+import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
+import org.junit.Test;
+
+public class WorkloadFairShareQueueTest {
+
+    private static JobFutureTask<Void> task(final String workloadClass, final Object jobId) {
+        return new JobFutureTask<Void>(callable(workloadClass, jobId, false, () -> null));
+    }
+
+    private static <T> JobCallable<T> callable(final String workloadClass, final Object jobId,
+            final boolean waitsForTasks, final Callable<T> call) {
+        return new JobCallable<T>() {
+            @Override
+            public T call() throws Exception {
+                return call.call();
+            }
+
+            @Override
+            public Object getJobId() {
+                return jobId;
+            }
+
+            @Override
+            public TaskExecutionMetricsHolder getTaskExecutionMetric() {
+                return TaskExecutionMetricsHolder.NO_OP_INSTANCE;
+            }
+
+            @Override
+            public String getWorkloadClass() {
+                return workloadClass;
+            }
+
+            @Override
+            public boolean waitsForTasks() {
+                return waitsForTasks;
+            }
+        };
+    }
+
+    private static String workloadClassOf(Runnable task) {
+        return ((JobFutureTask<?>) task).getWorkloadClass();
+    }
+
+    @Test
+    public void testClassesShareByWeight() {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("api", 3);
+        WorkloadFairShareQueue queue = new WorkloadFairShareQueue(100, weights,
+                Collections.<String, Integer> emptyMap(), 0);
+        // a report with many scans queued before a few api queries
+        for (int i = 0; i < 20; i++) {
+            assertTrue(queue.offer(task("reports", "report")));
+        }
+        for (int i = 0; i < 6; i++) {
+            assertTrue(queue.offer(task("api", "query" + i)));
+        }
+        int apiTasks = 0;
+        for (int i = 0; i < 8; i++) {
+            Runnable task = queue.poll();
+            queue.afterExecute(task);
+            if ("api".equals(workloadClassOf(task))) {
+                apiTasks++;
+            }
+        }
+        assertEquals(6, apiTasks);
+        assertEquals(18, queue.size());
+    }
+
+    @Test
+    public void testMaxConcurrencyHoldsTasksBack() {
+        WorkloadFairShareQueue queue = new WorkloadFairShareQueue(100,
+                Collections.<String, Integer> emptyMap(),
+                Collections.singletonMap("reports", 2), 0);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(task("reports", "report"));
+        }
+        Runnable first = queue.poll();
+        assertTrue(queue.poll() != null);
+        // the class runs as many tasks as allowed
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+        assertEquals(Integer.valueOf(2), queue.getRunningTasks().get("reports"));
+
+        // other classes still go ahead
+        Runnable other = task(null, "query");
+        queue.offer(other);
+        assertSame(other, queue.poll());
+
+        queue.afterExecute(first);
+        assertTrue(queue.poll() != null);
+        assertEquals(1, queue.size());
+
+        List<Runnable> drained = new ArrayList<>();
+        assertEquals(1, queue.drainTo(drained));
+        assertEquals(0, queue.size());
+        assertEquals(Long.valueOf(3), queue.getExecutedTasks().get("reports"));
+    }
+
+    @Test
+    public void testTasksWaitingForTasksAreNotCapped() {
+        WorkloadFairShareQueue queue = new WorkloadFairShareQueue(100,
+                Collections.<String, Integer> emptyMap(),
+                Collections.singletonMap("reports", 1), 0);
+        Runnable parent = new JobFutureTask<Void>(callable("reports", "join", true, () -> null));
+        queue.offer(parent);
+        assertSame(parent, queue.poll());
+        assertEquals(Integer.valueOf(0), queue.getRunningTasks().get("reports"));
+        // the scans of the parent run although it hasn't completed
+        queue.offer(task("reports", "join"));
+        queue.offer(task("reports", "join"));
+        Runnable scan = queue.poll();
+        assertTrue(scan != null);
+        assertNull(queue.poll());
+        queue.afterExecute(scan);
+        assertTrue(queue.poll() != null);
+        queue.afterExecute(parent);
+    }
+
+    @Test
+    public void testNestedSubmissionCompletesWithMaxConcurrencyOfOne() throws Exception {
+        ThreadPoolExecutor executor = JobManager.createThreadPoolExec(60000, 3,
+                new WorkloadFairShareQueue(100, Collections.<String, Integer> emptyMap(),
+                        Collections.<String, Integer> emptyMap(), 1), false);
+        try {
+            // as a hash join does, each parent task waits for a scan it submits to the pool, which
+            // has a thread left for the scans
+            List<Future<Integer>> parents = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                final int value = i;
+                parents.add(executor.submit(callable("reports", "join" + i, true,
+                        () -> executor.submit(callable("reports", "join" + value, false,
+                                () -> value)).get())));
+            }
+            for (int i = 0; i < 2; i++) {
+                assertEquals(Integer.valueOf(i), parents.get(i).get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIdleClassesAreDropped() {
+        WorkloadFairShareQueue queue = new WorkloadFairShareQueue(100,
+                Collections.singletonMap("reports", 2),
+                Collections.<String, Integer> emptyMap(), 0);
+        Runnable report = task("reports", "report");
+        queue.offer(report);
+        Runnable tenantTask = task("tenant", "query");
+        queue.offer(tenantTask);
+        Runnable first = queue.poll();
+        Runnable second = queue.poll();
+        assertEquals(Integer.valueOf(1), queue.getRunningTasks().get("tenant"));
+        queue.afterExecute(first);
+        queue.afterExecute(second);
+        // the tenant is forgotten once idle, the configured class is kept
+        assertFalse(queue.getExecutedTasks().containsKey("tenant"));
+        assertEquals(Long.valueOf(1), queue.getExecutedTasks().get("reports"));
+
+        queue.offer(task("tenant", "query"));
+        assertTrue(queue.remove(queue.peek()));
+        assertFalse(queue.getQueuedTasks().containsKey("tenant"));
+    }
+
+    @Test
+    public void testMBeanIsUnregisteredOnShutdown() throws Exception {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("Hadoop:service=Phoenix,name=WorkloadFairShare-*");
+        Set<ObjectName> before = mbeanServer.queryNames(pattern, null);
+        ThreadPoolExecutor executor = JobManager.createThreadPoolExec(60000, 1,
+                new WorkloadFairShareQueue(100, Collections.<String, Integer> emptyMap(),
+                        Collections.<String, Integer> emptyMap(), 0), false);
+        assertEquals(before.size() + 1, mbeanServer.queryNames(pattern, null).size());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(before, mbeanServer.queryNames(pattern, null));
+    }
+
+    @Test
+    public void testJobsOfAClassAreRoundRobin() {
+        WorkloadFairShareQueue queue = new WorkloadFairShareQueue(100,
+                Collections.<String, Integer> emptyMap(),
+                Collections.<String, Integer> emptyMap(), 0);
+        queue.offer(task("tenant", "job1"));
+        queue.offer(task("tenant", "job1"));
+        Runnable job2 = task("tenant", "job2");
+        queue.offer(job2);
+        // new jobs go first
+        assertSame(job2, queue.poll());
+        assertFalse(queue.isEmpty());
+        assertTrue(queue.remove(queue.peek()));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testParseClassValues() {
+        Map<String, Integer> values = WorkloadFairShareQueue.parseClassValues(" a:1, b:c:4");
+        assertEquals(Integer.valueOf(1), values.get("a"));
+        assertEquals(Integer.valueOf(4), values.get("b:c"));
+        assertTrue(WorkloadFairShareQueue.parseClassValues("").isEmpty());
+    }
+}
@@ -20,6 +20,8 @@ package org.apache.phoenix.mapreduce;
 import java.util.Arrays;
 import java.util.Collection;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.MRConfig;
 import org.apache.phoenix.thirdparty.org.apache.commons.cli.CommandLine;
 import org.apache.phoenix.util.SchemaUtil;
 import org.junit.Test;
@@ -27,6 +29,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(Parameterized.class)
 public class BulkLoadToolTest {
@@ -67,6 +70,37 @@ public class BulkLoadToolTest {
         bulkLoadTool.parseOptions(new String[] { "--input", "/input" });
     }
 
+    @Test
+    public void testParseOptions_Local() {
+        CommandLine cmdLine = bulkLoadTool.parseOptions(new String[] { "--input", "/input",
+                "--table", "mytable", "--local", "--local-threads", "4" });
+
+        assertTrue(cmdLine.hasOption(AbstractBulkLoadTool.LOCAL_OPT.getOpt()));
+        assertEquals("4", cmdLine.getOptionValue(AbstractBulkLoadTool.LOCAL_THREADS_OPT.getOpt()));
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testParseOptions_LocalThreadsWithoutLocal() {
+        bulkLoadTool.parseOptions(new String[] { "--input", "/input",
+                "--table", "mytable", "--local-threads", "4" });
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testParseOptions_InvalidLocalThreads() {
+        bulkLoadTool.parseOptions(new String[] { "--input", "/input",
+                "--table", "mytable", "--local", "--local-threads", "0" });
+    }
+
+    @Test
+    public void testConfigureLocalJob() {
+        Configuration conf = new Configuration(false);
+        AbstractBulkLoadTool.configureLocalJob(conf, 4);
+
+        assertEquals(MRConfig.LOCAL_FRAMEWORK_NAME, conf.get(MRConfig.FRAMEWORK_NAME));
+        assertEquals(4, conf.getInt(AbstractBulkLoadTool.LOCAL_MAX_MAPS_CONFKEY, 1));
+        assertEquals(4, conf.getInt(AbstractBulkLoadTool.LOCAL_MAX_REDUCES_CONFKEY, 1));
+    }
+
     @Test
     public void testGetQualifiedTableName() {
         assertEquals("MYSCHEMA.MYTABLE", SchemaUtil.getQualifiedTableName("mySchema", "myTable"));
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
+import org.apache.phoenix.mapreduce.PhoenixSplitPlanner.ScanEstimate;
+import org.apache.phoenix.schema.types.PDataType;
+import org.junit.Test;
+
+public class PhoenixSplitPlannerTest {
+
+    private static Scan scan(String startRow, String stopRow) {
+        return new Scan().withStartRow(Bytes.toBytes(startRow)).withStopRow(Bytes.toBytes(stopRow));
+    }
+
+    @Test
+    public void testEstimateScanBytes() {
+        List<byte[]> guidePosts = Arrays.asList(Bytes.toBytes("b"), Bytes.toBytes("c"),
+                Bytes.toBytes("d"), Bytes.toBytes("x"));
+        long[] guidePostBytes = { 10, 20, 30, 40 };
+        // scans of the region [a, f) following the guideposts
+        List<Scan> scans = Arrays.asList(scan("a", "b"), scan("b", "d"), scan("d", "e"),
+                scan("e", "f"));
+        assertArrayEquals(new long[] { 10, 50, 20, 20 },
+                PhoenixSplitPlanner.estimateScanBytes(scans, 100, guidePosts, guidePostBytes));
+        // without guideposts the scans share the size of the region
+        assertArrayEquals(new long[] { 25, 25, 25, 25 },
+                PhoenixSplitPlanner.estimateScanBytes(scans, 100, new ArrayList<>(), null));
+    }
+
+    @Test
+    public void testSmallScansAreCoalescedPerServer() throws Exception {
+        List<ScanEstimate> scans = Arrays.asList(
+                new ScanEstimate(scan("a", "b"), "rs1", 10),
+                new ScanEstimate(scan("b", "c"), "rs1", 10),
+                new ScanEstimate(scan("c", "d"), "rs2", 10),
+                new ScanEstimate(scan("d", "e"), "rs1", 10),
+                new ScanEstimate(scan("e", "f"), "rs1", 10));
+        List<PhoenixInputSplit> splits = PhoenixSplitPlanner.planSplits(scans, 25);
+        assertEquals(3, splits.size());
+        // round robin over the servers
+        assertSplit(splits.get(0), "rs1", 20, 2);
+        assertSplit(splits.get(1), "rs2", 10, 1);
+        assertSplit(splits.get(2), "rs1", 20, 2);
+    }
+
+    @Test
+    public void testLargeScansAreSubdivided() throws Exception {
+        List<ScanEstimate> scans = Arrays.asList(
+                new ScanEstimate(scan("a", "q"), "rs1", 100),
+                new ScanEstimate(new Scan().withStartRow(Bytes.toBytes("q")), "rs2", 10));
+        List<PhoenixInputSplit> splits = PhoenixSplitPlanner.planSplits(scans, 25);
+        assertEquals(5, splits.size());
+        byte[] previousStopRow = Bytes.toBytes("a");
+        for (PhoenixInputSplit split : splits) {
+            if (split.getLocations()[0].equals("rs1")) {
+                assertSplit(split, "rs1", 25, 1);
+                Scan subScan = split.getScans().get(0);
+                assertArrayEquals(previousStopRow, subScan.getStartRow());
+                previousStopRow = subScan.getStopRow();
+            }
+        }
+        assertArrayEquals(Bytes.toBytes("q"), previousStopRow);
+    }
+
+    @Test
+    public void testLocalIndexScanIsNotSubdivided() throws IOException {
+        Scan localIndexScan = scan("a", "q");
+        localIndexScan.setAttribute(BaseScannerRegionObserver.LOCAL_INDEX, PDataType.TRUE_BYTES);
+        ScanEstimate scan = new ScanEstimate(localIndexScan, "rs1", 100);
+        assertEquals(1, PhoenixSplitPlanner.subdivide(scan, 25).size());
+    }
+
+    private static void assertSplit(PhoenixInputSplit split, String location, long length,
+            int scanCount) throws Exception {
+        assertEquals(location, split.getLocations()[0]);
+        assertEquals(length, split.getLength());
+        assertEquals(scanCount, split.getScans().size());
+        assertTrue(split.getKeyRange() != null);
+    }
+}
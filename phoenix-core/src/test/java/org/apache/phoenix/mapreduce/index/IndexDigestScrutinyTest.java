@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce.index;
+
+import static org.apache.phoenix.query.QueryConstants.UNVERIFIED_BYTES;
+import static org.apache.phoenix.query.QueryConstants.VERIFIED_BYTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.coprocessor.IndexDigestEndpoint;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.BucketDigest;
+import org.apache.phoenix.coprocessor.generated.IndexDigestProtos.IndexDigestResponse;
+import org.apache.phoenix.util.ByteUtil;
+import org.junit.Test;
+
+public class IndexDigestScrutinyTest {
+
+    private static final byte[] FAMILY = Bytes.toBytes("0");
+    private static final byte[] EMPTY_QUALIFIER = Bytes.toBytes("_0");
+    private static final byte[] ROW = Bytes.toBytes("row");
+
+    private static Cell cell(String qualifier, byte[] value, long ts) {
+        return new KeyValue(ROW, FAMILY, Bytes.toBytes(qualifier), ts, value);
+    }
+
+    private static Cell emptyColumn(byte[] value, long ts) {
+        return new KeyValue(ROW, FAMILY, EMPTY_QUALIFIER, ts, value);
+    }
+
+    @Test
+    public void testGetBucket() {
+        List<byte[]> startKeys = Arrays.asList(Bytes.toBytes("b"), Bytes.toBytes("d"));
+        assertEquals(0, IndexDigestEndpoint.getBucket(startKeys, ByteUtil.EMPTY_BYTE_ARRAY));
+        assertEquals(0, IndexDigestEndpoint.getBucket(startKeys, Bytes.toBytes("a")));
+        assertEquals(1, IndexDigestEndpoint.getBucket(startKeys, Bytes.toBytes("b")));
+        assertEquals(1, IndexDigestEndpoint.getBucket(startKeys, Bytes.toBytes("c")));
+        assertEquals(2, IndexDigestEndpoint.getBucket(startKeys, Bytes.toBytes("d")));
+        assertEquals(2, IndexDigestEndpoint.getBucket(startKeys, Bytes.toBytes("z")));
+    }
+
+    @Test
+    public void testBucketStartKeysDivideRegions() {
+        byte[][] startKeys = { ByteUtil.EMPTY_BYTE_ARRAY, Bytes.toBytes("m") };
+        byte[][] endKeys = { Bytes.toBytes("m"), ByteUtil.EMPTY_BYTE_ARRAY };
+        assertEquals(1, IndexDigestScrutiny.getBucketStartKeys(startKeys, endKeys, 1).size());
+
+        List<byte[]> bucketStartKeys =
+                IndexDigestScrutiny.getBucketStartKeys(startKeys, endKeys, 4);
+        assertEquals(7, bucketStartKeys.size());
+        for (int i = 1; i < bucketStartKeys.size(); i++) {
+            assertTrue(Bytes.compareTo(bucketStartKeys.get(i - 1), bucketStartKeys.get(i)) < 0);
+        }
+        assertTrue(bucketStartKeys.stream().anyMatch(key -> Bytes.equals(key, endKeys[0])));
+    }
+
+    @Test
+    public void testRowHashIgnoresTimestampsOrderAndEmptyColumn() {
+        Long hash = IndexDigestEndpoint.hashIndexRow(ROW,
+                Arrays.asList(emptyColumn(VERIFIED_BYTES, 1), cell("A", Bytes.toBytes(1), 1),
+                        cell("B", Bytes.toBytes(2), 1)),
+                FAMILY, EMPTY_QUALIFIER);
+        assertEquals(hash, IndexDigestEndpoint.hashIndexRow(ROW,
+                Arrays.asList(cell("B", Bytes.toBytes(2), 5), cell("A", Bytes.toBytes(1), 7),
+                        cell("C", ByteUtil.EMPTY_BYTE_ARRAY, 7), emptyColumn(VERIFIED_BYTES, 7)),
+                FAMILY, EMPTY_QUALIFIER));
+        assertNotEquals(hash, IndexDigestEndpoint.hashIndexRow(ROW,
+                Arrays.asList(cell("A", Bytes.toBytes(1), 1), cell("B", Bytes.toBytes(3), 1)),
+                FAMILY, EMPTY_QUALIFIER));
+        assertNull(IndexDigestEndpoint.hashIndexRow(ROW,
+                Collections.singletonList(emptyColumn(UNVERIFIED_BYTES, 1)),
+                FAMILY, EMPTY_QUALIFIER));
+    }
+
+    private static IndexDigestResponse response(int bucket, long rowCount, long digest) {
+        return IndexDigestResponse.newBuilder().addBuckets(BucketDigest.newBuilder()
+                .setBucket(bucket).setRowCount(rowCount).setDigest(digest)).build();
+    }
+
+    @Test
+    public void testMismatchingBuckets() {
+        Map<Integer, long[]> expected = new HashMap<>();
+        // the rows of a bucket expected from two data table regions
+        assertEquals(2, IndexDigestScrutiny.addBucketDigests(response(0, 2, 10), expected));
+        IndexDigestScrutiny.addBucketDigests(response(0, 1, 5), expected);
+        IndexDigestScrutiny.addBucketDigests(response(1, 1, 7), expected);
+        IndexDigestScrutiny.addBucketDigests(response(2, 1, 9), expected);
+
+        Map<Integer, long[]> actual = new HashMap<>();
+        IndexDigestScrutiny.addBucketDigests(response(0, 3, 15), actual);
+        IndexDigestScrutiny.addBucketDigests(response(1, 1, 8), actual);
+        IndexDigestScrutiny.addBucketDigests(response(3, 1, 4), actual);
+
+        assertEquals(Arrays.asList(1, 2, 3),
+                IndexDigestScrutiny.getMismatchingBuckets(expected, actual));
+    }
+
+    @Test
+    public void testComparedBucketsAreBounded() {
+        Map<Integer, long[]> expected = new HashMap<>();
+        IndexDigestScrutiny.addBucketDigests(response(0, 4, 10), expected);
+        IndexDigestScrutiny.addBucketDigests(response(1, 3, 7), expected);
+        IndexDigestScrutiny.addBucketDigests(response(2, 1, 9), expected);
+        Map<Integer, long[]> actual = new HashMap<>();
+        IndexDigestScrutiny.addBucketDigests(response(0, 3, 8), actual);
+        IndexDigestScrutiny.addBucketDigests(response(2, 2, 4), actual);
+
+        List<Integer> mismatchingBuckets = Arrays.asList(0, 1, 2);
+        assertEquals(mismatchingBuckets, IndexDigestScrutiny.getComparedBuckets(
+                mismatchingBuckets, expected, actual, 13));
+        // the rows of the first two buckets add up to 10
+        assertEquals(Arrays.asList(0, 1), IndexDigestScrutiny.getComparedBuckets(
+                mismatchingBuckets, expected, actual, 12));
+        assertEquals(Collections.emptyList(), IndexDigestScrutiny.getComparedBuckets(
+                mismatchingBuckets, expected, actual, 6));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.util.ScanUtil;
+import org.junit.Test;
+
+public class ServerScanCostTest {
+
+    @Test
+    public void testCostIsRecordedOnlyWhileEntered() {
+        ServerScanCost cost = new ServerScanCost();
+        ServerScanCost.recordRowExamined();
+        assertFalse(ServerScanCost.isAccounting());
+
+        ServerScanCost previous = cost.enter();
+        try {
+            assertTrue(ServerScanCost.isAccounting());
+            ServerScanCost.recordRowExamined();
+            ServerScanCost.recordRowFiltered();
+            ServerScanCost.recordMemoryReserved(100, 5);
+            ServerScanCost.recordSpill(1000);
+        } finally {
+            cost.exit(previous);
+        }
+        assertFalse(ServerScanCost.isAccounting());
+        ServerScanCost.recordRowFiltered();
+
+        assertEquals(2, cost.getRowsExamined());
+        assertEquals(1, cost.getRowsFiltered());
+        assertEquals(100, cost.getMemoryReservedBytes());
+        assertEquals(5, cost.getMemoryWaitNanos());
+        assertEquals(1000, cost.getSpillBytes());
+    }
+
+    @Test
+    public void testCostRoundTripsThroughResult() {
+        ServerScanCost cost = new ServerScanCost(1, 2, 3, 4, 5, 6);
+        List<Cell> cells = new ArrayList<>();
+        cost.addCell(Bytes.toBytes("row"), cells);
+        Result result = Result.create(cells);
+        assertTrue(ServerScanCost.isScanCost(result));
+        assertFalse(ScanUtil.isDummy(result));
+
+        ServerScanCost decoded = ServerScanCost.fromResult(result);
+        assertEquals(1, decoded.getCpuTimeNanos());
+        assertEquals(2, decoded.getRowsExamined());
+        assertEquals(3, decoded.getRowsFiltered());
+        assertEquals(4, decoded.getMemoryReservedBytes());
+        assertEquals(5, decoded.getSpillBytes());
+        assertEquals(6, decoded.getMemoryWaitNanos());
+    }
+
+    @Test
+    public void testDummyResultIsNotScanCost() {
+        List<Cell> cells = new ArrayList<>();
+        ScanUtil.getDummyResult(cells);
+        assertFalse(ServerScanCost.isScanCost(Result.create(cells)));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class StatementDigestRegistryTest {
+
+    @Test
+    public void testStatisticsAreAggregatedPerDigest() {
+        StatementDigestRegistry registry = new StatementDigestRegistry(100);
+        for (int i = 1; i <= 100; i++) {
+            registry.recordExecution("d1", "SELECT ?", i, 10, 100, 2, i % 10 == 0);
+        }
+        registry.recordExecution("d2", "SELECT ? FROM t", 10000, 1, 1, 1, false);
+
+        List<StatementDigestStatistics> statistics = registry.getStatistics();
+        assertEquals(2, statistics.size());
+        // by descending total time
+        assertEquals("d2", statistics.get(0).getDigest());
+        StatementDigestStatistics stats = statistics.get(1);
+        assertEquals("SELECT ?", stats.getStatement());
+        assertEquals(100, stats.getExecutionCount());
+        assertEquals(10, stats.getErrorCount());
+        assertEquals(5050, stats.getTotalTimeMs());
+        assertEquals(1000, stats.getRowsScanned());
+        assertEquals(10000, stats.getBytesRead());
+        assertEquals(200, stats.getParallelScans());
+        assertTrue(Math.abs(stats.getMedianTimeMs() - 50) <= 1);
+        assertTrue(stats.getMaxTimeMs() >= 99 && stats.getMaxTimeMs() <= 101);
+    }
+
+    @Test
+    public void testLeastRecentlyExecutedDigestsAreEvicted() {
+        StatementDigestRegistry registry = new StatementDigestRegistry(32);
+        for (int i = 0; i < 1000; i++) {
+            registry.recordExecution("d" + i, "SELECT " + i, 1, 0, 0, 0, false);
+        }
+        assertTrue(registry.getSize() <= 32);
+        registry.clear();
+        assertEquals(0, registry.getSize());
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.phoenix.parse;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -927,4 +928,16 @@ public class QueryParserTest {
         parseQueryThatShouldFail("SHOW CREATE TABLE 'foo'");
 
     }
+
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        ExplainStatement stmt = (ExplainStatement) new SQLParser(
+                "EXPLAIN ANALYZE SELECT a FROM t WHERE b = 1").parseStatement();
+        assertTrue(stmt.isAnalyze());
+        assertTrue(stmt.getStatement() instanceof SelectStatement);
+        stmt = (ExplainStatement) new SQLParser("explain select a from t").parseStatement();
+        assertFalse(stmt.isAnalyze());
+
+        parseQueryThatShouldFail("EXPLAIN ANALYSE SELECT a FROM t");
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StatementDigestRewriterTest {
+
+    private static String normalize(String sql) throws Exception {
+        return StatementDigestRewriter.normalize(new SQLParser(sql).parseQuery());
+    }
+
+    private static String digest(String sql) throws Exception {
+        return StatementDigestRewriter.getDigest(normalize(sql));
+    }
+
+    @Test
+    public void testConstantsAreRemoved() throws Exception {
+        String normalized = normalize("SELECT a, 'x' FROM t WHERE b = 5 AND c LIKE 'foo%'");
+        assertFalse(normalized, normalized.contains("5"));
+        assertFalse(normalized, normalized.contains("foo"));
+        assertFalse(normalized, normalized.contains("'x'"));
+        assertEquals(digest("SELECT a, 'x' FROM t WHERE b = 5 AND c LIKE 'foo%'"),
+                digest("SELECT a, 'y' FROM t WHERE b = ? AND c LIKE 'bar%'"));
+    }
+
+    @Test
+    public void testInListsOfAnyLengthShareTheirDigest() throws Exception {
+        assertEquals(digest("SELECT a FROM t WHERE b IN (1, 2, 3)"),
+                digest("SELECT a FROM t WHERE b IN (?)"));
+        assertEquals(digest("SELECT a FROM t WHERE b NOT IN (1)"),
+                digest("SELECT a FROM t WHERE b NOT IN (4, 5)"));
+        assertNotEquals(digest("SELECT a FROM t WHERE b IN (1)"),
+                digest("SELECT a FROM t WHERE b NOT IN (1)"));
+    }
+
+    @Test
+    public void testLimitOffsetAndSubqueries() throws Exception {
+        assertEquals(digest("SELECT a FROM t LIMIT 10 OFFSET 20"),
+                digest("SELECT a FROM t LIMIT 5 OFFSET 1"));
+        assertEquals(
+                digest("SELECT a FROM (SELECT a FROM t WHERE b > 1) s WHERE a IN "
+                        + "(SELECT c FROM u WHERE d = 'x')"),
+                digest("SELECT a FROM (SELECT a FROM t WHERE b > 2) s WHERE a IN "
+                        + "(SELECT c FROM u WHERE d = 'y')"));
+        assertEquals(digest("SELECT a FROM t WHERE b = 1 UNION ALL SELECT a FROM u"),
+                digest("SELECT a FROM t WHERE b = 2 UNION ALL SELECT a FROM u"));
+    }
+
+    @Test
+    public void testShapeIsKept() throws Exception {
+        assertNotEquals(digest("SELECT a FROM t WHERE b = 1"),
+                digest("SELECT a FROM t WHERE c = 1"));
+        assertNotEquals(digest("SELECT a FROM t WHERE b = 1"),
+                digest("SELECT a FROM u WHERE b = 1"));
+        assertTrue(normalize("SELECT count(*) FROM t").contains("*"));
+    }
+
+    @Test
+    public void testShowStatementStatistics() throws Exception {
+        BindableStatement stmt = new SQLParser("SHOW STATEMENT STATISTICS").parseStatement();
+        assertTrue(stmt instanceof ShowStatementStatisticsStatement);
+        assertEquals("SHOW STATEMENT STATISTICS", stmt.toString());
+    }
+}
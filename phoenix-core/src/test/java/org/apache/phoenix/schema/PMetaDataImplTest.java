@@ -211,6 +211,30 @@ public class PMetaDataImplTest {
         assertEquals(2, metaData.getAge(aTableRef));
     }
 
+    @Test
+    public void testCloneDivergesIndependently() throws Exception {
+        TestTimeKeeper timeKeeper = new TestTimeKeeper();
+        Map<String, String> props = Maps.newHashMapWithExpectedSize(2);
+        props.put(QueryServices.MAX_CLIENT_METADATA_CACHE_SIZE_ATTRIB, "10");
+        props.put(QueryServices.CLIENT_CACHE_ENCODING, "object");
+        PMetaData metaData = new PMetaDataImpl(5, timeKeeper,  new ReadOnlyProps(props));
+        addToTable(metaData, "a", 2, timeKeeper);
+        addToTable(metaData, "b", 2, timeKeeper);
+
+        PMetaData clone = metaData.clone();
+        assertNames(clone, "a", "b");
+        addToTable(clone, "c", 2, timeKeeper);
+        removeFromTable(clone, "a", timeKeeper);
+        addToTable(metaData, "d", 2, timeKeeper);
+        assertNames(metaData, "a", "b", "d");
+        assertNames(clone, "b", "c");
+
+        // Eviction on the clone doesn't affect the original
+        addToTable(clone, "e", 7, timeKeeper);
+        assertNames(clone, "c", "e");
+        assertNames(metaData, "a", "b", "d");
+    }
+
     @Test
     public void testSchema() throws Exception {
         TestTimeKeeper timeKeeper = new TestTimeKeeper();
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema;
+
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.CACHE_SIZE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.CYCLE_FLAG_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.INCREMENT_BY_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.LIMIT_REACHED_FLAG_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.MAX_VALUE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.MIN_VALUE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.SYSTEM_SEQUENCE_FAMILY_BYTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparatorImpl;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Append;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.phoenix.coprocessor.SequenceRegionObserver;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.Sequence.ValueOp;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PLong;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+import org.junit.Test;
+
+public class SequenceTest {
+
+    private static final SequenceKey KEY = new SequenceKey(null, "S", "SEQ",
+            QueryServicesOptions.DEFAULT_SEQUENCE_TABLE_SALT_BUCKETS);
+    private static final long CACHE_SIZE = 10;
+    private static final float THRESHOLD = 0.5f;
+
+    private static Cell cell(byte[] qualifier, byte[] value) {
+        return PhoenixKeyValueUtil.newKeyValue(KEY.getKey(), SYSTEM_SEQUENCE_FAMILY_BYTES,
+                qualifier, 1, value);
+    }
+
+    /**
+     * @return the result of the increment allocating the block of values before nextValue
+     */
+    private static Result block(long nextValue) {
+        List<Cell> cells = new ArrayList<>();
+        cells.add(cell(CURRENT_VALUE_BYTES, PLong.INSTANCE.toBytes(nextValue)));
+        cells.add(cell(INCREMENT_BY_BYTES, PLong.INSTANCE.toBytes(1L)));
+        cells.add(cell(CACHE_SIZE_BYTES, PLong.INSTANCE.toBytes(CACHE_SIZE)));
+        cells.add(cell(MIN_VALUE_BYTES, PLong.INSTANCE.toBytes(Long.MIN_VALUE)));
+        cells.add(cell(MAX_VALUE_BYTES, PLong.INSTANCE.toBytes(Long.MAX_VALUE)));
+        cells.add(cell(CYCLE_FLAG_BYTES, PBoolean.INSTANCE.toBytes(false)));
+        cells.add(cell(LIMIT_REACHED_FLAG_BYTES, PBoolean.INSTANCE.toBytes(false)));
+        Collections.sort(cells, CellComparatorImpl.COMPARATOR);
+        return Result.create(cells);
+    }
+
+    private static long next(Sequence sequence) throws SQLException {
+        return sequence.incrementValue(HConstants.LATEST_TIMESTAMP, ValueOp.INCREMENT_SEQUENCE, 1);
+    }
+
+    private static boolean shouldPrefetch(Sequence sequence) {
+        return sequence.shouldPrefetch(HConstants.LATEST_TIMESTAMP, ValueOp.INCREMENT_SEQUENCE, 1,
+                THRESHOLD);
+    }
+
+    private static void assertCacheEmpty(Sequence sequence) throws SQLException {
+        try {
+            next(sequence);
+            fail();
+        } catch (EmptySequenceCacheException e) {
+            // the caller increments the sequence itself
+        }
+    }
+
+    private static long getLong(byte[] bytes) {
+        return PLong.INSTANCE.getCodec().decodeLong(bytes, 0, SortOrder.getDefault());
+    }
+
+    /**
+     * Asserts that the return gives back the values from currentValue to nextValue
+     */
+    private static void assertReturn(Append append, long currentValue, long nextValue) {
+        assertEquals(nextValue,
+                getLong(append.getAttribute(SequenceRegionObserver.CURRENT_VALUE_ATTRIB)));
+        for (Cell cell : append.getFamilyCellMap().get(SYSTEM_SEQUENCE_FAMILY_BYTES)) {
+            if (CellUtil.matchingQualifier(cell, CURRENT_VALUE_BYTES)) {
+                assertEquals(currentValue, getLong(CellUtil.cloneValue(cell)));
+                return;
+            }
+        }
+        fail("No current value returned");
+    }
+
+    @Test
+    public void testPrefetchedBlockFollowsCurrentBlock() throws SQLException {
+        Sequence sequence = new Sequence(KEY);
+        assertEquals(1, sequence.incrementValue(block(11), ValueOp.INCREMENT_SEQUENCE, 1));
+        for (long value = 2; value <= 10; value++) {
+            assertEquals(value, next(sequence));
+            if (value == 4) {
+                assertFalse(shouldPrefetch(sequence));
+            } else if (value == 5) {
+                // half of the block is handed out
+                assertTrue(shouldPrefetch(sequence));
+                sequence.setPrefetch(CompletableFuture.completedFuture(block(21)));
+                assertFalse(shouldPrefetch(sequence));
+            }
+        }
+        // the values go on from the prefetched block, without a gap
+        for (long value = 11; value <= 20; value++) {
+            assertEquals(value, next(sequence));
+        }
+        assertCacheEmpty(sequence);
+    }
+
+    @Test
+    public void testFailedPrefetchFallsBackToIncrement() throws SQLException {
+        Sequence sequence = new Sequence(KEY);
+        assertEquals(1, sequence.incrementValue(block(11), ValueOp.INCREMENT_SEQUENCE, 1));
+        CompletableFuture<Result> failedPrefetch = new CompletableFuture<>();
+        failedPrefetch.completeExceptionally(new IOException("Region unavailable"));
+        for (long value = 2; value <= 10; value++) {
+            assertEquals(value, next(sequence));
+            if (value == 5) {
+                sequence.setPrefetch(failedPrefetch);
+            }
+        }
+        assertCacheEmpty(sequence);
+        // the caller increments the sequence synchronously, as if nothing was prefetched
+        assertEquals(11, sequence.incrementValue(block(21), ValueOp.INCREMENT_SEQUENCE, 1));
+        for (long value = 12; value <= 15; value++) {
+            assertEquals(value, next(sequence));
+        }
+        // and the next block is prefetched again
+        assertTrue(shouldPrefetch(sequence));
+    }
+
+    @Test
+    public void testUnusedValuesReturnedWithPrefetchedBlock() throws SQLException {
+        Sequence sequence = new Sequence(KEY);
+        assertEquals(1, sequence.incrementValue(block(11), ValueOp.INCREMENT_SEQUENCE, 1));
+        for (long value = 2; value <= 5; value++) {
+            assertEquals(value, next(sequence));
+        }
+        sequence.setPrefetch(CompletableFuture.completedFuture(block(21)));
+        // the unused values of the current block and the whole prefetched block go back
+        assertReturn(sequence.newReturn(HConstants.LATEST_TIMESTAMP), 6, 21);
+    }
+
+    @Test
+    public void testOnlyPrefetchedBlockReturnedWhenNotContiguous() throws SQLException {
+        Sequence sequence = new Sequence(KEY);
+        assertEquals(1, sequence.incrementValue(block(11), ValueOp.INCREMENT_SEQUENCE, 1));
+        for (long value = 2; value <= 5; value++) {
+            assertEquals(value, next(sequence));
+        }
+        // another client allocated the values from 11 to 20 before the prefetch
+        sequence.setPrefetch(CompletableFuture.completedFuture(block(31)));
+        List<Append> returns = sequence.newReturns();
+        assertEquals(1, returns.size());
+        assertReturn(returns.get(0), 21, 31);
+    }
+}
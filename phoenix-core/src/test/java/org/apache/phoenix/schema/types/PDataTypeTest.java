@@ -42,6 +42,7 @@ import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.query.KeyRange;
 import org.apache.phoenix.query.QueryConstants;
 import org.apache.phoenix.schema.ConstraintViolationException;
+import org.apache.phoenix.schema.IllegalDataException;
 import org.apache.phoenix.schema.SortOrder;
 import org.apache.phoenix.util.DateUtil;
 import org.apache.phoenix.util.ScanUtil;
@@ -1955,4 +1956,39 @@ public class PDataTypeTest {
         assertEquals(PVarchar.INSTANCE, PDataType.fromSqlTypeName("varchar"));
     }
 
+    @Test
+    public void testDecodePrimitives() {
+        for (SortOrder sortOrder : SortOrder.values()) {
+            byte[] b = PInteger.INSTANCE.toBytes(-42, sortOrder);
+            assertEquals(-42L, PInteger.INSTANCE.decodeLong(b, 0, b.length, sortOrder));
+            assertEquals(-42, PInteger.INSTANCE.decodeInt(b, 0, b.length, sortOrder));
+            assertEquals(-42.0, PInteger.INSTANCE.decodeDouble(b, 0, b.length, sortOrder), 0);
+
+            b = PDouble.INSTANCE.toBytes(1.5, sortOrder);
+            assertEquals(1.5f, PDouble.INSTANCE.decodeFloat(b, 0, b.length, sortOrder), 0);
+            assertEquals(1L, PDouble.INSTANCE.decodeLong(b, 0, b.length, sortOrder));
+
+            b = PDate.INSTANCE.toBytes(new Date(1000), sortOrder);
+            assertEquals(1000L, PDate.INSTANCE.decodeLong(b, 0, b.length, sortOrder));
+
+            // variable width types go through the object conversion
+            b = PDecimal.INSTANCE.toBytes(new BigDecimal("12"), sortOrder);
+            assertEquals(12L, PDecimal.INSTANCE.decodeLong(b, 0, b.length, sortOrder));
+            assertEquals((short) 12, PDecimal.INSTANCE.decodeShort(b, 0, b.length, sortOrder));
+            assertEquals((byte) 12, PDecimal.INSTANCE.decodeByte(b, 0, b.length, sortOrder));
+        }
+        byte[] b = PLong.INSTANCE.toBytes(Long.MAX_VALUE);
+        try {
+            PLong.INSTANCE.decodeInt(b, 0, b.length, SortOrder.ASC);
+            fail();
+        } catch (IllegalDataException expected) {
+        }
+        b = PVarchar.INSTANCE.toBytes("1");
+        try {
+            PVarchar.INSTANCE.decodeLong(b, 0, b.length, SortOrder.ASC);
+            fail();
+        } catch (ConstraintViolationException expected) {
+        }
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PersistentHashMapTest {
+
+    /**
+     * Key with a controllable hash code, to force collisions.
+     */
+    private static class Key {
+        private final int id;
+        private final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+    }
+
+    private static <K, V> void assertContent(Map<K, V> expected, PersistentHashMap<K, V> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<K, V> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()));
+        }
+        Map<K, V> iterated = new HashMap<>();
+        for (Map.Entry<K, V> entry : actual) {
+            assertNull(iterated.put(entry.getKey(), entry.getValue()));
+        }
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+        assertContent(expected, map);
+    }
+
+    @Test
+    public void testOlderVersionsAreUnchanged() {
+        PersistentHashMap<String, String> v1 = PersistentHashMap.<String, String>empty()
+                .put("a", "1").put("b", "2");
+        PersistentHashMap<String, String> v2 = v1.put("c", "3").remove("a").put("b", "4");
+        assertEquals(2, v1.size());
+        assertEquals("1", v1.get("a"));
+        assertEquals("2", v1.get("b"));
+        assertNull(v1.get("c"));
+        assertEquals(2, v2.size());
+        assertNull(v2.get("a"));
+        assertEquals("4", v2.get("b"));
+        assertEquals("3", v2.get("c"));
+    }
+
+    @Test
+    public void testNoOpUpdatesReturnSameMap() {
+        String value = "1";
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty()
+                .put("a", value);
+        assertSame(map, map.put("a", value));
+        assertSame(map, map.remove("b"));
+        assertTrue(map.remove("a").isEmpty());
+    }
+
+    @Test
+    public void testHashCollisions() {
+        Map<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 100; i++) {
+            // groups of ten keys share the same hash
+            Key key = new Key(i, i / 10);
+            expected.put(key, i);
+            map = map.put(key, i);
+        }
+        assertContent(expected, map);
+        for (int i = 0; i < 100; i += 3) {
+            Key key = new Key(i, i / 10);
+            expected.remove(key);
+            map = map.remove(key);
+        }
+        assertContent(expected, map);
+        assertNull(map.get(new Key(1000, 1)));
+    }
+}
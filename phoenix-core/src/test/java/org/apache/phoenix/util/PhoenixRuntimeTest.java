@@ -107,6 +107,14 @@ public class PhoenixRuntimeTest extends BaseConnectionlessQueryTest {
         assertTrue(execCmd.isStrict());
         assertEquals("!", execCmd.getArrayElementSeparator());
     }
+
+    @Test
+    public void testParseArguments_LoaderThreads() {
+        assertEquals(1, PhoenixRuntime.ExecutionCommand.parseArgs(
+                new String[] { "localhost", "test.csv" }).getLoaderThreads());
+        assertEquals(8, PhoenixRuntime.ExecutionCommand.parseArgs(
+                new String[] { "-p", "8", "localhost", "test.csv" }).getLoaderThreads());
+    }
     
     @Test
     public void testGetPkColsEncodeDecode() throws Exception {
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Test;
+
+public class CsvChunkReaderTest {
+
+    private static List<String> readChunks(String input, CSVFormat format, int minSize)
+            throws IOException {
+        CsvChunkReader reader = new CsvChunkReader(new StringReader(input), format);
+        List<String> chunks = new ArrayList<>();
+        String chunk;
+        while ((chunk = reader.nextChunk(minSize)) != null) {
+            chunks.add(chunk);
+        }
+        assertNull(reader.nextChunk(minSize));
+        return chunks;
+    }
+
+    private static List<List<String>> parse(List<String> chunks, CSVFormat format)
+            throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        for (String chunk : chunks) {
+            for (CSVRecord record : CSVParser.parse(chunk, format)) {
+                List<String> values = new ArrayList<>();
+                record.forEach(values::add);
+                records.add(values);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void testSplitsOnRecordBoundaries() throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.withIgnoreEmptyLines(true);
+        List<String> chunks = readChunks("a,1\nb,2\r\nc,3\n", format, 1);
+        assertEquals(4, chunks.size());
+        assertEquals("a,1\n", chunks.get(0));
+        assertEquals(parse(readChunks("a,1\nb,2\r\nc,3\n", format, 100), format),
+                parse(chunks, format));
+    }
+
+    @Test
+    public void testKeepsQuotedLineBreaksInRecord() throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.withIgnoreEmptyLines(true);
+        String input = "a,\"multi\nline \"\"quoted\"\"\nvalue\"\nb,2";
+        List<String> chunks = readChunks(input, format, 1);
+        assertEquals(2, chunks.size());
+        List<List<String>> records = parse(chunks, format);
+        assertEquals("multi\nline \"quoted\"\nvalue", records.get(0).get(1));
+        assertEquals("2", records.get(1).get(1));
+    }
+
+    @Test
+    public void testIgnoresEscapedQuotes() throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.withIgnoreEmptyLines(true).withEscape('\\');
+        List<String> chunks = readChunks("a,\\\"b\nc,d\n", format, 1);
+        assertEquals(2, chunks.size());
+        assertEquals("c,d\n", chunks.get(1));
+    }
+}
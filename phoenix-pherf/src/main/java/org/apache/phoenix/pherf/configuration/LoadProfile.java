@@ -32,6 +32,15 @@ public class LoadProfile {
     private int batchSize;
     // Holds the number of operations to be generated.
     private long numOperations;
+    /**
+     * Holds the rate at which operations are started, in operations per second.
+     * When set, the load runs open loop: operations are scheduled at this rate regardless of
+     * how long the previous ones take, and their latency is measured from their scheduled start
+     * time, so that queueing behind slow operations shows up in the latency percentiles.
+     * When zero (the default) the load runs closed loop, each handler starting an operation
+     * when done with the previous one.
+     */
+    private double targetOperationsPerSecond;
     /**
      * Holds the format to be used when generating tenantIds.
      * TenantId format should typically have 2 parts -
@@ -103,6 +112,14 @@ public class LoadProfile {
         this.numOperations = numOperations;
     }
 
+    public double getTargetOperationsPerSecond() {
+        return targetOperationsPerSecond;
+    }
+
+    public void setTargetOperationsPerSecond(double targetOperationsPerSecond) {
+        this.targetOperationsPerSecond = targetOperationsPerSecond;
+    }
+
     public List<TenantGroup> getTenantDistribution() {
         return tenantDistribution;
     }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.result;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the latency distribution of the operations of a multi tenant workload, per operation
+ * group and tenant as well as per operation group over all its tenants.
+ * The latencies are recorded from the time an operation was scheduled to start, so that in the
+ * open loop mode the time an operation waited behind slower ones is part of its latency.
+ */
+public class OperationLatencySummary {
+    public static final String ALL_TENANTS = "ALL";
+    private static final int SIGNIFICANT_VALUE_DIGITS = 3;
+    private static final double[] PERCENTILES = { 50, 99, 99.9 };
+
+    private final Map<List<String>, OperationLatency> latencies =
+            new ConcurrentSkipListMap<>((a, b) -> {
+                for (int i = 0; i < a.size(); i++) {
+                    int c = a.get(i).compareTo(b.get(i));
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return 0;
+            });
+
+    /**
+     * @param latencyInNanos time from the scheduled start to the end of the operation
+     * @param failed whether the operation failed
+     */
+    public void record(String scenarioName, String tableName, String operationGroup,
+            String tenantId, long latencyInNanos, boolean failed) {
+        long latencyInMicros = TimeUnit.NANOSECONDS.toMicros(Math.max(latencyInNanos, 0));
+        getLatency(scenarioName, tableName, operationGroup, tenantId)
+                .record(latencyInMicros, failed);
+        getLatency(scenarioName, tableName, operationGroup, ALL_TENANTS)
+                .record(latencyInMicros, failed);
+    }
+
+    private OperationLatency getLatency(String scenarioName, String tableName,
+            String operationGroup, String tenantId) {
+        return latencies.computeIfAbsent(
+                Arrays.asList(scenarioName, tableName, operationGroup, String.valueOf(tenantId)),
+                key -> new OperationLatency());
+    }
+
+    public boolean isEmpty() {
+        return latencies.isEmpty();
+    }
+
+    /**
+     * @return one row per operation group and tenant, in the order of
+     *         {@link org.apache.phoenix.pherf.result.file.Header#OPERATION_LATENCY}
+     */
+    public List<List<ResultValue>> getCsvRepresentation() {
+        List<List<ResultValue>> rows = new ArrayList<>();
+        for (Map.Entry<List<String>, OperationLatency> entry : latencies.entrySet()) {
+            List<ResultValue> rowValues = new ArrayList<>();
+            for (String keyPart : entry.getKey()) {
+                rowValues.add(new ResultValue(keyPart));
+            }
+            rowValues.addAll(entry.getValue().getCsvRepresentation());
+            rows.add(rowValues);
+        }
+        return rows;
+    }
+
+    private static class OperationLatency {
+        private final Histogram histogram = new ConcurrentHistogram(SIGNIFICANT_VALUE_DIGITS);
+        private final AtomicLong failedCount = new AtomicLong();
+
+        void record(long latencyInMicros, boolean failed) {
+            histogram.recordValue(latencyInMicros);
+            if (failed) {
+                failedCount.incrementAndGet();
+            }
+        }
+
+        List<ResultValue> getCsvRepresentation() {
+            List<ResultValue> rowValues = new ArrayList<>();
+            rowValues.add(new ResultValue(String.valueOf(histogram.getTotalCount())));
+            rowValues.add(new ResultValue(String.valueOf(failedCount.get())));
+            for (double percentile : PERCENTILES) {
+                rowValues.add(new ResultValue(
+                        toMillis(histogram.getValueAtPercentile(percentile))));
+            }
+            rowValues.add(new ResultValue(toMillis(histogram.getMaxValue())));
+            return rowValues;
+        }
+
+        private static String toMillis(long micros) {
+            return String.format("%.3f", micros / 1000.0);
+        }
+    }
+}
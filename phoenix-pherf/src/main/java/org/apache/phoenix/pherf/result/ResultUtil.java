@@ -75,6 +75,36 @@ public class ResultUtil {
         }
     }
 
+    /**
+     * Write the latency percentiles of the operations of a multi tenant workload
+     *
+     * @param scenarioName name of the scenario the operations belong to
+     * @param latencySummary {@link OperationLatencySummary}
+     * @throws IOException
+     */
+    public synchronized void write(String scenarioName, OperationLatencySummary latencySummary)
+            throws IOException {
+        ensureBaseResultDirExists();
+
+        CSVResultHandler writer = null;
+        ResultFileDetails resultFileDetails = ResultFileDetails.CSV_OPERATION_LATENCY;
+        try {
+            writer = new CSVFileResultHandler();
+            writer.setResultFileDetails(resultFileDetails);
+            writer.setResultFileName("Operation_Latency_" + scenarioName);
+
+            for (List<ResultValue> rowValues : latencySummary.getCsvRepresentation()) {
+                writer.write(new Result(resultFileDetails,
+                        resultFileDetails.getHeader().toString(), rowValues));
+            }
+        } finally {
+            if (writer != null) {
+                writer.flush();
+                writer.close();
+            }
+        }
+    }
+
     /**
      * Write data load time summary
      *
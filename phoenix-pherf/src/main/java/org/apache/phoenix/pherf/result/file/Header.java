@@ -29,7 +29,10 @@ public enum Header {
     DETAILED_FUNCTIONAL(DETAILED_BASE + ",DIFF_STATUS,EXPLAIN_PLAN"),
     AGGREGATE_DATA_LOAD("ZK,TABLE_NAME,ROW_COUNT,LOAD_DURATION_IN_MS"),
     THIN_AGGREGATE_DATA_LOAD("QUERYSERVER,TABLE_NAME,ROW_COUNT,LOAD_DURATION_IN_MS"),
-    MONITOR("STAT_NAME,STAT_VALUE,TIME_STAMP");
+    MONITOR("STAT_NAME,STAT_VALUE,TIME_STAMP"),
+    OPERATION_LATENCY(
+            "SCENARIO_NAME,TABLE_NAME,OPERATION_GROUP,TENANT_ID,OPERATION_COUNT,FAILED_COUNT"
+                    + ",P50_LATENCY_MS,P99_LATENCY_MS,P999_LATENCY_MS,MAX_LATENCY_MS");
 
     private String header;
 
@@ -26,6 +26,7 @@ public enum ResultFileDetails {
     CSV_AGGREGATE_DATA_LOAD(Header.AGGREGATE_DATA_LOAD, Extension.CSV),
     CSV_THIN_AGGREGATE_DATA_LOAD(Header.THIN_AGGREGATE_DATA_LOAD, Extension.CSV),
     CSV_MONITOR(Header.MONITOR, Extension.CSV),
+    CSV_OPERATION_LATENCY(Header.OPERATION_LATENCY, Extension.CSV),
     XML(Header.EMPTY, Extension.XML),
     IMAGE(Header.EMPTY, Extension.VISUALIZATION);
 
@@ -28,6 +28,8 @@ import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.hadoop.hbase.util.Threads;
 import org.apache.phoenix.pherf.configuration.DataModel;
 import org.apache.phoenix.pherf.configuration.Scenario;
+import org.apache.phoenix.pherf.result.OperationLatencySummary;
+import org.apache.phoenix.pherf.result.ResultUtil;
 import org.apache.phoenix.pherf.util.PhoenixUtil;
 import org.apache.phoenix.pherf.workload.mt.handlers.PherfWorkHandler;
 import org.apache.phoenix.pherf.workload.mt.operations.TenantOperationFactory;
@@ -41,6 +43,8 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A base class for all load event generators.
@@ -58,6 +62,7 @@ public abstract class BaseLoadEventGenerator
 
     protected final TenantOperationFactory operationFactory;
     protected final ExceptionHandler exceptionHandler;
+    protected final OperationLatencySummary latencySummary = new OperationLatencySummary();
 
 
     private static class WorkloadExceptionHandler implements ExceptionHandler {
@@ -80,7 +85,11 @@ public abstract class BaseLoadEventGenerator
     }
 
     public static class TenantOperationEvent {
+        public static final long NOT_SCHEDULED = Long.MIN_VALUE;
+
         TenantOperationInfo tenantOperationInfo;
+        // System.nanoTime() at which the operation was scheduled to start in the open loop mode
+        long scheduledStartTime = NOT_SCHEDULED;
 
         public TenantOperationInfo getTenantOperationInfo() {
             return tenantOperationInfo;
@@ -90,6 +99,14 @@ public abstract class BaseLoadEventGenerator
             this.tenantOperationInfo = tenantOperationInfo;
         }
 
+        public long getScheduledStartTime() {
+            return scheduledStartTime;
+        }
+
+        public void setScheduledStartTime(long scheduledStartTime) {
+            this.scheduledStartTime = scheduledStartTime;
+        }
+
         public static final EventFactory<TenantOperationEvent> EVENT_FACTORY = new EventFactory<TenantOperationEvent>() {
             public TenantOperationEvent newInstance() {
                 return new TenantOperationEvent();
@@ -165,14 +182,28 @@ public abstract class BaseLoadEventGenerator
         this.disruptor.handleEventsWithWorkerPool(this.handlers.toArray(new WorkHandler[] {}));
         RingBuffer<TenantOperationEvent> ringBuffer = this.disruptor.start();
         long numOperations = scenario.getLoadProfile().getNumOperations();
+        double operationsPerSecond = scenario.getLoadProfile().getTargetOperationsPerSecond();
+        long firstStartTime = System.nanoTime();
+        long numScheduledOperations = 0;
         while (numOperations > 0) {
             TenantOperationInfo sample = next();
             operationFactory.initializeTenant(sample);
             --numOperations;
+            long scheduledStartTime = TenantOperationEvent.NOT_SCHEDULED;
+            if (operationsPerSecond > 0) {
+                // Open loop, the schedule does not depend on how long the operations take
+                scheduledStartTime = firstStartTime + (long) (numScheduledOperations++
+                        * TimeUnit.SECONDS.toNanos(1) / operationsPerSecond);
+                long delay;
+                while ((delay = scheduledStartTime - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+            }
             // Publishers claim events in sequence
             long sequence = ringBuffer.next();
             TenantOperationEvent event = ringBuffer.get(sequence);
             event.setTenantOperationInfo(sample);
+            event.setScheduledStartTime(scheduledStartTime);
             // make the event available to EventProcessors
             ringBuffer.publish(sequence);
             LOGGER.info(String.format("published : %s:%s:%d, %d, %d",
@@ -186,6 +217,9 @@ public abstract class BaseLoadEventGenerator
         if (disruptor != null) {
             disruptor.shutdown();
         }
+        if (!latencySummary.isEmpty()) {
+            new ResultUtil().write(operationFactory.getScenario().getName(), latencySummary);
+        }
 
         // TODO need to handle asynchronous result publishing
     }
@@ -206,7 +240,8 @@ public abstract class BaseLoadEventGenerator
         List<PherfWorkHandler> workers = Lists.newArrayListWithCapacity(handlerCount);
         for (int i = 0; i < handlerCount; i++) {
             String handlerId = String.format("%s.%d", handlerName, i + 1);
-            workers.add(new TenantOperationWorkHandler(operationFactory, handlerId));
+            workers.add(new TenantOperationWorkHandler(operationFactory, handlerId,
+                    latencySummary));
         }
         return workers;
     }
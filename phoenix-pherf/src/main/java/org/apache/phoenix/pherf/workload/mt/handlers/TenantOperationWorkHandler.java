@@ -27,6 +27,7 @@ import org.apache.phoenix.thirdparty.com.google.common.base.Supplier;
 import com.lmax.disruptor.LifecycleAware;
 import com.lmax.disruptor.WorkHandler;
 import org.apache.phoenix.pherf.configuration.Scenario;
+import org.apache.phoenix.pherf.result.OperationLatencySummary;
 import org.apache.phoenix.pherf.result.ResultValue;
 import org.apache.phoenix.pherf.workload.mt.operations.OperationStats;
 import org.apache.phoenix.pherf.workload.mt.generators.BaseLoadEventGenerator.TenantOperationEvent;
@@ -48,21 +49,40 @@ public class TenantOperationWorkHandler implements PherfWorkHandler<TenantOperat
     private static final Logger LOGGER = LoggerFactory.getLogger(TenantOperationWorkHandler.class);
     private final String handlerId;
     private final TenantOperationFactory operationFactory;
+    private final OperationLatencySummary latencySummary;
 
     public TenantOperationWorkHandler(TenantOperationFactory operationFactory,
             String handlerId) {
+        this(operationFactory, handlerId, null);
+    }
+
+    /**
+     * @param latencySummary where the latencies of the operations are recorded, may be null
+     */
+    public TenantOperationWorkHandler(TenantOperationFactory operationFactory,
+            String handlerId, OperationLatencySummary latencySummary) {
         this.handlerId = handlerId;
         this.operationFactory = operationFactory;
+        this.latencySummary = latencySummary;
     }
 
     @Override
     public void onEvent(TenantOperationEvent event)
             throws Exception {
         TenantOperationInfo input = event.getTenantOperationInfo();
+        // In the open loop mode the latency includes the time the operation waited to be picked
+        // up, in the closed loop mode there was no schedule to fall behind of.
+        long startTime = event.getScheduledStartTime() != TenantOperationEvent.NOT_SCHEDULED
+                ? event.getScheduledStartTime() : System.nanoTime();
         Supplier<Function<TenantOperationInfo, OperationStats>> opSupplier =
                 operationFactory.getOperationSupplier(input);
         OperationStats stats = opSupplier.get().apply(input);
         stats.setHandlerId(handlerId);
+        if (latencySummary != null) {
+            latencySummary.record(input.getScenarioName(), input.getTableName(),
+                    input.getOperationGroupId(), input.getTenantId(),
+                    System.nanoTime() - startTime, stats.getStatus() != 0);
+        }
         // TODO need to handle asynchronous result publishing
         LOGGER.info(operationFactory.getPhoenixUtil().getGSON().toJson(stats));
     }
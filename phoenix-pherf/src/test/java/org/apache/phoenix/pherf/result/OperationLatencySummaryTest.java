@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.result;
+
+import org.apache.phoenix.pherf.result.file.Header;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OperationLatencySummaryTest {
+
+    private static String value(List<ResultValue> row, int index) {
+        return row.get(index).getResultValue().toString();
+    }
+
+    @Test
+    public void testPercentilesPerOperationGroupAndTenant() {
+        OperationLatencySummary summary = new OperationLatencySummary();
+        assertTrue(summary.isEmpty());
+        for (int i = 1; i <= 1000; i++) {
+            summary.record("scenario", "table", "queryOp", "tenant1",
+                    TimeUnit.MILLISECONDS.toNanos(i), false);
+        }
+        summary.record("scenario", "table", "queryOp", "tenant2",
+                TimeUnit.SECONDS.toNanos(10), true);
+
+        List<List<ResultValue>> rows = summary.getCsvRepresentation();
+        // one row over all the tenants of the group and one per tenant
+        assertEquals(3, rows.size());
+        List<ResultValue> allTenants = rows.get(0);
+        assertEquals(OperationLatencySummary.ALL_TENANTS, value(allTenants, 3));
+        assertEquals("1001", value(allTenants, 4));
+        assertEquals("1", value(allTenants, 5));
+
+        List<ResultValue> tenant1 = rows.get(1);
+        assertEquals("tenant1", value(tenant1, 3));
+        assertEquals("1000", value(tenant1, 4));
+        assertEquals("0", value(tenant1, 5));
+        assertEquals(500, Double.parseDouble(value(tenant1, 6)), 1);
+        assertEquals(990, Double.parseDouble(value(tenant1, 7)), 1);
+        assertEquals(999, Double.parseDouble(value(tenant1, 8)), 1);
+        assertEquals(1000, Double.parseDouble(value(tenant1, 9)), 1);
+
+        // the tail of the group is set by the slow operation of the other tenant
+        assertEquals(10000, Double.parseDouble(value(allTenants, 9)), 10);
+        assertEquals(Header.OPERATION_LATENCY.toString().split(",").length, tenant1.size());
+    }
+}